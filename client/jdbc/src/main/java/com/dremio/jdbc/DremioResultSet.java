@@ -19,6 +19,7 @@ import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import org.apache.arrow.vector.VectorSchemaRoot;
 
 /**
  * Dremio-specific {@link ResultSet}.
@@ -34,6 +35,24 @@ public interface DremioResultSet extends ResultSet  {
    */
   String getQueryId() throws SQLException;
 
+  /**
+   * Gets the rows of the current batch of results not read yet, or the rows of
+   * the next batch if all rows of the current batch were read, as Arrow
+   * vectors. The cursor is positioned on the last of the returned rows.
+   * <p>
+   *   Rows are handed over as received from the server, without converting
+   *   values to Java objects, which is much faster than reading large results
+   *   row by row. Column values of the current row can't be accessed until
+   *   {@link #next()} is called again. The batches sent by the server can be
+   *   made larger by setting the {@code exec.screen.coalesce_records} option.
+   * </p>
+   *
+   * @return  the rows, or {@code null} if there are no more rows. Must be
+   *          closed by the caller, before the connection is closed.
+   * @throws  SQLException  if this method is called on a closed result set
+   */
+  VectorSchemaRoot nextBatch() throws SQLException;
+
   /**
    * {@inheritDoc}
    * <p>
@@ -27,6 +27,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.util.TransferPair;
 import org.apache.calcite.avatica.AvaticaStatement;
 import org.apache.calcite.avatica.ColumnMetaData;
 import org.apache.calcite.avatica.Meta;
@@ -46,6 +51,7 @@ import com.dremio.exec.proto.UserProtos.PreparedStatement;
 import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.RecordBatchLoader;
+import com.dremio.exec.record.VectorWrapper;
 import com.dremio.exec.rpc.ConnectionThrottle;
 import com.dremio.exec.store.ischema.InfoSchemaConstants;
 import com.dremio.jdbc.SchemaChangeListener;
@@ -289,6 +295,7 @@ class DremioCursor implements Cursor {
   private static final String UNKNOWN_NAME_STRING = "";
 
   private final DremioConnectionImpl connection;
+  private final BufferAllocator allocator;
   private final AvaticaStatement statement;
   private final Meta.Signature signature;
 
@@ -352,7 +359,8 @@ class DremioCursor implements Cursor {
         client.getConfig().getInt(
             ExecConstants.JDBC_BATCH_QUEUE_THROTTLING_THRESHOLD );
     resultsListener = new ResultsListener(batchQueueThrottlingThreshold);
-    currentBatchHolder = new RecordBatchLoader(client.getRecordAllocator());
+    allocator = client.getRecordAllocator();
+    currentBatchHolder = new RecordBatchLoader(allocator);
   }
 
   protected int getCurrentRecordNumber() {
@@ -629,6 +637,63 @@ class DremioCursor implements Cursor {
     }
   }
 
+  /**
+   * Hands over the rows of the current batch not read yet, or the rows of the
+   * next batch if all rows of the current batch were read, and positions this
+   * cursor on the last of them.
+   * <p>
+   *   Rows are handed over without being converted, and without being copied
+   *   when the whole batch is handed over. The current row can't be accessed
+   *   until {@link #next()} is called again.
+   * </p>
+   *
+   * @return  the rows, to be closed by the caller, or null when after end of
+   *   results
+   */
+  VectorSchemaRoot nextBatch() throws SQLException {
+    if ( ! initialSchemaLoaded ) {
+      throw new IllegalStateException(
+          "nextBatch() called but loadInitialSchema() was not called" );
+    }
+    if ( afterLastRow ) {
+      return null;
+    }
+
+    // Offset of the first record not read yet.
+    int start = returnTrueForNextCallToNext
+        ? currentRecordNumber : currentRecordNumber + 1;
+    returnTrueForNextCallToNext = false;
+    accessors.clearLastColumnIndexedInRow();
+    while ( start >= currentBatchHolder.getRecordCount() ) {
+      // Current batch was read--load next one.
+      currentRecordNumber = currentBatchHolder.getRecordCount() - 1;
+      if ( ! nextRowInternally() ) {
+        return null;
+      }
+      start = 0;
+    }
+
+    final int count = currentBatchHolder.getRecordCount() - start;
+    final List<Field> fields = new ArrayList<>();
+    final List<FieldVector> vectors = new ArrayList<>();
+    for ( VectorWrapper<?> wrapper : currentBatchHolder ) {
+      final TransferPair transfer =
+          wrapper.getValueVector().getTransferPair( allocator );
+      if ( start == 0 ) {
+        transfer.transfer();
+      } else {
+        transfer.splitAndTransfer( start, count );
+      }
+      final FieldVector vector = (FieldVector) transfer.getTo();
+      fields.add( vector.getField() );
+      vectors.add( vector );
+    }
+
+    currentRowNumber += count;
+    currentRecordNumber = currentBatchHolder.getRecordCount() - 1;
+    return new VectorSchemaRoot( fields, vectors, count );
+  }
+
   public void cancel() {
     close();
   }
@@ -238,6 +238,7 @@ public class DACDaemonModule implements DACModule {
             dacConfig.autoPort,
             sabotConfig.getInt(RpcConstants.BIT_RPC_TIMEOUT),
             sabotConfig.getInt(ExecConstants.BIT_SERVER_RPC_THREADS),
+            sabotConfig.getInt(ExecConstants.BIT_SERVER_RPC_CHANNELS),
             bootstrap.getExecutor(),
             bootstrap.getAllocator(),
             config.getBytes(DremioConfig.FABRIC_MEMORY_RESERVATION),
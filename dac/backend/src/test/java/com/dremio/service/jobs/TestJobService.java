@@ -520,6 +520,58 @@ public class TestJobService extends BaseTestServer {
     context.getOptionManager().setOption(OptionValue.createLong(OptionType.SYSTEM, ExecConstants.DEBUG_RESULTS_MAX_AGE_IN_MILLISECONDS.getOptionName(), 0));
   }
 
+  @Test
+  public void testCachedResultsCleanup() throws Exception {
+    populateInitialData();
+    SabotContext context = l(SabotContext.class);
+    context.getOptionManager().setOption(
+        OptionValue.createBoolean(OptionType.SYSTEM, QueryResultCache.ENABLED.getOptionName(), true));
+    try {
+      final JobRequest request = JobRequest.newBuilder()
+          .setSqlQuery(getQueryFromSQL("select * from LocalFS1.\"dac-sample1.json\""))
+          .setQueryType(QueryType.REST)
+          .build();
+      final Job source = jobsService.submitJob(request, NoOpJobStatusListener.INSTANCE);
+      source.getData().loadIfNecessary();
+
+      Thread.sleep(1000);
+      final Job cached = jobsService.submitJob(request, NoOpJobStatusListener.INSTANCE);
+      assertEquals(source.getJobId(), cached.getJobAttempt().getInfo().getResultsJobId());
+
+      // only the source job is older than the cutoff
+      final long sourceEnd = source.getJobAttempt().getInfo().getFinishTime();
+      final long cachedEnd = cached.getJobAttempt().getInfo().getFinishTime();
+      context.getOptionManager().setOption(OptionValue.createLong(OptionType.SYSTEM,
+          ExecConstants.RESULTS_MAX_AGE_IN_DAYS.getOptionName(), 0));
+      context.getOptionManager().setOption(OptionValue.createLong(OptionType.SYSTEM,
+          ExecConstants.DEBUG_RESULTS_MAX_AGE_IN_MILLISECONDS.getOptionName(),
+          System.currentTimeMillis() - (sourceEnd + cachedEnd) / 2));
+      jobsService.new CleanupTask().cleanup();
+
+      // the results are kept for the job served from the cache
+      assertTrue(jobsService.getJobResultsStore().jobOutputDirectoryExists(source.getJobId()));
+      try (JobDataFragment sourceData = source.getData().truncate(500);
+           JobDataFragment cachedData = jobsService.getJob(cached.getJobId()).getData().truncate(500)) {
+        assertTrue(cachedData.getReturnedRowCount() > 0);
+        assertEquals(sourceData.getReturnedRowCount(), cachedData.getReturnedRowCount());
+      }
+
+      // once both jobs are old, the results are cleaned up
+      context.getOptionManager().setOption(OptionValue.createLong(OptionType.SYSTEM,
+          ExecConstants.DEBUG_RESULTS_MAX_AGE_IN_MILLISECONDS.getOptionName(), 10));
+      Thread.sleep(20);
+      jobsService.new CleanupTask().cleanup();
+      assertFalse(jobsService.getJobResultsStore().jobOutputDirectoryExists(source.getJobId()));
+    } finally {
+      context.getOptionManager().setOption(
+          OptionValue.createBoolean(OptionType.SYSTEM, QueryResultCache.ENABLED.getOptionName(), false));
+      context.getOptionManager().setOption(OptionValue.createLong(OptionType.SYSTEM,
+          ExecConstants.RESULTS_MAX_AGE_IN_DAYS.getOptionName(), 30));
+      context.getOptionManager().setOption(OptionValue.createLong(OptionType.SYSTEM,
+          ExecConstants.DEBUG_RESULTS_MAX_AGE_IN_MILLISECONDS.getOptionName(), 0));
+    }
+  }
+
   @Test
   public void testSingleFailedAttempt() throws Exception {
     final String attemptId = AttemptIdUtils.toString(new AttemptId());
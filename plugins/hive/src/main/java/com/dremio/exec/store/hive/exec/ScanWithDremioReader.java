@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.JobConf;
@@ -36,9 +37,9 @@ import com.dremio.exec.store.dfs.FileSystemWrapper;
 import com.dremio.exec.store.dfs.implicit.CompositeReaderConfig;
 import com.dremio.exec.store.hive.HiveUtilities;
 import com.dremio.exec.store.parquet.ParquetFilterCondition;
+import com.dremio.exec.store.parquet.ParquetFooterCache;
 import com.dremio.exec.store.parquet.ParquetReaderFactory;
 import com.dremio.exec.store.parquet.ParquetScanFilter;
-import com.dremio.exec.store.parquet.SingletonParquetFooterCache;
 import com.dremio.exec.store.parquet.UnifiedParquetReader;
 import com.dremio.exec.util.ImpersonationUtil;
 import com.dremio.hive.proto.HiveReaderProto.HiveSplitXattr;
@@ -85,7 +86,7 @@ class ScanWithDremioReader {
     try {
       final UserGroupInformation currentUGI = UserGroupInformation.getCurrentUser();
       final List<HiveParquetSplit> sortedSplits = Lists.newArrayList();
-      final SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache();
+      final ParquetFooterCache footerCache = ParquetFooterCache.getInstance(context.getConfig());
 
       for (DatasetSplit split : config.getSplits()) {
         sortedSplits.add(new HiveParquetSplit(split));
@@ -116,6 +117,7 @@ class ScanWithDremioReader {
 
               final RecordReader innerReader;
               try (FSDataInputStream is = fs.open(split.fileSplit.getPath())) {
+                final FileStatus status = fs.getFileStatus(split.fileSplit.getPath());
                 innerReader = new FileSplitParquetRecordReader(
                     context,
                     readerFactory,
@@ -123,7 +125,7 @@ class ScanWithDremioReader {
                     compositeReader.getInnerColumns(),
                     conditions,
                     split.getFileSplit(),
-                    footerCache.getFooter(is, split.fileSplit.getPath().toString(), -1, fs),
+                    footerCache.getFooter(is, split.fileSplit.getPath().toString(), status.getLen(), status.getModificationTime(), fs),
                     jobConf,
                     vectorize,
                     config.getSchema(),
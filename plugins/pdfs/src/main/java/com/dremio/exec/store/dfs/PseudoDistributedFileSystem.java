@@ -234,7 +234,9 @@ public class PseudoDistributedFileSystem extends FileSystem implements PathCanon
    */
   @VisibleForTesting
   FileSystem newRemoteFileSystem(final NodeEndpoint endpoint) throws IOException {
-    final FabricCommandRunner runner = runnerFactory.getCommandRunner(endpoint.getAddress(), endpoint.getFabricPort());
+    // file transfers are bulk data, keep them off the control channel
+    final FabricCommandRunner runner = runnerFactory.getCommandRunner(endpoint.getAddress(), endpoint.getFabricPort(),
+        endpoint.hashCode());
     RemoteNodeFileSystem rdfs = new RemoteNodeFileSystem(runner, allocator);
     rdfs.initialize(URI.create(format("sabot://%s:%d", endpoint.getAddress(), endpoint.getFabricPort())), getConf());
 
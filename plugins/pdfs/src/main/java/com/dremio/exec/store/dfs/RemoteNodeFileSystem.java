@@ -20,8 +20,10 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -52,6 +54,7 @@ import com.dremio.exec.server.SabotContext;
 import com.dremio.services.fabric.ProxyConnection;
 import com.dremio.services.fabric.api.FabricCommandRunner;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.Internal.EnumLite;
 import com.google.protobuf.MessageLite;
 
@@ -76,6 +79,9 @@ class RemoteNodeFileSystem extends FileSystem {
   static final String REMOTE_WRITE_BUFFER_SIZE_KEY = "dremio.pdfs.remote.buffer-size";
   static final int REMOTE_WRITE_BUFFER_SIZE_DEFAULT = 128*1024;
 
+  static final String READ_AHEAD_CHUNKS_KEY = "dremio.pdfs.remote.read-ahead.chunks";
+  static final int READ_AHEAD_CHUNKS_DEFAULT = 4;
+
   static final String RPC_TIMEOUT_KEY = "dremio.pdfs.remote.rpc.timeout.ms";
   static final long RPC_TIMEOUT_MS_DEFAULT = 5000;
 
@@ -264,6 +270,7 @@ class RemoteNodeFileSystem extends FileSystem {
   private int listStatusBatchSize = LIST_STATUS_BATCH_SIZE_DEFAULT;
   private int writeBufferSize = REMOTE_WRITE_BUFFER_SIZE_DEFAULT;
   private long rpcTimeoutMs = RPC_TIMEOUT_MS_DEFAULT;
+  private int readAheadChunks = READ_AHEAD_CHUNKS_DEFAULT;
 
   public RemoteNodeFileSystem(FabricCommandRunner runner, BufferAllocator allocator) {
     this.runner = runner;
@@ -282,6 +289,7 @@ class RemoteNodeFileSystem extends FileSystem {
     listStatusBatchSize = conf.getInt(LIST_STATUS_BATCH_SIZE_KEY, LIST_STATUS_BATCH_SIZE_DEFAULT);
     writeBufferSize = conf.getInt(REMOTE_WRITE_BUFFER_SIZE_KEY, REMOTE_WRITE_BUFFER_SIZE_DEFAULT);
     rpcTimeoutMs = conf.getTimeDuration(RPC_TIMEOUT_KEY, RPC_TIMEOUT_MS_DEFAULT, TimeUnit.MILLISECONDS);
+    readAheadChunks = Math.max(0, conf.getInt(READ_AHEAD_CHUNKS_KEY, READ_AHEAD_CHUNKS_DEFAULT));
   }
 
   private Path toAbsolutePath(Path p) {
@@ -299,10 +307,60 @@ class RemoteNodeFileSystem extends FileSystem {
 
   private static final ByteBuf EMPTY_BUFFER = Unpooled.unreleasableBuffer(Unpooled.EMPTY_BUFFER);
 
+  /**
+   * A chunk of a remote file, requested but not consumed yet.
+   */
+  private final class PendingChunk {
+    private final long offset;
+    private final RpcFuture<DFS.GetFileDataResponse> future;
+
+    private PendingChunk(String path, long offset, int length) {
+      final GetFileDataCommand command = new GetFileDataCommand(path, offset, length);
+      runner.runCommand(command);
+
+      this.offset = offset;
+      this.future = command.getFuture();
+    }
+
+    private DFS.GetFileDataResponse get() throws IOException {
+      try {
+        return future.checkedGet(rpcTimeoutMs, TimeUnit.MILLISECONDS);
+      } catch(TimeoutException e) {
+        // the response might still arrive later
+        discard();
+        throw new IOException("Timeout occured during I/O request for " + uri, e);
+      } catch(RpcException e) {
+        RpcException.propagateIfPossible(e, IOException.class);
+
+        throw e;
+      }
+    }
+
+    /**
+     * Releases the data of the chunk once received, without waiting for it.
+     */
+    private void discard() {
+      future.addListener(new Runnable() {
+        @Override
+        public void run() {
+          final ByteBuf buffer = future.getBuffer();
+          if (buffer != null) {
+            buffer.release();
+          }
+        }
+      }, MoreExecutors.directExecutor());
+    }
+  }
+
   private final class RemoteNodeInputStream extends FSInputStream {
     private final String path;
     private final int buffersize;
 
+    // chunks requested ahead of the current chunk, ordered by offset
+    private final Deque<PendingChunk> readAhead = new ArrayDeque<>();
+    // offset of the chunk following the last one received if it was complete, -1 otherwise
+    private long nextChunkOffset = -1;
+
     private long pos = 0;
     private boolean closed = false;
     private boolean eof = false;
@@ -337,6 +395,7 @@ class RemoteNodeFileSystem extends FileSystem {
 
       super.close();
 
+      discardReadAhead();
       in.close();
       buf.release();
     }
@@ -402,29 +461,61 @@ class RemoteNodeFileSystem extends FileSystem {
       }
     }
 
+    private void discardReadAhead() {
+      while (!readAhead.isEmpty()) {
+        readAhead.removeFirst().discard();
+      }
+    }
+
     private void getData() throws IOException {
       // Free previous resources
       in.close();
       buf.release();
+      buf = EMPTY_BUFFER;
+      in = new ByteBufInputStream(buf);
+
+      PendingChunk chunk = readAhead.peekFirst();
+      if (chunk != null && chunk.offset == pos) {
+        readAhead.removeFirst();
+      } else {
+        // random access (or first read), previous read ahead is useless
+        discardReadAhead();
+        chunk = new PendingChunk(path, pos, buffersize);
+      }
+      final boolean sequential = chunk.offset == nextChunkOffset;
 
-      final GetFileDataCommand command = new GetFileDataCommand(path, pos, buffersize);
-      runner.runCommand(command);
-
-      RpcFuture<DFS.GetFileDataResponse> future = command.getFuture();
+      final DFS.GetFileDataResponse response;
       try {
-        DFS.GetFileDataResponse response = future.checkedGet(rpcTimeoutMs, TimeUnit.MILLISECONDS);
-        eof = (response.getRead() == -1);
-        buf = future.getBuffer();
-        if (buf == null) {
-          buf = EMPTY_BUFFER;
-        }
+        response = chunk.get();
+      } catch (IOException e) {
+        discardReadAhead();
+        nextChunkOffset = -1;
+        throw e;
+      }
+
+      eof = (response.getRead() == -1);
+      final ByteBuf data = chunk.future.getBuffer();
+      if (data != null) {
+        // the received buffer is handed to the reader as is
+        buf = data;
         in = new ByteBufInputStream(buf);
-      } catch(TimeoutException e) {
-        throw new IOException("Timeout occured during I/O request for " + uri, e);
-      } catch(RpcException e) {
-        RpcException.propagateIfPossible(e, IOException.class);
+      }
 
-        throw e;
+      if (response.getRead() != buffersize) {
+        // end of file, or short read: offsets of the chunks requested ahead don't match anymore
+        discardReadAhead();
+        nextChunkOffset = -1;
+        return;
+      }
+
+      nextChunkOffset = chunk.offset + buffersize;
+      if (sequential) {
+        // keep readAheadChunks requests in flight while the file is read sequentially
+        long offset = readAhead.isEmpty() ? nextChunkOffset : readAhead.peekLast().offset + buffersize;
+        while (readAhead.size() < readAheadChunks) {
+          readAhead.addLast(new PendingChunk(path, offset, buffersize));
+          offset += buffersize;
+        }
       }
     }
   }
@@ -24,10 +24,13 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -624,4 +627,45 @@ public class TestRemoteNodeFileSystem extends ExecTest {
       assertEquals((byte)i, readBuf[i]);
     }
   }
+
+  @Test
+  public void testInputStreamReadAhead() throws Exception {
+    Path filePath = new Path("/foo/bar");
+    byte[] data = new byte[30];
+    for (int i = 0; i < 30; ++i) {
+      data[i] = (byte)i;
+    }
+
+    // chunks 20 and 30 are requested ahead once chunk 10 shows a sequential read, then chunk 40 when chunk 20 is
+    // consumed. Any other request fails the test.
+    List<MessageLite> requests = new ArrayList<>();
+    List<MessageLite> responses = new ArrayList<>();
+    List<ByteBuf> buffers = new ArrayList<>();
+    for (int offset = 0; offset <= 40; offset += 10) {
+      requests.add(DFS.GetFileDataRequest.newBuilder().setPath(filePath.toString()).setStart(offset).setLength(10).build());
+      if (offset < 30) {
+        responses.add(DFS.GetFileDataResponse.newBuilder().setRead(10).build());
+        buffers.add(Unpooled.wrappedBuffer(data, offset, 10));
+      } else {
+        responses.add(DFS.GetFileDataResponse.newBuilder().setRead(-1).build());
+        buffers.add(null);
+      }
+    }
+    setupRPC(DFS.RpcType.GET_FILE_DATA_REQUEST, requests, DFS.RpcType.GET_FILE_DATA_RESPONSE, responses, buffers);
+
+    final Configuration configuration = new Configuration(false);
+    configuration.setTimeDuration(RemoteNodeFileSystem.RPC_TIMEOUT_KEY, TEST_RPC_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    configuration.setInt(RemoteNodeFileSystem.READ_AHEAD_CHUNKS_KEY, 2);
+    FileSystem fs = newRemoteNodeFileSystem(configuration);
+
+    byte[] readBuf = new byte[100];
+    try (FSDataInputStream inputStream = fs.open(filePath, 10)) {
+      assertEquals(30, inputStream.read(readBuf, 0, 100));
+      assertEquals(-1, inputStream.read());
+    }
+    for (int i = 0; i < 30; ++i) {
+      assertEquals((byte)i, readBuf[i]);
+    }
+    verify(runner, times(5)).runCommand(any(RpcCommand.class));
+  }
 }
@@ -16,6 +16,7 @@
 package com.dremio.exec;
 
 import com.dremio.exec.proto.CoordExecRPC.FragmentCodec;
+import com.dremio.exec.proto.ExecRPC.BatchCodec;
 import com.dremio.exec.testing.ExecutionControls;
 import com.dremio.options.OptionValidator;
 import com.dremio.options.Options;
@@ -44,6 +45,7 @@ public interface ExecConstants {
   String USER_RPC_TIMEOUT = "dremio.exec.rpc.user.timeout";
   String CLIENT_RPC_THREADS = "dremio.exec.rpc.user.client.threads";
   String BIT_SERVER_RPC_THREADS = "dremio.exec.rpc.bit.server.threads";
+  String BIT_SERVER_RPC_CHANNELS = "dremio.exec.rpc.bit.server.channels";
   String USER_SERVER_RPC_THREADS = "dremio.exec.rpc.user.server.threads";
   String REGISTRATION_ADDRESS = "dremio.exec.rpc.publishedhost";
 
@@ -93,6 +95,8 @@ public interface ExecConstants {
   PositiveLongValidator BATCH_LIST_SIZE_ESTIMATE = new PositiveLongValidator("exec.batch.field.list.size-estimate", Integer.MAX_VALUE, 5);
   PositiveLongValidator BATCH_VARIABLE_FIELD_SIZE_ESTIMATE =
       new PositiveLongValidator("exec.batch.field.variable-width.size-estimate", Integer.MAX_VALUE, 15);
+  // minimum number of records in the batches sent to clients, smaller batches are coalesced. 0 disables coalescing.
+  LongValidator SCREEN_COALESCE_RECORDS = new RangeLongValidator("exec.screen.coalesce_records", 0, Character.MAX_VALUE, 0);
   PositiveLongValidator OUTPUT_ALLOCATOR_RESERVATION = new PositiveLongValidator("exec.batch.output.alloc.reservation", Integer.MAX_VALUE, 512 * 1024);
 
   String OPERATOR_TARGET_BATCH_BYTES = "dremio.exec.operator_batch_bytes";
@@ -107,6 +111,67 @@ public interface ExecConstants {
   BooleanValidator ENABLE_VECTORIZED_PARTITIONER = new BooleanValidator("exec.operator.partitioner.vectorize", true);
   BooleanValidator DEBUG_HASHJOIN_INSERTION = new BooleanValidator("exec.operator.join.debug-insertion", false);
 
+  /**
+   * Enables spilling of the vectorized hash aggregation. Once the operator uses more than the given ratio of its
+   * memory limit, the content of the hash table is hash partitioned and spilled, and each spilled partition is
+   * re-aggregated separately once all the input has been consumed. A ratio of 0 spills before every batch.
+   */
+  BooleanValidator VECTORIZED_HASHAGG_SPILL_ENABLE = new BooleanValidator("exec.operator.aggregate.vectorize.spill.enable", false);
+  PowerOfTwoLongValidator VECTORIZED_HASHAGG_SPILL_PARTITIONS = new PowerOfTwoLongValidator("exec.operator.aggregate.vectorize.spill.partitions", 256, 16);
+  DoubleValidator VECTORIZED_HASHAGG_SPILL_MEMORY_RATIO = new RangeDoubleValidator("exec.operator.aggregate.vectorize.spill.memory_ratio", 0.0, 1.0, 0.75);
+  PositiveLongValidator VECTORIZED_HASHAGG_SPILL_MAX_DEPTH = new PositiveLongValidator("exec.operator.aggregate.vectorize.spill.max_depth", 16, 4);
+
+  /**
+   * Enables the hybrid mode of the vectorized hash join. Build batches are hash partitioned and, once the operator
+   * uses more than the given ratio of its memory limit, the largest partitions are spilled along with the matching
+   * probe records, and joined one by one once the probe side is consumed. The ratio leaves room for the hash tables
+   * of the resident partitions, which are built once the build side is consumed.
+   */
+  BooleanValidator VECTORIZED_HASHJOIN_SPILL_ENABLE = new BooleanValidator("exec.operator.join.vectorize.spill.enable", false);
+  PowerOfTwoLongValidator VECTORIZED_HASHJOIN_SPILL_PARTITIONS = new PowerOfTwoLongValidator("exec.operator.join.vectorize.spill.partitions", 256, 16);
+  DoubleValidator VECTORIZED_HASHJOIN_SPILL_MEMORY_RATIO = new RangeDoubleValidator("exec.operator.join.vectorize.spill.memory_ratio", 0.0, 1.0, 0.5);
+  PositiveLongValidator VECTORIZED_HASHJOIN_SPILL_MAX_DEPTH = new PositiveLongValidator("exec.operator.join.vectorize.spill.max_depth", 16, 4);
+
+  /**
+   * Enables spilling of the range join. Once the operator uses more than the given ratio of its memory limit, the
+   * build records already indexed stay in memory and the remaining ones are spilled in chunks of the same size. The
+   * probe records are spilled as well, and joined with each chunk once the probe side is consumed.
+   */
+  BooleanValidator RANGE_JOIN_SPILL_ENABLE = new BooleanValidator("exec.operator.join.range.spill.enable", false);
+  DoubleValidator RANGE_JOIN_SPILL_MEMORY_RATIO = new RangeDoubleValidator("exec.operator.join.range.spill.memory_ratio", 0.0, 1.0, 0.5);
+
+  /**
+   * Enables spilling of the window operator. Once the operator uses more than the given ratio of its memory limit, the
+   * batches it buffers to reach the end of a partition or frame are spilled, except the first two and the last one,
+   * and read back as the operator moves through the partition.
+   */
+  BooleanValidator WINDOW_SPILL_ENABLE = new BooleanValidator("exec.operator.window.spill.enable", false);
+  DoubleValidator WINDOW_SPILL_MEMORY_RATIO = new RangeDoubleValidator("exec.operator.window.spill.memory_ratio", 0.0, 1.0, 0.75);
+
+  /**
+   * Enables the node memory arbiter. Once the memory allocated on the node goes above the spill ratio of its limit,
+   * the operators able to spill are asked to release memory, largest first, until the allocated memory is expected to
+   * go back under the target ratio.
+   */
+  BooleanValidator MEMORY_ARBITER_ENABLE = new BooleanValidator("exec.memory.arbiter.enable", false);
+  DoubleValidator MEMORY_ARBITER_SPILL_RATIO = new RangeDoubleValidator("exec.memory.arbiter.spill_ratio", 0.0, 1.0, 0.9);
+  DoubleValidator MEMORY_ARBITER_TARGET_RATIO = new RangeDoubleValidator("exec.memory.arbiter.target_ratio", 0.0, 1.0, 0.75);
+
+  /**
+   * Enables runtime filters. Once the vectorized hash join consumed its build side, it sends a bloom filter and, for
+   * integral keys, the range of its keys to the scans producing the probe side, which drop the records that can't
+   * match before sending them. Filters larger than the given size are dropped, only keeping the range of the keys.
+   */
+  BooleanValidator RUNTIME_FILTER_ENABLE = new BooleanValidator("exec.operator.join.runtime_filter.enable", false);
+  PowerOfTwoLongValidator RUNTIME_FILTER_MAX_BLOOM_FILTER_BYTES = new PowerOfTwoLongValidator("exec.operator.join.runtime_filter.max_bloom_filter_bytes", 16 * 1024 * 1024, 1024 * 1024);
+
+  /**
+   * Compression of the batches sent by exchanges. Senders stop compressing for a while whenever a batch doesn't shrink
+   * below the given ratio of its size, so incompressible streams only pay for the occasional attempt.
+   */
+  EnumValidator<BatchCodec> EXCHANGE_CODEC = new EnumValidator<>("exec.operator.exchange.codec", BatchCodec.class, BatchCodec.NONE);
+  DoubleValidator EXCHANGE_CODEC_MAX_RATIO = new RangeDoubleValidator("exec.operator.exchange.codec.max_ratio", 0.0, 1.0, 0.9);
+
   String OUTPUT_FORMAT_OPTION = "store.format";
   OptionValidator OUTPUT_FORMAT_VALIDATOR = new StringValidator(OUTPUT_FORMAT_OPTION, "parquet");
 
@@ -359,5 +424,15 @@ public interface ExecConstants {
 
   PositiveLongValidator EXTERNAL_SORT_BATCHSIZE_MULTIPLIER = new PositiveLongValidator("exec.operator.sort.external.batchsize_multiplier", Character.MAX_VALUE, 2);
 
+  /**
+   * Number of threads of the slicing task pool. 0 means one thread per core.
+   */
+  LongValidator SLICING_THREAD_COUNT = new RangeLongValidator("exec.slicing.thread.count", 0, 1024, 0);
+
+  /**
+   * Time slice (in milliseconds) a task runs for before the slicing task pool schedules another task on its thread.
+   */
+  PositiveLongValidator SLICING_SLICE_MILLIS = new PositiveLongValidator("exec.slicing.slice.millis", 10000, 100);
+
   LongValidator VOTING_SCHEDULE = new PositiveLongValidator("vote.schedule.millis", Long.MAX_VALUE, 0);
 }
@@ -40,4 +40,10 @@ public interface CatalogOptions {
   // When metadata impacting configuration parameter is changed, if old metadata should be kept
   BooleanValidator STORAGE_PLUGIN_KEEP_METADATA_ON_REPLACE =
       new BooleanValidator("store.plugin.keep_metadata_on_replace", false);
+
+  // Maximum number of datasets of a source checked concurrently by a full metadata refresh
+  LongValidator METADATA_REFRESH_PARALLELISM = new PositiveLongValidator("store.metadata.refresh.parallelism", 64, 4);
+
+  // Number of datasets checked by a full metadata refresh between two saves of its progress
+  LongValidator METADATA_REFRESH_BATCH_SIZE = new PositiveLongValidator("store.metadata.refresh.batch_size", 100_000, 100);
 }
@@ -16,7 +16,6 @@
 package com.dremio.exec.catalog;
 
 
-import java.util.Map.Entry;
 import java.util.Objects;
 
 import com.dremio.datastore.IndexedStore.FindByCondition;
@@ -24,6 +23,7 @@ import com.dremio.datastore.KVStore.FindByRange;
 import com.dremio.datastore.SearchQueryUtils;
 import com.dremio.datastore.SearchTypes.SearchQuery;
 import com.dremio.exec.store.SplitsPointer;
+import com.dremio.service.namespace.DatasetSplitChunks;
 import com.dremio.service.namespace.DatasetSplitId;
 import com.dremio.service.namespace.NamespaceService;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
@@ -31,6 +31,7 @@ import com.dremio.service.namespace.dataset.proto.DatasetSplit;
 import com.dremio.service.namespace.dataset.proto.ReadDefinition;
 import com.dremio.service.namespace.proto.EntityId;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
 
 /**
  * Pointer to a set of splits for a given dataset config/split version.
@@ -42,13 +43,17 @@ public final class DatasetSplitsPointer extends LazySplitsPointer {
   private final long splitVersion;
 
   private final int splitsCount;
+  // null if the splits of this version are not stored in chunks
+  private final DatasetSplitChunks splitChunks;
 
-  private DatasetSplitsPointer(NamespaceService namespaceService, EntityId datasetId, long splitVersion, int splitsCount) {
+  private DatasetSplitsPointer(NamespaceService namespaceService, EntityId datasetId, long splitVersion, int splitsCount,
+      DatasetSplitChunks splitChunks) {
     super(namespaceService, splitsCount);
     this.datasetId = datasetId;
     this.splitVersion = splitVersion;
 
     this.splitsCount = splitsCount;
+    this.splitChunks = splitChunks;
   }
 
   public static SplitsPointer of(NamespaceService namespaceService, DatasetConfig datasetConfig) {
@@ -56,8 +61,12 @@ public final class DatasetSplitsPointer extends LazySplitsPointer {
     final ReadDefinition readDefinition = Preconditions.checkNotNull(datasetConfig.getReadDefinition());
     final long splitVersion = readDefinition.getSplitVersion();
 
-    int splitsCount = namespaceService.getSplitCount(new FindByCondition().setCondition(DatasetSplitId.getSplitsQuery(datasetConfig)));
-    return new DatasetSplitsPointer(namespaceService, datasetId, splitVersion, splitsCount);
+    // chunks give the split count without searching the splits index
+    final DatasetSplitChunks splitChunks = namespaceService.getSplitChunks(datasetId, splitVersion);
+    final int splitsCount = splitChunks != null
+        ? splitChunks.getSplitCount()
+        : namespaceService.getSplitCount(new FindByCondition().setCondition(DatasetSplitId.getSplitsQuery(datasetConfig)));
+    return new DatasetSplitsPointer(namespaceService, datasetId, splitVersion, splitsCount, splitChunks);
   }
 
   @Override
@@ -68,9 +77,13 @@ public final class DatasetSplitsPointer extends LazySplitsPointer {
   }
 
   @Override
-  protected Iterable<Entry<DatasetSplitId, DatasetSplit>> findSplits() {
+  protected Iterable<DatasetSplit> findSplits() {
+    if (splitChunks != null) {
+      return splitChunks;
+    }
+
     FindByRange<DatasetSplitId> filter = DatasetSplitId.getSplitsRange(datasetId, splitVersion);
-    return getNamespaceService().findSplits(filter);
+    return Iterables.transform(getNamespaceService().findSplits(filter), SPLIT_VALUES);
   }
 
   @Override
@@ -16,15 +16,14 @@
 package com.dremio.exec.catalog;
 
 
-import java.util.Map.Entry;
 import java.util.Objects;
 
 import com.dremio.datastore.IndexedStore.FindByCondition;
 import com.dremio.datastore.SearchQueryUtils;
 import com.dremio.datastore.SearchTypes.SearchQuery;
-import com.dremio.service.namespace.DatasetSplitId;
 import com.dremio.service.namespace.NamespaceService;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.google.common.collect.Iterables;
 
 /**
  * Pointer to a set of splits for a dataset, which has been filtered further using a search query.
@@ -47,8 +46,8 @@ final class FilteredSplitsPointer extends LazySplitsPointer {
   }
 
   @Override
-  protected Iterable<Entry<DatasetSplitId, DatasetSplit>> findSplits() {
-    return getNamespaceService().findSplits(splitFilter);
+  protected Iterable<DatasetSplit> findSplits() {
+    return Iterables.transform(getNamespaceService().findSplits(splitFilter), SPLIT_VALUES);
   }
 
   @Override
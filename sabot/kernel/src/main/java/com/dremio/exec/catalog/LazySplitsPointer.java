@@ -17,17 +17,14 @@ package com.dremio.exec.catalog;
 
 
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import com.dremio.datastore.SearchTypes.SearchQuery;
 import com.dremio.exec.store.SplitsPointer;
-import com.dremio.service.namespace.DatasetSplitId;
 import com.dremio.service.namespace.NamespaceService;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
 
 /**
  * Base class to {@code SplitPointer} types whose data is loaded lazily
@@ -82,7 +79,7 @@ abstract class LazySplitsPointer extends AbstractSplitsPointer {
     return this;
   }
 
-  protected abstract Iterable<Map.Entry<DatasetSplitId, DatasetSplit>> findSplits();
+  protected abstract Iterable<DatasetSplit> findSplits();
 
   @Override
   public Iterable<DatasetSplit> getSplitIterable() {
@@ -90,7 +87,7 @@ abstract class LazySplitsPointer extends AbstractSplitsPointer {
       return materializedSplits;
     }
 
-    return Iterables.transform(findSplits(), SPLIT_VALUES);
+    return findSplits();
   }
 
   protected abstract int computeSplitsCount();
@@ -129,7 +129,7 @@ public class ManagedStoragePlugin implements AutoCloseable {
     this.reader = reader;
 
     // leaks this so do last.
-    this.metadataManager = new SourceMetadataManager(scheduler, isMaster, systemUserNamespaceService, sourceDataStore, this);
+    this.metadataManager = new SourceMetadataManager(scheduler, isMaster, systemUserNamespaceService, sourceDataStore, this, options);
   }
 
   private class StoragePluginProvider implements Provider<StoragePlugin> {
@@ -17,9 +17,18 @@ package com.dremio.exec.catalog;
 
 import static com.dremio.service.users.SystemUser.SYSTEM_USERNAME;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Provider;
@@ -27,6 +36,7 @@ import javax.inject.Provider;
 import org.threeten.bp.Instant;
 
 import com.dremio.common.concurrent.AutoCloseableLock;
+import com.dremio.common.concurrent.NamedThreadFactory;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.concurrent.Runnables;
 import com.dremio.datastore.KVStore;
@@ -35,6 +45,7 @@ import com.dremio.exec.store.CatalogService.UpdateType;
 import com.dremio.exec.store.StoragePlugin;
 import com.dremio.exec.store.StoragePlugin.CheckResult;
 import com.dremio.exec.store.StoragePlugin.UpdateStatus;
+import com.dremio.options.OptionManager;
 import com.dremio.service.namespace.NamespaceException;
 import com.dremio.service.namespace.NamespaceKey;
 import com.dremio.service.namespace.NamespaceNotFoundException;
@@ -52,9 +63,13 @@ import com.dremio.service.scheduler.Cancellable;
 import com.dremio.service.scheduler.ScheduleUtils;
 import com.dremio.service.scheduler.SchedulerService;
 import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
  * Responsible for synchronizing source metadata. Schedules regular metadata updates along with
@@ -82,6 +97,7 @@ class SourceMetadataManager implements AutoCloseable {
   private final KVStore<NamespaceKey, SourceInternalData> sourceDataStore;
   private final ManagedStoragePlugin msp;
   private final Provider<StoragePlugin> plugin;
+  private final OptionManager options;
   private final Runnable refreshTask;
   private final Object runLock = new Object();
 
@@ -95,7 +111,8 @@ class SourceMetadataManager implements AutoCloseable {
       boolean isMaster,
       NamespaceService systemUserNamespaceService,
       KVStore<NamespaceKey, SourceInternalData> sourceDataStore,
-      final ManagedStoragePlugin msp
+      final ManagedStoragePlugin msp,
+      OptionManager options
       ) {
     super();
     this.scheduler = scheduler;
@@ -104,6 +121,7 @@ class SourceMetadataManager implements AutoCloseable {
     this.systemUserNamespaceService = systemUserNamespaceService;
     this.sourceDataStore = sourceDataStore;
     this.msp = msp;
+    this.options = options;
     this.plugin = new Provider<StoragePlugin>() {
       @Override
       public StoragePlugin get() {
@@ -344,78 +362,91 @@ class SourceMetadataManager implements AutoCloseable {
      * from these sets.
      */
     Stopwatch stopwatch = Stopwatch.createStarted();
+    final int parallelism = (int) options.getOption(CatalogOptions.METADATA_REFRESH_PARALLELISM);
+    final ExecutorService executor = parallelism > 1
+        ? Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("metadata-refresh-" + sourceKey.getRoot() + "-"))
+        : null;
     try{
-      final Set<NamespaceKey> foundKeys = Sets.newHashSet(systemUserNamespaceService.getAllDatasets(sourceKey));
+      final List<NamespaceKey> foundKeys = Lists.newArrayList(
+          Sets.newHashSet(systemUserNamespaceService.getAllDatasets(sourceKey)));
+      // datasets are checked in schema path order, so a refresh can resume after the last dataset it checked
+      Collections.sort(foundKeys, SCHEMA_PATH_ORDER);
 
       final Set<NamespaceKey> orphanedFolders = Sets.newHashSet();
       for(NamespaceKey foundKey : foundKeys) {
         addFoldersOnPathToDeletedFolderSet(foundKey, orphanedFolders);
       }
 
+      final long startTime = System.currentTimeMillis();
+      final SourceInternalData progress = sourceDataStore.get(sourceKey);
+      final String checkpoint;
+      final long refreshStartTime;
+      if (progress != null && progress.getFullRefreshCheckpoint() != null && progress.getFullRefreshStartDateMs() != null
+          && progress.getFullRefreshStartDateMs() + metadataPolicy.getDatasetDefinitionRefreshAfterMs() > startTime) {
+        checkpoint = progress.getFullRefreshCheckpoint();
+        refreshStartTime = progress.getFullRefreshStartDateMs();
+        logger.info("Resuming metadata refresh for source {} after dataset {}.", sourceKey, checkpoint);
+      } else {
+        checkpoint = null;
+        refreshStartTime = startTime;
+      }
+
       final Set<NamespaceKey> knownKeys = new HashSet<>();
+      final List<NamespaceKey> keysToCheck = new ArrayList<>();
       for(NamespaceKey foundKey : foundKeys) {
+        if (checkpoint != null && foundKey.getSchemaPath().compareTo(checkpoint) <= 0) {
+          // checked by the interrupted refresh
+          knownKeys.add(foundKey);
+          removeFoldersOnPathFromOprhanSet(foundKey, orphanedFolders);
+        } else {
+          keysToCheck.add(foundKey);
+        }
+      }
+
+      final int batchSize = (int) options.getOption(CatalogOptions.METADATA_REFRESH_BATCH_SIZE);
+      for (List<NamespaceKey> batch : Lists.partition(keysToCheck, batchSize)) {
         // Refresh might take a long time. Quit if the daemon is closing, to avoid shutdown issues
         if (cancelWork) {
-          logger.info("Aborting update of metadata for table {} -- service is closing.", foundKey);
+          logger.info("Aborting update of metadata for table {} -- service is closing.", batch.get(0));
           return refreshResult;
         }
 
-        Stopwatch stopwatchForDataset = Stopwatch.createStarted();
-        // for each known dataset, update things.
-        try {
-          DatasetConfig config = systemUserNamespaceService.getDataset(foundKey);
-          CheckResult result = CheckResult.UNCHANGED;
-
-          if (plugin.get().datasetExists(foundKey)) {
-            if (metadataPolicy.getDatasetUpdateMode() == UpdateMode.PREFETCH ||
-              (metadataPolicy.getDatasetUpdateMode() == UpdateMode.PREFETCH_QUERIED && config.getReadDefinition() != null)) {
-              if (config.getReadDefinition() == null) {
-                // this is currently a name only dataset. Get the read definition.
-                final SourceTableDefinition definition = plugin.get().getDataset(foundKey, config, false);
-                result = new CheckResult() {
-                  @Override
-                  public UpdateStatus getStatus() {
-                    return UpdateStatus.CHANGED;
-                  }
-
-                  @Override
-                  public SourceTableDefinition getDataset() {
-                    return definition;
-                  }
-                };
-              } else {
-                // have a read definition, need to check if it is up to date.
-                result = plugin.get().checkReadSignature(config.getReadDefinition().getReadSignature(), config);
-              }
+        // check the datasets of the batch concurrently, then save them from this thread
+        final List<Future<DatasetCheck>> checks = new ArrayList<>(batch.size());
+        for (NamespaceKey foundKey : batch) {
+          final DatasetCheck check = new DatasetCheck(foundKey, metadataPolicy);
+          checks.add(executor != null ? executor.submit(check) : Futures.immediateFuture(check.call()));
+        }
+
+        for (Future<DatasetCheck> future : checks) {
+          final DatasetCheck check = getUninterruptibly(future);
+          // for each known dataset, update things.
+          try {
+            if (check.failure != null) {
+              throw check.failure;
             }
-          } else {
-            result = CheckResult.DELETED;
-          }
 
-          if (result.getStatus() == UpdateStatus.DELETED) {
-            // TODO: handle exception
-            systemUserNamespaceService.deleteDataset(foundKey, config.getVersion());
-            refreshResult = true;
-          } else {
-            if (result.getStatus() == UpdateStatus.CHANGED) {
-              saver.completeSave(result.getDataset(), config);
+            if (check.result.getStatus() == UpdateStatus.DELETED) {
+              // TODO: handle exception
+              systemUserNamespaceService.deleteDataset(check.key, check.config.getVersion());
               refreshResult = true;
+            } else {
+              if (check.result.getStatus() == UpdateStatus.CHANGED) {
+                saver.completeSave(check.result.getDataset(), check.config);
+                refreshResult = true;
+              }
+              knownKeys.add(check.key);
+              removeFoldersOnPathFromOprhanSet(check.key, orphanedFolders);
             }
-            knownKeys.add(foundKey);
-            removeFoldersOnPathFromOprhanSet(foundKey, orphanedFolders);
-          }
-        } catch(NamespaceNotFoundException nfe) {
-          // Race condition: someone removed a dataset from the system namespace while we were iterating.
-          // No-op
-        } catch(Exception ex) {
-          logger.warn("Failure while attempting to update metadata for table {}.", foundKey, ex);
-        }
-        finally {
-          stopwatchForDataset.stop();
-          if (logger.isDebugEnabled()) {
-            logger.debug("Metadata refresh for dataset : {} took {} milliseconds.", foundKey, stopwatchForDataset.elapsed(TimeUnit.MILLISECONDS));
+          } catch(NamespaceNotFoundException nfe) {
+            // Race condition: someone removed a dataset from the system namespace while we were iterating.
+            // No-op
+          } catch(Exception ex) {
+            logger.warn("Failure while attempting to update metadata for table {}.", check.key, ex);
           }
         }
+
+        saveProgress(refreshStartTime, batch.get(batch.size() - 1).getSchemaPath());
       }
 
       for(SourceTableDefinition accessor : plugin.get().getDatasets(SYSTEM_USERNAME, false)){
@@ -460,6 +491,9 @@ class SourceMetadataManager implements AutoCloseable {
       logger.warn("Failure while attempting to update metadata for source {}. Terminating update of this source.", sourceKey, ex);
     }
     finally {
+       if (executor != null) {
+         executor.shutdownNow();
+       }
        stopwatch.stop();
        if (logger.isDebugEnabled()) {
          logger.debug("Metadata refresh for source : {} took {} milliseconds.", sourceKey, stopwatch.elapsed(TimeUnit.MILLISECONDS));
@@ -476,11 +510,98 @@ class SourceMetadataManager implements AutoCloseable {
     }
     lastRefreshTime = System.currentTimeMillis();
     srcData.setLastFullRefreshDateMs(lastRefreshTime).setLastNameRefreshDateMs(lastRefreshTime);
+    srcData.setFullRefreshStartDateMs(null).setFullRefreshCheckpoint(null);
     sourceDataStore.put(sourceKey, srcData);
 
     return refreshResult;
   }
 
+  /**
+   * Persists the progress of a full refresh, so it resumes after the given dataset if interrupted.
+   */
+  private void saveProgress(long refreshStartTime, String checkpoint) {
+    SourceInternalData srcData = sourceDataStore.get(sourceKey);
+    if(srcData == null) {
+      srcData = new SourceInternalData();
+    }
+    srcData.setFullRefreshStartDateMs(refreshStartTime).setFullRefreshCheckpoint(checkpoint);
+    sourceDataStore.put(sourceKey, srcData);
+  }
+
+  private static DatasetCheck getUninterruptibly(Future<DatasetCheck> future) {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      // checks catch their own failures
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  /**
+   * Checks whether the metadata of a dataset is up to date, reading from the source without updating the namespace.
+   */
+  private final class DatasetCheck implements Callable<DatasetCheck> {
+    private final NamespaceKey key;
+    private final MetadataPolicy metadataPolicy;
+    private DatasetConfig config;
+    private CheckResult result = CheckResult.UNCHANGED;
+    private Exception failure;
+
+    private DatasetCheck(NamespaceKey key, MetadataPolicy metadataPolicy) {
+      this.key = key;
+      this.metadataPolicy = metadataPolicy;
+    }
+
+    @Override
+    public DatasetCheck call() {
+      Stopwatch stopwatchForDataset = Stopwatch.createStarted();
+      try {
+        config = systemUserNamespaceService.getDataset(key);
+
+        if (plugin.get().datasetExists(key)) {
+          if (metadataPolicy.getDatasetUpdateMode() == UpdateMode.PREFETCH ||
+            (metadataPolicy.getDatasetUpdateMode() == UpdateMode.PREFETCH_QUERIED && config.getReadDefinition() != null)) {
+            if (config.getReadDefinition() == null) {
+              // this is currently a name only dataset. Get the read definition.
+              final SourceTableDefinition definition = plugin.get().getDataset(key, config, false);
+              result = new CheckResult() {
+                @Override
+                public UpdateStatus getStatus() {
+                  return UpdateStatus.CHANGED;
+                }
+
+                @Override
+                public SourceTableDefinition getDataset() {
+                  return definition;
+                }
+              };
+            } else {
+              // have a read definition, need to check if it is up to date.
+              result = plugin.get().checkReadSignature(config.getReadDefinition().getReadSignature(), config);
+            }
+          }
+        } else {
+          result = CheckResult.DELETED;
+        }
+      } catch (Exception ex) {
+        failure = ex;
+      } finally {
+        stopwatchForDataset.stop();
+        if (logger.isDebugEnabled()) {
+          logger.debug("Metadata refresh for dataset : {} took {} milliseconds.", key, stopwatchForDataset.elapsed(TimeUnit.MILLISECONDS));
+        }
+      }
+      return this;
+    }
+  }
+
+  private static final Comparator<NamespaceKey> SCHEMA_PATH_ORDER = new Comparator<NamespaceKey>() {
+    @Override
+    public int compare(NamespaceKey o1, NamespaceKey o2) {
+      return o1.getSchemaPath().compareTo(o2.getSchemaPath());
+    }
+  };
+
   private static void addFoldersOnPathToDeletedFolderSet(NamespaceKey dsKey, Set<NamespaceKey> existingFolderSet) {
     NamespaceKey key = dsKey.getParent();
     while(key.hasParent()) { // a folder always has a parent
@@ -78,7 +78,7 @@ public class ClassCompilerSelector {
   private final ClassCompiler janinoClassCompiler;
 
   private final OptionManager sessionOptions;
-
+  private final PersistentCodeCache persistentCache;
 
   public ClassCompilerSelector(SabotConfig config, OptionManager sessionOptions) {
     this.sessionOptions = sessionOptions;
@@ -89,6 +89,7 @@ public class ClassCompilerSelector {
 
     this.janinoClassCompiler = new JaninoClassCompiler();
     this.jdkClassCompiler = JDKClassCompiler.newInstance();
+    this.persistentCache = PersistentCodeCache.getInstance(config);
   }
 
   public ClassBytes[] getClassByteCode(ClassNames className, String sourceCode)
@@ -110,7 +111,21 @@ public class ClassCompilerSelector {
       classCompiler = janinoClassCompiler;
     }
 
+    final String cacheKey;
+    if (persistentCache != null) {
+      cacheKey = persistentCache.getKey(className, sourceCode, classCompiler.getClass().getSimpleName(), debug);
+      final ClassBytes[] cached = persistentCache.get(cacheKey, className);
+      if (cached != null) {
+        return cached;
+      }
+    } else {
+      cacheKey = null;
+    }
+
     ClassBytes[] bc = classCompiler.getClassByteCode(className, sourceCode, debug);
+    if (persistentCache != null) {
+      persistentCache.put(cacheKey, className, bc);
+    }
     /*
      * final String baseDir = System.getProperty("java.io.tmpdir") + File.separator + classCompiler.getClass().getSimpleName();
      * File classFile = new File(baseDir + className.clazz);
@@ -0,0 +1,527 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+
+import com.dremio.common.config.SabotConfig;
+import com.dremio.common.util.DremioVersionInfo;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.compile.ClassTransformer.ClassNames;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Content addressed, on disk cache of generated class bytecode, shared by all the compilers of a node and kept across
+ * restarts.<br>
+ * <br>
+ * Entries are keyed by a hash of the generated source, the compiler settings and the Dremio version. Generated class
+ * names come from a per process counter, so the name is replaced by a placeholder in the hashed source, and the
+ * cached classes are renamed to the requested name when loaded. Each version gets its own sub directory, so upgrading
+ * a node never reuses bytecode compiled against other templates. Optionally, a warm up step run at startup removes the
+ * directories of other versions and loads the current entries in memory, so that the first queries after a restart
+ * don't pay for disk reads either.<br>
+ * <br>
+ * Once the entries take more than the configured size on disk, the least recently used ones are deleted. Recency is
+ * tracked by the modification time of the entries, which is updated on every hit.
+ */
+public class PersistentCodeCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PersistentCodeCache.class);
+
+  public static final String PATH_CONFIG = "dremio.exec.compile.persistent_cache.path";
+  public static final String WARMUP_CONFIG = "dremio.exec.compile.persistent_cache.warmup";
+  public static final String MAX_SIZE_CONFIG = "dremio.exec.compile.persistent_cache.max_size";
+
+  private static final int FORMAT_VERSION = 2;
+  private static final String TEMP_PREFIX = ".tmp-";
+  private static final String GENERIC_CLASS_NAME = "GenericGenerated";
+  // eviction goes below the maximum size, so that it doesn't run again on the next write
+  private static final double EVICTION_RATIO = 0.9;
+
+  // constant pool tags, see the class file format in the JVM specification
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_FLOAT = 4;
+  private static final int CONSTANT_LONG = 5;
+  private static final int CONSTANT_DOUBLE = 6;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELDREF = 9;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_INTERFACE_METHODREF = 11;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_METHOD_TYPE = 16;
+  private static final int CONSTANT_DYNAMIC = 17;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+  private static final int CONSTANT_MODULE = 19;
+  private static final int CONSTANT_PACKAGE = 20;
+
+  // one instance per directory, so that all the compilers of a node share the same in memory entries.
+  private static final ConcurrentMap<Path, PersistentCodeCache> INSTANCES = new ConcurrentHashMap<>();
+
+  private final Path root;
+  private final Path directory;
+  private final String version;
+  private final long maxSize;
+  private final Cache<String, Entry> warmEntries;
+  // total size of the entries on disk, -1 until the directory is first listed
+  private long diskSize = -1;
+
+  /**
+   * @param maxSize maximum size of the entries on disk, in bytes. Not limited if not positive.
+   */
+  PersistentCodeCache(Path root, String version, int maxWarmEntries, long maxSize) {
+    this.root = root;
+    this.version = version;
+    this.directory = root.resolve(version);
+    this.maxSize = maxSize;
+    this.warmEntries = CacheBuilder.newBuilder().maximumSize(maxWarmEntries).build();
+  }
+
+  /**
+   * Gets the cache configured for this node.
+   *
+   * @return the cache, or null if no cache directory is configured
+   */
+  public static PersistentCodeCache getInstance(final SabotConfig config) {
+    if (!config.hasPath(PATH_CONFIG) || config.getString(PATH_CONFIG).isEmpty()) {
+      return null;
+    }
+
+    final Path root = Paths.get(config.getString(PATH_CONFIG)).toAbsolutePath();
+    PersistentCodeCache cache = INSTANCES.get(root);
+    if (cache == null) {
+      final long maxSize = config.hasPath(MAX_SIZE_CONFIG) ? config.getBytes(MAX_SIZE_CONFIG) : 0;
+      final PersistentCodeCache newCache = new PersistentCodeCache(root, DremioVersionInfo.getVersion(),
+          config.getInt(ExecConstants.MAX_LOADING_CACHE_SIZE_CONFIG), maxSize);
+      cache = INSTANCES.putIfAbsent(root, newCache);
+      if (cache == null) {
+        cache = newCache;
+        if (config.hasPath(WARMUP_CONFIG) && config.getBoolean(WARMUP_CONFIG)) {
+          cache.startWarmUp();
+        }
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * Computes the cache key of a generated class. The name of the class is not part of the key, so that the same
+   * source generated under another name, e.g. after a restart, gets the same key.
+   *
+   * @param className name of the generated class
+   * @param sourceCode generated source
+   * @param compiler name of the compiler used
+   * @param debug whether debug information is generated
+   * @return the key
+   */
+  public String getKey(ClassNames className, String sourceCode, String compiler, boolean debug) {
+    final String simpleName = className.dot.substring(className.dot.lastIndexOf('.') + 1);
+    final String generifiedCode = sourceCode.replaceAll("\\b" + Pattern.quote(simpleName) + "\\b", GENERIC_CLASS_NAME);
+    final Hasher hasher = Hashing.sha256().newHasher()
+        .putString(version, Charsets.UTF_8)
+        .putString(compiler, Charsets.UTF_8)
+        .putBoolean(debug)
+        .putString(generifiedCode, Charsets.UTF_8);
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Looks up the bytecode of a generated class.
+   *
+   * @param key key returned by {@link #getKey(ClassNames, String, String, boolean)}
+   * @param className name of the generated class, the cached classes are renamed if they were compiled under another
+   *                  name
+   * @return the classes, or null if not found
+   */
+  public ClassBytes[] get(String key, ClassNames className) {
+    final Path file = directory.resolve(key);
+    Entry entry = warmEntries.getIfPresent(key);
+    if (entry == null) {
+      if (!Files.exists(file)) {
+        return null;
+      }
+      try {
+        entry = read(file);
+      } catch (IOException e) {
+        logger.warn("Unable to read cached bytecode {}, deleting it.", file, e);
+        deleteQuietly(file);
+        return null;
+      }
+    }
+    touch(file);
+
+    try {
+      return entry.rename(className.dot);
+    } catch (IOException e) {
+      logger.debug("Unable to rename cached bytecode {} to {}.", file, className.dot, e);
+      return null;
+    }
+  }
+
+  /**
+   * Stores the bytecode of a generated class. Failures are logged and otherwise ignored.
+   *
+   * @param key key returned by {@link #getKey(ClassNames, String, String, boolean)}
+   * @param className name of the generated class
+   * @param classes the classes
+   */
+  public void put(String key, ClassNames className, ClassBytes[] classes) {
+    Path temp = null;
+    try {
+      Files.createDirectories(directory);
+      // write to a temporary file first, so that concurrent readers never see a partial entry.
+      temp = Files.createTempFile(directory, TEMP_PREFIX, null);
+      try (OutputStream out = Files.newOutputStream(temp)) {
+        write(out, new Entry(className.dot, classes));
+      }
+      final Path file = directory.resolve(key);
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      recordWrite(Files.size(file));
+    } catch (IOException e) {
+      logger.warn("Unable to cache bytecode in {}.", directory, e);
+      if (temp != null) {
+        deleteQuietly(temp);
+      }
+    }
+  }
+
+  /**
+   * Marks an entry as recently used.
+   */
+  private static void touch(Path file) {
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      logger.debug("Unable to update the modification time of {}", file, e);
+    }
+  }
+
+  private synchronized void recordWrite(long bytes) throws IOException {
+    if (maxSize <= 0) {
+      return;
+    }
+    if (diskSize < 0) {
+      // the new entry is already listed
+      diskSize = 0;
+      for (EntryFile entry : listEntries()) {
+        diskSize += entry.size;
+      }
+    } else {
+      diskSize += bytes;
+    }
+    if (diskSize > maxSize) {
+      evict();
+    }
+  }
+
+  /**
+   * Deletes the least recently used entries until their total size goes below the eviction target.
+   */
+  private void evict() throws IOException {
+    final List<EntryFile> entries = listEntries();
+    long remaining = 0;
+    for (EntryFile entry : entries) {
+      remaining += entry.size;
+    }
+    Collections.sort(entries, new Comparator<EntryFile>() {
+      @Override
+      public int compare(EntryFile o1, EntryFile o2) {
+        return o1.lastModified.compareTo(o2.lastModified);
+      }
+    });
+
+    int evicted = 0;
+    final long target = (long) (maxSize * EVICTION_RATIO);
+    for (EntryFile entry : entries) {
+      if (remaining <= target) {
+        break;
+      }
+      warmEntries.invalidate(entry.path.getFileName().toString());
+      deleteQuietly(entry.path);
+      remaining -= entry.size;
+      evicted++;
+    }
+    diskSize = remaining;
+    logger.debug("Evicted {} cached classes from {}, {} bytes left.", evicted, directory, remaining);
+  }
+
+  private List<EntryFile> listEntries() throws IOException {
+    final List<EntryFile> entries = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        if (file.getFileName().toString().startsWith(TEMP_PREFIX)) {
+          continue;
+        }
+        try {
+          final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+          entries.add(new EntryFile(file, attributes.lastModifiedTime(), attributes.size()));
+        } catch (IOException e) {
+          // deleted in between
+          logger.debug("Unable to read the attributes of {}", file, e);
+        }
+      }
+    }
+    return entries;
+  }
+
+  private void startWarmUp() {
+    final Thread thread = new Thread("code-cache-warmup") {
+      @Override
+      public void run() {
+        warmUp();
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Deletes the entries of other versions, and loads the entries of the current version in memory.
+   *
+   * @return number of entries loaded
+   */
+  int warmUp() {
+    if (!Files.isDirectory(root)) {
+      return 0;
+    }
+
+    int loaded = 0;
+    try (DirectoryStream<Path> versions = Files.newDirectoryStream(root)) {
+      for (Path versionDirectory : versions) {
+        if (!versionDirectory.getFileName().toString().equals(version)) {
+          logger.info("Deleting bytecode cached by version {}.", versionDirectory.getFileName());
+          FileUtils.deleteQuietly(versionDirectory.toFile());
+        }
+      }
+
+      if (!Files.isDirectory(directory)) {
+        return 0;
+      }
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+        for (Path entry : entries) {
+          final String key = entry.getFileName().toString();
+          if (key.startsWith(TEMP_PREFIX)) {
+            // left over by a crash.
+            deleteQuietly(entry);
+            continue;
+          }
+          try {
+            warmEntries.put(key, read(entry));
+            loaded++;
+          } catch (IOException e) {
+            logger.warn("Unable to read cached bytecode {}, deleting it.", entry, e);
+            deleteQuietly(entry);
+          }
+        }
+      }
+    } catch (IOException e) {
+      logger.warn("Failure while warming up the bytecode cache in {}.", root, e);
+    }
+    logger.info("Loaded {} cached classes from {}.", loaded, directory);
+    return loaded;
+  }
+
+  private static void write(OutputStream stream, Entry entry) throws IOException {
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+    out.writeInt(FORMAT_VERSION);
+    out.writeUTF(entry.className);
+    out.writeInt(entry.classes.length);
+    for (ClassBytes clazz : entry.classes) {
+      out.writeUTF(clazz.getName());
+      out.writeInt(clazz.getBytes().length);
+      out.write(clazz.getBytes());
+    }
+    out.flush();
+  }
+
+  private static Entry read(Path file) throws IOException {
+    try (InputStream stream = Files.newInputStream(file)) {
+      final DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+      final int format = in.readInt();
+      if (format != FORMAT_VERSION) {
+        throw new IOException(String.format("Unsupported format %d", format));
+      }
+      final String className = in.readUTF();
+      final int count = in.readInt();
+      Preconditions.checkState(count > 0, "Invalid number of classes %s", count);
+      final ClassBytes[] classes = new ClassBytes[count];
+      for (int i = 0; i < count; i++) {
+        final String name = in.readUTF();
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        classes[i] = new ClassBytes(name, bytes);
+      }
+      return new Entry(className, classes);
+    } catch (IllegalStateException | NegativeArraySizeException e) {
+      throw new IOException("Corrupted entry", e);
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.debug("Unable to delete {}", file, e);
+    }
+  }
+
+  /**
+   * Renames a class in class file bytes. Other classes are only referred to by the constant pool, so the internal name
+   * is replaced in all the utf8 constants, which also covers descriptors and nested classes.
+   *
+   * @param classFile the class file bytes
+   * @param from internal name of the class, e.g. com/dremio/Gen1
+   * @param to new internal name
+   * @return the class file bytes of the renamed class
+   */
+  static byte[] renameClass(byte[] classFile, String from, String to) throws IOException {
+    // don't rename classes whose name starts with the same characters, e.g. Gen12 for Gen1
+    final Pattern pattern = Pattern.compile(Pattern.quote(from) + "(?!\\w)");
+    final String replacement = Matcher.quoteReplacement(to);
+    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(classFile.length);
+    final DataOutputStream out = new DataOutputStream(bytes);
+
+    // magic number, minor and major versions
+    out.writeInt(in.readInt());
+    out.writeInt(in.readInt());
+    final int constants = in.readUnsignedShort();
+    out.writeShort(constants);
+    for (int i = 1; i < constants; i++) {
+      final int tag = in.readUnsignedByte();
+      out.writeByte(tag);
+      switch (tag) {
+      case CONSTANT_UTF8:
+        out.writeUTF(pattern.matcher(in.readUTF()).replaceAll(replacement));
+        break;
+      case CONSTANT_CLASS:
+      case CONSTANT_STRING:
+      case CONSTANT_METHOD_TYPE:
+      case CONSTANT_MODULE:
+      case CONSTANT_PACKAGE:
+        copy(in, out, 2);
+        break;
+      case CONSTANT_METHOD_HANDLE:
+        copy(in, out, 3);
+        break;
+      case CONSTANT_INTEGER:
+      case CONSTANT_FLOAT:
+      case CONSTANT_FIELDREF:
+      case CONSTANT_METHODREF:
+      case CONSTANT_INTERFACE_METHODREF:
+      case CONSTANT_NAME_AND_TYPE:
+      case CONSTANT_DYNAMIC:
+      case CONSTANT_INVOKE_DYNAMIC:
+        copy(in, out, 4);
+        break;
+      case CONSTANT_LONG:
+      case CONSTANT_DOUBLE:
+        copy(in, out, 8);
+        // takes two entries of the constant pool
+        i++;
+        break;
+      default:
+        throw new IOException(String.format("Unknown constant pool tag %d", tag));
+      }
+    }
+    // the rest of the class only refers to the constant pool by index
+    ByteStreams.copy(in, out);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static void copy(DataInputStream in, DataOutputStream out, int length) throws IOException {
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    out.write(bytes);
+  }
+
+  /**
+   * Cached classes, with the name of the generated class they were compiled for.
+   */
+  private static final class Entry {
+    private final String className;
+    private final ClassBytes[] classes;
+
+    private Entry(String className, ClassBytes[] classes) {
+      this.className = className;
+      this.classes = classes;
+    }
+
+    /**
+     * @return the classes, renamed for the given generated class
+     */
+    private ClassBytes[] rename(String newClassName) throws IOException {
+      if (className.equals(newClassName)) {
+        return classes;
+      }
+      final String from = className.replace('.', '/');
+      final String to = newClassName.replace('.', '/');
+      final ClassBytes[] renamed = new ClassBytes[classes.length];
+      for (int i = 0; i < classes.length; i++) {
+        final String name = classes[i].getName();
+        final String newName = name.equals(className) || name.startsWith(className + "$")
+            ? newClassName + name.substring(className.length()) : name;
+        renamed[i] = new ClassBytes(newName, renameClass(classes[i].getBytes(), from, to));
+      }
+      return renamed;
+    }
+  }
+
+  private static final class EntryFile {
+    private final Path path;
+    private final FileTime lastModified;
+    private final long size;
+
+    private EntryFile(Path path, FileTime lastModified, long size) {
+      this.path = path;
+      this.lastModified = lastModified;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.ops;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricRegistry;
+import com.dremio.exec.proto.UserBitShared.CoreOperatorType;
+import com.dremio.metrics.Metrics;
+import com.dremio.sabot.exec.context.MetricDef;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.common.hashtable.HashTableStats;
+import com.dremio.sabot.op.sender.broadcast.BroadcastOperator;
+import com.dremio.sabot.op.sender.partition.PartitionSenderOperator;
+import com.dremio.sabot.op.sender.roundrobin.RoundRobinOperator;
+import com.dremio.sabot.op.sender.single.SingleSenderOperator;
+
+/**
+ * Aggregates execution statistics across queries into the node metric registry, so they can be monitored without
+ * looking at individual query profiles.<br>
+ * <br>
+ * Operator statistics are recorded once per fragment, when it completes, by operator type:
+ * <ul>
+ * <li>{@code dremio.exec.operator.<type>.process} and {@code .wait}: time spent processing and waiting</li>
+ * <li>{@code dremio.exec.operator.<type>.spill_bytes}: bytes spilled by spilling operators</li>
+ * <li>{@code dremio.exec.operator.<type>.sent_bytes} and {@code .received_bytes}: bytes exchanged by senders and
+ * receivers</li>
+ * </ul>
+ * Queries record their planning, queue and execution time under {@code dremio.exec.query}.
+ */
+public final class ExecutionMetrics {
+  private static final String QUERY_PREFIX = "dremio.exec.query";
+  private static final String OPERATOR_PREFIX = "dremio.exec.operator";
+
+  public static final String QUERY_PLANNING = MetricRegistry.name(QUERY_PREFIX, "planning");
+  public static final String QUERY_QUEUE = MetricRegistry.name(QUERY_PREFIX, "queue");
+  public static final String QUERY_EXECUTION = MetricRegistry.name(QUERY_PREFIX, "execution");
+  public static final String FRAGMENT_PEAK_MEMORY = "dremio.exec.fragment.peak_memory_bytes";
+
+  private static final int OPERATOR_TYPES = CoreOperatorType.values().length;
+
+  // metric names are computed once, recording shouldn't allocate
+  private static final String[] PROCESS_NAMES = new String[OPERATOR_TYPES];
+  private static final String[] WAIT_NAMES = new String[OPERATOR_TYPES];
+  private static final String[] SPILL_NAMES = new String[OPERATOR_TYPES];
+  private static final String[] SENT_NAMES = new String[OPERATOR_TYPES];
+  private static final String[] RECEIVED_NAMES = new String[OPERATOR_TYPES];
+
+  private static final MetricDef[] SPILL_METRICS = new MetricDef[OPERATOR_TYPES];
+  private static final MetricDef[] SENT_METRICS = new MetricDef[OPERATOR_TYPES];
+
+  static {
+    for (CoreOperatorType type : CoreOperatorType.values()) {
+      final int i = type.getNumber();
+      if (i >= OPERATOR_TYPES) {
+        continue;
+      }
+      final String prefix = MetricRegistry.name(OPERATOR_PREFIX, type.name().toLowerCase(Locale.ROOT));
+      PROCESS_NAMES[i] = MetricRegistry.name(prefix, "process");
+      WAIT_NAMES[i] = MetricRegistry.name(prefix, "wait");
+      SPILL_NAMES[i] = MetricRegistry.name(prefix, "spill_bytes");
+      SENT_NAMES[i] = MetricRegistry.name(prefix, "sent_bytes");
+      RECEIVED_NAMES[i] = MetricRegistry.name(prefix, "received_bytes");
+    }
+
+    SPILL_METRICS[CoreOperatorType.HASH_AGGREGATE_VALUE] = HashTableStats.Metric.SPILL_BYTES;
+    SPILL_METRICS[CoreOperatorType.HASH_JOIN_VALUE] = HashTableStats.Metric.SPILL_BYTES;
+
+    SENT_METRICS[CoreOperatorType.SINGLE_SENDER_VALUE] = SingleSenderOperator.Metric.BYTES_SENT;
+    SENT_METRICS[CoreOperatorType.BROADCAST_SENDER_VALUE] = BroadcastOperator.Metric.BYTES_SENT;
+    SENT_METRICS[CoreOperatorType.ROUND_ROBIN_SENDER_VALUE] = RoundRobinOperator.Metric.BYTES_SENT;
+    SENT_METRICS[CoreOperatorType.HASH_PARTITION_SENDER_VALUE] = PartitionSenderOperator.Metric.BYTES_SENT;
+  }
+
+  private ExecutionMetrics() {
+  }
+
+  /**
+   * Records the statistics of an operator of a completed fragment.
+   */
+  public static void recordOperator(OperatorStats stats) {
+    final int type = stats.getOperatorType();
+    if (type < 0 || type >= OPERATOR_TYPES || PROCESS_NAMES[type] == null) {
+      return;
+    }
+
+    final MetricRegistry registry = Metrics.getInstance();
+    registry.timer(PROCESS_NAMES[type]).update(stats.getProcessingNanos(), TimeUnit.NANOSECONDS);
+    registry.timer(WAIT_NAMES[type]).update(stats.getWaitNanos(), TimeUnit.NANOSECONDS);
+
+    if (SPILL_METRICS[type] != null) {
+      registry.histogram(SPILL_NAMES[type]).update(stats.getLongStat(SPILL_METRICS[type]));
+    }
+
+    if (SENT_METRICS[type] != null) {
+      registry.histogram(SENT_NAMES[type]).update(stats.getLongStat(SENT_METRICS[type]));
+    }
+
+    if (stats.sizeInBytesReceivedByInput != null
+        && (type == CoreOperatorType.UNORDERED_RECEIVER_VALUE || type == CoreOperatorType.MERGING_RECEIVER_VALUE)) {
+      long received = 0;
+      for (long size : stats.sizeInBytesReceivedByInput) {
+        received += size;
+      }
+      registry.histogram(RECEIVED_NAMES[type]).update(received);
+    }
+  }
+
+  /**
+   * Records the peak memory allocated by a completed fragment.
+   */
+  public static void recordFragmentPeakMemory(long bytes) {
+    Metrics.getInstance().histogram(FRAGMENT_PEAK_MEMORY).update(bytes);
+  }
+
+  public static void recordQueryPlanning(long millis) {
+    record(QUERY_PLANNING, millis);
+  }
+
+  public static void recordQueryQueue(long millis) {
+    record(QUERY_QUEUE, millis);
+  }
+
+  public static void recordQueryExecution(long millis) {
+    record(QUERY_EXECUTION, millis);
+  }
+
+  private static void record(String name, long millis) {
+    if (millis < 0) {
+      // missing timestamps
+      return;
+    }
+    Metrics.getInstance().timer(name).update(millis, TimeUnit.MILLISECONDS);
+  }
+}
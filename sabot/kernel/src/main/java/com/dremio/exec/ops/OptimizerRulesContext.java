@@ -16,7 +16,9 @@
 package com.dremio.exec.ops;
 
 import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.BufferManager;
 
+import com.dremio.exec.expr.ClassProducer;
 import com.dremio.exec.expr.fn.FunctionImplementationRegistry;
 import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.sabot.exec.context.FunctionContext;
@@ -39,4 +41,11 @@ public interface OptimizerRulesContext extends FunctionContext {
    * @return PlannerSettings
    */
   public PlannerSettings getPlannerSettings();
+
+  /**
+   * Method returns a new class producer, to compile expressions evaluated while planning
+   * @param bufferManager manager of the buffers used by the compiled expressions
+   * @return ClassProducer
+   */
+  public ClassProducer createClassProducer(BufferManager bufferManager);
 }
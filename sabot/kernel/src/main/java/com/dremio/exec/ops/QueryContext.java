@@ -34,6 +34,8 @@ import com.dremio.common.config.SabotConfig;
 import com.dremio.common.scanner.persistence.ScanResult;
 import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.catalog.Catalog;
+import com.dremio.exec.expr.ClassProducer;
+import com.dremio.exec.expr.ClassProducerImpl;
 import com.dremio.exec.expr.fn.FunctionErrorContext;
 import com.dremio.exec.expr.fn.FunctionErrorContextBuilder;
 import com.dremio.exec.expr.fn.FunctionImplementationRegistry;
@@ -356,4 +358,10 @@ public class QueryContext implements AutoCloseable, ResourceSchedulingContext, O
   public CompilationOptions getCompilationOptions() {
     return new CompilationOptions(queryOptions);
   }
+
+  @Override
+  public ClassProducer createClassProducer(BufferManager bufferManager) {
+    return new ClassProducerImpl(getCompilationOptions(), sabotContext.getCompiler(), getFunctionRegistry(),
+        contextInformation, bufferManager);
+  }
 }
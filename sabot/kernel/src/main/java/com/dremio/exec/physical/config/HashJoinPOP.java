@@ -46,6 +46,12 @@ public class HashJoinPOP extends AbstractBase {
   private final List<JoinCondition> conditions;
   private final JoinRelType joinType;
   private final boolean vectorize;
+  private final RuntimeFilterInfo runtimeFilterInfo;
+
+  public HashJoinPOP(PhysicalOperator left, PhysicalOperator right, List<JoinCondition> conditions,
+      JoinRelType joinType, Boolean vectorize) {
+    this(left, right, conditions, joinType, vectorize, null);
+  }
 
   @JsonCreator
   public HashJoinPOP(
@@ -53,7 +59,8 @@ public class HashJoinPOP extends AbstractBase {
           @JsonProperty("right") PhysicalOperator right,
           @JsonProperty("conditions") List<JoinCondition> conditions,
           @JsonProperty("joinType") JoinRelType joinType,
-          @JsonProperty("vectorize") Boolean vectorize
+          @JsonProperty("vectorize") Boolean vectorize,
+          @JsonProperty("runtimeFilterInfo") RuntimeFilterInfo runtimeFilterInfo
   ) {
       this.left = left;
       this.right = right;
@@ -61,6 +68,7 @@ public class HashJoinPOP extends AbstractBase {
       Preconditions.checkArgument(joinType != null, "Join type is missing!");
       this.joinType = joinType;
       this.vectorize = vectorize == null ? false : vectorize;
+      this.runtimeFilterInfo = runtimeFilterInfo;
   }
 
   @Override
@@ -71,7 +79,7 @@ public class HashJoinPOP extends AbstractBase {
   @Override
   public PhysicalOperator getNewWithChildren(List<PhysicalOperator> children) {
       Preconditions.checkArgument(children.size() == 2);
-      return new HashJoinPOP(children.get(0), children.get(1), conditions, joinType, vectorize);
+      return new HashJoinPOP(children.get(0), children.get(1), conditions, joinType, vectorize, runtimeFilterInfo);
   }
 
   @Override
@@ -99,6 +107,13 @@ public class HashJoinPOP extends AbstractBase {
     return vectorize;
   }
 
+  /**
+   * @return the runtime filter to send to the probe side, null if none
+   */
+  public RuntimeFilterInfo getRuntimeFilterInfo() {
+    return runtimeFilterInfo;
+  }
+
   @Override
   protected BatchSchema constructSchema(FunctionLookupContext context) {
     SchemaBuilder b = BatchSchema.newBuilder();
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.physical.config;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Describes the runtime filter a hash join sends to the scan producing its probe side: the scan it is sent to, and
+ * the scan fields matching the join keys.
+ */
+public class RuntimeFilterInfo {
+
+  private final int probeScanOperatorId;
+  private final boolean partial;
+  private final List<RuntimeFilterEntry> entries;
+
+  @JsonCreator
+  public RuntimeFilterInfo(
+      @JsonProperty("probeScanOperatorId") int probeScanOperatorId,
+      @JsonProperty("partial") boolean partial,
+      @JsonProperty("entries") List<RuntimeFilterEntry> entries) {
+    this.probeScanOperatorId = probeScanOperatorId;
+    this.partial = partial;
+    this.entries = ImmutableList.copyOf(entries);
+  }
+
+  /**
+   * @return the id of the scan, within its fragment
+   */
+  public int getProbeScanOperatorId() {
+    return probeScanOperatorId;
+  }
+
+  /**
+   * @return true if each fragment of the join only has part of the build side, and the scan needs the filters of all
+   * of them
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
+  public List<RuntimeFilterEntry> getEntries() {
+    return entries;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("probeScanOperatorId", probeScanOperatorId)
+        .add("partial", partial)
+        .add("entries", entries)
+        .toString();
+  }
+
+  /**
+   * A join key filtering the scan.
+   */
+  public static class RuntimeFilterEntry {
+    private final int conditionIndex;
+    private final String probeField;
+
+    @JsonCreator
+    public RuntimeFilterEntry(
+        @JsonProperty("conditionIndex") int conditionIndex,
+        @JsonProperty("probeField") String probeField) {
+      this.conditionIndex = conditionIndex;
+      this.probeField = probeField;
+    }
+
+    /**
+     * @return the index of the join condition
+     */
+    public int getConditionIndex() {
+      return conditionIndex;
+    }
+
+    /**
+     * @return the name of the scan field the probe key reads
+     */
+    public String getProbeField() {
+      return probeField;
+    }
+
+    @Override
+    public String toString() {
+      return conditionIndex + ":" + probeField;
+    }
+  }
+}
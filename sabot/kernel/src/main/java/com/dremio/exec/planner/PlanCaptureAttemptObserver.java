@@ -403,6 +403,15 @@ public class PlanCaptureAttemptObserver extends AbstractAttemptObserver {
       .build());
   }
 
+  @Override
+  public void planCacheLookup(boolean hit, long hits, long misses, long millisTaken) {
+    planPhases.add(PlanPhaseProfile.newBuilder()
+      .setPhaseName(hit ? "Plan Cache Hit" : "Plan Cache Miss")
+      .setDurationMillis(millisTaken)
+      .setPlan(String.format("hits: %d, misses: %d", hits, misses))
+      .build());
+  }
+
   public String getText() {
     return text;
   }
@@ -109,6 +109,7 @@ import com.dremio.exec.planner.physical.NestedLoopJoinPrule;
 import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.planner.physical.ProjectPrule;
 import com.dremio.exec.planner.physical.PushLimitToTopN;
+import com.dremio.exec.planner.physical.RangeJoinPrule;
 import com.dremio.exec.planner.physical.SamplePrule;
 import com.dremio.exec.planner.physical.SampleToLimitPrule;
 import com.dremio.exec.planner.physical.ScreenPrule;
@@ -632,6 +633,11 @@ public enum PlannerPhase {
       ruleList.add(NestedLoopJoinPrule.INSTANCE);
     }
 
+    // Range join plans broadcast the right child as well.
+    if (ps.isRangeJoinEnabled() && ps.isBroadcastJoinEnabled()) {
+      ruleList.add(RangeJoinPrule.INSTANCE);
+    }
+
     return RuleSets.ofList(ImmutableSet.copyOf(ruleList));
   }
 
@@ -15,6 +15,7 @@
  */
 package com.dremio.exec.planner.acceleration;
 
+import java.util.List;
 import java.util.Objects;
 
 public class IncrementalUpdateSettings {
@@ -23,10 +24,17 @@ public class IncrementalUpdateSettings {
 
   private boolean incremental;
   private String updateField;
+  // table new data is read from, when the plan reads more than one table
+  private List<String> updateTable;
 
   public IncrementalUpdateSettings(boolean incremental, String updateField) {
+    this(incremental, updateField, null);
+  }
+
+  public IncrementalUpdateSettings(boolean incremental, String updateField, List<String> updateTable) {
     this.incremental = incremental;
     this.updateField = updateField;
+    this.updateTable = updateTable;
   }
 
   public IncrementalUpdateSettings columnBased(String columnName) {
@@ -41,6 +49,13 @@ public class IncrementalUpdateSettings {
     return updateField;
   }
 
+  /**
+   * @return path of the table new data is read from, or null if the plan only reads one table
+   */
+  public List<String> getUpdateTable() {
+    return updateTable;
+  }
+
   public boolean isFileBasedUpdate() {
     return incremental && updateField == null;
   }
@@ -54,10 +69,11 @@ public class IncrementalUpdateSettings {
     }
     final IncrementalUpdateSettings that = (IncrementalUpdateSettings) o;
     return (incremental == that.incremental) &&
-        Objects.equals(updateField, that.updateField);
+        Objects.equals(updateField, that.updateField) &&
+        Objects.equals(updateTable, that.updateTable);
   }
 
   public int hashcode() {
-    return Objects.hash(incremental,updateField);
+    return Objects.hash(incremental,updateField,updateTable);
   }
 }
@@ -17,14 +17,17 @@ package com.dremio.exec.planner.acceleration;
 
 import static com.dremio.exec.planner.logical.RelBuilder.newCalciteRelBuilderWithoutContext;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelVisitor;
 import org.apache.calcite.rel.core.AggregateCall;
 import org.apache.calcite.rel.core.TableScan;
 import org.apache.calcite.rel.logical.LogicalAggregate;
 import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rel.logical.LogicalJoin;
 import org.apache.calcite.rel.logical.LogicalProject;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
@@ -45,6 +48,7 @@ import org.slf4j.LoggerFactory;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.exec.planner.StatelessRelShuttleImpl;
 import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
@@ -57,13 +61,34 @@ public class IncrementalUpdateUtils {
 
   public static final String UPDATE_COLUMN = "$_dremio_$_update_$";
 
+  private static final String READ_ENTIRELY_UPDATE_COLUMN = "$_dremio_$_read_entirely_$";
+
   public static final SubstitutionShuttle FILE_BASED_SUBSTITUTION_SHUTTLE = new SubstitutionShuttle(UPDATE_COLUMN);
 
   public abstract static class BaseShuttle extends StatelessRelShuttleImpl {
     private final String refreshColumn;
+    private final List<String> updateTable;
 
     public BaseShuttle(String refreshColumn) {
+      this(refreshColumn, null);
+    }
+
+    /**
+     * @param refreshColumn column identifying new data
+     * @param updateTable path of the table new data is read from, null if the plan only reads one table. Other tables
+     *                    are read entirely.
+     */
+    public BaseShuttle(String refreshColumn, List<String> updateTable) {
       this.refreshColumn = refreshColumn;
+      this.updateTable = updateTable;
+    }
+
+    /**
+     * @return true if new data is read from the table scanned
+     */
+    protected boolean isUpdated(TableScan tableScan) {
+      return tableScan instanceof IncrementallyUpdateable
+        && (updateTable == null || updateTable.equals(tableScan.getTable().getQualifiedName()));
     }
 
     public RelNode updateScan(IncrementallyUpdateable scan) {
@@ -146,6 +171,85 @@ public class IncrementalUpdateUtils {
         fieldInfoBuilder.build()
       );
     }
+
+    @Override
+    public RelNode visit(LogicalJoin join) {
+      final boolean leftUpdated = readsNewData(join.getLeft());
+      final boolean rightUpdated = readsNewData(join.getRight());
+      if (!leftUpdated && !rightUpdated) {
+        return join;
+      }
+      Preconditions.checkState(!(leftUpdated && rightUpdated), "Only one input of a join can read new data.");
+
+      // inputs reading tables entirely are left untouched
+      final RelNode left = leftUpdated ? join.getLeft().accept(this) : join.getLeft();
+      final RelNode right = rightUpdated ? join.getRight().accept(this) : join.getRight();
+      final RelDataTypeField modField = (leftUpdated ? left : right).getRowType().getField(UPDATE_COLUMN, false, false);
+      if (modField == null) {
+        return join;
+      }
+
+      // the update column is added after the fields of an input, only the fields of the right input can be shifted
+      final int leftCount = join.getLeft().getRowType().getFieldCount();
+      final int shift = left.getRowType().getFieldCount() - leftCount;
+      final RexNode newCondition = join.getCondition().accept(new RexShuttle() {
+        @Override
+        public RexNode visitInputRef(RexInputRef inputRef) {
+          if (inputRef.getIndex() < leftCount) {
+            return inputRef;
+          }
+          return new RexInputRef(inputRef.getIndex() + shift, inputRef.getType());
+        }
+      });
+      final RelNode newJoin = join.copy(join.getTraitSet(), newCondition, left, right, join.getJoinType(),
+        join.isSemiJoinDone());
+      final int updateIndex = leftUpdated ? modField.getIndex() : left.getRowType().getFieldCount() + modField.getIndex();
+
+      // keep the fields of the join at the same position, followed by the update column if it isn't one of them
+      final RexBuilder rexBuilder = join.getCluster().getRexBuilder();
+      final List<RexNode> projects = new ArrayList<>();
+      final List<String> newFieldNames = new ArrayList<>();
+      boolean hasUpdateColumn = false;
+      for (RelDataTypeField field : join.getRowType().getFieldList()) {
+        final int index = field.getIndex() < leftCount ? field.getIndex() : field.getIndex() + shift;
+        projects.add(rexBuilder.makeInputRef(newJoin, index));
+        if (index == updateIndex) {
+          newFieldNames.add(UPDATE_COLUMN);
+          hasUpdateColumn = true;
+        } else if (UPDATE_COLUMN.equals(field.getName())) {
+          // update column of a table read entirely
+          newFieldNames.add(READ_ENTIRELY_UPDATE_COLUMN);
+        } else {
+          newFieldNames.add(field.getName());
+        }
+      }
+      if (!hasUpdateColumn) {
+        projects.add(rexBuilder.makeInputRef(newJoin, updateIndex));
+        newFieldNames.add(UPDATE_COLUMN);
+      }
+
+      final RelBuilder relBuilder = newCalciteRelBuilderWithoutContext(join.getCluster());
+      relBuilder.push(newJoin);
+      relBuilder.project(projects, newFieldNames);
+      return relBuilder.build();
+    }
+
+    /**
+     * @return true if new data is read by the plan
+     */
+    private boolean readsNewData(RelNode input) {
+      final boolean[] found = {false};
+      new RelVisitor() {
+        @Override
+        public void visit(RelNode node, int ordinal, RelNode parent) {
+          if (node instanceof TableScan && isUpdated((TableScan) node)) {
+            found[0] = true;
+          }
+          super.visit(node, ordinal, parent);
+        }
+      }.go(input);
+      return found[0];
+    }
   }
 
   /**
@@ -158,16 +262,24 @@ public class IncrementalUpdateUtils {
       super(refreshColumn);
     }
 
+    public SubstitutionShuttle(String refreshColumn, List<String> updateTable) {
+      super(refreshColumn, updateTable);
+    }
+
     @Override
     public RelNode visit(LogicalAggregate aggregate) {
       RelNode input = aggregate.getInput().accept(this);
 
+      RelDataType incomingRowType = input.getRowType();
+      RelDataTypeField modField = incomingRowType.getField(UPDATE_COLUMN, false, false);
+      if (modField == null) {
+        // aggregate over a table read entirely
+        return aggregate;
+      }
 
       final RelBuilder relBuilder = newCalciteRelBuilderWithoutContext(aggregate.getCluster());
       relBuilder.push(input);
 
-      RelDataType incomingRowType = input.getRowType();
-      RelDataTypeField modField = incomingRowType.getField(UPDATE_COLUMN, false, false);
       ImmutableBitSet newGroupSet = aggregate.getGroupSet().rebuild().set(modField.getIndex()).build();
       GroupKey groupKey = relBuilder.groupKey(newGroupSet, aggregate.indicator, null);
 
@@ -189,7 +301,7 @@ public class IncrementalUpdateUtils {
 
     @Override
     public RelNode visit(TableScan tableScan) {
-      if (!(tableScan instanceof IncrementallyUpdateable)) {
+      if (!isUpdated(tableScan)) {
         return tableScan;
       }
       return updateScan((IncrementallyUpdateable) tableScan);
@@ -201,15 +313,15 @@ public class IncrementalUpdateUtils {
    */
   private abstract static class MaterializationShuttle extends BaseShuttle {
 
-    public MaterializationShuttle(String refreshColumn) {
-      super(refreshColumn);
+    public MaterializationShuttle(String refreshColumn, List<String> updateTable) {
+      super(refreshColumn, updateTable);
     }
 
     abstract RexNode generateLiteral(RexBuilder rexBuilder, RelDataTypeFactory typeFactory);
 
     @Override
     public RelNode visit(TableScan tableScan) {
-      if (!(tableScan instanceof IncrementallyUpdateable)) {
+      if (!isUpdated(tableScan)) {
         return tableScan;
       }
 
@@ -285,7 +397,11 @@ public class IncrementalUpdateUtils {
     private final long value;
 
     public ColumnMaterializationShuttle(String refreshColumn, long value) {
-      super(refreshColumn);
+      this(refreshColumn, value, null);
+    }
+
+    public ColumnMaterializationShuttle(String refreshColumn, long value, List<String> updateTable) {
+      super(refreshColumn, updateTable);
       this.value = value;
     }
 
@@ -298,14 +414,19 @@ public class IncrementalUpdateUtils {
   /**
    * For file-based incrementally updated accelerations, the plan for updating materializations is rewritten to add the $updateId
    * field to the tableScan, and also add a filter to only select files that have a modification time later than the last
-   * updates max($updateId). Aggregations are also modified to include max($updateId) as $updateId.
+   * updates max($updateId). Aggregations are also modified to include max($updateId) as $updateId. When the plan joins
+   * several tables, only the update table is filtered, the others are read entirely.
    */
   public static class FileMaterializationShuttle extends MaterializationShuttle {
 
     private final long timeStamp;
 
     public FileMaterializationShuttle(long timeStamp) {
-      super(UPDATE_COLUMN);
+      this(timeStamp, null);
+    }
+
+    public FileMaterializationShuttle(long timeStamp, List<String> updateTable) {
+      super(UPDATE_COLUMN, updateTable);
       this.timeStamp = timeStamp;
     }
 
@@ -37,6 +37,7 @@ import com.dremio.exec.planner.cost.DremioCost;
 import com.dremio.exec.planner.cost.DremioCost.Factory;
 import com.dremio.exec.planner.cost.RelMdRowCount;
 import com.dremio.exec.planner.physical.PrelUtil;
+import com.dremio.exec.planner.physical.RangeJoinPrule;
 import com.dremio.sabot.op.join.JoinUtils;
 import com.dremio.sabot.op.join.JoinUtils.JoinCategory;
 import com.google.common.collect.Lists;
@@ -62,6 +63,10 @@ public abstract class JoinRelBase extends Join {
   @Override
   public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery relMetadataQuery) {
     JoinCategory category = JoinUtils.getJoinCategory(left, right, condition, leftKeys, rightKeys, filterNulls);
+    if (category == JoinCategory.INEQUALITY && RangeJoinPrule.canPlan(joinType, left, right, condition)) {
+      // planned as a range join, no need for a nested loop join
+      return computeLogicalJoinCost(planner, relMetadataQuery);
+    }
     if (category == JoinCategory.CARTESIAN || category == JoinCategory.INEQUALITY) {
       if (PrelUtil.getPlannerSettings(planner).isNestedLoopJoinEnabled()) {
         if (PrelUtil.getPlannerSettings(planner).isNlJoinForScalarOnly()) {
@@ -26,11 +26,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
 import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.BufferManager;
 import org.apache.arrow.vector.BigIntVector;
 import org.apache.arrow.vector.BitVector;
 import org.apache.arrow.vector.DateMilliVector;
@@ -48,7 +53,9 @@ import org.apache.arrow.vector.UInt4Vector;
 import org.apache.arrow.vector.VarBinaryVector;
 import org.apache.arrow.vector.VarCharVector;
 import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.complex.writer.BaseWriter.ComplexWriter;
 import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.util.TransferPair;
 import org.apache.calcite.plan.RelOptCluster;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptRuleCall;
@@ -64,6 +71,7 @@ import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.rex.RexUtil;
 import org.apache.calcite.util.BitSets;
 
+import com.dremio.common.concurrent.NamedThreadFactory;
 import com.dremio.common.expression.CompleteType;
 import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.expression.SchemaPath;
@@ -73,9 +81,12 @@ import com.dremio.common.types.Types;
 import com.dremio.datastore.SearchQueryUtils;
 import com.dremio.datastore.SearchTypes.SearchQuery;
 import com.dremio.exec.catalog.conf.SourceType;
+import com.dremio.exec.expr.ClassGenerator;
+import com.dremio.exec.expr.ClassProducer;
 import com.dremio.exec.expr.ExpressionTreeMaterializer;
 import com.dremio.exec.expr.HashVisitor;
 import com.dremio.exec.expr.TypeHelper;
+import com.dremio.exec.expr.ValueVectorWriteExpression;
 import com.dremio.exec.expr.fn.interpreter.InterpreterEvaluator;
 import com.dremio.exec.ops.OptimizerRulesContext;
 import com.dremio.exec.planner.common.ScanRelBase;
@@ -87,6 +98,7 @@ import com.dremio.exec.planner.logical.RelOptHelper;
 import com.dremio.exec.planner.logical.RexToExpr;
 import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.planner.physical.PrelUtil;
+import com.dremio.exec.record.TypedFieldId;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.store.SplitsKey;
 import com.dremio.exec.store.TableMetadata;
@@ -94,6 +106,9 @@ import com.dremio.exec.store.dfs.MetadataUtils;
 import com.dremio.exec.store.dfs.PruneableScan;
 import com.dremio.exec.store.parquet.ParquetFilterCondition;
 import com.dremio.exec.store.parquet.ParquetFilterCondition.FilterProperties;
+import com.dremio.sabot.exec.context.BufferManagerImpl;
+import com.dremio.sabot.op.project.Projector;
+import com.dremio.sabot.op.project.Projector.ComplexWriterCreator;
 import com.dremio.service.Pointer;
 import com.dremio.service.namespace.NamespaceException;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
@@ -102,11 +117,13 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
 
 /**
  * Prune partitions based on partition values
@@ -117,6 +134,8 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
   private static final long MIN_TO_LOG_INFO_MS = 5000;
 
   public static final int PARTITION_BATCH_SIZE = Character.MAX_VALUE;
+  private static final int MIN_PARALLEL_BATCH_SIZE = 4096;
+  private static final String OUTPUT_FIELD = "prune_output";
   final private OptimizerRulesContext optimizerContext;
   final protected SourceType pluginType;
 
@@ -302,13 +321,9 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
       RexNode pruneCondition,
       T scanRel,
       Pointer<List<DatasetSplit>> finalSplits){
-    final int batchSize = PARTITION_BATCH_SIZE;
-
     final ImmutableList.Builder<DatasetSplit> selectedSplits = ImmutableList.builder();
     final Stopwatch miscTimer = Stopwatch.createUnstarted();
 
-
-
     // Convert the condition into an expression
     logger.debug("Attempting to prune {}", pruneCondition);
     LogicalExpression pruningExpression = RexToExpr.toExpr(new ParseContext(settings), scanRel.getRowType(), scanRel.getCluster().getRexBuilder(), pruneCondition);
@@ -324,46 +339,167 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
       return cacheResult.finalSplits.size() < cacheResult.totalRecords;
     }
 
+    final boolean compile = settings.isPartitionPruningCodegenEnabled();
+    final int parallelism = compile ? settings.getPartitionPruningParallelism() : 1;
+    // with several threads, use smaller batches so each thread gets some
+    final int batchSize = parallelism == 1 ? PARTITION_BATCH_SIZE :
+        Math.max(MIN_PARALLEL_BATCH_SIZE, Math.min(PARTITION_BATCH_SIZE, divideRoundUp(tableMetadata.getSplitCount(), parallelism)));
+    final PartitionEvaluator evaluator = new PartitionEvaluator(fieldNameMap, partitionColumnsToIdMap, partitionColumnBitSet,
+        scanRel, pruningExpression, pruneCondition, compile);
+
     int batchIndex = 0;
     int recordCount = 0;
     int qualifiedCount = 0;
     Iterator<DatasetSplit> splitIter = tableMetadata.getSplits();
-    LogicalExpression materializedExpr = null;
+    ExecutorService executor = null;
 
-    do {
-      miscTimer.start();
+    try {
+      while (splitIter.hasNext()) {
+        miscTimer.start();
+
+        // read as many batches as there are threads to evaluate them
+        final List<List<DatasetSplit>> batches = new ArrayList<>();
+        while (batches.size() < parallelism && splitIter.hasNext()) {
+          List<DatasetSplit> splitsInBatch = new ArrayList<>();
+          for (int splitsLoaded = 0; splitsLoaded < batchSize && splitIter.hasNext(); ++splitsLoaded) {
+            final DatasetSplit split = splitIter.next();
+            splitsInBatch.add(split);
+          }
+          batches.add(splitsInBatch);
+        }
+
+        logger.debug("Elapsed time to get list of splits for the current batches: {} ms within batchIndex: {}", miscTimer.elapsed(TimeUnit.MILLISECONDS), batchIndex);
+        miscTimer.reset();
+
+        final List<BitSet> results = new ArrayList<>();
+        int next = 0;
+        if (batchIndex == 0) {
+          // the first batch materializes the expression, and finds out if it can be compiled
+          results.add(evaluator.evaluate(batches.get(0), 0));
+          next = 1;
+        }
+
+        if (evaluator.isCompiled() && batches.size() - next > 1) {
+          if (executor == null) {
+            executor = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("prune-scan-"));
+          }
+          final List<Future<BitSet>> futures = new ArrayList<>();
+          for (int i = next; i < batches.size(); i++) {
+            final List<DatasetSplit> splitsInBatch = batches.get(i);
+            final int index = batchIndex + i;
+            futures.add(executor.submit(new Callable<BitSet>() {
+              @Override
+              public BitSet call() {
+                return evaluator.evaluate(splitsInBatch, index);
+              }
+            }));
+          }
+          for (Future<BitSet> future : futures) {
+            results.add(Futures.getUnchecked(future));
+          }
+        } else {
+          // the interpreter evaluates functions in the planner context, which is not thread safe
+          for (int i = next; i < batches.size(); i++) {
+            results.add(evaluator.evaluate(batches.get(i), batchIndex + i));
+          }
+        }
+
+        // Inner loop: within each batch iterate over the each partition in this batch
+        for (int i = 0; i < batches.size(); i++) {
+          final List<DatasetSplit> splitsInBatch = batches.get(i);
+          final BitSet selected = results.get(i);
+          for (int j = selected.nextSetBit(0); j >= 0; j = selected.nextSetBit(j + 1)) {
+            // select this partition
+            qualifiedCount++;
+            selectedSplits.add(splitsInBatch.get(j));
+          }
+          recordCount += splitsInBatch.size();
+        }
 
-      List<DatasetSplit> splitsInBatch = new ArrayList<>();
-      for(int splitsLoaded = 0; splitsLoaded < batchSize && splitIter.hasNext(); ++splitsLoaded) {
-        final DatasetSplit split = splitIter.next();
-        splitsInBatch.add(split);
+        logger.debug("Within batches {} to {}: total records: {}, qualified records: {}", batchIndex, batchIndex + batches.size() - 1, recordCount, qualifiedCount);
+        batchIndex += batches.size();
       }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
 
-      logger.debug("Elapsed time to get list of splits for the current batch: {} ms within batchIndex: {}", miscTimer.elapsed(TimeUnit.MILLISECONDS), batchIndex);
-      miscTimer.reset();
+    List<DatasetSplit> finalNewSplits = selectedSplits.build();
 
+    // Store results in local cache
+    evalutationPruningCache.put(cacheKey, new EvaluationPruningResult(finalNewSplits, recordCount));
+
+    finalSplits.value = finalNewSplits;
+    return qualifiedCount < recordCount;
+  }
+
+  private static int divideRoundUp(int dividend, int divisor) {
+    return (dividend + divisor - 1) / divisor;
+  }
+
+  /**
+   * Evaluates the prune expression over batches of splits.<br>
+   * <br>
+   * The expression is compiled, unless it can't be or compilation is disabled, in which case it is interpreted. The
+   * first batch must be evaluated first, by the planning thread: it materializes the expression and finds out whether it
+   * can be compiled. Once compiled, batches can be evaluated concurrently, each with its own allocator and function
+   * context.
+   */
+  private final class PartitionEvaluator {
+    private final Map<String, Integer> partitionColumnsToIdMap;
+    private final LogicalExpression pruningExpression;
+    private final RexNode pruneCondition;
+    // fields and types of the partition columns, by partition column id
+    private final Map<Integer, Field> partitionColumnIdToFieldMap = Maps.newLinkedHashMap();
+    private final Map<Integer, MajorType> partitionColumnIdToTypeMap = Maps.newHashMap();
+    private final int vectorCount;
+
+    private volatile LogicalExpression materializedExpr;
+    private volatile boolean compiled;
+
+    private PartitionEvaluator(Map<Integer, String> fieldNameMap, Map<String, Integer> partitionColumnsToIdMap,
+        BitSet partitionColumnBitSet, T scanRel, LogicalExpression pruningExpression, RexNode pruneCondition,
+        boolean compile) {
+      this.partitionColumnsToIdMap = partitionColumnsToIdMap;
+      this.pruningExpression = pruningExpression;
+      this.pruneCondition = pruneCondition;
+      this.vectorCount = partitionColumnsToIdMap.size();
+      this.compiled = compile;
+
+      for (int partitionColumnIndex : BitSets.toIter(partitionColumnBitSet)) {
+        final SchemaPath column = SchemaPath.getSimplePath(fieldNameMap.get(partitionColumnIndex));
+        final CompleteType completeType = scanRel.getBatchSchema().getFieldId(column).getFinalType();
+        final MajorType type;
+        if (completeType.getPrecision() != null && completeType.getScale() != null) {
+          type = Types.withScaleAndPrecision(completeType.toMinorType(), DataMode.OPTIONAL, completeType.getScale(), completeType.getPrecision());
+        } else {
+          type = Types.optional(completeType.toMinorType());
+        }
+        partitionColumnIdToFieldMap.put(partitionColumnIndex, getFieldForNameAndMajorType(column.getAsUnescapedPath(), type));
+        partitionColumnIdToTypeMap.put(partitionColumnIndex, type);
+      }
+    }
+
+    private boolean isCompiled() {
+      return compiled;
+    }
+
+    /**
+     * @return positions of the splits selected by the prune expression
+     */
+    private BitSet evaluate(List<DatasetSplit> splitsInBatch, int batchIndex) {
+      final Stopwatch miscTimer = Stopwatch.createUnstarted();
       try(final BufferAllocator allocator = optimizerContext.getAllocator().newChildAllocator("prune-scan-rule", 0, Long.MAX_VALUE);
-      final BitVector output = new BitVector("", allocator);
-      final VectorContainer container = new VectorContainer();
+          final VectorContainer container = new VectorContainer();
           ){
-        final ValueVector[] vectors = new ValueVector[partitionColumnsToIdMap.size()];
-        // setup vector for each partition TODO (AH) Do we have to setup container each time?
-        final Map<Integer, MajorType> partitionColumnIdToTypeMap = Maps.newHashMap();
-
-        for (int partitionColumnIndex : BitSets.toIter(partitionColumnBitSet)) {
-          final SchemaPath column = SchemaPath.getSimplePath(fieldNameMap.get(partitionColumnIndex));
-          final CompleteType completeType = scanRel.getBatchSchema().getFieldId(column).getFinalType();
-          final MajorType type;
-          if (completeType.getPrecision() != null && completeType.getScale() != null) {
-            type = Types.withScaleAndPrecision(completeType.toMinorType(), DataMode.OPTIONAL, completeType.getScale(), completeType.getPrecision());
-          } else {
-            type = Types.optional(completeType.toMinorType());
-          }
-          final ValueVector v = TypeHelper.getNewVector(getFieldForNameAndMajorType(column.getAsUnescapedPath(), type), allocator);
+        // setup vector for each partition
+        final ValueVector[] vectors = new ValueVector[vectorCount];
+        for (Map.Entry<Integer, Field> entry : partitionColumnIdToFieldMap.entrySet()) {
+          final ValueVector v = TypeHelper.getNewVector(entry.getValue(), allocator);
           v.allocateNew();
-          vectors[partitionColumnIndex] = v;
+          vectors[entry.getKey()] = v;
           container.add(v);
-          partitionColumnIdToTypeMap.put(partitionColumnIndex, type);
         }
 
         // track how long we spend populating partition column vectors
@@ -391,46 +527,90 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
         logger.debug("Elapsed time to populate partitioning column vectors: {} ms within batchIndex: {}", miscTimer.elapsed(TimeUnit.MILLISECONDS), batchIndex);
         miscTimer.reset();
 
+        container.buildSchema();
         // materialize the expression; only need to do this once
-        if (batchIndex == 0) {
-          materializedExpr = materializePruneExpr(pruningExpression, settings, scanRel, container);
+        if (materializedExpr == null) {
+          materializedExpr = materializePruneExpr(pruningExpression, container);
           if (materializedExpr == null) {
             throw new IllegalStateException("Unable to materialize prune expression: " + pruneCondition.toString());
           }
         }
-        output.allocateNew(splitsLoaded);
-
-        // start the timer to evaluate how long we spend in the interpreter evaluation
-        miscTimer.start();
-        InterpreterEvaluator.evaluate(splitsLoaded, optimizerContext, container, output, materializedExpr);
-        logger.debug("Elapsed time in interpreter evaluation: {} ms within batchIndex: {} with # of partitions : {}", miscTimer.elapsed(TimeUnit.MILLISECONDS), batchIndex, splitsLoaded);
-        miscTimer.reset();
-
 
-        // Inner loop: within each batch iterate over the each partition in this batch
-        for (int i = 0; i < splitsLoaded; ++i) {
-          if (!output.isNull(i) && output.get(i) == 1) {
-            // select this partition
-            qualifiedCount++;
-            final DatasetSplit split = splitsInBatch.get(i);
-            selectedSplits.add(split);
+        if (compiled) {
+          final BitSet selected = evaluateCompiled(splitsLoaded, container, allocator, batchIndex);
+          if (selected != null) {
+            return selected;
           }
-          recordCount++;
         }
 
-        logger.debug("Within batch {}: total records: {}, qualified records: {}", batchIndex, recordCount, qualifiedCount);
-        batchIndex++;
+        try (final BitVector output = new BitVector("", allocator)) {
+          output.allocateNew(splitsLoaded);
 
+          // start the timer to evaluate how long we spend in the interpreter evaluation
+          miscTimer.start();
+          InterpreterEvaluator.evaluate(splitsLoaded, optimizerContext, container, output, materializedExpr);
+          logger.debug("Elapsed time in interpreter evaluation: {} ms within batchIndex: {} with # of partitions : {}", miscTimer.elapsed(TimeUnit.MILLISECONDS), batchIndex, splitsLoaded);
+          return getSelected(output, splitsLoaded);
+        }
       }
-    } while (splitIter.hasNext());
+    }
 
-    List<DatasetSplit> finalNewSplits = selectedSplits.build();
+    /**
+     * Evaluates the compiled prune expression.
+     *
+     * @return positions of the selected splits, or null if the expression couldn't be compiled
+     */
+    private BitSet evaluateCompiled(int count, VectorContainer container, BufferAllocator allocator, int batchIndex) {
+      final Stopwatch miscTimer = Stopwatch.createStarted();
+      try (final BufferManager bufferManager = new BufferManagerImpl(allocator);
+           final VectorContainer outgoing = new VectorContainer(allocator)) {
+        final ValueVector output = outgoing.addOrGet(materializedExpr.getCompleteType().toField(OUTPUT_FIELD));
+        outgoing.buildSchema();
+
+        final Projector projector;
+        try {
+          final ClassProducer producer = optimizerContext.createClassProducer(bufferManager);
+          final ClassGenerator<Projector> cg = producer.createGenerator(Projector.TEMPLATE_DEFINITION).getRoot();
+          final TypedFieldId fid = outgoing.getValueVectorId(SchemaPath.getSimplePath(OUTPUT_FIELD));
+          cg.addExpr(new ValueVectorWriteExpression(fid, materializedExpr, true), ClassGenerator.BlockCreateMode.NEW_IF_TOO_LARGE);
+          projector = cg.getCodeGenerator().getImplementationClass();
+          projector.setup(producer.getFunctionContext(), container, outgoing, Collections.<TransferPair>emptyList(),
+              new ComplexWriterCreator() {
+                @Override
+                public ComplexWriter addComplexWriter(String name) {
+                  return null;
+                }
+              });
+        } catch (Exception e) {
+          if (batchIndex > 0) {
+            // the expression was compiled for the first batch already
+            throw Throwables.propagate(e);
+          }
+          logger.debug("Unable to compile prune expression {}, evaluating it with the interpreter", materializedExpr, e);
+          compiled = false;
+          return null;
+        }
+        logger.debug("Elapsed time to compile prune expression: {} ms within batchIndex: {}", miscTimer.elapsed(TimeUnit.MILLISECONDS), batchIndex);
+        miscTimer.reset().start();
 
-    // Store results in local cache
-    evalutationPruningCache.put(cacheKey, new EvaluationPruningResult(finalNewSplits, recordCount));
+        output.setInitialCapacity(count);
+        output.allocateNew();
+        projector.projectRecords(count);
+        output.setValueCount(count);
+        logger.debug("Elapsed time in compiled evaluation: {} ms within batchIndex: {} with # of partitions : {}", miscTimer.elapsed(TimeUnit.MILLISECONDS), batchIndex, count);
+        return getSelected((BitVector) output, count);
+      }
+    }
+  }
 
-    finalSplits.value = finalNewSplits;
-    return qualifiedCount < recordCount;
+  private static BitSet getSelected(BitVector output, int count) {
+    final BitSet selected = new BitSet(count);
+    for (int i = 0; i < count; ++i) {
+      if (!output.isNull(i) && output.get(i) == 1) {
+        selected.set(i);
+      }
+    }
+    return selected;
   }
 
   public void doOnMatch(RelOptRuleCall call, Filter filterRel, Project projectRel, T scanRel) {
@@ -515,7 +695,7 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
       final boolean evalPruned;
       final List<DatasetSplit> finalNewSplits;
       if(!outputCondition.value.isAlwaysTrue()){
-        // do interpreter-based evaluation
+        // do expression-based evaluation
         Pointer<List<DatasetSplit>> prunedOutput = new Pointer<>();
         stopwatch.start();
         evalPruned = doEvalPruning(filterRel, fieldNameMap, partitionColumnsToIdMap, partitionColumnBitSet, dataset.value, settings, outputCondition.value, scanRel, prunedOutput);
@@ -742,11 +922,8 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
   }
 
   private LogicalExpression materializePruneExpr(LogicalExpression pruneCondition,
-                                                 PlannerSettings settings,
-                                                 RelNode scanRel,
                                                  VectorContainer container) {
     // materialize the expression
-    container.buildSchema();
     return ExpressionTreeMaterializer.materializeAndCheckErrors(pruneCondition, container.getSchema(), optimizerContext.getFunctionRegistry());
   }
 
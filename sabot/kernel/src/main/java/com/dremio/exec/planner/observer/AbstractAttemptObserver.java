@@ -158,6 +158,10 @@ public abstract class AbstractAttemptObserver implements AttemptObserver {
   public void leafFragmentScheduling(long millisTaken) {
   }
 
+  @Override
+  public void planCacheLookup(boolean hit, long hits, long misses, long millisTaken) {
+  }
+
   @Override
   public void tablesCollected(Iterable<DremioTable> tables) {
   }
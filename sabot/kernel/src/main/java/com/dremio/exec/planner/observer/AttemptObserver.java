@@ -235,4 +235,13 @@ public interface AttemptObserver {
    */
   void leafFragmentScheduling(long millisTaken);
 
+  /**
+   * Lookup of the query plan in the plan cache.
+   * @param hit whether a cached plan is used
+   * @param hits number of lookups which found a plan, since the plan cache was created
+   * @param misses number of lookups which didn't, since the plan cache was created
+   * @param millisTaken time in milliseconds
+   */
+  void planCacheLookup(boolean hit, long hits, long misses, long millisTaken);
+
 }
@@ -240,6 +240,13 @@ public class AttemptObservers implements AttemptObserver {
     }
   }
 
+  @Override
+  public void planCacheLookup(boolean hit, long hits, long misses, long millisTaken) {
+    for (final AttemptObserver observer : observers) {
+      observer.planCacheLookup(hit, hits, misses, millisTaken);
+    }
+  }
+
   @Override
   public void recordExtraInfo(String name, byte[] bytes) {
     for (final AttemptObserver observer : observers) {
@@ -181,6 +181,11 @@ public class DelegatingAttemptObserver implements AttemptObserver {
     observer.leafFragmentScheduling(millisTaken);
   }
 
+  @Override
+  public void planCacheLookup(boolean hit, long hits, long misses, long millisTaken) {
+    observer.planCacheLookup(hit, hits, misses, millisTaken);
+  }
+
   @Override
   public void recordExtraInfo(String name, byte[] bytes) {
     observer.recordExtraInfo(name, bytes);
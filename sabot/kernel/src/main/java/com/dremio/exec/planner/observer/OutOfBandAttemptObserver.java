@@ -357,6 +357,15 @@ public class OutOfBandAttemptObserver implements AttemptObserver {
       }});
   }
 
+  @Override
+  public void planCacheLookup(final boolean hit, final long hits, final long misses, final long millisTaken) {
+    serializedExec.execute(new DeferredRunnable(){
+      @Override
+      public void doRun() {
+        innerObserver.planCacheLookup(hit, hits, misses, millisTaken);
+      }});
+  }
+
   @Override
   public void tablesCollected(Iterable<DremioTable> tables) {
     serializedExec.execute(new DeferredRunnable() {
@@ -32,16 +32,29 @@ import org.apache.calcite.rex.RexNode;
 
 import com.dremio.common.expression.CompleteType;
 import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.logical.data.NamedExpression;
 import com.dremio.common.logical.data.JoinCondition;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.ExpressionTreeMaterializer;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
+import com.dremio.exec.physical.base.AbstractSingle;
+import com.dremio.exec.physical.base.GroupScan;
 import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.config.BroadcastExchange;
+import com.dremio.exec.physical.config.Filter;
 import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.HashToRandomExchange;
+import com.dremio.exec.physical.config.Project;
+import com.dremio.exec.physical.config.RuntimeFilterInfo;
+import com.dremio.exec.physical.config.RuntimeFilterInfo.RuntimeFilterEntry;
+import com.dremio.exec.physical.config.SelectionVectorRemover;
+import com.dremio.exec.physical.config.UnionExchange;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.sabot.op.join.JoinUtils;
 import com.dremio.sabot.op.join.JoinUtils.JoinCategory;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 public class HashJoinPrel  extends JoinPrel {
@@ -120,10 +133,98 @@ public class HashJoinPrel  extends JoinPrel {
 
     final boolean vectorize = creator.getContext().getOptions().getOption(ExecConstants.ENABLE_VECTORIZED_HASHJOIN)
         && canVectorize(creator.getContext().getFunctionRegistry(), leftPop, rightPop, conditions);
-    final HashJoinPOP hjoin = new HashJoinPOP(leftPop, rightPop, conditions, jtype, vectorize);
+    final RuntimeFilterInfo runtimeFilterInfo = vectorize
+        && creator.getContext().getOptions().getOption(ExecConstants.RUNTIME_FILTER_ENABLE)
+        ? getRuntimeFilterInfo(leftPop, rightPop, conditions, jtype) : null;
+    final HashJoinPOP hjoin = new HashJoinPOP(leftPop, rightPop, conditions, jtype, vectorize, runtimeFilterInfo);
     return creator.addMetadata(this, hjoin);
   }
 
+  /**
+   * Finds the scan producing the probe side of the join, and the scan fields read by the probe keys. The probe side
+   * may only go through projects, filters and at most one exchange, and the keys must be plain references to the scan
+   * fields.
+   *
+   * @return the runtime filter to send to the scan, null if there is none
+   */
+  private static RuntimeFilterInfo getRuntimeFilterInfo(PhysicalOperator leftPop, PhysicalOperator rightPop,
+      List<JoinCondition> conditions, JoinRelType joinType) {
+    // the filter drops probe records without a match, which are only dropped by the join for inner and right joins.
+    if (joinType != JoinRelType.INNER && joinType != JoinRelType.RIGHT) {
+      return null;
+    }
+
+    // probe field name for each condition, null if the field can't be traced back to the scan
+    final List<String> fields = Lists.newArrayList();
+    for (JoinCondition c : conditions) {
+      fields.add("EQUALS".equals(c.getRelationship()) ? getSimpleName(c.getLeft()) : null);
+    }
+
+    int exchanges = 0;
+    PhysicalOperator current = leftPop;
+    while (!(current instanceof GroupScan)) {
+      if (current instanceof Project) {
+        final List<NamedExpression> exprs = ((Project) current).getExprs();
+        for (int i = 0; i < fields.size(); i++) {
+          fields.set(i, getProjectedName(exprs, fields.get(i)));
+        }
+      } else if (current instanceof HashToRandomExchange || current instanceof UnionExchange) {
+        exchanges++;
+      } else if (!(current instanceof Filter || current instanceof SelectionVectorRemover)) {
+        return null;
+      }
+
+      if (exchanges > 1) {
+        return null;
+      }
+      current = ((AbstractSingle) current).getChild();
+    }
+
+    final ImmutableList.Builder<RuntimeFilterEntry> entries = ImmutableList.builder();
+    boolean hasEntries = false;
+    for (int i = 0; i < fields.size(); i++) {
+      if (fields.get(i) != null) {
+        entries.add(new RuntimeFilterEntry(i, fields.get(i)));
+        hasEntries = true;
+      }
+    }
+    if (!hasEntries) {
+      return null;
+    }
+
+    // a local scan only feeds this join fragment, otherwise each join fragment only has its part of the build side,
+    // unless it is broadcast.
+    final boolean partial = exchanges > 0 && !isBroadcast(rightPop);
+    return new RuntimeFilterInfo(Short.MAX_VALUE & current.getOperatorId(), partial, entries.build());
+  }
+
+  private static boolean isBroadcast(PhysicalOperator pop) {
+    PhysicalOperator current = pop;
+    while (current instanceof Project || current instanceof Filter || current instanceof SelectionVectorRemover) {
+      current = ((AbstractSingle) current).getChild();
+    }
+    return current instanceof BroadcastExchange;
+  }
+
+  private static String getSimpleName(LogicalExpression expr) {
+    if (!(expr instanceof SchemaPath) || !((SchemaPath) expr).isSimplePath()) {
+      return null;
+    }
+    return ((SchemaPath) expr).getRootSegment().getPath();
+  }
+
+  private static String getProjectedName(List<NamedExpression> exprs, String name) {
+    if (name == null) {
+      return null;
+    }
+    for (NamedExpression e : exprs) {
+      if (name.equalsIgnoreCase(getSimpleName(e.getRef()))) {
+        return getSimpleName(e.getExpr());
+      }
+    }
+    return null;
+  }
+
   private boolean canVectorize(FunctionLookupContext functionLookup, PhysicalOperator leftPop, PhysicalOperator rightPop, List<JoinCondition> conditions){
     BatchSchema left = leftPop.getSchema(functionLookup);
     BatchSchema right = rightPop.getSchema(functionLookup);
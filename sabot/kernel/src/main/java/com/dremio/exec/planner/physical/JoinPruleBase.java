@@ -73,15 +73,22 @@ public abstract class JoinPruleBase extends Prule {
   }
 
   protected boolean checkBroadcastConditions(RelOptPlanner planner, JoinRel join, RelNode left, RelNode right) {
-    final RelMetadataQuery mq = join.getCluster().getMetadataQuery();
+    return checkBroadcastConditions(join.getJoinType(), left, right);
+  }
+
+  /**
+   * Checks whether the right input of a join of the given type can be broadcast.
+   */
+  static boolean checkBroadcastConditions(JoinRelType joinType, RelNode left, RelNode right) {
+    final RelMetadataQuery mq = left.getCluster().getMetadataQuery();
     // right node is the one that is being considered to be broadcasted
     final double rightRowCount = mq.getRowCount(right);
-    if (rightRowCount < PrelUtil.getSettings(join.getCluster()).getBroadcastThreshold()
-        && ! left.getTraitSet().getTrait(DistributionTraitDef.INSTANCE).equals(DistributionTrait.SINGLETON)
-        && (join.getJoinType() == JoinRelType.INNER || join.getJoinType() == JoinRelType.LEFT)) {
+    if (rightRowCount < PrelUtil.getSettings(left.getCluster()).getBroadcastThreshold()
+        && !DistributionTrait.SINGLETON.equals(left.getTraitSet().getTrait(DistributionTraitDef.INSTANCE))
+        && (joinType == JoinRelType.INNER || joinType == JoinRelType.LEFT)) {
       // DX-3862:  For broadcast joins, the cost should not just consider the traits and join type.  If the broadcast table is small enough,
       // we shouldn't need to worry too much and allow broadcast join and see what the planner picks.
-      final PlannerSettings plannerSettings = PrelUtil.getSettings(join.getCluster());
+      final PlannerSettings plannerSettings = PrelUtil.getSettings(left.getCluster());
       if (rightRowCount <= plannerSettings.getOptions().getOption(PlannerSettings.BROADCAST_MIN_THRESHOLD)) {
         logger.debug("Enable broadcast plan? true (rightRowCount %d smaller than minimum broadcast threshold)", rightRowCount);
         return true;
@@ -71,6 +71,7 @@ public class PlannerSettings implements Context{
   public static final BooleanValidator HASHJOIN = new BooleanValidator("planner.enable_hashjoin", true);
   public static final BooleanValidator MERGEJOIN = new BooleanValidator("planner.enable_mergejoin", false);
   public static final BooleanValidator NESTEDLOOPJOIN = new BooleanValidator("planner.enable_nestedloopjoin", true);
+  public static final BooleanValidator RANGEJOIN = new BooleanValidator("planner.enable_rangejoin", true);
   public static final BooleanValidator MULTIPHASE = new BooleanValidator("planner.enable_multiphase_agg", true);
   public static final OptionValidator BROADCAST = new BooleanValidator("planner.enable_broadcast_join", true);
   public static final LongValidator BROADCAST_MIN_THRESHOLD = new PositiveLongValidator("planner.broadcast_min_threshold", MAX_BROADCAST_THRESHOLD, 500000);
@@ -97,6 +98,8 @@ public class PlannerSettings implements Context{
   public static final BooleanValidator ENABLE_DECIMAL_DATA_TYPE = new BooleanValidator(ENABLE_DECIMAL_DATA_TYPE_KEY, false);
   public static final BooleanValidator HEP_OPT = new BooleanValidator("planner.enable_hep_opt", true);
   public static final BooleanValidator ENABLE_PARTITION_PRUNING = new BooleanValidator("planner.enable_partition_pruning", true);
+  public static final BooleanValidator ENABLE_PARTITION_PRUNING_CODEGEN = new BooleanValidator("planner.partition_pruning.codegen", true);
+  public static final LongValidator PARTITION_PRUNING_PARALLELISM = new RangeLongValidator("planner.partition_pruning.parallelism", 1, 64, 4);
   public static final LongValidator PLANNER_MEMORY_LIMIT = new RangeLongValidator("planner.memory_limit",
       INITIAL_OFF_HEAP_ALLOCATION_IN_BYTES, MAX_OFF_HEAP_ALLOCATION_IN_BYTES, DEFAULT_MAX_OFF_HEAP_ALLOCATION_IN_BYTES);
   public static final String UNIONALL_DISTRIBUTE_KEY = "planner.enable_unionall_distribute";
@@ -141,6 +144,13 @@ public class PlannerSettings implements Context{
    */
   public static final BooleanValidator REUSE_PREPARE_HANDLES = new BooleanValidator("planner.reuse_prepare_statement_handles", false);
 
+  /**
+   * Controls whether the physical plans of sql queries are cached by sql text, so queries sent again by the same user
+   * with the same context and options skip planning as long as the datasets and reflections they depend on didn't
+   * change.
+   */
+  public static final BooleanValidator ENABLE_PLAN_CACHE = new BooleanValidator("planner.plan_cache.enabled", false);
+
   public static final BooleanValidator VERBOSE_PROFILE = new BooleanValidator("planner.verbose_profile", false);
 
   public static final BooleanValidator INCLUDE_DATASET_PROFILE = new BooleanValidator("planner.include_dataset_profile", true);
@@ -345,6 +355,10 @@ public class PlannerSettings implements Context{
     return options.getOption(NESTEDLOOPJOIN.getOptionName()).getBoolVal();
   }
 
+  public boolean isRangeJoinEnabled() {
+    return options.getOption(RANGEJOIN.getOptionName()).getBoolVal();
+  }
+
   public boolean isMultiPhaseAggEnabled() {
     return options.getOption(MULTIPHASE.getOptionName()).getBoolVal();
   }
@@ -421,6 +435,14 @@ public class PlannerSettings implements Context{
     return options.getOption(ENABLE_PARTITION_PRUNING);
   }
 
+  public boolean isPartitionPruningCodegenEnabled() {
+    return options.getOption(ENABLE_PARTITION_PRUNING_CODEGEN);
+  }
+
+  public int getPartitionPruningParallelism() {
+    return (int) options.getOption(PARTITION_PRUNING_PARALLELISM);
+  }
+
   public boolean isTrivialSingularOptimized() {
     return options.getOption(ENABLE_TRIVIAL_SINGULAR);
   }
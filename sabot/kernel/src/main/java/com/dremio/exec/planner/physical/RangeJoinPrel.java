@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.physical;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.InvalidRelException;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+
+import com.dremio.common.expression.FieldReference;
+import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.config.RangeJoinPOP;
+import com.dremio.exec.planner.cost.DremioCost;
+import com.dremio.exec.planner.cost.DremioCost.Factory;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.google.common.collect.Lists;
+
+/**
+ * Join whose condition is a band, a lower and an upper bound of a left field given by right fields (see
+ * {@link RangeJoinPrule}). The right side is sorted by lower bound, and each left record looks up the right records
+ * whose range contains it.
+ */
+public class RangeJoinPrel extends JoinPrel {
+
+  public RangeJoinPrel(RelOptCluster cluster, RelTraitSet traits, RelNode left, RelNode right, RexNode condition,
+                       JoinRelType joinType) throws InvalidRelException {
+    super(cluster, traits, left, right, condition, joinType);
+  }
+
+  @Override
+  public Join copy(RelTraitSet traitSet, RexNode conditionExpr, RelNode left, RelNode right, JoinRelType joinType, boolean semiJoinDone) {
+    try {
+      return new RangeJoinPrel(this.getCluster(), traitSet, left, right, conditionExpr, joinType);
+    }catch (InvalidRelException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Override
+  public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+    if(PrelUtil.getSettings(getCluster()).useDefaultCosting()) {
+      return super.computeSelfCost(planner).multiplyBy(.1);
+    }
+    double leftRowCount = mq.getRowCount(this.getLeft());
+    double rightRowCount = mq.getRowCount(this.getRight());
+    double log2Right = Math.max(1, Math.log(rightRowCount) / Math.log(2));
+
+    // cpu cost of sorting the right side, then of a binary search for each left record
+    double cpuCost = DremioCost.COMPARE_CPU_COST * (rightRowCount + leftRowCount) * log2Right;
+
+    long fieldWidth = PrelUtil.getPlannerSettings(planner).getOptions()
+        .getOption(ExecConstants.AVERAGE_FIELD_WIDTH_KEY).getNumVal();
+    // right records + sorted ranges
+    double memCost = (fieldWidth * this.getRight().getRowType().getFieldCount() + 2 * fieldWidth) * rightRowCount;
+
+    Factory costFactory = (Factory) planner.getCostFactory();
+    return costFactory.makeCost(leftRowCount + rightRowCount, cpuCost, 0, 0, memCost);
+  }
+
+  @Override
+  public PhysicalOperator getPhysicalOperator(PhysicalPlanCreator creator) throws IOException {
+    final List<String> fields = getRowType().getFieldNames();
+    assert isUnique(fields);
+
+    final List<String> leftFields = left.getRowType().getFieldNames();
+    final List<String> rightFields = right.getRowType().getFieldNames();
+
+    PhysicalOperator leftPop = ((Prel)left).getPhysicalOperator(creator);
+    PhysicalOperator rightPop = ((Prel)right).getPhysicalOperator(creator);
+
+    // conditions are normalized by RangeJoinPrule, the left field is the first operand
+    List<JoinCondition> conditions = Lists.newArrayList();
+    for (RexNode conjunct : RelOptUtil.conjunctions(getCondition())) {
+      final RexCall call = (RexCall) conjunct;
+      final int leftIndex = ((RexInputRef) call.getOperands().get(0)).getIndex();
+      final int rightIndex = ((RexInputRef) call.getOperands().get(1)).getIndex() - leftFields.size();
+      conditions.add(new JoinCondition(call.getKind().toString(),
+          FieldReference.getWithQuotedRef(leftFields.get(leftIndex)),
+          FieldReference.getWithQuotedRef(rightFields.get(rightIndex))));
+    }
+
+    RangeJoinPOP rangeJoin = new RangeJoinPOP(leftPop, rightPop, conditions, this.getJoinType());
+    return creator.addMetadata(this, rangeJoin);
+  }
+
+  @Override
+  public SelectionVectorMode[] getSupportedEncodings() {
+    return SelectionVectorMode.DEFAULT;
+  }
+
+  @Override
+  public SelectionVectorMode getEncoding() {
+    return SelectionVectorMode.NONE;
+  }
+
+}
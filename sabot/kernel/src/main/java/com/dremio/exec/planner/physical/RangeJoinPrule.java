@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.physical;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptRuleOperand;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.InvalidRelException;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlOperator;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.util.Pair;
+import org.apache.calcite.util.trace.CalciteTrace;
+import org.slf4j.Logger;
+
+import com.dremio.exec.planner.logical.JoinRel;
+import com.dremio.exec.planner.logical.RelOptHelper;
+import com.dremio.sabot.op.join.JoinUtils;
+import com.dremio.sabot.op.join.JoinUtils.JoinCategory;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Plans inner joins whose condition contains a band, e.g. {@code l.ts >= r.start AND l.ts < r.end}, as a
+ * {@link RangeJoinPrel} with the right side broadcast. The remaining conjuncts of the condition are applied by a
+ * filter on top of the join.
+ */
+public class RangeJoinPrule extends JoinPruleBase {
+  public static final RelOptRule INSTANCE = new RangeJoinPrule("Prel.RangeJoinPrule", RelOptHelper.any(JoinRel.class));
+
+  protected static final Logger tracer = CalciteTrace.getPlannerTracer();
+
+  // types whose values are read as integers by the range join
+  private static final EnumSet<SqlTypeName> SUPPORTED_TYPES = EnumSet.of(SqlTypeName.INTEGER, SqlTypeName.BIGINT,
+      SqlTypeName.DATE, SqlTypeName.TIME, SqlTypeName.TIMESTAMP);
+
+  private RangeJoinPrule(String name, RelOptRuleOperand operand) {
+    super(operand, name);
+  }
+
+  @Override
+  protected boolean checkPreconditions(JoinRel join, RelNode left, RelNode right,
+      PlannerSettings settings) {
+    if (join.getJoinType() != JoinRelType.INNER) {
+      return false;
+    }
+
+    JoinCategory category = JoinUtils.getJoinCategory(left, right, join.getCondition(),
+        Lists.<Integer>newArrayList(), Lists.<Integer>newArrayList(), Lists.<Boolean>newArrayList());
+    if (category == JoinCategory.EQUALITY
+        && (settings.isHashJoinEnabled() || settings.isMergeJoinEnabled())) {
+      return false;
+    }
+
+    return splitBandCondition(left, join.getCondition(), join.getCluster().getRexBuilder()) != null;
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    return PrelUtil.getPlannerSettings(call.getPlanner()).isRangeJoinEnabled();
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    PlannerSettings settings = PrelUtil.getPlannerSettings(call.getPlanner());
+    if (!settings.isRangeJoinEnabled()) {
+      return;
+    }
+
+    final JoinRel join = (JoinRel) call.rel(0);
+    final RelNode left = join.getLeft();
+    final RelNode right = join.getRight();
+
+    if (!checkPreconditions(join, left, right, settings)) {
+      return;
+    }
+
+    try {
+
+      if (checkBroadcastConditions(call.getPlanner(), join, left, right)) {
+        final RexBuilder builder = join.getCluster().getRexBuilder();
+        final Pair<List<RexNode>, List<RexNode>> band = splitBandCondition(left, join.getCondition(), builder);
+
+        final RelTraitSet traitsLeft = left.getTraitSet().plus(Prel.PHYSICAL);
+        final RelTraitSet traitsRight = right.getTraitSet().plus(Prel.PHYSICAL).plus(DistributionTrait.BROADCAST);
+        final RelNode convertedLeft = convert(left, traitsLeft);
+        final RelNode convertedRight = convert(right, traitsRight);
+
+        RelNode rangeJoin = new RangeJoinPrel(join.getCluster(), convertedLeft.getTraitSet(), convertedLeft,
+            convertedRight, RexUtil.composeConjunction(builder, band.left, false), join.getJoinType());
+        if (!band.right.isEmpty()) {
+          rangeJoin = new FilterPrel(join.getCluster(), convertedLeft.getTraitSet(), rangeJoin,
+              RexUtil.composeConjunction(builder, band.right, false));
+        }
+        call.transformTo(rangeJoin);
+      }
+
+    } catch (InvalidRelException e) {
+      tracer.warn(e.toString());
+    }
+  }
+
+  /**
+   * Checks whether this rule can plan a join, so that its logical cost can tell the planner a nested loop join isn't
+   * needed. Same checks as {@link #onMatch}, and the rule is only registered when broadcast joins are enabled.
+   *
+   * @return true if a join of the given inputs can be planned as a range join
+   */
+  public static boolean canPlan(JoinRelType joinType, RelNode left, RelNode right, RexNode condition) {
+    final PlannerSettings settings = PrelUtil.getSettings(left.getCluster());
+    return joinType == JoinRelType.INNER
+        && settings.isRangeJoinEnabled()
+        && settings.isBroadcastJoinEnabled()
+        && splitBandCondition(left, condition, left.getCluster().getRexBuilder()) != null
+        && checkBroadcastConditions(joinType, left, right);
+  }
+
+  /**
+   * Looks for a band in a join condition: two comparisons of the same left field, one with a right field as lower
+   * bound and one with a right field as upper bound, all three fields having the same supported type.
+   *
+   * @param left left input of the join
+   * @param condition join condition
+   * @param builder rex builder
+   * @return the two comparisons of the band, the left field as first operand, and the remaining conjuncts of the
+   * condition, or null if the condition has no band
+   */
+  static Pair<List<RexNode>, List<RexNode>> splitBandCondition(RelNode left, RexNode condition, RexBuilder builder) {
+    final int leftFieldCount = left.getRowType().getFieldCount();
+    final List<RexNode> conjuncts = RelOptUtil.conjunctions(condition);
+    final Map<Integer, Integer> lowers = Maps.newHashMap();
+    final Map<Integer, Integer> uppers = Maps.newHashMap();
+    final List<RexNode> normalized = Lists.newArrayList();
+
+    for (int i = 0; i < conjuncts.size(); i++) {
+      final RexNode comparison = normalize(conjuncts.get(i), leftFieldCount, builder);
+      normalized.add(comparison);
+      if (comparison == null) {
+        continue;
+      }
+
+      final int leftIndex = ((RexInputRef) ((RexCall) comparison).getOperands().get(0)).getIndex();
+      final Map<Integer, Integer> bounds = comparison.isA(SqlKind.GREATER_THAN)
+          || comparison.isA(SqlKind.GREATER_THAN_OR_EQUAL) ? lowers : uppers;
+      if (!bounds.containsKey(leftIndex)) {
+        bounds.put(leftIndex, i);
+      }
+    }
+
+    for (Map.Entry<Integer, Integer> lower : lowers.entrySet()) {
+      final Integer upper = uppers.get(lower.getKey());
+      if (upper == null) {
+        continue;
+      }
+
+      final List<RexNode> band = Lists.newArrayList(normalized.get(lower.getValue()), normalized.get(upper));
+      final List<RexNode> remaining = Lists.newArrayList();
+      for (int i = 0; i < conjuncts.size(); i++) {
+        if (i != lower.getValue() && i != upper) {
+          remaining.add(conjuncts.get(i));
+        }
+      }
+      return Pair.of(band, remaining);
+    }
+    return null;
+  }
+
+  /**
+   * @return the comparison of a left field with a right field, with the left field as first operand, or null if the
+   * condition isn't such a comparison
+   */
+  private static RexNode normalize(RexNode condition, int leftFieldCount, RexBuilder builder) {
+    if (!(condition instanceof RexCall)) {
+      return null;
+    }
+    final RexCall call = (RexCall) condition;
+    final SqlOperator flipped;
+    switch (call.getKind()) {
+    case GREATER_THAN:
+      flipped = SqlStdOperatorTable.LESS_THAN;
+      break;
+    case GREATER_THAN_OR_EQUAL:
+      flipped = SqlStdOperatorTable.LESS_THAN_OR_EQUAL;
+      break;
+    case LESS_THAN:
+      flipped = SqlStdOperatorTable.GREATER_THAN;
+      break;
+    case LESS_THAN_OR_EQUAL:
+      flipped = SqlStdOperatorTable.GREATER_THAN_OR_EQUAL;
+      break;
+    default:
+      return null;
+    }
+
+    final RexNode first = call.getOperands().get(0);
+    final RexNode second = call.getOperands().get(1);
+    if (!(first instanceof RexInputRef) || !(second instanceof RexInputRef)) {
+      return null;
+    }
+    final SqlTypeName type = first.getType().getSqlTypeName();
+    if (!SUPPORTED_TYPES.contains(type) || type != second.getType().getSqlTypeName()) {
+      return null;
+    }
+
+    final boolean firstIsLeft = ((RexInputRef) first).getIndex() < leftFieldCount;
+    final boolean secondIsLeft = ((RexInputRef) second).getIndex() < leftFieldCount;
+    if (firstIsLeft == secondIsLeft) {
+      return null;
+    }
+    return firstIsLeft ? call : builder.makeCall(flipped, second, first);
+  }
+
+}
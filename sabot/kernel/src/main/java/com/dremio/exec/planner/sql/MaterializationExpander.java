@@ -34,6 +34,7 @@ import org.apache.calcite.util.Pair;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.exec.calcite.logical.ScanCrel;
 import com.dremio.exec.catalog.DremioCatalogReader;
+import com.dremio.exec.planner.acceleration.IncrementalUpdateSettings;
 import com.dremio.exec.planner.acceleration.IncrementalUpdateUtils;
 import com.dremio.exec.planner.acceleration.IncrementalUpdateUtils.SubstitutionShuttle;
 import com.dremio.exec.planner.acceleration.KryoLogicalPlanSerializers;
@@ -64,11 +65,14 @@ public class MaterializationExpander {
     // for incremental update, we need to rewrite the queryRel so that it propogates the UPDATE_COLUMN and
     // adds it as a grouping key in aggregates
     if (descriptor.getIncrementalUpdateSettings().isIncremental()) {
+      final IncrementalUpdateSettings settings = descriptor.getIncrementalUpdateSettings();
       RelShuttle shuttle;
-      if (descriptor.getIncrementalUpdateSettings().getUpdateField() == null) {
+      if (settings.getUpdateField() == null && settings.getUpdateTable() == null) {
         shuttle = IncrementalUpdateUtils.FILE_BASED_SUBSTITUTION_SHUTTLE;
+      } else if (settings.getUpdateField() == null) {
+        shuttle = new SubstitutionShuttle(IncrementalUpdateUtils.UPDATE_COLUMN, settings.getUpdateTable());
       } else {
-        shuttle = new SubstitutionShuttle(descriptor.getIncrementalUpdateSettings().getUpdateField());
+        shuttle = new SubstitutionShuttle(settings.getUpdateField(), settings.getUpdateTable());
       }
       queryRel = queryRel.accept(shuttle);
     }
@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import com.dremio.exec.ops.ExecutionMetrics;
 import com.dremio.exec.ops.QueryContext;
 import com.dremio.exec.physical.PhysicalPlan;
 import com.dremio.exec.planner.fragment.PlanningSet;
@@ -31,6 +32,7 @@ import com.dremio.resource.ResourceSet;
 import com.dremio.resource.basic.BasicResourceConstants;
 import com.dremio.resource.basic.QueueType;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
 import com.google.common.util.concurrent.ListenableFuture;
 
 /**
@@ -95,8 +97,10 @@ public abstract class AsyncCommand<T> implements CommandRunner<T> {
     resourceSchedulingProperties.setQueryCost(Double.valueOf(planCost));
     // TODO set client type, workload type???
 
+    final Stopwatch queueWatch = Stopwatch.createStarted();
     ListenableFuture<ResourceSet> resourcesFuture = queryResourceManager.allocate(context, resourceSchedulingProperties);
     resourceSet = resourcesFuture.get(15, TimeUnit.SECONDS);
+    ExecutionMetrics.recordQueryQueue(queueWatch.elapsed(TimeUnit.MILLISECONDS));
     return planningSet;
   }
 
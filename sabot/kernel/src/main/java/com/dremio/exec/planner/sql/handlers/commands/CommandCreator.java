@@ -15,9 +15,12 @@
  */
 package com.dremio.exec.planner.sql.handlers.commands;
 
+import static com.dremio.exec.planner.physical.PlannerSettings.ENABLE_PLAN_CACHE;
 import static com.dremio.exec.planner.physical.PlannerSettings.REUSE_PREPARE_HANDLES;
 import static com.dremio.exec.planner.physical.PlannerSettings.STORE_QUERY_RESULTS;
 
+import java.util.concurrent.TimeUnit;
+
 import org.apache.calcite.sql.SqlNode;
 
 import com.dremio.common.exceptions.UserException;
@@ -82,6 +85,7 @@ import com.dremio.options.OptionValue;
 import com.dremio.resource.ResourceAllocator;
 import com.dremio.service.Pointer;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
 import com.google.common.cache.Cache;
 import com.google.protobuf.InvalidProtocolBufferException;
 
@@ -99,6 +103,7 @@ public class CommandCreator {
   private final AttemptObserver observer;
   private final SabotContext dbContext;
   private final Cache<Long, PreparedPlan> plans;
+  private final PlanCache planCache;
   private final int attemptNumber;
   private final Pointer<QueryId> prepareId;
 
@@ -109,6 +114,7 @@ public class CommandCreator {
     UserRequest request,
     AttemptObserver observer,
     Cache<Long, PreparedPlan> plans,
+    PlanCache planCache,
     Pointer<QueryId> prepareId,
     int attemptNumber,
     ResourceAllocator queryResourceManager) {
@@ -118,6 +124,7 @@ public class CommandCreator {
     this.observer = observer;
     this.dbContext = dbContext;
     this.plans = plans;
+    this.planCache = planCache;
     this.prepareId = prepareId;
     this.attemptNumber = attemptNumber;
     this.queryResourceManager = queryResourceManager;
@@ -307,7 +314,7 @@ public class CommandCreator {
 
         // fallthrough
       default:
-        return async.create(new NormalHandler(), config);
+        return async.createQuery(new NormalHandler(), config);
       }
 
     } catch(SqlUnsupportedException e) {
@@ -367,6 +374,38 @@ public class CommandCreator {
       return new HandlerToExec(tunnelCreator, context, dbContext.getPlanReader(), observer, sql, sqlNode,
         handler, config, queryResourceManager);
     }
+
+    // queries, whose plans can be cached by sql text
+    public CommandRunner<?> createQuery(SqlToPlanHandler handler, SqlHandlerConfig config){
+      if (!isPlanCacheable()) {
+        return create(handler, config);
+      }
+
+      final Stopwatch stopwatch = Stopwatch.createStarted();
+      final String planCacheKey = PlanCache.getKey(context, sql);
+      final PreparedPlan plan = planCache.get(planCacheKey, context);
+      observer.planCacheLookup(plan != null, planCache.getHits(), planCache.getMisses(),
+        stopwatch.elapsed(TimeUnit.MILLISECONDS));
+      if (plan != null) {
+        return new PrepareToExecution(plan, context, observer, dbContext.getPlanReader(), tunnelCreator, queryResourceManager);
+      }
+      return new HandlerToExec(tunnelCreator, context, dbContext.getPlanReader(), observer, sql, sqlNode,
+        handler, config, queryResourceManager, planCache, planCacheKey);
+    }
+
+    private boolean isPlanCacheable() {
+      if (prepare || planCache == null || !context.getOptions().getOption(ENABLE_PLAN_CACHE)) {
+        return false;
+      }
+      // as for prepared statements, only use cached plans on the first attempt, as a failed attempt might have been
+      // caused by stale metadata.
+      if (attemptNumber != 0) {
+        return false;
+      }
+      // stored results are written to a location specific to each query
+      final OptionValue value = context.getOptions().getOption(STORE_QUERY_RESULTS.getOptionName());
+      return value == null || !value.getBoolVal();
+    }
   }
 
 }
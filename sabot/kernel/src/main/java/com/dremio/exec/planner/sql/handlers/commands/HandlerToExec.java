@@ -22,7 +22,9 @@ import com.dremio.exec.physical.PhysicalPlan;
 import com.dremio.exec.planner.PhysicalPlanReader;
 import com.dremio.exec.planner.fragment.PlanningSet;
 import com.dremio.exec.planner.observer.AttemptObserver;
+import com.dremio.exec.planner.observer.AttemptObservers;
 import com.dremio.exec.planner.sql.handlers.SqlHandlerConfig;
+import com.dremio.exec.planner.sql.handlers.commands.HandlerToPreparePlan.RecordingObserver;
 import com.dremio.exec.planner.sql.handlers.query.SqlToPlanHandler;
 import com.dremio.exec.work.foreman.ExecutionPlan;
 import com.dremio.exec.work.rpc.CoordToExecTunnelCreator;
@@ -40,6 +42,8 @@ public class HandlerToExec extends AsyncCommand<Object> {
   private final SqlToPlanHandler handler;
   private final String sql;
   private final SqlHandlerConfig config;
+  private final PlanCache planCache;
+  private final String planCacheKey;
 
   private ExecutionPlan exec;
 
@@ -53,6 +57,24 @@ public class HandlerToExec extends AsyncCommand<Object> {
       SqlToPlanHandler handler,
       SqlHandlerConfig config,
       ResourceAllocator queryResourceManager) {
+    this(tunnelCreator, context, reader, observer, sql, sqlNode, handler, config, queryResourceManager, null, null);
+  }
+
+  /**
+   * Creates a command whose plan is saved in the plan cache under the given key.
+   */
+  public HandlerToExec(
+      CoordToExecTunnelCreator tunnelCreator,
+      QueryContext context,
+      PhysicalPlanReader reader,
+      AttemptObserver observer,
+      String sql,
+      SqlNode sqlNode,
+      SqlToPlanHandler handler,
+      SqlHandlerConfig config,
+      ResourceAllocator queryResourceManager,
+      PlanCache planCache,
+      String planCacheKey) {
     super(context, queryResourceManager, observer);
     this.tunnelCreator = tunnelCreator;
     this.reader = reader;
@@ -61,12 +83,26 @@ public class HandlerToExec extends AsyncCommand<Object> {
     this.sql = sql;
     this.handler = handler;
     this.config = config;
+    this.planCache = planCache;
+    this.planCacheKey = planCacheKey;
   }
 
   @Override
   public double plan() throws Exception {
-    observer.planStart(sql);
-    PhysicalPlan plan = handler.getPlan(config, sql, sqlNode);
+    final PhysicalPlan plan;
+    if (planCache != null) {
+      // record the planning calls, so they can be replayed when the cached plan is used
+      final RecordingObserver recording = new RecordingObserver();
+      final PlanCache.Capture capture = planCache.newCapture(context);
+      final AttemptObservers observers = AttemptObservers.of(observer, recording, capture);
+      observers.planStart(sql);
+      plan = handler.getPlan(config.cloneWithNewObserver(observers), sql, sqlNode);
+      planCache.put(planCacheKey,
+        new PreparedPlan(context.getQueryId(), context.getQueryUserName(), sql, plan, recording), capture);
+    } else {
+      observer.planStart(sql);
+      plan = handler.getPlan(config, sql, sqlNode);
+    }
     final PlanningSet planningSet = allocateResourcesBasedOnPlan(plan);
     exec = ExecutionPlanCreator.getExecutionPlan(context, reader, observer, plan,
       resourceSet, planningSet);
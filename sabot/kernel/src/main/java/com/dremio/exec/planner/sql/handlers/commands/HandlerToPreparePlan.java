@@ -25,6 +25,7 @@ import org.apache.calcite.rel.RelRoot;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.sql.SqlNode;
 
+import com.dremio.exec.catalog.DremioTable;
 import com.dremio.exec.ops.QueryContext;
 import com.dremio.exec.physical.PhysicalPlan;
 import com.dremio.exec.planner.PlannerPhase;
@@ -208,6 +209,12 @@ public class HandlerToPreparePlan implements CommandRunner<CreatePreparedStateme
       calls.add(observer -> observer.planJsonPlan(text));
     }
 
+    @Override
+    public void tablesCollected(final Iterable<DremioTable> tables) {
+      final List<DremioTable> collected = ImmutableList.copyOf(tables);
+      calls.add(observer -> observer.tablesCollected(collected));
+    }
+
     public void replay(AttemptObserver observer) {
       for(ObserverCall c : calls){
         c.doCall(observer);
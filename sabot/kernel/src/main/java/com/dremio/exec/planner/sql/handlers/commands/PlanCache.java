@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.sql.handlers.commands;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelVisitor;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+
+import com.dremio.exec.catalog.Catalog;
+import com.dremio.exec.catalog.DremioTable;
+import com.dremio.exec.ops.QueryContext;
+import com.dremio.exec.planner.observer.AbstractAttemptObserver;
+import com.dremio.exec.planner.sql.MaterializationDescriptor;
+import com.dremio.options.OptionValue;
+import com.dremio.service.namespace.NamespaceKey;
+import com.dremio.service.namespace.dataset.proto.DatasetConfig;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Cache of the physical plans of sql queries, so queries sent again with the same sql text skip planning.<br>
+ * <br>
+ * Plans are keyed by the normalized sql, the user, the default schema and the non-default options of the query. Each
+ * plan remembers the version of every dataset read while planning it, and the materializations available at the time.
+ * A plan is only reused if none of them changed, otherwise it is dropped and the query is planned again. Plans of
+ * queries calling non-deterministic functions, or reading datasets without a version, are not cached.
+ */
+public class PlanCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PlanCache.class);
+
+  private final Cache<String, CachedPlan> plans;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public PlanCache(long maxSize, long expireAfterAccessMs) {
+    this.plans = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        // plans are memory intensive. If there is memory pressure, let GC release them before running OOM.
+        .softValues()
+        .expireAfterAccess(expireAfterAccessMs, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * Gets the plan cached for a query, if it is still valid.
+   *
+   * @param key the query key, see {@link #getKey(QueryContext, String)}
+   * @param context the context of the query
+   * @return the cached plan, or null if none is cached or if it is stale
+   */
+  public PreparedPlan get(String key, QueryContext context) {
+    final CachedPlan cached = plans.getIfPresent(key);
+    if (cached != null) {
+      if (cached.isValid(context)) {
+        hits.incrementAndGet();
+        return cached.plan;
+      }
+      plans.asMap().remove(key, cached);
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Starts capturing what the plan of a query depends on. Must be called before the query is planned.
+   */
+  public Capture newCapture(QueryContext context) {
+    return new Capture(getMaterializationIds(context));
+  }
+
+  /**
+   * Caches the plan of a query, unless it can't be reused.
+   *
+   * @param key the query key
+   * @param plan the query plan
+   * @param capture what the plan depends on, captured while planning the query
+   */
+  public void put(String key, PreparedPlan plan, Capture capture) {
+    if (!capture.isCacheable()) {
+      return;
+    }
+    plans.put(key, new CachedPlan(plan, capture.datasetVersions, capture.materializationIds));
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @VisibleForTesting
+  long size() {
+    return plans.size();
+  }
+
+  /**
+   * Computes the key of a query, from its normalized sql and the user, default schema and options it runs with.
+   */
+  public static String getKey(QueryContext context, String sql) {
+    final Hasher hasher = Hashing.sha256().newHasher()
+        .putString(context.getQueryUserName(), UTF_8)
+        .putByte((byte) 0);
+    final NamespaceKey defaultSchema = context.getSession().getDefaultSchemaPath();
+    if (defaultSchema != null) {
+      hasher.putString(defaultSchema.getSchemaPath(), UTF_8);
+    }
+    hasher.putByte((byte) 0);
+
+    // sorted, so the key doesn't depend on the order options were set in
+    final List<OptionValue> options = new ArrayList<>(context.getNonDefaultOptions());
+    Collections.sort(options);
+    for (OptionValue option : options) {
+      hasher.putString(option.getName(), UTF_8)
+          .putByte((byte) 0)
+          .putString(String.valueOf(option.getValue()), UTF_8)
+          .putByte((byte) 0);
+    }
+    return hasher.putByte((byte) 1)
+        .putString(normalizeSql(sql), UTF_8)
+        .hash()
+        .toString();
+  }
+
+  /**
+   * Normalizes sql text, so queries differing only by whitespace share plans. Whitespace outside of quoted strings and
+   * identifiers is collapsed, and trailing semicolons are ignored.
+   */
+  public static String normalizeSql(String sql) {
+    final StringBuilder sb = new StringBuilder(sql.length());
+    char quote = 0;
+    boolean space = false;
+    for (int i = 0; i < sql.length(); i++) {
+      final char c = sql.charAt(i);
+      if (quote != 0) {
+        sb.append(c);
+        if (c == quote) {
+          quote = 0;
+        }
+        continue;
+      }
+      if (Character.isWhitespace(c)) {
+        space = true;
+        continue;
+      }
+      if (space && sb.length() > 0) {
+        sb.append(' ');
+      }
+      space = false;
+      if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      }
+      sb.append(c);
+    }
+    int length = sb.length();
+    while (length > 0 && sb.charAt(length - 1) == ';') {
+      length--;
+    }
+    return sb.substring(0, length).trim();
+  }
+
+  /**
+   * Checks whether a plan always produces the same results on the same data.
+   */
+  public static boolean isDeterministic(RelNode plan) {
+    final boolean[] deterministic = {true};
+    final RexShuttle shuttle = new RexShuttle() {
+      @Override
+      public RexNode visitCall(RexCall call) {
+        if (!call.getOperator().isDeterministic() || call.getOperator().isDynamicFunction()) {
+          deterministic[0] = false;
+        }
+        return super.visitCall(call);
+      }
+    };
+    new RelVisitor() {
+      @Override
+      public void visit(RelNode node, int ordinal, RelNode parent) {
+        node.accept(shuttle);
+        super.visit(node, ordinal, parent);
+      }
+    }.go(plan);
+    return deterministic[0];
+  }
+
+  private static Set<String> getMaterializationIds(QueryContext context) {
+    final Set<String> ids = new HashSet<>();
+    for (MaterializationDescriptor descriptor : context.getMaterializationProvider().get()) {
+      ids.add(descriptor.getMaterializationId());
+    }
+    return ids;
+  }
+
+  /**
+   * @return the version of a dataset, or null if it doesn't have one
+   */
+  private static Long getVersion(DremioTable table) {
+    if (table.getVersion() != -1) {
+      return table.getVersion();
+    }
+    // views don't expose their version directly
+    final DatasetConfig config = table.getDatasetConfig();
+    return config != null ? config.getVersion() : null;
+  }
+
+  /**
+   * Captures what a plan depends on while the query is planned.
+   */
+  public static final class Capture extends AbstractAttemptObserver {
+    private final Set<String> materializationIds;
+    private Map<List<String>, Long> datasetVersions;
+    private boolean cacheable = true;
+
+    private Capture(Set<String> materializationIds) {
+      this.materializationIds = materializationIds;
+    }
+
+    @Override
+    public void planConvertedToRel(RelNode converted, long millisTaken) {
+      if (!isDeterministic(converted)) {
+        cacheable = false;
+      }
+    }
+
+    @Override
+    public void tablesCollected(Iterable<DremioTable> tables) {
+      final Map<List<String>, Long> versions = new HashMap<>();
+      for (DremioTable table : tables) {
+        final Long version = getVersion(table);
+        if (version == null) {
+          cacheable = false;
+          return;
+        }
+        versions.put(table.getPath().getPathComponents(), version);
+      }
+      datasetVersions = versions;
+    }
+
+    private boolean isCacheable() {
+      // without the datasets read, the plan can't be validated later
+      return cacheable && datasetVersions != null;
+    }
+  }
+
+  private static final class CachedPlan {
+    private final PreparedPlan plan;
+    private final Map<List<String>, Long> datasetVersions;
+    private final Set<String> materializationIds;
+
+    private CachedPlan(PreparedPlan plan, Map<List<String>, Long> datasetVersions, Set<String> materializationIds) {
+      this.plan = plan;
+      this.datasetVersions = datasetVersions;
+      this.materializationIds = materializationIds;
+    }
+
+    private boolean isValid(QueryContext context) {
+      if (!materializationIds.equals(getMaterializationIds(context))) {
+        return false;
+      }
+
+      final Catalog catalog = context.getCatalog();
+      for (Map.Entry<List<String>, Long> entry : datasetVersions.entrySet()) {
+        try {
+          final DremioTable table = catalog.getTable(new NamespaceKey(entry.getKey()));
+          if (table == null || !entry.getValue().equals(getVersion(table))) {
+            return false;
+          }
+        } catch (Exception e) {
+          // let planning report the failure
+          logger.debug("Failure while checking dataset {} of cached plan.", entry.getKey(), e);
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
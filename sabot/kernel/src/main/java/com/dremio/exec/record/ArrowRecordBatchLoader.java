@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.arrow.flatbuf.Buffer;
 import org.apache.arrow.flatbuf.FieldNode;
@@ -38,11 +39,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.proto.ExecRPC.BatchCodec;
 import com.dremio.exec.record.selection.SelectionVector2;
 import com.dremio.exec.record.selection.SelectionVector4;
 import com.dremio.sabot.op.receiver.RawFragmentBatch;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.FluentIterable;
 
 import io.netty.buffer.ArrowBuf;
@@ -54,26 +57,38 @@ import io.netty.buffer.ArrowBuf;
 public class ArrowRecordBatchLoader implements VectorAccessible, Iterable<VectorWrapper<?>>, AutoCloseable {
   private final static Logger logger = LoggerFactory.getLogger(ArrowRecordBatchLoader.class);
 
+  private final BufferAllocator allocator;
+  private final Stopwatch decompressionWatch = Stopwatch.createUnstarted();
   private VectorContainer container;
   private int valueCount;
   private BatchSchema schema;
 
   public ArrowRecordBatchLoader(VectorContainer container) {
+    this(null, container);
+  }
+
+  /**
+   * @param allocator allocator used to decompress compressed batches
+   * @param container container to load the batches into
+   */
+  public ArrowRecordBatchLoader(BufferAllocator allocator, VectorContainer container) {
+    this.allocator = allocator;
     this.container = container;
     this.schema = container.getSchema();
   }
 
   public ArrowRecordBatchLoader(BufferAllocator allocator, BatchSchema schema) {
     Preconditions.checkNotNull(allocator);
+    this.allocator = allocator;
     this.schema = schema;
     this.container = VectorContainer.create(allocator, schema);
   }
 
 
   /**
-   * Loads data in batch into Vectors in VectorContainer
+   * Loads data in batch into Vectors in VectorContainer, decompressing it if needed
    * @param batch
-   * @return the total size of the data
+   * @return the total size of the data, once decompressed
    */
   public int load(RawFragmentBatch batch) {
     container.zeroVectors();
@@ -94,8 +109,25 @@ public class ArrowRecordBatchLoader implements VectorAccessible, Iterable<Vector
       if (valueCount == 0) {
         return 0;
       }
-      size = batch.getBody().readableBytes();
-      load(recordBatch, container, batch.getBody());
+      if (batch.getHeader().getCodec() == BatchCodec.NONE) {
+        size = batch.getBody().readableBytes();
+        load(recordBatch, container, batch.getBody());
+      } else {
+        decompressionWatch.start();
+        final ArrowBuf body;
+        try {
+          body = FragmentBatchCodec.decompress(allocator, batch.getHeader(), recordBatch, batch.getBody());
+        } finally {
+          decompressionWatch.stop();
+        }
+        try {
+          size = body.readableBytes();
+          load(recordBatch, container, body);
+        } finally {
+          // vectors keep their own reference to the decompressed buffers
+          body.release();
+        }
+      }
     } catch (final Throwable cause) {
       // We have to clean up new vectors created here and pass over the actual cause. It is upper layer who should
       // adjudicate to call upper layer specific clean up logic.
@@ -230,6 +262,13 @@ public class ArrowRecordBatchLoader implements VectorAccessible, Iterable<Vector
     return schema;
   }
 
+  /**
+   * @return time spent decompressing batches
+   */
+  public long getDecompressionNanos() {
+    return decompressionWatch.elapsed(TimeUnit.NANOSECONDS);
+  }
+
   public void resetRecordCount() {
     valueCount = 0;
   }
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.memory.BufferAllocator;
+import org.xerial.snappy.Snappy;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.proto.ExecRPC.BatchCodec;
+import com.dremio.exec.proto.ExecRPC.FragmentRecordBatch;
+import com.dremio.options.OptionManager;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Compresses the batches sent by a sender, and decompresses them on the receiving side.<br>
+ * <br>
+ * Every buffer of a batch is compressed separately into a single body, the header keeping the compressed length of
+ * each of them. The codec is adaptive: whenever a batch doesn't compress below the maximum ratio, it is sent as is and
+ * the following batches are not compressed, for a number of batches doubling with each failed attempt.
+ */
+public class FragmentBatchCodec {
+  // batches smaller than this are not worth compressing
+  static final int MIN_COMPRESSION_BYTES = 1024;
+  static final int MAX_BACKOFF = 64;
+
+  private final BufferAllocator allocator;
+  private final BatchCodec codec;
+  private final double maxRatio;
+
+  private int backoff = 0;
+  private int skipped = 0;
+
+  private long uncompressedBytes;
+  private long compressedBytes;
+  private final Stopwatch compressionWatch = Stopwatch.createUnstarted();
+
+  /**
+   * Creates a codec configured by the exchange codec options.
+   *
+   * @param allocator allocator of the compressed bodies
+   * @param options options of the query
+   */
+  public FragmentBatchCodec(BufferAllocator allocator, OptionManager options) {
+    this(allocator,
+        BatchCodec.valueOf(options.getOption(ExecConstants.EXCHANGE_CODEC).toUpperCase(Locale.ROOT)),
+        options.getOption(ExecConstants.EXCHANGE_CODEC_MAX_RATIO));
+  }
+
+  /**
+   * @param allocator allocator of the compressed bodies
+   * @param codec codec to use, batches are sent as is for {@code NONE}
+   * @param maxRatio maximum ratio of the compressed size to the original size for a compressed batch to be sent
+   */
+  public FragmentBatchCodec(BufferAllocator allocator, BatchCodec codec, double maxRatio) {
+    Preconditions.checkArgument(codec == BatchCodec.NONE || codec == BatchCodec.SNAPPY, "unsupported codec %s", codec);
+    this.allocator = allocator;
+    this.codec = codec;
+    this.maxRatio = maxRatio;
+  }
+
+  /**
+   * Compresses a batch. If the compressed batch is returned, the buffers of the given batch are released.
+   *
+   * @param batch the batch to compress
+   * @return the compressed batch, or the given batch if it was not worth compressing
+   */
+  public FragmentWritableBatch compress(FragmentWritableBatch batch) {
+    if (codec == BatchCodec.NONE || batch.isCompressed()) {
+      return batch;
+    }
+    final long length = batch.getByteCount();
+    if (length < MIN_COMPRESSION_BYTES || length > Integer.MAX_VALUE) {
+      return batch;
+    }
+    if (skipped < backoff) {
+      skipped++;
+      return batch;
+    }
+
+    final ByteBuf[] buffers = batch.getBuffers();
+    long maxLength = 0;
+    for (ByteBuf buf : buffers) {
+      maxLength += Snappy.maxCompressedLength(buf.readableBytes());
+    }
+    if (maxLength > Integer.MAX_VALUE) {
+      return batch;
+    }
+
+    compressionWatch.start();
+    final int[] compressedLengths = new int[buffers.length];
+    int offset = 0;
+    ArrowBuf body = allocator.buffer((int) maxLength);
+    try {
+      for (int i = 0; i < buffers.length; i++) {
+        final ByteBuf buf = buffers[i];
+        if (buf.readableBytes() == 0) {
+          continue;
+        }
+        final ByteBuffer in = buf.nioBuffer(buf.readerIndex(), buf.readableBytes());
+        final ByteBuffer out = body.nioBuffer(offset, (int) maxLength - offset);
+        compressedLengths[i] = Snappy.compress(in, out);
+        offset += compressedLengths[i];
+      }
+    } catch (IOException e) {
+      body.release();
+      throw new RuntimeException("Failure while compressing batch", e);
+    } finally {
+      compressionWatch.stop();
+    }
+
+    uncompressedBytes += length;
+    if (offset > length * maxRatio) {
+      compressedBytes += length;
+      body.release();
+      backoff = backoff == 0 ? 1 : Math.min(2 * backoff, MAX_BACKOFF);
+      skipped = 0;
+      return batch;
+    }
+
+    compressedBytes += offset;
+    backoff = 0;
+    body.writerIndex(offset);
+    for (ByteBuf buf : buffers) {
+      buf.release();
+    }
+    return batch.withCompressedBody(codec, body, compressedLengths);
+  }
+
+  /**
+   * @return size of the batches the codec attempted to compress
+   */
+  public long getUncompressedBytes() {
+    return uncompressedBytes;
+  }
+
+  /**
+   * @return size of the batches the codec attempted to compress, once compressed. Batches which were sent as is count
+   * for their original size
+   */
+  public long getCompressedBytes() {
+    return compressedBytes;
+  }
+
+  public long getCompressionNanos() {
+    return compressionWatch.elapsed(TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Decompresses the body of a batch.
+   *
+   * @param allocator allocator of the decompressed body
+   * @param header header of the batch
+   * @param recordBatch arrow record batch of the header
+   * @param body compressed body
+   * @return the decompressed body, which the caller needs to release
+   */
+  public static ArrowBuf decompress(BufferAllocator allocator, FragmentRecordBatch header, RecordBatch recordBatch,
+      ArrowBuf body) {
+    Preconditions.checkArgument(header.getCodec() == BatchCodec.SNAPPY, "unsupported codec %s", header.getCodec());
+    Preconditions.checkArgument(header.getCompressedBufferLengthCount() == recordBatch.buffersLength(),
+        "expected %s compressed buffers, got %s", recordBatch.buffersLength(), header.getCompressedBufferLengthCount());
+    Preconditions.checkState(allocator != null, "no allocator to decompress batch");
+
+    long length = 0;
+    for (int i = 0; i < recordBatch.buffersLength(); i++) {
+      final Buffer buffer = recordBatch.buffers(i);
+      length = Math.max(length, buffer.offset() + buffer.length());
+    }
+    Preconditions.checkArgument(length <= Integer.MAX_VALUE, "decompressed batch too large: %s", length);
+
+    final ArrowBuf decompressed = allocator.buffer((int) length);
+    try {
+      int offset = 0;
+      for (int i = 0; i < recordBatch.buffersLength(); i++) {
+        final Buffer buffer = recordBatch.buffers(i);
+        final int compressedLength = header.getCompressedBufferLength(i);
+        if (compressedLength == 0) {
+          Preconditions.checkArgument(buffer.length() == 0, "missing compressed buffer %s", i);
+          continue;
+        }
+        final ByteBuffer in = body.nioBuffer(offset, compressedLength);
+        final ByteBuffer out = decompressed.nioBuffer((int) buffer.offset(), (int) buffer.length());
+        final int uncompressedLength = Snappy.uncompress(in, out);
+        Preconditions.checkArgument(uncompressedLength == buffer.length(),
+            "buffer %s decompressed to %s bytes, expected %s", i, uncompressedLength, buffer.length());
+        offset += compressedLength;
+      }
+      decompressed.writerIndex((int) length);
+      return decompressed;
+    } catch (IOException | RuntimeException e) {
+      decompressed.release();
+      throw new IllegalArgumentException("Failure while decompressing batch", e);
+    }
+  }
+}
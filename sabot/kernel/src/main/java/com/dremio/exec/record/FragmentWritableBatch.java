@@ -25,10 +25,12 @@ import org.apache.arrow.vector.VectorUnloader;
 import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.types.pojo.Field;
 
+import com.dremio.exec.proto.ExecRPC.BatchCodec;
 import com.dremio.exec.proto.ExecRPC.FragmentRecordBatch;
 import com.dremio.exec.proto.UserBitShared.QueryId;
 import com.google.common.base.Function;
 import com.google.common.collect.FluentIterable;
+import com.google.common.primitives.Ints;
 import com.google.flatbuffers.FlatBufferBuilder;
 import com.google.protobuf.ByteString;
 
@@ -119,6 +121,40 @@ public class FragmentWritableBatch{
     this.header = builder.build();
   }
 
+  private FragmentWritableBatch(FragmentRecordBatch header, ByteBuf[] buffers, int recordCount) {
+    this.header = header;
+    this.buffers = buffers;
+    this.recordCount = recordCount;
+  }
+
+  /**
+   * Creates a batch sending the compressed body in place of the buffers of this batch. The buffers of this batch
+   * are not released.
+   */
+  FragmentWritableBatch withCompressedBody(BatchCodec codec, ByteBuf body, int[] compressedBufferLengths) {
+    final FragmentRecordBatch compressedHeader = header.toBuilder()
+        .setCodec(codec)
+        .addAllCompressedBufferLength(Ints.asList(compressedBufferLengths))
+        .build();
+    return new FragmentWritableBatch(compressedHeader, new ByteBuf[] { body }, recordCount);
+  }
+
+  /**
+   * Creates a batch sending the same buffers to other receiving minor fragments. The buffers are shared, callers
+   * must retain them once per additional batch sent.
+   */
+  public FragmentWritableBatch withReceivingMinorFragmentIds(final int... receiveMinorFragmentId) {
+    final FragmentRecordBatch newHeader = header.toBuilder()
+        .clearReceivingMinorFragmentId()
+        .addAllReceivingMinorFragmentId(Ints.asList(receiveMinorFragmentId))
+        .build();
+    return new FragmentWritableBatch(newHeader, buffers, recordCount);
+  }
+
+  public boolean isCompressed() {
+    return header.getCodec() != BatchCodec.NONE;
+  }
+
   public ByteBuf[] getBuffers(){
     return buffers;
   }
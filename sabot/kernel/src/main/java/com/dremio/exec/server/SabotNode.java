@@ -146,6 +146,7 @@ public class SabotNode implements AutoCloseable {
         allowPortHunting,
         config.getInt(RpcConstants.BIT_RPC_TIMEOUT),
         config.getInt(ExecConstants.BIT_SERVER_RPC_THREADS),
+        config.getInt(ExecConstants.BIT_SERVER_RPC_CHANNELS),
         bootstrap.getExecutor(),
         bootstrap.getAllocator(),
         0,
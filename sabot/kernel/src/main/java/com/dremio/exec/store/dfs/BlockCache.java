@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.dfs;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.dremio.common.config.SabotConfig;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.metrics.Metrics;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+
+/**
+ * Node wide, read through cache of file blocks on local disks, used for remote object stores.<br>
+ * <br>
+ * Files are split into fixed size aligned blocks, keyed by file path, modification time and block index, so a
+ * rewritten file never serves stale blocks. Blocks are stored in the configured local directories, and the least
+ * recently used ones are deleted once the total size goes above the quota. Blocks live in a subdirectory the cache
+ * owns in each configured directory, which is not kept across restarts; nothing else in the configured directories is
+ * touched.
+ */
+public class BlockCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(BlockCache.class);
+
+  public static final String DIRECTORIES_CONFIG = "dremio.exec.storage.block_cache.directories";
+  public static final String MAX_SIZE_CONFIG = "dremio.exec.storage.block_cache.max_size";
+  public static final String BLOCK_SIZE_CONFIG = "dremio.exec.storage.block_cache.block_size";
+  public static final String SCHEMES_CONFIG = "dremio.exec.storage.block_cache.schemes";
+
+  @VisibleForTesting
+  static final String SUBDIRECTORY = "dremio-block-cache";
+  private static final String TEMP_PREFIX = ".tmp-";
+
+  private static volatile BlockCache instance;
+  private static volatile boolean initialized;
+
+  private final List<File> directories;
+  private final int blockSize;
+  private final Set<String> schemes;
+  private final Cache<BlockKey, File> blocks;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  @VisibleForTesting
+  BlockCache(List<File> directories, long maxSize, int blockSize, Collection<String> schemes) {
+    Preconditions.checkArgument(!directories.isEmpty(), "at least one directory is required");
+    Preconditions.checkArgument(blockSize > 0, "block size must be positive");
+    final ImmutableList.Builder<File> owned = ImmutableList.builder();
+    for (File directory : directories) {
+      owned.add(new File(directory, SUBDIRECTORY));
+    }
+    this.directories = owned.build();
+    this.blockSize = blockSize;
+    this.schemes = ImmutableSet.copyOf(schemes);
+    this.blocks = CacheBuilder.newBuilder()
+        .maximumWeight(maxSize)
+        .weigher(new Weigher<BlockKey, File>() {
+          @Override
+          public int weigh(BlockKey key, File file) {
+            return (int) Math.min(Integer.MAX_VALUE, file.length());
+          }
+        })
+        .removalListener(new RemovalListener<BlockKey, File>() {
+          @Override
+          public void onRemoval(RemovalNotification<BlockKey, File> notification) {
+            // readers that already opened the file can still read it
+            if (!notification.getValue().delete()) {
+              logger.debug("Unable to delete cached block {}", notification.getValue());
+            }
+          }
+        })
+        .build();
+
+    for (File directory : this.directories) {
+      // blocks from a previous run are not indexed. Only the subdirectory of the cache is cleaned, the configured
+      // directory may be shared.
+      FileUtils.deleteQuietly(directory);
+      if (!directory.mkdirs()) {
+        logger.warn("Unable to create block cache directory {}", directory);
+      }
+    }
+  }
+
+  /**
+   * Gets the block cache of this node, creating it on first use.
+   *
+   * @return the cache, or null if no directory is configured
+   */
+  public static BlockCache getInstance(SabotConfig config) {
+    if (!initialized) {
+      synchronized (BlockCache.class) {
+        if (!initialized) {
+          final List<String> directories = config.getStringList(DIRECTORIES_CONFIG);
+          if (!directories.isEmpty()) {
+            final ImmutableList.Builder<File> files = ImmutableList.builder();
+            for (String directory : directories) {
+              files.add(new File(directory));
+            }
+            final BlockCache blockCache = new BlockCache(files.build(), config.getBytes(MAX_SIZE_CONFIG),
+                config.getBytes(BLOCK_SIZE_CONFIG).intValue(), config.getStringList(SCHEMES_CONFIG));
+            blockCache.registerMetrics();
+            instance = blockCache;
+          }
+          initialized = true;
+        }
+      }
+    }
+    return instance;
+  }
+
+  private void registerMetrics() {
+    Metrics.registerGauge(MetricRegistry.name("dremio.block_cache.hits"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return hits.get();
+      }
+    });
+    Metrics.registerGauge(MetricRegistry.name("dremio.block_cache.misses"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return misses.get();
+      }
+    });
+    Metrics.registerGauge(MetricRegistry.name("dremio.block_cache.blocks"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return blocks.size();
+      }
+    });
+  }
+
+  /**
+   * @return whether files of the given scheme should go through the cache
+   */
+  public boolean isCached(String scheme) {
+    return scheme != null && schemes.contains(scheme);
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  long getHits() {
+    return hits.get();
+  }
+
+  long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Reads part of a block, fetching the whole block from the source if not cached.
+   *
+   * @param source stream of the file, used on cache miss
+   * @param path qualified path of the file
+   * @param modificationTime modification time of the file
+   * @param fileLength length of the file
+   * @param blockIndex index of the block
+   * @param offsetInBlock offset of the first byte to read, relative to the start of the block
+   * @param buffer destination buffer
+   * @param offset offset in the destination buffer
+   * @param length maximum number of bytes to read
+   * @return number of bytes read, or -1 if the block ends before offsetInBlock
+   */
+  int read(final FSDataInputStream source, String path, long modificationTime, final long fileLength,
+      final long blockIndex, int offsetInBlock, byte[] buffer, int offset, int length) throws IOException {
+    final BlockKey key = new BlockKey(path, modificationTime, blockIndex);
+    final File block;
+    try {
+      final boolean[] loaded = new boolean[1];
+      block = blocks.get(key, new Callable<File>() {
+        @Override
+        public File call() throws IOException {
+          loaded[0] = true;
+          return fetch(source, key, fileLength);
+        }
+      });
+      (loaded[0] ? misses : hits).incrementAndGet();
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    }
+
+    try (RandomAccessFile file = new RandomAccessFile(block, "r")) {
+      if (offsetInBlock >= file.length()) {
+        return -1;
+      }
+      file.seek(offsetInBlock);
+      return file.read(buffer, offset, (int) Math.min(length, file.length() - offsetInBlock));
+    } catch (FileNotFoundException e) {
+      // evicted in between, read directly from the source
+      blocks.invalidate(key);
+      return readFromSource(source, key, fileLength, offsetInBlock, buffer, offset, length);
+    }
+  }
+
+  private int readFromSource(FSDataInputStream source, BlockKey key, long fileLength, int offsetInBlock, byte[] buffer,
+      int offset, int length) throws IOException {
+    final long position = key.blockIndex * blockSize + offsetInBlock;
+    if (position >= fileLength) {
+      return -1;
+    }
+    final int toRead = (int) Math.min(length, Math.min(blockSize - offsetInBlock, fileLength - position));
+    source.readFully(position, buffer, offset, toRead);
+    return toRead;
+  }
+
+  private File fetch(FSDataInputStream source, BlockKey key, long fileLength) throws IOException {
+    final long start = key.blockIndex * blockSize;
+    final int length = (int) Math.max(0, Math.min(blockSize, fileLength - start));
+    final byte[] data = new byte[length];
+    source.readFully(start, data, 0, length);
+
+    final File directory = directories.get(Math.abs(key.hashCode() % directories.size()));
+    final File target = new File(directory, key.getFileName());
+    final File temp = File.createTempFile(TEMP_PREFIX, null, directory);
+    try {
+      Files.write(temp.toPath(), data);
+      Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      if (temp.exists() && !temp.delete()) {
+        logger.debug("Unable to delete {}", temp);
+      }
+    }
+    return target;
+  }
+
+  /**
+   * Picks the executor that should read a given file, so that repeated reads of the file hit the same node cache.
+   * Uses rendezvous hashing, so that few files move when executors come and go.
+   *
+   * @param path path of the file
+   * @param endpoints available executors
+   * @return the chosen executor, or null if there is none
+   */
+  public static NodeEndpoint getPreferredEndpoint(String path, Collection<NodeEndpoint> endpoints) {
+    NodeEndpoint preferred = null;
+    long best = Long.MIN_VALUE;
+    for (NodeEndpoint endpoint : endpoints) {
+      final long score = Hashing.murmur3_128().newHasher()
+          .putUnencodedChars(path)
+          .putUnencodedChars(endpoint.getAddress())
+          .putInt(endpoint.getFabricPort())
+          .hash().asLong();
+      if (preferred == null || score > best) {
+        preferred = endpoint;
+        best = score;
+      }
+    }
+    return preferred;
+  }
+
+  private static final class BlockKey {
+    private final String path;
+    private final long modificationTime;
+    private final long blockIndex;
+
+    private BlockKey(String path, long modificationTime, long blockIndex) {
+      this.path = path;
+      this.modificationTime = modificationTime;
+      this.blockIndex = blockIndex;
+    }
+
+    private String getFileName() {
+      return Hashing.sha256().newHasher()
+          .putUnencodedChars(path)
+          .putLong(modificationTime)
+          .hash() + "-" + blockIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final BlockKey that = (BlockKey) o;
+      return modificationTime == that.modificationTime
+          && blockIndex == that.blockIndex
+          && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(path, modificationTime, blockIndex);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.dfs;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileStatus;
+
+/**
+ * Input stream serving reads from a {@link BlockCache}, the underlying stream being only used to fetch missing
+ * blocks.
+ */
+class BlockCachedInputStream extends FSInputStream {
+  private final BlockCache cache;
+  private final FSDataInputStream source;
+  private final String path;
+  private final long modificationTime;
+  private final long length;
+  private final byte[] oneByte = new byte[1];
+
+  private long pos = 0;
+  private boolean closed = false;
+
+  BlockCachedInputStream(BlockCache cache, FSDataInputStream source, FileStatus status) {
+    this.cache = cache;
+    this.source = source;
+    this.path = status.getPath().toString();
+    this.modificationTime = status.getModificationTime();
+    this.length = status.getLen();
+  }
+
+  @Override
+  public synchronized void seek(long pos) throws IOException {
+    checkClosed();
+    if (pos < 0) {
+      throw new EOFException("Cannot seek to a negative offset");
+    }
+    this.pos = pos;
+  }
+
+  @Override
+  public synchronized long getPos() throws IOException {
+    return pos;
+  }
+
+  @Override
+  public boolean seekToNewSource(long targetPos) throws IOException {
+    return false;
+  }
+
+  @Override
+  public synchronized int read() throws IOException {
+    final int read = read(oneByte, 0, 1);
+    return read == -1 ? -1 : oneByte[0] & 0xff;
+  }
+
+  @Override
+  public synchronized int read(byte[] b, int off, int len) throws IOException {
+    final int read = read(pos, b, off, len);
+    if (read > 0) {
+      pos += read;
+    }
+    return read;
+  }
+
+  @Override
+  public int read(long position, byte[] buffer, int offset, int len) throws IOException {
+    checkClosed();
+    if (len == 0) {
+      return 0;
+    }
+    if (position >= length) {
+      return -1;
+    }
+
+    final int blockSize = cache.getBlockSize();
+    int read = 0;
+    while (read < len && position + read < length) {
+      final long current = position + read;
+      final int res = cache.read(source, path, modificationTime, length, current / blockSize,
+          (int) (current % blockSize), buffer, offset + read, len - read);
+      if (res <= 0) {
+        break;
+      }
+      read += res;
+    }
+    return read == 0 ? -1 : read;
+  }
+
+  @Override
+  public int available() throws IOException {
+    checkClosed();
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - pos));
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    source.close();
+  }
+
+  private void checkClosed() throws IOException {
+    if (closed) {
+      throw new IOException("Stream is closed");
+    }
+  }
+}
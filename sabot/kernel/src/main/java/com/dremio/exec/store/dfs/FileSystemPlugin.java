@@ -188,7 +188,7 @@ public class FileSystemPlugin implements StoragePlugin {
       userName = ImpersonationUtil.getProcessUserName();
     }
     return ImpersonationUtil.createFileSystem(ImpersonationUtil.createProxyUgi(userName), getFsConf(), stats,
-        getConnectionUniqueProperties());
+        getConnectionUniqueProperties()).withBlockCache(BlockCache.getInstance(context.getConfig()));
   }
 
   public Iterable<String> getSubPartitions(List<String> table,
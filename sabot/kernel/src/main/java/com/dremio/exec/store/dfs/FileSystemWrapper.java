@@ -18,11 +18,27 @@ package com.dremio.exec.store.dfs;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.hadoop.classification.InterfaceAudience.LimitedPrivate;
 import org.apache.hadoop.classification.InterfaceAudience.Private;
@@ -58,6 +74,7 @@ import org.apache.hadoop.security.Credentials;
 import org.apache.hadoop.security.token.Token;
 import org.apache.hadoop.util.Progressable;
 
+import com.dremio.common.concurrent.NamedThreadFactory;
 import com.dremio.exec.util.AssertionUtil;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.google.common.annotations.VisibleForTesting;
@@ -78,10 +95,27 @@ public class FileSystemWrapper extends FileSystem implements OpenFileTracker, Pa
 
   private final static DremioFileSystemCache DREMIO_FS_CACHE = new DremioFileSystemCache();
 
+  // lists directories for listRecursive, each listing bounds its own number of listings in flight
+  private final static ExecutorService LISTING_EXECUTOR = Executors.newCachedThreadPool(
+      new NamedThreadFactory("fs-listing-"));
+
   public static final String HIDDEN_FILE_PREFIX = "_";
   public static final String DOT_FILE_PREFIX = ".";
   public static final String MAPRFS_SCHEME = "maprfs";
 
+  /**
+   * Maximum number of directories listed concurrently by {@link #listRecursive(Path, boolean)}. 1 lists directories
+   * one at a time.
+   */
+  public static final String LISTING_PARALLELISM_KEY = "dremio.fs.listing.parallelism";
+  public static final int LISTING_PARALLELISM_DEFAULT = 16;
+  /**
+   * Schemes of the filesystems listed recursively with a single flat listing of their files, for object stores which
+   * list all the keys under a prefix at once. Such filesystems only report the directories holding files, with no
+   * modification time.
+   */
+  public static final String FLAT_LISTING_SCHEMES_KEY = "dremio.fs.listing.flat_schemes";
+
   private final ConcurrentMap<FSDataInputStream, DebugStackTrace> openedFiles = Maps.newConcurrentMap();
 
   private final FileSystem underlyingFs;
@@ -89,6 +123,9 @@ public class FileSystemWrapper extends FileSystem implements OpenFileTracker, Pa
   private final CompressionCodecFactory codecFactory;
   private final boolean isPdfs;
   private final boolean isMapRfs;
+  private final BlockCache blockCache;
+  private final int listingParallelism;
+  private final boolean flatListing;
 
   public FileSystemWrapper(Configuration fsConf) throws IOException {
     this(fsConf, (OperatorStats) null, null);
@@ -108,6 +145,58 @@ public class FileSystemWrapper extends FileSystem implements OpenFileTracker, Pa
     this.operatorStats = operatorStats;
     this.isPdfs = (underlyingFs instanceof PathCanonicalizer); // only pdfs implements PathCanonicalizer
     this.isMapRfs = isMapRfs(underlyingFs);
+    this.blockCache = null;
+    this.listingParallelism = Math.max(1, fsConf.getInt(LISTING_PARALLELISM_KEY, LISTING_PARALLELISM_DEFAULT));
+    this.flatListing = isFlatListing(fsConf.getTrimmedStringCollection(FLAT_LISTING_SCHEMES_KEY), getSchemeOrNull());
+  }
+
+  private FileSystemWrapper(FileSystemWrapper fs, BlockCache blockCache) {
+    this.underlyingFs = fs.underlyingFs;
+    this.codecFactory = fs.codecFactory;
+    this.operatorStats = fs.operatorStats;
+    this.isPdfs = fs.isPdfs;
+    this.isMapRfs = fs.isMapRfs;
+    this.blockCache = blockCache;
+    this.listingParallelism = fs.listingParallelism;
+    this.flatListing = fs.flatListing;
+  }
+
+  /**
+   * Returns a filesystem reading files through the given local block cache, if the cache is enabled for the scheme
+   * of this filesystem.
+   */
+  public FileSystemWrapper withBlockCache(BlockCache blockCache) {
+    if (blockCache == null || this.blockCache != null || !blockCache.isCached(getSchemeOrNull())) {
+      return this;
+    }
+    return new FileSystemWrapper(this, blockCache);
+  }
+
+  /**
+   * @return whether files are read through a local block cache
+   */
+  public boolean isBlockCached() {
+    return blockCache != null;
+  }
+
+  private String getSchemeOrNull() {
+    try {
+      return underlyingFs.getScheme();
+    } catch (UnsupportedOperationException e) {
+      return null;
+    }
+  }
+
+  private static boolean isFlatListing(Collection<String> schemes, String scheme) {
+    if (scheme == null) {
+      return false;
+    }
+    for (String flatScheme : schemes) {
+      if (flatScheme.toLowerCase(Locale.ROOT).equals(scheme.toLowerCase(Locale.ROOT))) {
+        return true;
+      }
+    }
+    return false;
   }
 
   private static boolean isMapRfs(FileSystem fs) {
@@ -161,7 +250,7 @@ public class FileSystemWrapper extends FileSystem implements OpenFileTracker, Pa
   @Override
   public FSDataInputStream open(Path f, int bufferSize) throws IOException {
     try {
-      return newFSDataInputStreamWrapper(f, underlyingFs.open(f, bufferSize));
+      return newFSDataInputStreamWrapper(f, openThroughBlockCache(f, underlyingFs.open(f, bufferSize)));
     } catch(FSError e) {
       throw propagateFSError(e);
     }
@@ -173,7 +262,7 @@ public class FileSystemWrapper extends FileSystem implements OpenFileTracker, Pa
   @Override
   public FSDataInputStream open(Path f) throws IOException {
     try {
-      return newFSDataInputStreamWrapper(f, underlyingFs.open(f));
+      return newFSDataInputStreamWrapper(f, openThroughBlockCache(f, underlyingFs.open(f)));
     } catch(FSError e) {
       throw propagateFSError(e);
     }
@@ -1232,6 +1321,11 @@ public class FileSystemWrapper extends FileSystem implements OpenFileTracker, Pa
     return isMapRfs;
   }
 
+  /**
+   * Lists the files and directories matching a glob, and everything under the matching directories. Directories come
+   * before their content, depth first. Sibling directories are listed concurrently, and object stores configured for
+   * flat listing are listed with a single listing per matching directory.
+   */
   public ImmutableList<FileStatus> listRecursive(Path path, boolean includeHiddenFiles) throws IOException {
     try {
       final ImmutableList.Builder<FileStatus> files = ImmutableList.builder();
@@ -1241,7 +1335,13 @@ public class FileSystemWrapper extends FileSystem implements OpenFileTracker, Pa
       } else {
         inputStatuses = underlyingFs.globStatus(path, DefaultPathFilter.INSTANCE);
       }
-      populateRecursiveStatus(inputStatuses, files, true, includeHiddenFiles);
+      if (flatListing) {
+        populateFlatStatus(inputStatuses, files, includeHiddenFiles);
+      } else if (listingParallelism > 1 && hasDirectory(inputStatuses)) {
+        populateRecursiveStatusInParallel(inputStatuses, files, includeHiddenFiles);
+      } else {
+        populateRecursiveStatus(inputStatuses, files, true, includeHiddenFiles);
+      }
       return files.build();
     } catch(FSError e) {
       throw propagateFSError(e);
@@ -1278,6 +1378,135 @@ public class FileSystemWrapper extends FileSystem implements OpenFileTracker, Pa
     }
   }
 
+  private static boolean hasDirectory(FileStatus[] statuses) {
+    if (statuses != null) {
+      for (FileStatus status : statuses) {
+        if (status.isDirectory()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private FileStatus[] listStatus(Path path, boolean includeHiddenFiles) throws IOException {
+    return includeHiddenFiles ? underlyingFs.listStatus(path) : underlyingFs.listStatus(path, DefaultPathFilter.INSTANCE);
+  }
+
+  /**
+   * Lists the directories under the given statuses level by level, with at most {@link #listingParallelism} listings
+   * in flight on the shared listing executor, then adds everything in the depth first order of the sequential listing.
+   */
+  private void populateRecursiveStatusInParallel(FileStatus[] inputPaths, ImmutableList.Builder<FileStatus> outputPaths,
+      final boolean includeHiddenFiles) throws IOException {
+    final Map<Path, FileStatus[]> listings = new HashMap<>();
+    final CompletionService<FileStatus[]> completionService = new ExecutorCompletionService<>(LISTING_EXECUTOR);
+    final Map<Future<FileStatus[]>, Path> inFlight = new HashMap<>();
+    final Deque<Path> pending = new ArrayDeque<>();
+    queueDirectories(inputPaths, pending);
+
+    try {
+      while (!pending.isEmpty() || !inFlight.isEmpty()) {
+        while (!pending.isEmpty() && inFlight.size() < listingParallelism) {
+          final Path directory = pending.poll();
+          inFlight.put(completionService.submit(new Callable<FileStatus[]>() {
+            @Override
+            public FileStatus[] call() throws IOException {
+              return listStatus(directory, includeHiddenFiles);
+            }
+          }), directory);
+        }
+
+        final Future<FileStatus[]> done = completionService.take();
+        final FileStatus[] statuses = done.get();
+        listings.put(inFlight.remove(done), statuses);
+        queueDirectories(statuses, pending);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while listing " + Arrays.toString(inputPaths));
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    } finally {
+      for (Future<FileStatus[]> future : inFlight.keySet()) {
+        future.cancel(true);
+      }
+    }
+
+    addListedStatus(inputPaths, listings, outputPaths);
+  }
+
+  private static void queueDirectories(FileStatus[] statuses, Deque<Path> directories) {
+    if (statuses != null) {
+      for (FileStatus status : statuses) {
+        if (status.isDirectory()) {
+          directories.add(status.getPath());
+        }
+      }
+    }
+  }
+
+  private static void addListedStatus(FileStatus[] statuses, Map<Path, FileStatus[]> listings,
+      ImmutableList.Builder<FileStatus> outputPaths) {
+    if (statuses == null) {
+      return;
+    }
+
+    for (FileStatus status : statuses) {
+      outputPaths.add(status);
+      if (status.isDirectory()) {
+        addListedStatus(listings.get(status.getPath()), listings, outputPaths);
+      }
+    }
+  }
+
+  private void populateFlatStatus(FileStatus[] inputPaths, ImmutableList.Builder<FileStatus> outputPaths,
+      boolean includeHiddenFiles) throws IOException {
+    if (inputPaths == null) {
+      return;
+    }
+
+    for (FileStatus input : inputPaths) {
+      outputPaths.add(input);
+      if (!input.isDirectory()) {
+        continue;
+      }
+
+      final Path root = input.getPath();
+      final Set<Path> directories = new HashSet<>();
+      final RemoteIterator<LocatedFileStatus> files = underlyingFs.listFiles(root, true);
+      while (files.hasNext()) {
+        final LocatedFileStatus file = files.next();
+        if (!includeHiddenFiles && isHidden(root, file.getPath())) {
+          continue;
+        }
+        // the listing only has files, add their parent directories the first time they show up
+        addDirectories(file.getPath().getParent(), root.depth(), directories, outputPaths);
+        outputPaths.add(file);
+      }
+    }
+  }
+
+  private static void addDirectories(Path directory, int rootDepth, Set<Path> directories,
+      ImmutableList.Builder<FileStatus> outputPaths) {
+    if (directory == null || directory.depth() <= rootDepth || !directories.add(directory)) {
+      return;
+    }
+    addDirectories(directory.getParent(), rootDepth, directories, outputPaths);
+    outputPaths.add(new FileStatus(0, true, 0, 0, 0, directory));
+  }
+
+  private static boolean isHidden(Path root, Path path) {
+    final int depth = root.depth();
+    for (Path current = path; current != null && current.depth() > depth; current = current.getParent()) {
+      if (!DefaultPathFilter.INSTANCE.accept(current)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public InputStream openPossiblyCompressedStream(Path path) throws IOException {
     try {
       CompressionCodec codec = codecFactory.getCodec(path); // infers from file ext.
@@ -1355,6 +1584,19 @@ public class FileSystemWrapper extends FileSystem implements OpenFileTracker, Pa
     }
   }
 
+  private FSDataInputStream openThroughBlockCache(Path f, FSDataInputStream is) throws IOException {
+    if (blockCache == null) {
+      return is;
+    }
+    try {
+      // blocks are keyed by modification time, so that rewritten files are fetched again
+      return new FSDataInputStream(new BlockCachedInputStream(blockCache, is, underlyingFs.getFileStatus(f)));
+    } catch (IOException | RuntimeException e) {
+      is.close();
+      throw e;
+    }
+  }
+
   FSDataInputStreamWrapper newFSDataInputStreamWrapper(Path f, final FSDataInputStream is) throws IOException {
     try {
       FSDataInputStreamWrapper result = (operatorStats != null) ? new FSDataInputStreamWithStatsWrapper(is, operatorStats) : new FSDataInputStreamWrapper(is);
@@ -28,7 +28,6 @@ import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.parquet.column.statistics.Statistics;
-import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
@@ -52,6 +51,7 @@ public class Metadata {
 
   private final FileSystem fs;
   private final ParquetFormatConfig formatConfig;
+  private final ParquetFooterCache footerCache;
 
   /**
    * Get the parquet metadata for the parquet files in the given directory, including those in subdirectories
@@ -61,8 +61,8 @@ public class Metadata {
    * @throws IOException
    */
   public static ParquetTableMetadata getParquetTableMetadata(FileStatus status, FileSystem fs,
-      ParquetFormatConfig formatConfig, Configuration fsConf) throws IOException {
-    Metadata metadata = new Metadata(formatConfig, fsConf);
+      ParquetFormatConfig formatConfig, Configuration fsConf, ParquetFooterCache footerCache) throws IOException {
+    Metadata metadata = new Metadata(formatConfig, fsConf, footerCache);
     return metadata.getParquetTableMetadata(ImmutableList.of(status));
   }
 
@@ -74,14 +74,15 @@ public class Metadata {
    * @throws IOException
    */
   public static ParquetTableMetadata getParquetTableMetadata(
-    List<FileStatus> fileStatuses, ParquetFormatConfig formatConfig, Configuration fsConf) throws IOException {
-    Metadata metadata = new Metadata(formatConfig, fsConf);
+    List<FileStatus> fileStatuses, ParquetFormatConfig formatConfig, Configuration fsConf, ParquetFooterCache footerCache) throws IOException {
+    Metadata metadata = new Metadata(formatConfig, fsConf, footerCache);
     return metadata.getParquetTableMetadata(fileStatuses);
   }
 
-  private Metadata(ParquetFormatConfig formatConfig, Configuration fsConf) {
+  private Metadata(ParquetFormatConfig formatConfig, Configuration fsConf, ParquetFooterCache footerCache) {
     this.fs = ImpersonationUtil.createFileSystem(ImpersonationUtil.getProcessUserName(), fsConf);
     this.formatConfig = formatConfig;
+    this.footerCache = footerCache;
   }
 
   /**
@@ -158,7 +159,7 @@ public class Metadata {
   private ParquetFileMetadata getParquetFileMetadata(FileStatus file) throws IOException {
     final ParquetMetadata metadata;
 
-    metadata = SingletonParquetFooterCache.readFooter(fs, file, ParquetMetadataConverter.NO_FILTER);
+    metadata = footerCache.getFooter(fs, file);
 
     MessageType schema = metadata.getFileMetaData().getSchema();
 
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.bytes.BytesUtils;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.format.converter.ParquetMetadataConverter.MetadataFilter;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.dremio.common.config.SabotConfig;
+import com.dremio.metrics.Metrics;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * Node wide cache of parquet footers, bounded by the serialized size of the footers and evicting the least recently
+ * used ones first.<br>
+ * <br>
+ * Footers are keyed by file path, modification time and length, so a file rewritten in place is never served a stale
+ * footer. Only unfiltered footers are cached.
+ */
+public class ParquetFooterCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ParquetFooterCache.class);
+
+  public static final String MAX_SIZE_CONFIG = "dremio.exec.storage.file.parquet.footer_cache.max_size";
+
+  private static final int DEFAULT_READ_SIZE = 64*1024;
+  private static final int FOOTER_LENGTH_SIZE = 4;
+  private static final int FOOTER_METADATA_SIZE = FOOTER_LENGTH_SIZE + ParquetFileWriter.MAGIC.length;
+  private static final int MAGIC_LENGTH = ParquetFileWriter.MAGIC.length;
+  private static final int MIN_FILE_SIZE = ParquetFileWriter.MAGIC.length + FOOTER_METADATA_SIZE;
+
+  private static volatile ParquetFooterCache instance;
+
+  private final Cache<Key, Footer> cache;
+
+  ParquetFooterCache(long maxSize) {
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSize)
+        .weigher(new Weigher<Key, Footer>() {
+          @Override
+          public int weigh(Key key, Footer footer) {
+            return footer.size;
+          }
+        })
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Gets the footer cache of this node, creating it on first use.
+   */
+  public static ParquetFooterCache getInstance(SabotConfig config) {
+    if (instance == null) {
+      synchronized (ParquetFooterCache.class) {
+        if (instance == null) {
+          final ParquetFooterCache footerCache = new ParquetFooterCache(config.getBytes(MAX_SIZE_CONFIG));
+          footerCache.registerMetrics();
+          instance = footerCache;
+        }
+      }
+    }
+    return instance;
+  }
+
+  private void registerMetrics() {
+    Metrics.registerGauge(MetricRegistry.name("dremio.parquet.footer_cache.hits"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return cache.stats().hitCount();
+      }
+    });
+    Metrics.registerGauge(MetricRegistry.name("dremio.parquet.footer_cache.misses"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return cache.stats().missCount();
+      }
+    });
+    Metrics.registerGauge(MetricRegistry.name("dremio.parquet.footer_cache.entries"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return cache.size();
+      }
+    });
+  }
+
+  /**
+   * Gets the footer of a file, reading it if not already cached.
+   *
+   * @param is stream used to read the footer on cache miss
+   * @param path path of the file
+   * @param fileLength length of the file
+   * @param modificationTime modification time of the file, or null if unknown in which case the cache is bypassed
+   * @param fs filesystem of the file
+   * @return the footer
+   */
+  public ParquetMetadata getFooter(final FSDataInputStream is, final String path, final long fileLength,
+      Long modificationTime, final FileSystem fs) {
+    try {
+      if (modificationTime == null) {
+        return readFooter(is, path, fileLength, ParquetMetadataConverter.NO_FILTER, fs).metadata;
+      }
+
+      return cache.get(new Key(fs.makeQualified(new Path(path)).toString(), modificationTime, fileLength), new Callable<Footer>() {
+        @Override
+        public Footer call() throws IOException {
+          return readFooter(is, path, fileLength, ParquetMetadataConverter.NO_FILTER, fs);
+        }
+      }).metadata;
+    } catch (IOException | ExecutionException e) {
+      throw new RuntimeException("Failed to read parquet footer for file " + path, e instanceof ExecutionException ? e.getCause() : e);
+    }
+  }
+
+  /**
+   * Gets the footer of a file, reading it if not already cached.
+   *
+   * @param fs filesystem of the file
+   * @param status status of the file
+   * @return the footer
+   */
+  public ParquetMetadata getFooter(final FileSystem fs, final FileStatus status) throws IOException {
+    try {
+      final String path = fs.makeQualified(status.getPath()).toString();
+      return cache.get(new Key(path, status.getModificationTime(), status.getLen()), new Callable<Footer>() {
+        @Override
+        public Footer call() throws IOException {
+          try (FSDataInputStream file = fs.open(status.getPath())) {
+            return readFooter(file, status.getPath().toString(), status.getLen(), ParquetMetadataConverter.NO_FILTER, fs);
+          }
+        }
+      }).metadata;
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static final void readFully(FSDataInputStream stream, long start, byte[] output, int offset, int len) throws IOException{
+    int bytesRead = 0;
+    while(bytesRead > -1 && bytesRead < len){
+      bytesRead += stream.read(start+bytesRead, output, offset + bytesRead, len-bytesRead);
+    }
+  }
+
+  private static void checkMagicBytes(String path, byte[] data, int offset) throws IOException {
+    for(int i =0, v = offset; i < MAGIC_LENGTH; i++, v++){
+      if(ParquetFileWriter.MAGIC[i] != data[v]){
+        byte[] magic = ArrayUtils.subarray(data, offset, offset + MAGIC_LENGTH);
+        throw new IOException(path + " is not a Parquet file. expected magic number at tail " + Arrays.toString(ParquetFileWriter.MAGIC) + " but found " + Arrays.toString(magic));
+      }
+    }
+  }
+
+  public static ParquetMetadata readFooter(final FileSystem fs, final Path file, ParquetMetadataConverter.MetadataFilter filter) throws IOException  {
+    return readFooter(fs, fs.getFileStatus(file), filter);
+  }
+
+  /**
+   * An updated footer reader that tries to read the entire footer without knowing the length.
+   * This should reduce the amount of seek/read roundtrips in most workloads.
+   * @param fs
+   * @param status
+   * @return
+   * @throws IOException
+   */
+  public static ParquetMetadata readFooter(
+    final FileSystem fs,
+    final FileStatus status,
+    ParquetMetadataConverter.MetadataFilter filter) throws IOException {
+    try(FSDataInputStream file = fs.open(status.getPath())) {
+      return readFooter(file, status.getPath().toString(), status.getLen(), filter, fs).metadata;
+    }
+  }
+
+  private static Footer readFooter(FSDataInputStream file, String path, long fileLength, MetadataFilter filter, FileSystem fs) throws IOException {
+    Preconditions.checkArgument(fileLength >= MIN_FILE_SIZE || fileLength == -1, "%s is not a Parquet file (too small)", path);
+
+    if (fileLength == -1) {
+      fileLength = fs.getFileStatus(new Path(path)).getLen();
+    }
+
+    int len = (int) Math.min( fileLength, (long) DEFAULT_READ_SIZE);
+    byte[] footerBytes = new byte[len];
+    readFully(file, fileLength - len, footerBytes, 0, len);
+
+    checkMagicBytes(path, footerBytes, footerBytes.length - ParquetFileWriter.MAGIC.length);
+    final int size = BytesUtils.readIntLittleEndian(footerBytes, footerBytes.length - FOOTER_METADATA_SIZE);
+
+    if(size > footerBytes.length - FOOTER_METADATA_SIZE){
+      // if the footer is larger than our initial read, we need to read the rest.
+      byte[] origFooterBytes = footerBytes;
+      int origFooterRead = origFooterBytes.length - FOOTER_METADATA_SIZE;
+
+      footerBytes = new byte[size];
+
+      readFully(file, fileLength - size - FOOTER_METADATA_SIZE, footerBytes, 0, size - origFooterRead);
+      System.arraycopy(origFooterBytes, 0, footerBytes, size - origFooterRead, origFooterRead);
+    }else{
+      int start = footerBytes.length - (size + FOOTER_METADATA_SIZE);
+      footerBytes = ArrayUtils.subarray(footerBytes, start, start + size);
+    }
+
+    return new Footer(ParquetFormatPlugin.parquetMetadataConverter.readParquetMetadata(new ByteArrayInputStream(footerBytes), filter),
+        footerBytes.length);
+  }
+
+  /**
+   * Parsed footer, with the size of its serialized form used to bound the cache.
+   */
+  private static final class Footer {
+    private final ParquetMetadata metadata;
+    private final int size;
+
+    private Footer(ParquetMetadata metadata, int size) {
+      this.metadata = metadata;
+      this.size = size;
+    }
+  }
+
+  private static final class Key {
+    private final String path;
+    private final long modificationTime;
+    private final long length;
+
+    private Key(String path, long modificationTime, long length) {
+      this.path = path;
+      this.modificationTime = modificationTime;
+      this.length = length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key that = (Key) o;
+      return modificationTime == that.modificationTime
+          && length == that.length
+          && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(path, modificationTime, length);
+    }
+  }
+}
+
@@ -18,6 +18,7 @@ package com.dremio.exec.store.parquet;
 import static com.dremio.exec.planner.acceleration.IncrementalUpdateUtils.UPDATE_COLUMN;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -44,6 +45,7 @@ import com.dremio.exec.planner.physical.visitor.GlobalDictionaryFieldInfo;
 import com.dremio.exec.proto.CoordinationProtos;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.store.dfs.BlockCache;
 import com.dremio.exec.store.dfs.CompleteFileWork.FileWorkImpl;
 import com.dremio.exec.store.dfs.FileSelection;
 import com.dremio.exec.store.dfs.FileSystemPlugin;
@@ -342,10 +344,11 @@ public class ParquetGroupScanUtils {
     columnTypeMap.put(SchemaPath.getSimplePath(UPDATE_COLUMN), Types.optional(MinorType.BIGINT));
 
     // TODO: do we need this code path?
+    final ParquetFooterCache footerCache = ParquetFooterCache.getInstance(formatPlugin.getContext().getConfig());
     if (entries.size() == 1) {
-      parquetTableMetadata = Metadata.getParquetTableMetadata(entries.get(0), fs, formatPlugin.getConfig(), plugin.getFsConf());
+      parquetTableMetadata = Metadata.getParquetTableMetadata(entries.get(0), fs, formatPlugin.getConfig(), plugin.getFsConf(), footerCache);
     } else {
-      parquetTableMetadata = Metadata.getParquetTableMetadata(entries, formatPlugin.getConfig(), plugin.getFsConf());
+      parquetTableMetadata = Metadata.getParquetTableMetadata(entries, formatPlugin.getConfig(), plugin.getFsConf(), footerCache);
     }
 
     ListMultimap<String, NodeEndpoint> hostEndpointMap = FluentIterable.from(plugin.getContext().getExecutors())
@@ -356,6 +359,11 @@ public class ParquetGroupScanUtils {
         }
       });
 
+    // remote files without locality are read through the local block cache of executors, when enabled. Steer all the
+    // reads of a file to the same executor so that repeated queries hit its cache.
+    final boolean blockCached = fs.withBlockCache(BlockCache.getInstance(formatPlugin.getContext().getConfig())).isBlockCached();
+    final Collection<NodeEndpoint> executors = plugin.getContext().getExecutors();
+
     rowGroupInfos = Lists.newArrayList();
     for (ParquetFileMetadata file : parquetTableMetadata.getFiles()) {
       int rgIndex = 0;
@@ -378,6 +386,12 @@ public class ParquetGroupScanUtils {
                 .add(getRandom(hostEndpointMap.get(host)), (long) (rg.getHostAffinity().get(host) * rg.getLength()));
           }
         }
+        if (endpointByteMap.isEmpty() && blockCached) {
+          final NodeEndpoint endpoint = BlockCache.getPreferredEndpoint(file.getStatus().getPath().toString(), executors);
+          if (endpoint != null) {
+            endpointByteMap.add(endpoint, rg.getLength());
+          }
+        }
         rowGroupInfo.setEndpointByteMap(endpointByteMap);
         rgIndex++;
         rowGroupInfos.add(rowGroupInfo);
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.hadoop.CodecFactory;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
@@ -89,7 +90,7 @@ public class ParquetOperatorCreator implements Creator<ParquetSubScan> {
 
     final CompositeReaderConfig readerConfig = CompositeReaderConfig.getCompound(config.getSchema(), config.getColumns(), config.getPartitionColumns());
     final List<ParquetDatasetSplit> sortedSplits = Lists.newArrayList();
-    final SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache();
+    final ParquetFooterCache footerCache = ParquetFooterCache.getInstance(context.getConfig());
 
     for (DatasetSplit split : config.getSplits()) {
       sortedSplits.add(new ParquetDatasetSplit(split));
@@ -112,12 +113,15 @@ public class ParquetOperatorCreator implements Creator<ParquetSubScan> {
         try {
           Path p = new Path(split.getSplitXAttr().getPath());
           Long length = split.getSplitXAttr().getUpdateKey().getLength();
+          Long modificationTime = split.getSplitXAttr().getUpdateKey().getLastModificationTime();
           if (length == null || !context.getOptions().getOption(ExecConstants.PARQUET_CACHED_ENTITY_SET_FILE_SIZE)) {
-            length = fs.getFileStatus(p).getLen();
+            final FileStatus status = fs.getFileStatus(p);
+            length = status.getLen();
+            modificationTime = status.getModificationTime();
           }
           InputStreamProvider inputStreamProvider = new InputStreamProvider(fs, p, useSingleStream);
 
-          final ParquetMetadata footer = footerCache.getFooter(inputStreamProvider.stream(), split.getSplitXAttr().getPath(), length, fs);
+          final ParquetMetadata footer = footerCache.getFooter(inputStreamProvider.stream(), split.getSplitXAttr().getPath(), length, modificationTime, fs);
 
           final SchemaDerivationHelper schemaHelper = SchemaDerivationHelper.builder()
               .readInt96AsTimeStamp(readInt96AsTimeStamp)
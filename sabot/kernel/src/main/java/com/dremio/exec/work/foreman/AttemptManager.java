@@ -33,6 +33,7 @@ import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.planner.sql.handlers.commands.AsyncCommand;
 import com.dremio.exec.planner.sql.handlers.commands.CommandCreator;
 import com.dremio.exec.planner.sql.handlers.commands.CommandRunner;
+import com.dremio.exec.planner.sql.handlers.commands.PlanCache;
 import com.dremio.exec.planner.sql.handlers.commands.PreparedPlan;
 import com.dremio.exec.proto.CoordExecRPC.FragmentStatus;
 import com.dremio.exec.proto.CoordExecRPC.NodeQueryStatus;
@@ -98,6 +99,7 @@ public class AttemptManager implements Runnable {
   private final QueryManager queryManager; // handles lower-level details of query execution
   private final SabotContext sabotContext;
   private final Cache<Long, PreparedPlan> plans;
+  private final PlanCache planCache;
   private volatile QueryState state;
 
   private final StateSwitch stateSwitch = new StateSwitch();
@@ -125,6 +127,7 @@ public class AttemptManager implements Runnable {
     final OptionProvider options,
     final CoordToExecTunnelCreator tunnelCreator,
     final Cache<Long, PreparedPlan> plans,
+    final PlanCache planCache,
     final QueryContext queryContext,
     final ResourceAllocator queryResourceManager
   ) {
@@ -136,6 +139,7 @@ public class AttemptManager implements Runnable {
     this.tunnelCreator = tunnelCreator;
     this.queryResourceManager = queryResourceManager;
     this.plans = plans;
+    this.planCache = planCache;
     this.prepareId = new Pointer<>();
 
     this.queryContext = queryContext;
@@ -374,7 +378,7 @@ public class AttemptManager implements Runnable {
 
   protected CommandCreator newCommandCreator(QueryContext queryContext, AttemptObserver observer, Pointer<QueryId> prepareId) {
     return new CommandCreator(this.sabotContext, queryContext, tunnelCreator, queryRequest,
-      observer, plans, prepareId, attemptId.getAttemptNum(), queryResourceManager);
+      observer, plans, planCache, prepareId, attemptId.getAttemptNum(), queryResourceManager);
   }
 
 //  private void log(final PhysicalPlan plan) {
@@ -27,6 +27,7 @@ import com.dremio.common.exceptions.UserRemoteException;
 import com.dremio.common.util.DremioVersionInfo;
 import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.catalog.Catalog;
+import com.dremio.exec.ops.ExecutionMetrics;
 import com.dremio.exec.ops.OperatorMetricRegistry;
 import com.dremio.exec.ops.QueryContext;
 import com.dremio.exec.planner.PlanCaptureAttemptObserver;
@@ -381,6 +382,9 @@ class QueryManager {
 
   private void markEndPlanningTime() {
     endPlanningTime = System.currentTimeMillis();
+    if (startPlanningTime > 0) {
+      ExecutionMetrics.recordQueryPlanning(endPlanningTime - startPlanningTime);
+    }
   }
 
   private void markStartTime() {
@@ -389,6 +393,9 @@ class QueryManager {
 
   void markEndTime() {
     endTime = System.currentTimeMillis();
+    if (endPlanningTime > 0) {
+      ExecutionMetrics.recordQueryExecution(endTime - endPlanningTime);
+    }
   }
 
   /**
@@ -32,6 +32,7 @@ import com.dremio.exec.planner.observer.DelegatingAttemptObserver;
 import com.dremio.exec.planner.observer.QueryObserver;
 import com.dremio.exec.planner.physical.HashAggPrel;
 import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.planner.sql.handlers.commands.PlanCache;
 import com.dremio.exec.planner.sql.handlers.commands.PreparedPlan;
 import com.dremio.exec.proto.CoordExecRPC.FragmentStatus;
 import com.dremio.exec.proto.CoordExecRPC.NodeQueryStatus;
@@ -90,6 +91,7 @@ public class Foreman {
   private final ReAttemptHandler attemptHandler;
   private final CoordToExecTunnelCreator tunnelCreator;
   private final Cache<Long, PreparedPlan> plans;
+  private final PlanCache planCache;
   private final ResourceAllocator queryResourceManager;
 
   private AttemptId attemptId; // id of last attempt
@@ -111,6 +113,7 @@ public class Foreman {
     final ReAttemptHandler attemptHandler,
     final CoordToExecTunnelCreator tunnelCreator,
     Cache<Long, PreparedPlan> plans,
+    PlanCache planCache,
     final ResourceAllocator queryResourceManager) {
     this.attemptId = AttemptId.of(externalId);
     this.executor = executor;
@@ -123,6 +126,7 @@ public class Foreman {
     this.attemptHandler = attemptHandler;
     this.tunnelCreator = tunnelCreator;
     this.plans = plans;
+    this.planCache = planCache;
     this.queryResourceManager = queryResourceManager;
   }
 
@@ -158,16 +162,16 @@ public class Foreman {
     }
 
     attemptManager = newAttemptManager(context, attemptId, request, attemptObserver, session,
-      optionProvider, tunnelCreator, plans, datasetValidityChecker);
+      optionProvider, tunnelCreator, plans, planCache, datasetValidityChecker);
     executor.execute(attemptManager);
   }
 
   protected AttemptManager newAttemptManager(SabotContext context, AttemptId attemptId, UserRequest queryRequest,
       AttemptObserver observer, UserSession session, OptionProvider options, CoordToExecTunnelCreator tunnelCreator,
-      Cache<Long, PreparedPlan> plans, Predicate<DatasetConfig> datasetValidityChecker) {
+      Cache<Long, PreparedPlan> plans, PlanCache planCache, Predicate<DatasetConfig> datasetValidityChecker) {
     final QueryContext queryContext = new QueryContext(session, context, attemptId.toQueryId(),
         queryRequest.getPriority(), queryRequest.getMaxAllocation(), datasetValidityChecker);
-    return new AttemptManager(context, attemptId, queryRequest, observer, options, tunnelCreator, plans,
+    return new AttemptManager(context, attemptId, queryRequest, observer, options, tunnelCreator, plans, planCache,
       queryContext, queryResourceManager);
   }
 
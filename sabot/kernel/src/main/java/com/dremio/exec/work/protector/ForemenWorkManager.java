@@ -32,6 +32,7 @@ import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.planner.observer.OutOfBandQueryObserver;
 import com.dremio.exec.planner.observer.QueryObserver;
+import com.dremio.exec.planner.sql.handlers.commands.PlanCache;
 import com.dremio.exec.planner.sql.handlers.commands.PreparedPlan;
 import com.dremio.exec.proto.CoordExecRPC.FragmentStatus;
 import com.dremio.exec.proto.CoordExecRPC.NodeQueryStatus;
@@ -88,6 +89,8 @@ public class ForemenWorkManager implements Service, SafeExit {
   // Not making this a system/session option as we initialize this in the beginning of the node start and
   // changing system/session option is not going to have any effect.
   private static final String PREPARE_HANDLE_TIMEOUT_MS = "dremio.prepare.handle.timeout_ms";
+  private static final String PLAN_CACHE_SIZE = "dremio.plan.cache.size";
+  private static final String PLAN_CACHE_TIMEOUT_MS = "dremio.plan.cache.timeout_ms";
 
   // cache of prepared statement queries.
   private final Cache<Long, PreparedPlan> preparedHandles = CacheBuilder.newBuilder()
@@ -98,6 +101,10 @@ public class ForemenWorkManager implements Service, SafeExit {
       .expireAfterWrite(Long.getLong(PREPARE_HANDLE_TIMEOUT_MS, 60_000L), TimeUnit.MILLISECONDS)
       .build();
 
+  // cache of query plans, by sql text. Only used if planner.plan_cache.enabled is set.
+  private final PlanCache planCache = new PlanCache(Long.getLong(PLAN_CACHE_SIZE, 1000L),
+      Long.getLong(PLAN_CACHE_TIMEOUT_MS, TimeUnit.HOURS.toMillis(1)));
+
   // single map of currently running queries, mapped by their external ids.
   private final ConcurrentMap<ExternalId, ManagedForeman> externalIdToForeman = Maps.newConcurrentMap();
   private final NodeStatusListener nodeListener = new NodeStatusListener();
@@ -172,7 +179,7 @@ public class ForemenWorkManager implements Service, SafeExit {
 
     final DelegatingCompletionListener delegate = new DelegatingCompletionListener();
     final Foreman foreman = newForeman(pool, delegate, externalId, observer, session, request, config,
-      attemptHandler, tunnelCreator, preparedHandles);
+      attemptHandler, tunnelCreator, preparedHandles, planCache);
     final ManagedForeman managed = new ManagedForeman(registry, foreman);
     externalIdToForeman.put(foreman.getExternalId(), managed);
     delegate.setListener(managed);
@@ -182,9 +189,9 @@ public class ForemenWorkManager implements Service, SafeExit {
   protected Foreman newForeman(Executor executor, CompletionListener listener, ExternalId externalId,
       QueryObserver observer, UserSession session, UserRequest request, OptionProvider config,
       ReAttemptHandler attemptHandler, CoordToExecTunnelCreator tunnelCreator,
-      Cache<Long, PreparedPlan> plans) {
+      Cache<Long, PreparedPlan> plans, PlanCache planCache) {
     return new Foreman(dbContext.get(), executor, listener, externalId, observer, session, request, config,
-      attemptHandler, tunnelCreator, plans, queryResourceManager.get());
+      attemptHandler, tunnelCreator, plans, planCache, queryResourceManager.get());
   }
 
   private class RunningQueryProviderImpl implements RunningQueryProvider {
@@ -15,10 +15,14 @@
  */
 package com.dremio.sabot.driver;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.dremio.common.AutoCloseables;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
 import com.dremio.sabot.exec.context.SharedResourcesContext;
+import com.dremio.sabot.op.scan.ScanOperator;
+import com.dremio.sabot.op.spi.Operator.ShrinkableOperator;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.dremio.sabot.task.Task.State;
 
@@ -62,6 +66,33 @@ public class Pipeline implements AutoCloseable {
     return terminal;
   }
 
+  /**
+   * Hands a runtime filter to the scans of this pipeline, each scan checking whether the filter targets it.
+   *
+   * @param filter the runtime filter
+   * @param expectedFilters number of filters the scan must merge before applying them
+   */
+  public void addRuntimeFilter(RuntimeFilter filter, int expectedFilters) {
+    for (Wrapped<?> o : operators) {
+      if (o.getInner() instanceof ScanOperator) {
+        ((ScanOperator) o.getInner()).addRuntimeFilter(filter, expectedFilters);
+      }
+    }
+  }
+
+  /**
+   * @return the operators of this pipeline that can release memory when asked to.
+   */
+  public List<ShrinkableOperator> getShrinkableOperators() {
+    final List<ShrinkableOperator> shrinkable = new ArrayList<>();
+    for (Wrapped<?> o : operators) {
+      if (o.getInner() instanceof ShrinkableOperator) {
+        shrinkable.add((ShrinkableOperator) o.getInner());
+      }
+    }
+    return shrinkable;
+  }
+
   /**
    * Move data between operators. Move one batch of records at most.
    *
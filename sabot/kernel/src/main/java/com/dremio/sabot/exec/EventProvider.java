@@ -16,9 +16,10 @@
 package com.dremio.sabot.exec;
 
 import com.dremio.exec.proto.ExecProtos;
+import com.dremio.exec.proto.ExecRPC;
 
 /**
- * Provides {@link com.dremio.sabot.exec.fragment.FragmentExecutor} with cancel and early termination messages
+ * Provides {@link com.dremio.sabot.exec.fragment.FragmentExecutor} with cancel, early termination and runtime filter messages
  */
 public interface EventProvider {
 
@@ -29,6 +30,13 @@ public interface EventProvider {
    */
   ExecProtos.FragmentHandle pollFinishedReceiver();
 
+  /**
+   * retrieves one of the runtime filters sent to this fragment and removes it from the internal container
+   *
+   * @return runtime filter, null if no filter was received since last access to this method
+   */
+  ExecRPC.RuntimeFilter pollRuntimeFilter();
+
   /**
    * @return true if fragment has been cancelled
    */
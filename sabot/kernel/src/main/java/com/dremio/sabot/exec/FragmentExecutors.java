@@ -32,6 +32,7 @@ import com.dremio.exec.ExecConstants;
 import com.dremio.exec.exception.FragmentSetupException;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
 import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.metrics.Metrics;
 import com.dremio.options.OptionManager;
@@ -181,6 +182,10 @@ public class FragmentExecutors implements AutoCloseable, Iterable<FragmentExecut
     handlers.getUnchecked(handle).handle(completion);
   }
 
+  public void handle(FragmentHandle handle, RuntimeFilter filter) {
+    handlers.getUnchecked(handle).handle(filter);
+  }
+
   public void handle(FragmentHandle handle, IncomingDataBatch batch) throws IOException, FragmentSetupException {
     handlers.getUnchecked(handle).handle(batch);
   }
@@ -18,6 +18,7 @@ package com.dremio.sabot.exec;
 import com.dremio.exec.exception.FragmentSetupException;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
 import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.sabot.exec.fragment.FragmentExecutor;
 import com.dremio.sabot.exec.rpc.IncomingDataBatch;
@@ -60,6 +61,7 @@ public class FragmentHandler implements EventProvider {
   private volatile long cancellationTime;
 
   private final Queue<FragmentEvent> finishedReceivers = new ConcurrentLinkedQueue<>();
+  private final Queue<RuntimeFilter> runtimeFilters = new ConcurrentLinkedQueue<>();
 
   private volatile long expirationTime;
 
@@ -109,6 +111,11 @@ public class FragmentHandler implements EventProvider {
     finishedReceivers.add(new FragmentEvent(receiver));
   }
 
+  void handle(RuntimeFilter filter) {
+    // filters can be sent as soon as the join fragment built its hash table, which may be before this fragment started
+    runtimeFilters.add(filter);
+  }
+
   @Override
   public boolean isCancelled() {
     return canceled.get();
@@ -120,6 +127,11 @@ public class FragmentHandler implements EventProvider {
     return event != null ? event.handle : null;
   }
 
+  @Override
+  public RuntimeFilter pollRuntimeFilter() {
+    return runtimeFilters.poll();
+  }
+
   boolean isExpired() {
     return executor == null && System.currentTimeMillis() > expirationTime;
   }
@@ -168,6 +180,7 @@ public class FragmentHandler implements EventProvider {
 
   void invalidate() {
     this.executor = null;
+    runtimeFilters.clear();
     expirationTime = System.currentTimeMillis() + evictionDelayMillis;
     checkStateAndLogIfNecessary();
   }
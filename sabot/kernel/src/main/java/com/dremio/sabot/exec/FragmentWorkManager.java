@@ -81,6 +81,7 @@ public class FragmentWorkManager implements Service, SafeExit {
 
   private FragmentStatusThread statusThread;
   private ThreadsStatsCollector statsCollectorThread;
+  private MemoryArbiter memoryArbiter;
 
   private TaskPool pool;
   private FragmentExecutors fragmentExecutors;
@@ -267,6 +268,8 @@ public class FragmentWorkManager implements Service, SafeExit {
       }
     };
 
+    this.memoryArbiter = new MemoryArbiter(context.getAllocator(), options);
+
     fragmentExecutors = new FragmentExecutors(creator, callback, pool, bitContext.getOptionManager());
 
     final ExecConnectionCreator connectionCreator = new ExecConnectionCreator(fabricServiceProvider.get().registerProtocol(new ExecProtocol(bitContext.getConfig(), allocator, fragmentExecutors)));
@@ -286,6 +289,7 @@ public class FragmentWorkManager implements Service, SafeExit {
         contextInformationFactory.get(),
         bitContext.getFunctionImplementationRegistry(),
         context.getNodeDebugContextProvider(),
+        memoryArbiter,
         ClusterCoordinator.Role.fromEndpointRoles(identity.get().getRoles()));
 
     // register coord/exec message handling.
@@ -296,6 +300,7 @@ public class FragmentWorkManager implements Service, SafeExit {
     statusThread.start();
     statsCollectorThread = new ThreadsStatsCollector();
     statsCollectorThread.start();
+    memoryArbiter.start();
 
     final String prefix = "rpc";
     Metrics.registerGauge(prefix + "bit.data.current", new Gauge<Long>() {
@@ -310,6 +315,23 @@ public class FragmentWorkManager implements Service, SafeExit {
         return allocator.getPeakMemoryAllocation();
       }
     });
+
+    final FabricService fabricService = fabricServiceProvider.get();
+    for (int i = 0; i < fabricService.getChannelCount(); i++) {
+      final int channel = i;
+      Metrics.registerGauge(prefix + "fabric.channel" + channel + ".messages.sent", new Gauge<Long>() {
+        @Override
+        public Long getValue() {
+          return fabricService.getMessagesSent(channel);
+        }
+      });
+      Metrics.registerGauge(prefix + "fabric.channel" + channel + ".bytes.sent", new Gauge<Long>() {
+        @Override
+        public Long getValue() {
+          return fabricService.getBytesSent(channel);
+        }
+      });
+    }
   }
 
   public class ExecConnectionCreator {
@@ -320,14 +342,18 @@ public class FragmentWorkManager implements Service, SafeExit {
       this.factory = factory;
     }
 
-    public ExecTunnel getTunnel(NodeEndpoint endpoint) {
-      return new ExecTunnel(factory.getCommandRunner(endpoint.getAddress(), endpoint.getFabricPort()));
+    /**
+     * @return a tunnel for the data sent by a fragment. All the tunnels of a fragment to an endpoint use the same
+     * fabric channel, while the fragments are spread over the data channels.
+     */
+    public ExecTunnel getTunnel(NodeEndpoint endpoint, ExecProtos.FragmentHandle handle) {
+      return new ExecTunnel(factory.getCommandRunner(endpoint.getAddress(), endpoint.getFabricPort(), handle.hashCode()));
     }
   }
 
   @Override
   public void close() throws Exception {
-    AutoCloseables.close(statusThread, statsCollectorThread, closeableExecutor, pool, fragmentExecutors, clerk, allocator);
+    AutoCloseables.close(statusThread, statsCollectorThread, memoryArbiter, closeableExecutor, pool, fragmentExecutors, clerk, allocator);
   }
 
 }
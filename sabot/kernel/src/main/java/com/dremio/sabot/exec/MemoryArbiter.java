@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.exec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.arrow.memory.BufferAllocator;
+
+import com.dremio.common.utils.protos.QueryIdHelper;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.op.spi.Operator.ShrinkableOperator;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Sets;
+
+/**
+ * Arbitrates the memory of the node between the running queries. Operators able to spill register themselves, keyed
+ * by the fragment (and so the query) and the operator id. The arbiter periodically compares the memory allocated on
+ * the node with its limit, and once above {@link ExecConstants#MEMORY_ARBITER_SPILL_RATIO} it asks the registered
+ * operators holding the most memory to shrink, until enough memory is expected to be released to go back under
+ * {@link ExecConstants#MEMORY_ARBITER_TARGET_RATIO}. This lets queries spill rather than fail with out of memory
+ * errors.
+ *
+ * Operators are single threaded, so shrink requests are handed to the executor of the fragment, which runs them on the
+ * fragment thread the next time the fragment is scheduled.
+ */
+public class MemoryArbiter extends Thread implements AutoCloseable {
+
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(MemoryArbiter.class);
+
+  private final static int CHECK_PERIOD_MILLIS = 100;
+
+  private final BufferAllocator allocator;
+  private final OptionManager options;
+  private final Set<Registration> registrations = Sets.newConcurrentHashSet();
+
+  /**
+   * @param allocator the root allocator of the node
+   * @param options the system options
+   */
+  public MemoryArbiter(BufferAllocator allocator, OptionManager options) {
+    super();
+    setDaemon(true);
+    setName("memory-arbiter");
+    this.allocator = allocator;
+    this.options = options;
+  }
+
+  /**
+   * Registers an operator able to release memory. The registration must be closed before the operator is.
+   *
+   * @param handle the fragment of the operator
+   * @param operator the operator
+   * @param fragmentExecutor runs shrink requests on the fragment thread
+   * @return the registration of the operator
+   */
+  public Registration register(FragmentHandle handle, ShrinkableOperator operator, Executor fragmentExecutor) {
+    final Registration registration = new Registration(handle, operator, fragmentExecutor);
+    registrations.add(registration);
+    return registration;
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      try {
+        arbitrate();
+      } catch (Exception e) {
+        // Exception ignored. Arbiter thread should not die due to a random exception
+        logger.warn("Failure while arbitrating node memory", e);
+      }
+
+      try {
+        Thread.sleep(CHECK_PERIOD_MILLIS);
+      } catch (final InterruptedException e) {
+        logger.debug("Memory arbiter thread exiting.");
+        break;
+      }
+    }
+  }
+
+  /**
+   * Asks the registered operators to shrink if the node is running low on memory.
+   *
+   * @return the number of operators asked to shrink.
+   */
+  @VisibleForTesting
+  int arbitrate() {
+    if (!options.getOption(ExecConstants.MEMORY_ARBITER_ENABLE)) {
+      return 0;
+    }
+
+    final long limit = allocator.getLimit();
+    final long allocated = allocator.getAllocatedMemory();
+    if (allocated < limit * options.getOption(ExecConstants.MEMORY_ARBITER_SPILL_RATIO)) {
+      return 0;
+    }
+
+    long toRelease = allocated - (long) (limit * options.getOption(ExecConstants.MEMORY_ARBITER_TARGET_RATIO));
+    final List<Registration> candidates = new ArrayList<>();
+    for (Registration registration : registrations) {
+      // memory already requested but not yet released by the fragment
+      final long requested = registration.requested.get();
+      if (requested > 0) {
+        toRelease -= requested;
+        continue;
+      }
+
+      registration.shrinkable = registration.operator.shrinkableMemory();
+      if (registration.shrinkable > 0) {
+        candidates.add(registration);
+      }
+    }
+
+    // release the memory of the largest operators first, it minimizes the number of spills
+    Collections.sort(candidates, new Comparator<Registration>() {
+      @Override
+      public int compare(Registration o1, Registration o2) {
+        return Long.compare(o2.shrinkable, o1.shrinkable);
+      }
+    });
+
+    int requests = 0;
+    for (Registration registration : candidates) {
+      if (toRelease <= 0) {
+        break;
+      }
+      final long size = Math.min(toRelease, registration.shrinkable);
+      if (registration.requestShrink(size)) {
+        requests++;
+        toRelease -= registration.shrinkable;
+      }
+    }
+
+    if (requests > 0) {
+      logger.debug("Node allocated {} bytes out of {}, asked {} operators to shrink", allocated, limit, requests);
+    }
+    return requests;
+  }
+
+  @VisibleForTesting
+  int getRegistrationCount() {
+    return registrations.size();
+  }
+
+  @Override
+  public void close() {
+    this.interrupt();
+  }
+
+  /**
+   * The registration of an operator. Closing it unregisters the operator.
+   */
+  public final class Registration implements AutoCloseable {
+    private final FragmentHandle handle;
+    private final ShrinkableOperator operator;
+    private final Executor fragmentExecutor;
+    // size of the pending shrink request, 0 if none
+    private final AtomicLong requested = new AtomicLong();
+    // only accessed by the arbiter thread
+    private long shrinkable;
+
+    private Registration(FragmentHandle handle, ShrinkableOperator operator, Executor fragmentExecutor) {
+      this.handle = handle;
+      this.operator = operator;
+      this.fragmentExecutor = fragmentExecutor;
+    }
+
+    private boolean requestShrink(final long size) {
+      if (!requested.compareAndSet(0, size)) {
+        return false;
+      }
+
+      logger.debug("Asking operator {} of fragment {} to release {} bytes", operator.getOperatorId(),
+          QueryIdHelper.getFragmentId(handle), size);
+      fragmentExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            // the fragment may have completed since the request was made
+            if (registrations.contains(Registration.this)) {
+              operator.shrinkMemory(size);
+            }
+          } catch (Exception e) {
+            throw Throwables.propagate(e);
+          } finally {
+            requested.set(0);
+          }
+        }
+      });
+      return true;
+    }
+
+    public FragmentHandle getHandle() {
+      return handle;
+    }
+
+    @Override
+    public void close() {
+      registrations.remove(this);
+    }
+  }
+}
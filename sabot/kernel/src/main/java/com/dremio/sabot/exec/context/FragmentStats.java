@@ -20,6 +20,7 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
+import com.dremio.exec.ops.ExecutionMetrics;
 import com.dremio.sabot.threads.sharedres.SharedResourceType;
 import com.google.common.base.Stopwatch;
 import org.apache.arrow.memory.BufferAllocator;
@@ -64,6 +65,16 @@ public class FragmentStats {
     this.perResourceBlockedDurations = Collections.synchronizedMap(new EnumMap<SharedResourceType, Long>(SharedResourceType.class));
   }
 
+  /**
+   * Records the statistics of the completed fragment into the node metrics, see {@link ExecutionMetrics}.
+   */
+  public void recordMetrics() {
+    ExecutionMetrics.recordFragmentPeakMemory(allocator.getPeakMemoryAllocation());
+    for (OperatorStats o : operators) {
+      ExecutionMetrics.recordOperator(o);
+    }
+  }
+
   public void addMetricsToStatus(MinorFragmentProfile.Builder prfB) {
     prfB.setStartTime(startTime);
     prfB.setFirstRun(firstRun);
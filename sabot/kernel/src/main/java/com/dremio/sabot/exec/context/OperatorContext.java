@@ -24,12 +24,14 @@ import org.apache.arrow.vector.types.pojo.Schema;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.exec.expr.ClassProducer;
 import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.selection.SelectionVector2;
 import com.dremio.exec.server.NodeDebugContextProvider;
 import com.dremio.options.OptionManager;
 import com.dremio.exec.testing.ExecutionControls;
+import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.filter.VectorContainerWithSV;
 import com.dremio.service.namespace.NamespaceService;
 
@@ -92,6 +94,16 @@ public abstract class OperatorContext {
 
   public abstract NodeDebugContextProvider getNodeDebugContextProvider();
 
+  /**
+   * @return the endpoint running the fragment, null if the operator doesn't run in a fragment
+   */
+  public abstract NodeEndpoint getNodeEndpoint();
+
+  /**
+   * @return the tunnels to other executors, null if the operator doesn't run in a fragment
+   */
+  public abstract TunnelProvider getTunnelProvider();
+
   public static int getChildCount(PhysicalOperator popConfig) {
     Iterator<PhysicalOperator> iter = popConfig.iterator();
     int i = 0;
@@ -29,12 +29,14 @@ import com.dremio.exec.expr.ClassProducer;
 import com.dremio.exec.expr.ClassProducerImpl;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
 import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.selection.SelectionVector2;
 import com.dremio.exec.server.NodeDebugContextProvider;
 import com.dremio.options.OptionManager;
 import com.dremio.exec.testing.ExecutionControls;
+import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.filter.VectorContainerWithSV;
 import com.dremio.service.namespace.NamespaceService;
 import com.google.common.annotations.VisibleForTesting;
@@ -61,6 +63,8 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
   private final int targetBatchSize;
   private final NamespaceService ns;
   private final NodeDebugContextProvider nodeDebugContextProvider;
+  private final NodeEndpoint endpoint;
+  private final TunnelProvider tunnelProvider;
 
   public OperatorContextImpl(
       SabotConfig config,
@@ -78,6 +82,28 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
       NamespaceService namespaceService,
       NodeDebugContextProvider nodeDebugContextProvider,
       int targetBatchSize) throws OutOfMemoryException {
+    this(config, handle, popConfig, allocator, fragmentOutputAllocator, compiler, stats, executionControls, executor,
+      functions, contextInformation, optionManager, namespaceService, nodeDebugContextProvider, targetBatchSize, null, null);
+  }
+
+  public OperatorContextImpl(
+      SabotConfig config,
+      FragmentHandle handle,
+      PhysicalOperator popConfig,
+      BufferAllocator allocator,
+      BufferAllocator fragmentOutputAllocator,
+      CodeCompiler compiler,
+      OperatorStats stats,
+      ExecutionControls executionControls,
+      ExecutorService executor,
+      FunctionLookupContext functions,
+      ContextInformation contextInformation,
+      final OptionManager optionManager,
+      NamespaceService namespaceService,
+      NodeDebugContextProvider nodeDebugContextProvider,
+      int targetBatchSize,
+      NodeEndpoint endpoint,
+      TunnelProvider tunnelProvider) throws OutOfMemoryException {
     this.config = config;
     this.handle = handle;
     this.allocator = allocator;
@@ -91,6 +117,8 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
     this.targetBatchSize = targetBatchSize;
     this.ns = namespaceService;
     this.nodeDebugContextProvider = nodeDebugContextProvider;
+    this.endpoint = endpoint;
+    this.tunnelProvider = tunnelProvider;
     this.producer = new ClassProducerImpl(new CompilationOptions(optionManager), compiler, functions, contextInformation, manager);
   }
 
@@ -227,4 +255,14 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
   public  NodeDebugContextProvider getNodeDebugContextProvider() {
     return nodeDebugContextProvider;
   }
+
+  @Override
+  public NodeEndpoint getNodeEndpoint() {
+    return endpoint;
+  }
+
+  @Override
+  public TunnelProvider getTunnelProvider() {
+    return tunnelProvider;
+  }
 }
@@ -303,6 +303,13 @@ public class OperatorStats {
     doubleMetrics.put(metric.metricId(), value);
   }
 
+  /**
+   * @return the value of a long metric, or 0 if it was never set
+   */
+  public long getLongStat(MetricDef metric){
+    return longMetrics.get(metric.metricId());
+  }
+
   private long getNanos(State state) {
     return stateNanos[state.ordinal()];
   }
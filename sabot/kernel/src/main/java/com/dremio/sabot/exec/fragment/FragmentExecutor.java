@@ -20,7 +20,10 @@ import static com.dremio.sabot.exec.fragment.FragmentExecutorBuilder.WORK_QUEUE_
 
 import java.io.IOException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -33,6 +36,7 @@ import com.dremio.exec.ExecConstants;
 import com.dremio.exec.exception.FragmentSetupException;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
 import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.base.Sender;
 import com.dremio.exec.planner.PhysicalPlanReader;
 import com.dremio.exec.proto.CoordExecRPC.FragmentPriority;
 import com.dremio.exec.proto.CoordExecRPC.FragmentStatus;
@@ -40,6 +44,7 @@ import com.dremio.exec.proto.CoordExecRPC.PlanFragment;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
 import com.dremio.exec.proto.UserBitShared.FragmentState;
 import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.store.CatalogService;
@@ -52,6 +57,7 @@ import com.dremio.sabot.driver.PipelineCreator;
 import com.dremio.sabot.driver.SchemaChangeListener;
 import com.dremio.sabot.driver.UserDelegatingOperatorCreator;
 import com.dremio.sabot.exec.EventProvider;
+import com.dremio.sabot.exec.MemoryArbiter;
 import com.dremio.sabot.exec.QueriesClerk.FragmentTicket;
 import com.dremio.sabot.exec.StateTransitionException;
 import com.dremio.sabot.exec.context.ContextInformation;
@@ -59,6 +65,7 @@ import com.dremio.sabot.exec.context.FragmentStats;
 import com.dremio.sabot.exec.rpc.IncomingDataBatch;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.receiver.IncomingBuffers;
+import com.dremio.sabot.op.spi.Operator.ShrinkableOperator;
 import com.dremio.sabot.task.AsyncTask;
 import com.dremio.sabot.task.Task.State;
 import com.dremio.sabot.task.TaskDescriptor;
@@ -126,6 +133,7 @@ public class FragmentExecutor {
 
   private BufferAllocator outputAllocator;
   private Pipeline pipeline;
+  private int runtimeFilterSenders;
   private final IncomingBuffers buffers;
 
   private volatile TaskDescriptor taskDescriptor;
@@ -136,6 +144,9 @@ public class FragmentExecutor {
 
   private final SettableFuture<Boolean> cancelled;
 
+  private final MemoryArbiter memoryArbiter;
+  private final List<MemoryArbiter.Registration> memoryRegistrations = new ArrayList<>();
+
   public FragmentExecutor(
       FragmentStatusReporter statusReporter,
       SabotConfig config,
@@ -156,7 +167,8 @@ public class FragmentExecutor {
       final FragmentTicket ticket,
       final CatalogService sources,
       DeferredException exception,
-      EventProvider eventProvider) {
+      EventProvider eventProvider,
+      MemoryArbiter memoryArbiter) {
     super();
     this.name = QueryIdHelper.getExecutorThreadName(fragment.getHandle());
     this.queryUserUgi = ImpersonationUtil.createProxyUgi(fragment.getCredentials().getUserName());
@@ -182,6 +194,7 @@ public class FragmentExecutor {
     this.buffers = new IncomingBuffers(deferredException, sharedResources.getGroup(PIPELINE_RES_GRP), workQueue, tunnelProvider, fragment, allocator, config);
     this.eventProvider = eventProvider;
     this.cancelled = SettableFuture.create();
+    this.memoryArbiter = memoryArbiter;
   }
 
   /**
@@ -245,6 +258,13 @@ public class FragmentExecutor {
         pipeline.getTerminalOperator().receivingFragmentFinished(finishedFragment);
       }
 
+      // hand the runtime filters sent by the joins reading this fragment to its scans. Partial filters are sent by
+      // each of the fragments this fragment sends records to.
+      RuntimeFilter runtimeFilter;
+      while ((runtimeFilter = eventProvider.pollRuntimeFilter()) != null) {
+        pipeline.addRuntimeFilter(runtimeFilter, runtimeFilter.getPartial() ? runtimeFilterSenders : 1);
+      }
+
       // pump the pipeline
       // TODO: look at whether the doAs here is actually necessary.
       taskState = queryUserUgi.doAs(pumper);
@@ -328,6 +348,7 @@ public class FragmentExecutor {
     contextCreator.setFragmentOutputAllocator(outputAllocator);
 
     final PhysicalOperator rootOperator = reader.readFragmentOperator(fragment.getFragmentJson(), fragment.getFragmentCodec());
+    runtimeFilterSenders = rootOperator instanceof Sender ? ((Sender) rootOperator).getDestinations().size() : 1;
 
     final OperatorCreator operatorCreator = new UserDelegatingOperatorCreator(contextInfo.getQueryUser(), opCreator);
     pipeline = PipelineCreator.get(
@@ -343,6 +364,17 @@ public class FragmentExecutor {
 
     pipeline.setup();
 
+    // shrink requests of the memory arbiter are run by the fragment thread, as the operators are single threaded
+    final Executor shrinkExecutor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        workQueue.put(command);
+      }
+    };
+    for (ShrinkableOperator operator : pipeline.getShrinkableOperators()) {
+      memoryRegistrations.add(memoryArbiter.register(fragment.getHandle(), operator, shrinkExecutor));
+    }
+
     clusterCoordinator.getServiceSet(ClusterCoordinator.Role.COORDINATOR).addNodeStatusListener(crashListener);
 
     transitionToRunning();
@@ -392,6 +424,10 @@ public class FragmentExecutor {
       return;
     }
 
+    for (MemoryArbiter.Registration registration : memoryRegistrations) {
+      registration.close();
+    }
+    memoryRegistrations.clear();
     deferredException.suppressingClose(pipeline);
     // make sure to close incoming buffers before we call flushMessages() otherwise we may block before
     // we sent ACKs to other fragments and force other fragments to wait on us
@@ -432,6 +468,9 @@ public class FragmentExecutor {
       statusReporter.stateChanged(state);
     }
 
+    // record node metrics only once the final state is out, so a slow registry never delays it.
+    stats.recordMetrics();
+
     retired = true;
     logger.debug("Fragment finished {}:{} on {}:{}", fragment.getHandle().getMajorFragmentId(), fragment.getHandle().getMinorFragmentId(), fragment.getAssignment().getAddress(), fragment.getAssignment().getUserPort());
   }
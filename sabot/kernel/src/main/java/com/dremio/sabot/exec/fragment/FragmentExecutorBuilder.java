@@ -51,6 +51,7 @@ import com.dremio.sabot.driver.SchemaChangeListener;
 import com.dremio.sabot.exec.EventProvider;
 import com.dremio.sabot.exec.ExecToCoordTunnelCreator;
 import com.dremio.sabot.exec.FragmentWorkManager.ExecConnectionCreator;
+import com.dremio.sabot.exec.MemoryArbiter;
 import com.dremio.sabot.exec.QueriesClerk;
 import com.dremio.sabot.exec.QueriesClerk.FragmentTicket;
 import com.dremio.sabot.exec.context.ContextInformation;
@@ -92,6 +93,7 @@ public class FragmentExecutorBuilder {
   private final CatalogService sources;
   private final ContextInformationFactory contextInformationFactory;
   private final NodeDebugContextProvider nodeDebugContextProvider;
+  private final MemoryArbiter memoryArbiter;
 
   public FragmentExecutorBuilder(
       QueriesClerk clerk,
@@ -108,6 +110,7 @@ public class FragmentExecutorBuilder {
       ContextInformationFactory contextInformationFactory,
       FunctionImplementationRegistry functions,
       NodeDebugContextProvider nodeDebugContextProvider,
+      MemoryArbiter memoryArbiter,
       Set<ClusterCoordinator.Role> roles) {
     this.clerk = clerk;
     this.config = config;
@@ -126,6 +129,7 @@ public class FragmentExecutorBuilder {
     this.sources = sources;
     this.contextInformationFactory = contextInformationFactory;
     this.nodeDebugContextProvider = nodeDebugContextProvider;
+    this.memoryArbiter = memoryArbiter;
   }
 
   public FragmentExecutor build(PlanFragment fragment, EventProvider eventProvider) throws Exception {
@@ -185,6 +189,12 @@ public class FragmentExecutorBuilder {
       final ContextInformation contextInfo =
           contextInformationFactory.newContextFactory(fragment.getCredentials(), fragment.getContext());
 
+      final ExecToCoordTunnel coordTunnel = execToCoord.getTunnel(fragment.getForeman());
+      final FragmentStatusReporter statusReporter = new FragmentStatusReporter(fragment.getHandle(), stats, coordTunnel, allocator);
+      final DeferredException exception = new DeferredException();
+      final StatusHandler handler = new StatusHandler(exception);
+      final TunnelProvider tunnelProvider = new TunnelProviderImpl(flushable.getAccountor(), coordTunnel, dataCreator, fragment.getHandle(), handler, sharedResources.getGroup(PIPELINE_RES_GRP));
+
       final OperatorContextCreator creator = new OperatorContextCreator(
           stats,
           allocator,
@@ -197,13 +207,9 @@ public class FragmentExecutorBuilder {
           fragmentOptions,
           executorService,
           contextInfo,
-          nodeDebugContextProvider);
-
-      final ExecToCoordTunnel coordTunnel = execToCoord.getTunnel(fragment.getForeman());
-      final FragmentStatusReporter statusReporter = new FragmentStatusReporter(fragment.getHandle(), stats, coordTunnel, allocator);
-      final DeferredException exception = new DeferredException();
-      final StatusHandler handler = new StatusHandler(exception);
-      final TunnelProvider tunnelProvider = new TunnelProviderImpl(flushable.getAccountor(), coordTunnel, dataCreator, handler, sharedResources.getGroup(PIPELINE_RES_GRP));
+          nodeDebugContextProvider,
+          fragment.getAssignment(),
+          tunnelProvider);
 
       final FragmentExecutor executor = new FragmentExecutor(
           statusReporter,
@@ -225,7 +231,8 @@ public class FragmentExecutorBuilder {
           ticket,
           sources,
           exception,
-          eventProvider
+          eventProvider,
+          memoryArbiter
           );
 
       commit.commit();
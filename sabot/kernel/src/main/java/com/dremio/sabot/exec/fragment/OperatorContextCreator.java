@@ -34,6 +34,7 @@ import com.dremio.exec.ExecConstants;
 import com.dremio.exec.compile.CodeCompiler;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
 import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.record.BatchSchema;
@@ -46,6 +47,7 @@ import com.dremio.sabot.exec.context.OpProfileDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorContextImpl;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.service.namespace.NamespaceService;
 import com.google.common.base.Preconditions;
 
@@ -65,12 +67,15 @@ class OperatorContextCreator implements OperatorContext.Creator, AutoCloseable {
   private final ExecutorService executor;
   private final ContextInformation contextInformation;
   private final NodeDebugContextProvider nodeDebugContextProvider;
+  private final NodeEndpoint endpoint;
+  private final TunnelProvider tunnelProvider;
 
   public OperatorContextCreator(FragmentStats stats, BufferAllocator allocator, CodeCompiler compiler,
                                 SabotConfig config, FragmentHandle handle, ExecutionControls executionControls,
                                 FunctionLookupContext funcRegistry, NamespaceService namespaceService, OptionManager options,
                                 ExecutorService executor, ContextInformation contextInformation,
-                                NodeDebugContextProvider nodeDebugContextProvider) {
+                                NodeDebugContextProvider nodeDebugContextProvider, NodeEndpoint endpoint,
+                                TunnelProvider tunnelProvider) {
     super();
     this.stats = stats;
     this.allocator = allocator;
@@ -85,6 +90,8 @@ class OperatorContextCreator implements OperatorContext.Creator, AutoCloseable {
     this.executor = executor;
     this.contextInformation = contextInformation;
     this.nodeDebugContextProvider = nodeDebugContextProvider;
+    this.endpoint = endpoint;
+    this.tunnelProvider = tunnelProvider;
   }
 
   public void setFragmentOutputAllocator(BufferAllocator fragmentOutputAllocator) {
@@ -121,7 +128,9 @@ class OperatorContextCreator implements OperatorContext.Creator, AutoCloseable {
         options,
         namespaceService,
         nodeDebugContextProvider,
-        calculateTargetRecordSize(popConfig));
+        calculateTargetRecordSize(popConfig),
+        endpoint,
+        tunnelProvider);
       operatorContexts.add(context);
       closeable.commit();
       return context;
@@ -18,6 +18,7 @@ package com.dremio.sabot.exec.fragment;
 import java.util.Map;
 
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.GeneralRPCProtos.Ack;
 import com.dremio.exec.rpc.RpcOutcomeListener;
 import com.dremio.sabot.exec.FragmentWorkManager.ExecConnectionCreator;
@@ -42,6 +43,7 @@ class TunnelProviderImpl implements TunnelProvider {
   private final SendingAccountor accountor;
   private final AccountingExecToCoordTunnel coordTunnel;
   private final ExecConnectionCreator connectionCreator;
+  private final FragmentHandle handle;
   private final SharedResourceGroup resourceGroup;
   private final RpcOutcomeListener<Ack> statusHandler;
 
@@ -49,6 +51,7 @@ class TunnelProviderImpl implements TunnelProvider {
       SendingAccountor accountor,
       ExecToCoordTunnel tunnel,
       ExecConnectionCreator connectionCreator,
+      FragmentHandle handle,
       RpcOutcomeListener<Ack> statusHandler,
       SharedResourceGroup resourceGroup) {
     super();
@@ -59,6 +62,7 @@ class TunnelProviderImpl implements TunnelProvider {
     this.coordTunnel = new AccountingExecToCoordTunnel(tunnel, monitor, monitor.wrap(statusHandler));
 
     this.connectionCreator = connectionCreator;
+    this.handle = handle;
     this.resourceGroup = resourceGroup;
   }
 
@@ -72,7 +76,7 @@ class TunnelProviderImpl implements TunnelProvider {
     if (tunnel == null) {
       final SharedResource resource = resourceGroup.createResource("send-data-" + endpoint.getAddress(), SharedResourceType.SEND_MSG_DATA);
       SendingMonitor monitor = new SendingMonitor(resource, accountor);
-      tunnel = new AccountingExecTunnel(connectionCreator.getTunnel(endpoint), monitor, monitor.wrap(statusHandler));
+      tunnel = new AccountingExecTunnel(connectionCreator.getTunnel(endpoint, handle), monitor, monitor.wrap(statusHandler));
       tunnels.put(endpoint, tunnel);
     }
     return tunnel;
@@ -17,6 +17,7 @@ package com.dremio.sabot.exec.rpc;
 
 import com.dremio.exec.proto.ExecRPC.FinishedReceiver;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
 import com.dremio.exec.proto.GeneralRPCProtos.Ack;
 import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.exec.rpc.RpcOutcomeListener;
@@ -52,4 +53,9 @@ public class AccountingExecTunnel {
     tunnel.informReceiverFinished(statusHandler, finishedReceiver);
   }
 
+  public void sendRuntimeFilter(RuntimeFilter filter) {
+    monitor.increment();
+    tunnel.sendRuntimeFilter(statusHandler, filter);
+  }
+
 }
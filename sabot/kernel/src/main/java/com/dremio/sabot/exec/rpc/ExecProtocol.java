@@ -27,6 +27,7 @@ import com.dremio.exec.proto.ExecRPC.FinishedReceiver;
 import com.dremio.exec.proto.ExecRPC.FragmentRecordBatch;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
 import com.dremio.exec.proto.ExecRPC.RpcType;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
 import com.dremio.exec.proto.GeneralRPCProtos.Ack;
 import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.rpc.Acks;
@@ -84,6 +85,13 @@ public class ExecProtocol implements FabricProtocol {
       return;
     }
 
+    case RpcType.REQ_RUNTIME_FILTER_VALUE: {
+      final RuntimeFilter filter = RpcBus.get(pBody, RuntimeFilter.PARSER);
+      handleRuntimeFilter(filter);
+      sender.send(ExecToExecConfig.OK);
+      return;
+    }
+
     default:
       throw new UnsupportedOperationException();
     }
@@ -93,6 +101,13 @@ public class ExecProtocol implements FabricProtocol {
     fragmentsManager.receiverFinished(finishedReceiver.getSender(), finishedReceiver.getReceiver());
   }
 
+  private void handleRuntimeFilter(final RuntimeFilter filter) throws RpcException {
+    final int targetCount = filter.getReceivingMinorFragmentIdCount();
+    for (int minor = 0; minor < targetCount; minor++) {
+      fragmentsManager.handle(getHandle(filter, minor), filter);
+    }
+  }
+
   private void handleFragmentStreamCompletion(final FragmentStreamComplete completion) throws RpcException {
     final int targetCount = completion.getReceivingMinorFragmentIdCount();
     for (int minor = 0; minor < targetCount; minor++) {
@@ -149,6 +164,14 @@ public class ExecProtocol implements FabricProtocol {
         .build();
   }
 
+  private static FragmentHandle getHandle(RuntimeFilter filter, int index){
+    return FragmentHandle.newBuilder()
+        .setQueryId(filter.getQueryId())
+        .setMajorFragmentId(filter.getReceivingMajorFragmentId())
+        .setMinorFragmentId(filter.getReceivingMinorFragmentId(index))
+        .build();
+  }
+
   private void submit(IncomingDataBatch batch, int minorStart, int minorStopExclusive)
       throws FragmentSetupException, IOException {
     for (int minor = minorStart; minor < minorStopExclusive; minor++) {
@@ -182,6 +205,8 @@ public class ExecProtocol implements FabricProtocol {
       return FragmentRecordBatch.getDefaultInstance();
     case RpcType.REQ_STREAM_COMPLETE_VALUE:
       return FragmentStreamComplete.getDefaultInstance();
+    case RpcType.REQ_RUNTIME_FILTER_VALUE:
+      return RuntimeFilter.getDefaultInstance();
 
     default:
       throw new UnsupportedOperationException();
@@ -196,6 +221,7 @@ public class ExecProtocol implements FabricProtocol {
         .add(RpcType.REQ_RECORD_BATCH, FragmentRecordBatch.class, RpcType.ACK, Ack.class)
         .add(RpcType.REQ_STREAM_COMPLETE, FragmentStreamComplete.class, RpcType.ACK, Ack.class)
         .add(RpcType.REQ_RECEIVER_FINISHED, FinishedReceiver.class, RpcType.ACK, Ack.class)
+        .add(RpcType.REQ_RUNTIME_FILTER, RuntimeFilter.class, RpcType.ACK, Ack.class)
         .build();
   }
 
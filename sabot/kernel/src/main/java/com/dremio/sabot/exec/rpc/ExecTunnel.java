@@ -19,6 +19,7 @@ import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.ExecRPC.FinishedReceiver;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
 import com.dremio.exec.proto.ExecRPC.RpcType;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
 import com.dremio.exec.proto.GeneralRPCProtos.Ack;
 import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.exec.rpc.ListeningCommand;
@@ -46,6 +47,10 @@ public class ExecTunnel {
     manager.runCommand(new SendBatchAsyncListen(outcomeListener, batch));
   }
 
+  public void sendRuntimeFilter(RpcOutcomeListener<Ack> outcomeListener, RuntimeFilter filter) {
+    manager.runCommand(new SendRuntimeFilter(outcomeListener, filter));
+  }
+
   private static void checkFragmentHandle(FragmentHandle handle) {
     Preconditions.checkState(handle.hasQueryId(), "must set query id");
     Preconditions.checkState(handle.hasMajorFragmentId(), "must set major fragment id");
@@ -104,6 +109,19 @@ public class ExecTunnel {
     }
   }
 
+  private class SendRuntimeFilter extends ListeningCommand<Ack, ProxyConnection> {
+    final RuntimeFilter filter;
+
+    public SendRuntimeFilter(RpcOutcomeListener<Ack> listener, RuntimeFilter filter) {
+      super(listener);
+      this.filter = filter;
+    }
+
+    @Override
+    public void doRpcCall(RpcOutcomeListener<Ack> outcomeListener, ProxyConnection connection) {
+      connection.send(outcomeListener, RpcType.REQ_RUNTIME_FILTER, filter, Ack.class);
+    }
+  }
 
   public static class ReceiverFinished extends ListeningCommand<Ack, ProxyConnection> {
     final FinishedReceiver finishedReceiver;
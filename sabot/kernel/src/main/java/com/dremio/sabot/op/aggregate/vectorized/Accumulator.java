@@ -38,4 +38,10 @@ public interface Accumulator extends ResizeListener, AutoCloseable {
    * @param batchIndex
    */
   void output(int batchIndex);
+
+  /**
+   * Release all the accumulation vectors, returning the accumulator to its initial state. Used when the content of
+   * the hash table is spilled and the table is recreated.
+   */
+  void reset() throws Exception;
 }
@@ -114,6 +114,13 @@ abstract class BaseSingleAccumulator implements Accumulator {
     pairs[batchIndex].transfer();
   }
 
+  @Override
+  public void reset() throws Exception {
+    close();
+    initArrs(0);
+    batches = 0;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public void close() throws Exception {
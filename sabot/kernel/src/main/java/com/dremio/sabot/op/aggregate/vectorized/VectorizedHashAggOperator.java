@@ -16,24 +16,30 @@
 package com.dremio.sabot.op.aggregate.vectorized;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VarBinaryVector;
 import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.util.TransferPair;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.FunctionCall;
 import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.logical.data.NamedExpression;
 import com.dremio.exec.ExecConstants;
+import com.dremio.exec.expr.FunctionHolderExpr;
 import com.dremio.exec.expr.TypeHelper;
 import com.dremio.exec.expr.ValueVectorReadExpression;
 import com.dremio.exec.physical.config.HashAggregate;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.op.common.hashtable.HashTableStats.Metric;
@@ -44,14 +50,29 @@ import com.dremio.sabot.op.common.ht2.PivotBuilder;
 import com.dremio.sabot.op.common.ht2.PivotDef;
 import com.dremio.sabot.op.common.ht2.Pivots;
 import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.common.spill.HashPartitionSpiller;
+import com.dremio.sabot.op.common.spill.HashPartitioner;
+import com.dremio.sabot.op.common.spill.SpilledPartition;
 import com.dremio.sabot.op.spi.SingleInputOperator;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.koloboke.collect.hash.HashConfig;
 
 import io.netty.buffer.ArrowBuf;
-import io.netty.util.internal.PlatformDependent;
 
+/**
+ * Vectorized hash aggregation.<br>
+ * <br>
+ * When spilling is enabled and the operator gets close to its memory limit, the content of the hash table is hash
+ * partitioned on the group by keys and spilled to disk, and the aggregation starts over with an empty table. Once all
+ * the input is consumed, each spilled partition is re-aggregated by a child operator which merges the partial
+ * results. A child can spill again, using a different hash seed, up to a maximum depth.<br>
+ * <br>
+ * The hash table is not itself partitioned, so a spill writes out all of its groups at once (rather than only the cold
+ * partitions) and the partitioning happens while spilling. Spilling is disabled for aggregates whose partial results
+ * can't be merged.
+ */
 public class VectorizedHashAggOperator implements SingleInputOperator {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorizedHashAggOperator.class);
 
@@ -64,8 +85,17 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   private final Stopwatch insertWatch = Stopwatch.createUnstarted();
   private final Stopwatch accumulateWatch = Stopwatch.createUnstarted();
   private final Stopwatch unpivotWatch = Stopwatch.createUnstarted();
+  private final Stopwatch spillWatch = Stopwatch.createUnstarted();
+
+  // spilling configuration
+  private final int depth;
+  private final String spillId;
+  private boolean spillEnabled;
+  private final int spillPartitions;
+  private final double spillMemoryRatio;
 
   private ImmutableList<FieldVector> vectorsToValidate;
+  private ImmutableList<FieldVector> keyOutputVectors;
   private LBlockHashTable table;
   private PivotDef pivot;
   private Accumulator accumulator;
@@ -73,10 +103,28 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   private VectorAccessible incoming;
   private State state = State.NEEDS_SETUP;
 
+  // spilling state
+  private HashPartitionSpiller spiller;
+  private List<SpilledPartition> spilledPartitions;
+  private int nextPartition;
+  private VectorizedHashAggOperator partitionAggregator;
+  private VectorContainer partitionIncoming;
+  private List<TransferPair> partitionTransfers;
+
   public VectorizedHashAggOperator(HashAggregate popConfig, OperatorContext context) throws ExecutionSetupException {
+    this(popConfig, context, 0, "hashagg-" + popConfig.getOperatorId());
+  }
+
+  private VectorizedHashAggOperator(HashAggregate popConfig, OperatorContext context, int depth, String spillId) {
     this.context = context;
     this.outgoing = new VectorContainer(context.getAllocator());
     this.popConfig = popConfig;
+    this.depth = depth;
+    this.spillId = spillId;
+    this.spillEnabled = context.getOptions().getOption(ExecConstants.VECTORIZED_HASHAGG_SPILL_ENABLE)
+        && depth < context.getOptions().getOption(ExecConstants.VECTORIZED_HASHAGG_SPILL_MAX_DEPTH);
+    this.spillPartitions = (int) context.getOptions().getOption(ExecConstants.VECTORIZED_HASHAGG_SPILL_PARTITIONS);
+    this.spillMemoryRatio = context.getOptions().getOption(ExecConstants.VECTORIZED_HASHAGG_SPILL_MEMORY_RATIO);
   }
 
   @Override
@@ -86,16 +134,26 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     this.pivot = createPivot();
     this.accumulator = AccumulatorBuilder.getAccumulator(context.getAllocator(), context.getClassProducer(), popConfig.getAggrExprs(), incoming, outgoing);
     this.outgoing.buildSchema();
-    this.table = new LBlockHashTable(HashConfig.getDefault(), pivot, context.getAllocator(), (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE), INITIAL_VAR_FIELD_AVERAGE_SIZE, accumulator);
+    if (spillEnabled && !canMergePartialResults()) {
+      logger.debug("Spilling disabled for hash aggregation {}, its partial results can't be merged", spillId);
+      spillEnabled = false;
+    }
+    this.table = createTable();
 
     state = State.CAN_CONSUME;
     return outgoing;
   }
 
+  private LBlockHashTable createTable() {
+    return new LBlockHashTable(HashConfig.getDefault(), pivot, context.getAllocator(), (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE), INITIAL_VAR_FIELD_AVERAGE_SIZE, accumulator);
+  }
+
   private PivotDef createPivot(){
     final List<NamedExpression> groupByExpressions = popConfig.getGroupByExprs();
     final ImmutableList.Builder<FieldVector> validationVectors = ImmutableList.builder();
 
+    final ImmutableList.Builder<FieldVector> keyVectors = ImmutableList.builder();
+
     final List<FieldVectorPair> fvps = new ArrayList<>();
     //final FieldVector[] readVectors = new FieldVector[]
     for (int i = 0; i < groupByExpressions.size(); i++) {
@@ -116,10 +174,12 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
       }
       final FieldVector outputVector = TypeHelper.getNewVector(expr.getCompleteType().toField(ne.getRef()), context.getAllocator());
       outgoing.add(outputVector);
+      keyVectors.add(outputVector);
       fvps.add(new FieldVectorPair(inputVector, outputVector));
     }
 
     this.vectorsToValidate = validationVectors.build();
+    this.keyOutputVectors = keyVectors.build();
     return PivotBuilder.getBlockDefinition(fvps);
   }
 
@@ -127,6 +187,10 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   public void consumeData(int records) throws Exception {
     state.is(State.CAN_CONSUME);
 
+    if (shouldSpill()) {
+      spillTable();
+    }
+
     // ensure that none of the variable length vectors are corrupt so we can avoid doing bounds checking later.
     for(FieldVector v : vectorsToValidate){
       VariableLengthValidator.validateVariable(v, records);
@@ -143,13 +207,9 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
       final long keyVarAddr = var.getMemoryAddress();
 
       try(ArrowBuf offsets = context.getAllocator().buffer(records * 4)){
-        long offsetAddr = offsets.memoryAddress();
-
         // then we add all values to table.
         insertWatch.start();
-        for(int i = 0; i < records; i++, offsetAddr += 4){
-          PlatformDependent.putInt(offsetAddr, table.add(keyFixedAddr, keyVarAddr, i));
-        }
+        table.addBatch(keyFixedAddr, keyVarAddr, 0, records, offsets.memoryAddress());
         insertWatch.stop();
 
         // then we do accumulators.
@@ -164,6 +224,10 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   }
 
   private void updateStats(){
+    if (depth > 0) {
+      // operators re-aggregating spilled partitions share the stats of the top level operator
+      return;
+    }
     final OperatorStats stats = context.getStats();
 
     if(table != null){
@@ -181,10 +245,114 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     stats.setLongStat(Metric.UNPIVOT_TIME_NANOS, unpivotWatch.elapsed(TimeUnit.NANOSECONDS));
   }
 
+  private boolean shouldSpill() {
+    if (!spillEnabled || table.size() == 0) {
+      return false;
+    }
+    final BufferAllocator allocator = context.getAllocator();
+    return allocator.getAllocatedMemory() > allocator.getLimit() * spillMemoryRatio;
+  }
+
+  /**
+   * Writes the content of the hash table to the spilled partitions, and starts over with an empty table. The whole
+   * table is spilled: the table isn't partitioned, so there are no cold partitions to pick.
+   */
+  private void spillTable() throws Exception {
+    spillWatch.reset();
+    spillWatch.start();
+    if (spiller == null) {
+      spiller = new HashPartitionSpiller(context.getConfig(), context.getOptions(), context.getFragmentHandle(),
+          spillId, context.getAllocator(), outgoing, keyOutputVectors, spillPartitions,
+          HashPartitioner.seedForLevel(depth));
+    }
+
+    long spilledBytes = 0;
+    final int blocks = table.blocks();
+    for (int i = 0; i < blocks; i++) {
+      final int records = Math.min(LBlockHashTable.MAX_VALUES_PER_BATCH, table.size() - (i * LBlockHashTable.MAX_VALUES_PER_BATCH));
+      table.unpivot(i, records);
+      accumulator.output(i);
+      outgoing.setAllCount(records);
+      try {
+        spilledBytes += spiller.spill(records);
+      } finally {
+        outgoing.zeroVectors();
+      }
+    }
+    logger.debug("Spilled {} groups ({} bytes) of hash aggregation {}", table.size(), spilledBytes, spillId);
+
+    table.close();
+    table = null;
+    accumulator.reset();
+    table = createTable();
+    spillWatch.stop();
+
+    final OperatorStats stats = context.getStats();
+    stats.addLongStat(Metric.SPILL_COUNT, 1);
+    stats.addLongStat(Metric.SPILL_BYTES, spilledBytes);
+    stats.addLongStat(Metric.SPILL_TIME_NANOS, spillWatch.elapsed(TimeUnit.NANOSECONDS));
+  }
+
+  /**
+   * Creates the configuration used to re-aggregate spilled partitions: the group by keys are the spilled keys, and
+   * each measure is merged using the function that combines its partial results.
+   */
+  private HashAggregate createMergeConfig() {
+    final List<NamedExpression> keys = new ArrayList<>();
+    for (NamedExpression ne : popConfig.getGroupByExprs()) {
+      keys.add(new NamedExpression(ne.getRef(), ne.getRef()));
+    }
+
+    final List<NamedExpression> exprs = new ArrayList<>();
+    for (NamedExpression ne : popConfig.getAggrExprs()) {
+      final String mergeFunction = Preconditions.checkNotNull(getMergeFunction(ne),
+          "Unable to merge partial results of %s", ne.getExpr());
+      exprs.add(new NamedExpression(new FunctionCall(mergeFunction, ImmutableList.<LogicalExpression>of(ne.getRef())), ne.getRef()));
+    }
+
+    return new HashAggregate(popConfig.getChild(), keys, exprs, true, popConfig.getCardinality());
+  }
+
+  private boolean canMergePartialResults() {
+    for (NamedExpression ne : popConfig.getAggrExprs()) {
+      if (getMergeFunction(ne) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the function merging the partial results of an aggregate, null if they can't be merged
+   */
+  private String getMergeFunction(NamedExpression ne) {
+    final LogicalExpression expr = context.getClassProducer().materialize(ne.getExpr(), incoming);
+    if (!(expr instanceof FunctionHolderExpr)) {
+      return null;
+    }
+
+    final String function = ((FunctionHolderExpr) expr).getName();
+    switch (function) {
+    case "count":
+    case "$sum0":
+      return "$sum0";
+    case "sum":
+    case "min":
+    case "max":
+      return function;
+    default:
+      return null;
+    }
+  }
+
   @Override
   public int outputData() throws Exception {
     state.is(State.CAN_PRODUCE);
 
+    if (spilledPartitions != null) {
+      return outputSpilledPartitions();
+    }
+
     if(outputBatchCount ==  table.blocks()){
       state = State.DONE;
       return 0;
@@ -204,10 +372,85 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     return outgoing.setAllCount(recordsInBatch);
   }
 
+  /**
+   * Outputs the next batch of the partition being re-aggregated, moving on to the next spilled partition once the
+   * current one is fully consumed.
+   */
+  private int outputSpilledPartitions() throws Exception {
+    while (true) {
+      if (partitionAggregator == null) {
+        if (nextPartition == spilledPartitions.size()) {
+          state = State.DONE;
+          return 0;
+        }
+
+        final SpilledPartition partition = spilledPartitions.get(nextPartition++);
+        if (partition.isEmpty()) {
+          partition.close();
+          continue;
+        }
+        aggregatePartition(partition);
+      }
+
+      if (partitionAggregator.getState() == State.CAN_PRODUCE) {
+        final int records = partitionAggregator.outputData();
+        if (records > 0) {
+          for (TransferPair transfer : partitionTransfers) {
+            transfer.transfer();
+          }
+          return outgoing.setAllCount(records);
+        }
+      }
+
+      if (partitionAggregator.getState() == State.DONE) {
+        AutoCloseables.close(partitionAggregator, partitionIncoming);
+        partitionAggregator = null;
+        partitionIncoming = null;
+        partitionTransfers = null;
+      }
+    }
+  }
+
+  private void aggregatePartition(SpilledPartition partition) throws Exception {
+    partitionIncoming = VectorContainer.create(context.getAllocator(), outgoing.getSchema());
+    partitionAggregator = new VectorizedHashAggOperator(createMergeConfig(), context, depth + 1,
+        spillId + "." + partition.getPartition());
+    final VectorAccessible partitionOutgoing = partitionAggregator.setup(partitionIncoming);
+
+    try (SpilledPartition p = partition;
+         SpilledPartition.Reader reader = partition.open(context.getAllocator())) {
+      int records;
+      while ((records = reader.loadNext(partitionIncoming)) >= 0) {
+        if (records > 0) {
+          partitionAggregator.consumeData(records);
+        }
+      }
+    }
+    partitionIncoming.zeroVectors();
+    partitionAggregator.noMoreToConsume();
+
+    final List<TransferPair> transfers = new ArrayList<>();
+    final Iterator<VectorWrapper<?>> outgoingVectors = outgoing.iterator();
+    for (VectorWrapper<?> w : partitionOutgoing) {
+      transfers.add(w.getValueVector().makeTransferPair(outgoingVectors.next().getValueVector()));
+    }
+    partitionTransfers = transfers;
+  }
+
   @Override
   public void noMoreToConsume() throws Exception {
     state.is(State.CAN_CONSUME);
 
+    if (spiller != null) {
+      // spill what's left so every group is re-aggregated from its partition.
+      if (table.size() > 0) {
+        spillTable();
+      }
+      spilledPartitions = spiller.finish();
+      state = State.CAN_PRODUCE;
+      return;
+    }
+
     if(table.size() == 0){
       state = State.DONE;
     }else{
@@ -228,7 +471,17 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   @Override
   public void close() throws Exception {
     updateStats();
-    AutoCloseables.close(table, accumulator, outgoing);
+    final List<AutoCloseable> closeables = new ArrayList<>();
+    closeables.add(table);
+    closeables.add(accumulator);
+    closeables.add(outgoing);
+    closeables.add(partitionAggregator);
+    closeables.add(partitionIncoming);
+    if (spilledPartitions != null) {
+      closeables.addAll(spilledPartitions.subList(nextPartition, spilledPartitions.size()));
+    }
+    closeables.add(spiller);
+    AutoCloseables.close(closeables);
   }
 
   private static UserException unsup(String msg){
@@ -63,7 +63,10 @@ public class HashTableStats {
     LINK_TIME_NANOS,
     UNMATCHED_BUILD_KEY_COUNT,
     UNMATCHED_PROBE_COUNT,
-    OUTPUT_RECORDS
+    OUTPUT_RECORDS,
+    SPILL_COUNT,
+    SPILL_BYTES,
+    SPILL_TIME_NANOS
     ;
 
     @Override
@@ -60,6 +60,9 @@ public final class LBlockHashTable implements AutoCloseable {
   private static final int RETRY_RETURN_CODE = -2;
   public static final int ORDINAL_SIZE = 4;
 
+  // number of keys whose control and data blocks are loaded ahead of probing, in the batch operations.
+  private static final int PREFETCH_GROUP_SIZE = 16;
+
 
   private final HashConfigWrapper config;
   private final ResizeListener listener;
@@ -92,6 +95,12 @@ public final class LBlockHashTable implements AutoCloseable {
   private ArrowBuf traceBuf;
   private long traceBufNext;
 
+  // scratch space for the batch operations.
+  private final int[] groupHashes = new int[PREFETCH_GROUP_SIZE];
+  private final long[] groupControls = new long[PREFETCH_GROUP_SIZE];
+  // keeps the loads of the prefetching stages from being optimized away.
+  private long prefetchSink;
+
   public LBlockHashTable(HashConfig config, PivotDef pivot, BufferAllocator allocator, int initialSize, int defaultVariableLengthSize, ResizeListener listener) {
     this.pivot = pivot;
     this.allocator = allocator;
@@ -118,16 +127,104 @@ public final class LBlockHashTable implements AutoCloseable {
     return getOrInsert(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, false);
   }
 
+  /**
+   * Add or find a range of keys, writing the ordinal of each key to the given address.<br>
+   * <br>
+   * Keys are processed in small groups: all the keys of a group are hashed first, then the control blocks and the
+   * data blocks they point to are loaded for the whole group before any key is probed. Since the loads of a group
+   * are independent, their cache misses overlap instead of being paid one key at a time.
+   *
+   * @param keyFixedVectorAddr address of the pivoted fixed keys
+   * @param keyVarVectorAddr address of the pivoted variable keys
+   * @param start index of the first key
+   * @param count number of keys
+   * @param ordinalsAddr address where the {@code count} ordinals are written
+   */
+  public final void addBatch(final long keyFixedVectorAddr, final long keyVarVectorAddr, final int start, final int count, final long ordinalsAddr) {
+    getOrInsertBatch(keyFixedVectorAddr, keyVarVectorAddr, start, count, ordinalsAddr, true);
+  }
+
+  /**
+   * Find a range of keys, writing the ordinal of each key, or {@link #NO_MATCH}, to the given address. See
+   * {@link #addBatch(long, long, int, int, long)}.
+   *
+   * @return number of keys found
+   */
+  public final int findBatch(final long keyFixedVectorAddr, final long keyVarVectorAddr, final int start, final int count, final long ordinalsAddr) {
+    return getOrInsertBatch(keyFixedVectorAddr, keyVarVectorAddr, start, count, ordinalsAddr, false);
+  }
+
+  private int getOrInsertBatch(final long keyFixedVectorAddr, final long keyVarVectorAddr, final int start, final int count, final long ordinalsAddr, boolean insertNew) {
+    final int blockWidth = pivot.getBlockWidth();
+    final boolean fixedOnly = this.fixedOnly;
+    final int dataWidth = fixedOnly ? blockWidth : blockWidth - VAR_OFFSET_SIZE;
+    final int[] hashes = this.groupHashes;
+    final long[] controls = this.groupControls;
+
+    int found = 0;
+    long sink = 0;
+    long ordinalAddr = ordinalsAddr;
+    final int end = start + count;
+    for (int groupStart = start; groupStart < end; groupStart += PREFETCH_GROUP_SIZE) {
+      final int groupSize = Math.min(PREFETCH_GROUP_SIZE, end - groupStart);
+
+      // stage 1: hash all the keys of the group.
+      long keyFixedAddr = keyFixedVectorAddr + (blockWidth * groupStart);
+      for (int i = 0; i < groupSize; i++, keyFixedAddr += blockWidth) {
+        if (fixedOnly) {
+          hashes[i] = fixedKeyHashCode(keyFixedAddr, dataWidth);
+        } else {
+          final long keyVarAddr = keyVarVectorAddr + PlatformDependent.getInt(keyFixedAddr + dataWidth);
+          hashes[i] = keyHashCode(keyFixedAddr, dataWidth, keyVarAddr, PlatformDependent.getInt(keyVarAddr));
+        }
+      }
+
+      // stage 2: load the control block of each key.
+      final long[] tableControlAddresses = this.tableControlAddresses;
+      final int capacityMask = this.capacityMask;
+      for (int i = 0; i < groupSize; i++) {
+        final int controlIndex = hashes[i] & capacityMask;
+        controls[i] = PlatformDependent.getLong(tableControlAddresses[controlIndex >>> BITS_IN_CHUNK] + ((controlIndex & CHUNK_OFFSET_MASK) * CONTROL_WIDTH));
+      }
+
+      // stage 3: load the fixed data block of the candidate ordinals.
+      final long[] tableFixedAddresses = this.tableFixedAddresses;
+      for (int i = 0; i < groupSize; i++) {
+        final long control = controls[i];
+        if (control != LFREE) {
+          final int ordinal = (int) control;
+          sink += PlatformDependent.getLong(tableFixedAddresses[ordinal >>> BITS_IN_CHUNK] + ((ordinal & CHUNK_OFFSET_MASK) * blockWidth));
+        }
+      }
+
+      // stage 4: probe, the control words are read again as earlier insertions of the group may have changed them.
+      keyFixedAddr = keyFixedVectorAddr + (blockWidth * groupStart);
+      for (int i = 0; i < groupSize; i++, keyFixedAddr += blockWidth, ordinalAddr += ORDINAL_SIZE) {
+        final long keyVarAddr;
+        final int keyVarLen;
+        if (fixedOnly) {
+          keyVarAddr = -1;
+          keyVarLen = 0;
+        } else {
+          keyVarAddr = keyVarVectorAddr + PlatformDependent.getInt(keyFixedAddr + dataWidth);
+          keyVarLen = PlatformDependent.getInt(keyVarAddr);
+        }
+        final int ordinal = getOrInsert(blockWidth, dataWidth, keyFixedAddr, keyVarAddr, keyVarLen, hashes[i], insertNew);
+        PlatformDependent.putInt(ordinalAddr, ordinal);
+        if (ordinal != NO_MATCH) {
+          found++;
+        }
+      }
+    }
+    prefetchSink = sink;
+    return found;
+  }
+
   private final int getOrInsert(final long keyFixedVectorAddr, final long keyVarVectorAddr, final int keyIndex, boolean insertNew) {
     final int blockWidth = pivot.getBlockWidth();
-    final int capacity = this.capacity;
     final boolean fixedOnly = this.fixedOnly;
     final long keyFixedAddr = keyFixedVectorAddr + (blockWidth * keyIndex);
 
-    final long[] tableControlAddresses = this.tableControlAddresses;
-    final long[] tableFixedAddresses = this.tableFixedAddresses;
-    final long[] initVariableAddresses = this.initVariableAddresses;
-
     final long keyVarAddr;
     final int keyVarLen;
     final int keyHash;
@@ -145,6 +242,16 @@ public final class LBlockHashTable implements AutoCloseable {
       keyHash = keyHashCode(keyFixedAddr, dataWidth, keyVarAddr, keyVarLen);
     }
 
+    return getOrInsert(blockWidth, dataWidth, keyFixedAddr, keyVarAddr, keyVarLen, keyHash, insertNew);
+  }
+
+  private final int getOrInsert(final int blockWidth, final int dataWidth, final long keyFixedAddr, final long keyVarAddr,
+      final int keyVarLen, final int keyHash, boolean insertNew) {
+    final boolean fixedOnly = this.fixedOnly;
+    final long[] tableControlAddresses = this.tableControlAddresses;
+    final long[] tableFixedAddresses = this.tableFixedAddresses;
+    final long[] initVariableAddresses = this.initVariableAddresses;
+
     // start with a hash index.
     int controlIndex = keyHash & capacityMask;
 
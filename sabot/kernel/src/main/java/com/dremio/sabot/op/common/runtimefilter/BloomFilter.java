@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.runtimefilter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+import com.google.common.base.Preconditions;
+import com.google.protobuf.ByteString;
+
+/**
+ * Bloom filter over 64 bit hashes. The number of bits is a power of two, so a filter can be folded into a smaller
+ * one without losing any key, which is used to merge filters of different sizes.
+ */
+public class BloomFilter {
+
+  private final long[] words;
+  private final int numHashFunctions;
+
+  public BloomFilter(int numBits, int numHashFunctions) {
+    Preconditions.checkArgument(numBits >= Long.SIZE && Integer.bitCount(numBits) == 1,
+        "number of bits must be a power of two, at least 64, was %s", numBits);
+    Preconditions.checkArgument(numHashFunctions > 0, "at least one hash function is required");
+    this.words = new long[numBits / Long.SIZE];
+    this.numHashFunctions = numHashFunctions;
+  }
+
+  private BloomFilter(long[] words, int numHashFunctions) {
+    this.words = words;
+    this.numHashFunctions = numHashFunctions;
+  }
+
+  /**
+   * Number of bits of a filter holding the given number of keys with the given number of bits per key, rounded up to
+   * a power of two and bounded by maxBits.
+   */
+  public static int getNumBits(long numKeys, int bitsPerKey, int maxBits) {
+    final long bits = Math.max(Long.SIZE, Math.min(maxBits, numKeys * bitsPerKey));
+    return (int) Math.min(Integer.highestOneBit(maxBits), Long.highestOneBit(bits - 1) << 1);
+  }
+
+  public int getNumBits() {
+    return words.length * Long.SIZE;
+  }
+
+  public int getNumHashFunctions() {
+    return numHashFunctions;
+  }
+
+  public void put(long hash) {
+    final int mask = getNumBits() - 1;
+    final int hash1 = (int) hash;
+    final int hash2 = (int) (hash >>> 32);
+    for (int i = 1; i <= numHashFunctions; i++) {
+      final int bit = (hash1 + i * hash2) & mask;
+      words[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  public boolean mightContain(long hash) {
+    final int mask = getNumBits() - 1;
+    final int hash1 = (int) hash;
+    final int hash2 = (int) (hash >>> 32);
+    for (int i = 1; i <= numHashFunctions; i++) {
+      final int bit = (hash1 + i * hash2) & mask;
+      if ((words[bit >>> 6] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Folds the filter into a smaller one, containing the same keys.
+   *
+   * @param numBits the number of bits of the new filter, a power of two
+   * @return the new filter, or this filter if it isn't larger
+   */
+  public BloomFilter fold(int numBits) {
+    Preconditions.checkArgument(numBits >= Long.SIZE && Integer.bitCount(numBits) == 1,
+        "number of bits must be a power of two, at least 64, was %s", numBits);
+    if (numBits >= getNumBits()) {
+      return this;
+    }
+    final long[] folded = new long[numBits / Long.SIZE];
+    for (int i = 0; i < words.length; i++) {
+      folded[i % folded.length] |= words[i];
+    }
+    return new BloomFilter(folded, numHashFunctions);
+  }
+
+  /**
+   * Merges two filters built with the same hash functions. The larger filter is folded to the size of the smaller
+   * one, as bit {@code i} of a filter of {@code n} bits is bit {@code i mod m} of a filter of {@code m} bits.
+   *
+   * @return a new filter containing the keys of both filters
+   */
+  public static BloomFilter merge(BloomFilter left, BloomFilter right) {
+    Preconditions.checkArgument(left.numHashFunctions == right.numHashFunctions,
+        "filters must use the same number of hash functions");
+    final int numBits = Math.min(left.getNumBits(), right.getNumBits());
+    final long[] words = new long[numBits / Long.SIZE];
+    for (BloomFilter filter : new BloomFilter[] {left, right}) {
+      for (int i = 0; i < filter.words.length; i++) {
+        words[i % words.length] |= filter.words[i];
+      }
+    }
+    return new BloomFilter(words, left.numHashFunctions);
+  }
+
+  public ByteString toByteString() {
+    final ByteBuffer buffer = ByteBuffer.allocate(words.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.asLongBuffer().put(words);
+    return ByteString.copyFrom(buffer);
+  }
+
+  public static BloomFilter fromByteString(ByteString bytes, int numHashFunctions) {
+    Preconditions.checkArgument(bytes.size() >= Long.BYTES && Integer.bitCount(bytes.size()) == 1,
+        "invalid bloom filter size %s", bytes.size());
+    final LongBuffer buffer = bytes.asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    final long[] words = new long[buffer.remaining()];
+    buffer.get(words);
+    return new BloomFilter(words, numHashFunctions);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.runtimefilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilterColumn;
+import com.google.common.base.Preconditions;
+
+/**
+ * Collects the keys of the build side of a hash join into the columns of a runtime filter. Keys are added to a bloom
+ * filter of the maximum size, which is folded to fit the number of keys once the build side is consumed. The bloom
+ * filter is dropped if there are too many keys for it to be selective, and integral keys also keep their range.
+ */
+public class RuntimeFilterBuilder {
+  static final int NUM_HASH_FUNCTIONS = 5;
+  private static final int BITS_PER_KEY = 10;
+  // below this, the filter wouldn't drop enough records to be worth sending.
+  private static final int MIN_BITS_PER_KEY = 4;
+
+  private final List<Column> columns = new ArrayList<>();
+  private final int maxBits;
+
+  /**
+   * @param buildKeys the key vectors of the build batches
+   * @param probeFields the scan field matching each build key
+   * @param maxBytes maximum size of a bloom filter
+   */
+  public RuntimeFilterBuilder(List<FieldVector> buildKeys, List<String> probeFields, long maxBytes) {
+    Preconditions.checkArgument(buildKeys.size() == probeFields.size());
+    Preconditions.checkArgument(Long.bitCount(maxBytes) == 1 && maxBytes >= 8 && maxBytes <= 1 << 27,
+        "invalid bloom filter size %s", maxBytes);
+    this.maxBits = (int) (maxBytes * 8);
+    for (int i = 0; i < buildKeys.size(); i++) {
+      final MinorType type = RuntimeFilterKeys.getType(buildKeys.get(i));
+      if (type != null) {
+        columns.add(new Column(buildKeys.get(i), type, probeFields.get(i), new BloomFilter(maxBits, NUM_HASH_FUNCTIONS)));
+      }
+    }
+  }
+
+  /**
+   * @return true if at least one key can be filtered
+   */
+  public boolean hasColumns() {
+    return !columns.isEmpty();
+  }
+
+  /**
+   * Adds the keys of the current build batch.
+   */
+  public void add(int records) {
+    for (Column column : columns) {
+      column.add(records);
+    }
+  }
+
+  public List<RuntimeFilterColumn> build() {
+    final List<RuntimeFilterColumn> result = new ArrayList<>();
+    for (Column column : columns) {
+      final RuntimeFilterColumn.Builder builder = RuntimeFilterColumn.newBuilder()
+          .setProbeField(column.probeField)
+          .setType(column.type.name())
+          .setNumHashFunctions(NUM_HASH_FUNCTIONS);
+      boolean selective = false;
+      if (column.bloomFilter != null) {
+        final int numBits = BloomFilter.getNumBits(column.numKeys, BITS_PER_KEY, maxBits);
+        builder.setBloomFilter(column.bloomFilter.fold(numBits).toByteString());
+        selective = true;
+      }
+      if (column.hasRange) {
+        // an empty build side gives an empty range
+        builder.setMinValue(column.numKeys == 0 ? 1 : column.min)
+            .setMaxValue(column.numKeys == 0 ? 0 : column.max);
+        selective = true;
+      }
+      if (selective) {
+        result.add(builder.build());
+      }
+    }
+    return result;
+  }
+
+  private final class Column {
+    private final FieldVector vector;
+    private final MinorType type;
+    private final String probeField;
+    private final boolean hasRange;
+    private BloomFilter bloomFilter;
+    private long numKeys = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    private Column(FieldVector vector, MinorType type, String probeField, BloomFilter bloomFilter) {
+      this.vector = vector;
+      this.type = type;
+      this.probeField = probeField;
+      this.hasRange = RuntimeFilterKeys.hasRange(type);
+      this.bloomFilter = bloomFilter;
+    }
+
+    private void add(int records) {
+      for (int i = 0; i < records; i++) {
+        // null keys never match
+        if (RuntimeFilterKeys.isNull(vector, i)) {
+          continue;
+        }
+        numKeys++;
+        if (bloomFilter != null) {
+          bloomFilter.put(RuntimeFilterKeys.hash(vector, type, i));
+        }
+        if (hasRange) {
+          final long value = RuntimeFilterKeys.getLong(vector, type, i);
+          min = Math.min(min, value);
+          max = Math.max(max, value);
+        }
+      }
+      if (bloomFilter != null && numKeys * MIN_BITS_PER_KEY > maxBits) {
+        bloomFilter = null;
+      }
+    }
+  }
+}
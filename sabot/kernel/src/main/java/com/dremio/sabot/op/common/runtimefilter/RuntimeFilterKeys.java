@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.runtimefilter;
+
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.sabot.op.common.ht2.XXH64;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Reads the keys of runtime filters from vectors. Build and probe sides hash keys the same way as long as their
+ * vectors have the same type.
+ */
+final class RuntimeFilterKeys {
+  private static final long SEED = 0;
+
+  private RuntimeFilterKeys() {
+  }
+
+  /**
+   * @return the type of the keys in the vector, null if runtime filters don't support it
+   */
+  static MinorType getType(FieldVector vector) {
+    final MinorType type = CompleteType.fromField(vector.getField()).toMinorType();
+    switch (type) {
+    case INT:
+    case TIME:
+    case FLOAT4:
+    case BIGINT:
+    case DATE:
+    case TIMESTAMP:
+    case FLOAT8:
+    case VARCHAR:
+    case VARBINARY:
+      return type;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * @return true if the keys of the type are integral, and filtered by their range
+   */
+  static boolean hasRange(MinorType type) {
+    switch (type) {
+    case INT:
+    case TIME:
+    case BIGINT:
+    case DATE:
+    case TIMESTAMP:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  private static int getWidth(MinorType type) {
+    switch (type) {
+    case INT:
+    case TIME:
+    case FLOAT4:
+      return 4;
+    case BIGINT:
+    case DATE:
+    case TIMESTAMP:
+    case FLOAT8:
+      return 8;
+    default:
+      return -1;
+    }
+  }
+
+  static boolean isNull(FieldVector vector, int index) {
+    final long validityAddr = vector.getValidityBufferAddress();
+    return ((PlatformDependent.getByte(validityAddr + (index >>> 3)) >>> (index & 7)) & 1) == 0;
+  }
+
+  /**
+   * Hashes the key at the index, which must not be null.
+   */
+  static long hash(FieldVector vector, MinorType type, int index) {
+    final int width = getWidth(type);
+    if (width > 0) {
+      return XXH64.xxHash64(vector.getDataBufferAddress() + index * width, width, SEED);
+    }
+    final long offsetAddr = vector.getOffsetBufferAddress() + index * 4;
+    final int start = PlatformDependent.getInt(offsetAddr);
+    final int end = PlatformDependent.getInt(offsetAddr + 4);
+    return XXH64.xxHash64(vector.getDataBufferAddress() + start, end - start, SEED);
+  }
+
+  /**
+   * Reads the key at the index, which must not be null, for a type with a range.
+   */
+  static long getLong(FieldVector vector, MinorType type, int index) {
+    if (getWidth(type) == 4) {
+      return PlatformDependent.getInt(vector.getDataBufferAddress() + index * 4);
+    }
+    return PlatformDependent.getLong(vector.getDataBufferAddress() + index * 8);
+  }
+}
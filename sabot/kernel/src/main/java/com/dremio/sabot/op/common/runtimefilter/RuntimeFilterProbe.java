@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.runtimefilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.ValueVector;
+
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilterColumn;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Runtime filter applied by a scan. Partial filters, each covering the build side of one join fragment, are merged
+ * until the filters of all the join fragments arrived, as the scan sends its records to all of them.
+ */
+public class RuntimeFilterProbe {
+  private static final int STEP_SIZE = 2;
+
+  private final int expectedFilters;
+  private int receivedFilters = 0;
+  private List<Column> columns = new ArrayList<>();
+
+  public RuntimeFilterProbe(int expectedFilters) {
+    this.expectedFilters = expectedFilters;
+  }
+
+  public void merge(RuntimeFilter filter) {
+    final List<Column> received = new ArrayList<>();
+    for (RuntimeFilterColumn column : filter.getColumnList()) {
+      received.add(new Column(column));
+    }
+
+    if (receivedFilters == 0) {
+      columns = received;
+    } else {
+      final List<Column> merged = new ArrayList<>();
+      for (Column column : columns) {
+        for (Column other : received) {
+          if (column.probeField.equals(other.probeField) && column.type == other.type) {
+            final Column m = Column.merge(column, other);
+            if (m != null) {
+              merged.add(m);
+            }
+            break;
+          }
+        }
+      }
+      columns = merged;
+    }
+    receivedFilters++;
+  }
+
+  /**
+   * @return true once the filters of all the join fragments were merged
+   */
+  public boolean isComplete() {
+    return receivedFilters >= expectedFilters;
+  }
+
+  /**
+   * Finds the records which may match the build side.
+   *
+   * @param vectors the scan vectors, by lower case field name
+   * @param records number of records in the vectors
+   * @param selectionAddr address receiving the two byte index of each selected record
+   * @return number of selected records
+   */
+  public int apply(Map<String, ValueVector> vectors, int records, long selectionAddr) {
+    final List<Column> bound = new ArrayList<>();
+    final List<FieldVector> boundVectors = new ArrayList<>();
+    for (Column column : columns) {
+      final ValueVector vector = vectors.get(column.probeField.toLowerCase());
+      // ignore the filter if the scan doesn't read the key the join expects
+      if (vector instanceof FieldVector && RuntimeFilterKeys.getType((FieldVector) vector) == column.type) {
+        bound.add(column);
+        boundVectors.add((FieldVector) vector);
+      }
+    }
+
+    long addr = selectionAddr;
+    for (int i = 0; i < records; i++) {
+      boolean selected = true;
+      for (int c = 0; c < bound.size() && selected; c++) {
+        selected = bound.get(c).mightContain(boundVectors.get(c), i);
+      }
+      if (selected) {
+        PlatformDependent.putShort(addr, (short) i);
+        addr += STEP_SIZE;
+      }
+    }
+    return (int) ((addr - selectionAddr) / STEP_SIZE);
+  }
+
+  private static final class Column {
+    private final String probeField;
+    private final MinorType type;
+    private final BloomFilter bloomFilter;
+    private final boolean hasRange;
+    private final long min;
+    private final long max;
+
+    private Column(RuntimeFilterColumn column) {
+      this(column.getProbeField(), MinorType.valueOf(column.getType()),
+          column.hasBloomFilter() ? BloomFilter.fromByteString(column.getBloomFilter(), column.getNumHashFunctions()) : null,
+          column.hasMinValue() && column.hasMaxValue(), column.getMinValue(), column.getMaxValue());
+    }
+
+    private Column(String probeField, MinorType type, BloomFilter bloomFilter, boolean hasRange, long min, long max) {
+      this.probeField = probeField;
+      this.type = type;
+      this.bloomFilter = bloomFilter;
+      this.hasRange = hasRange;
+      this.min = min;
+      this.max = max;
+    }
+
+    /**
+     * @return a column accepting the keys of both columns, null if it wouldn't filter anything
+     */
+    private static Column merge(Column left, Column right) {
+      final BloomFilter bloomFilter = left.bloomFilter != null && right.bloomFilter != null
+          && left.bloomFilter.getNumHashFunctions() == right.bloomFilter.getNumHashFunctions()
+          ? BloomFilter.merge(left.bloomFilter, right.bloomFilter) : null;
+      final boolean hasRange = left.hasRange && right.hasRange;
+      if (bloomFilter == null && !hasRange) {
+        return null;
+      }
+      // the range of an empty build side is empty
+      final long min;
+      final long max;
+      if (left.min > left.max) {
+        min = right.min;
+        max = right.max;
+      } else if (right.min > right.max) {
+        min = left.min;
+        max = left.max;
+      } else {
+        min = Math.min(left.min, right.min);
+        max = Math.max(left.max, right.max);
+      }
+      return new Column(left.probeField, left.type, bloomFilter, hasRange, min, max);
+    }
+
+    private boolean mightContain(FieldVector vector, int index) {
+      // null keys never match
+      if (RuntimeFilterKeys.isNull(vector, index)) {
+        return false;
+      }
+      if (hasRange) {
+        final long value = RuntimeFilterKeys.getLong(vector, type, index);
+        if (value < min || value > max) {
+          return false;
+        }
+      }
+      return bloomFilter == null || bloomFilter.mightContain(RuntimeFilterKeys.hash(vector, type, index));
+    }
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.spill;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.config.SabotConfig;
+import com.dremio.common.utils.protos.QueryIdHelper;
+import com.dremio.exec.cache.VectorAccessibleSerializable;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.WritableBatch;
+import com.dremio.exec.store.LocalSyncableFileSystem;
+import com.dremio.exec.store.dfs.FileSystemPlugin;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Splits the batches of a source container into a fixed number of partitions, based on the hash of a set of key
+ * vectors, and writes each partition to its own spill file.<br>
+ * <br>
+ * The hash is seeded so that a partition spilled at one level can be split again using a different seed. See
+ * {@link HashPartitioner}.
+ */
+public class HashPartitionSpiller implements AutoCloseable {
+
+  private final SpillManager spillManager;
+  private final HashPartitioner partitioner;
+  private final boolean ownsPartitioner;
+  private final VectorContainer staging;
+  private final List<FieldBufferCopier> copiers;
+  private final PartitionWriter[] writers;
+
+  private long spilledBytes;
+  private boolean finished;
+
+  /**
+   * @param config sabot config, used to find the spill directories
+   * @param options option manager
+   * @param handle handle of the fragment spilling
+   * @param id unique id (within the fragment) of this spiller, used to name the spill directory
+   * @param allocator allocator used for temporary buffers
+   * @param source container whose batches are spilled
+   * @param keys vectors of the source container used to compute the partition of each record
+   * @param numPartitions number of partitions
+   * @param seed hash seed
+   */
+  public HashPartitionSpiller(SabotConfig config, OptionManager options, FragmentHandle handle, String id,
+      BufferAllocator allocator, VectorAccessible source, List<FieldVector> keys, int numPartitions, long seed) {
+    this(config, options, handle, id, allocator, source, new HashPartitioner(allocator, keys, numPartitions, seed), true);
+  }
+
+  /**
+   * Creates a spiller sharing the partitioner of its caller, which remains responsible for closing it.
+   *
+   * @param config sabot config, used to find the spill directories
+   * @param options option manager
+   * @param handle handle of the fragment spilling
+   * @param id unique id (within the fragment) of this spiller, used to name the spill directory
+   * @param allocator allocator used for temporary buffers
+   * @param source container whose batches are spilled
+   * @param partitioner partitioner over the key vectors of the source container
+   */
+  public HashPartitionSpiller(SabotConfig config, OptionManager options, FragmentHandle handle, String id,
+      BufferAllocator allocator, VectorAccessible source, HashPartitioner partitioner) {
+    this(config, options, handle, id, allocator, source, partitioner, false);
+  }
+
+  private HashPartitionSpiller(SabotConfig config, OptionManager options, FragmentHandle handle, String id,
+      BufferAllocator allocator, VectorAccessible source, HashPartitioner partitioner, boolean ownsPartitioner) {
+    this.partitioner = partitioner;
+    this.ownsPartitioner = ownsPartitioner;
+
+    final Configuration conf = FileSystemPlugin.getNewFsConf();
+    conf.set(SpillManager.DREMIO_LOCAL_IMPL_STRING, LocalSyncableFileSystem.class.getName());
+    // If the location URI doesn't contain any schema, fall back to local.
+    conf.set(FileSystem.FS_DEFAULT_NAME_KEY, FileSystem.DEFAULT_FS);
+    final String spillId = String.format("%s-%s.%s.%s", id, QueryIdHelper.getQueryId(handle.getQueryId()),
+        handle.getMajorFragmentId(), handle.getMinorFragmentId());
+    this.spillManager = new SpillManager(config, options, spillId, conf, "hash partition spilling");
+
+    this.staging = VectorContainer.create(allocator, source.getSchema());
+    this.copiers = FieldBufferCopier.getCopiers(VectorContainer.getFieldVectors(source), VectorContainer.getFieldVectors(staging));
+    final int numPartitions = partitioner.getNumPartitions();
+    this.writers = new PartitionWriter[numPartitions];
+    for (int i = 0; i < numPartitions; i++) {
+      writers[i] = new PartitionWriter(i);
+    }
+  }
+
+  /**
+   * @return the partitioner used to assign the records of the source container to partitions
+   */
+  public HashPartitioner getPartitioner() {
+    return partitioner;
+  }
+
+  /**
+   * Spills the first {@code records} records of the source container, each record going to its partition's file.
+   *
+   * @param records number of records to spill
+   * @return number of bytes written
+   */
+  public long spill(int records) throws IOException {
+    return spill(records, null);
+  }
+
+  /**
+   * Spills the records of the source container that belong to the given partitions.
+   *
+   * @param records number of records in the source container
+   * @param spilledPartitions partitions to spill, or null to spill all of them
+   * @return number of bytes written
+   */
+  public long spill(int records, boolean[] spilledPartitions) throws IOException {
+    partitioner.partition(records);
+    return spillPartitioned(spilledPartitions);
+  }
+
+  /**
+   * Spills the records of the source container that belong to the given partitions, using the partitioning computed
+   * by the last call to {@code getPartitioner().partition()}.
+   *
+   * @param spilledPartitions partitions to spill, or null to spill all of them
+   * @return number of bytes written
+   */
+  public long spillPartitioned(boolean[] spilledPartitions) throws IOException {
+    Preconditions.checkState(!finished, "spiller already finished");
+    long written = 0;
+    for (int p = 0; p < writers.length; p++) {
+      final int count = partitioner.getCount(p);
+      if (count == 0 || (spilledPartitions != null && !spilledPartitions[p])) {
+        continue;
+      }
+      final long addr = partitioner.getSv2Addr(p);
+      for (FieldBufferCopier copier : copiers) {
+        copier.copy(addr, count);
+      }
+      staging.setAllCount(count);
+      try {
+        written += writers[p].write(staging, count);
+      } finally {
+        staging.zeroVectors();
+      }
+    }
+
+    spilledBytes += written;
+    return written;
+  }
+
+  /**
+   * Appends a batch, whose schema matches the source container, to a partition's file.
+   *
+   * @param partition partition to write to
+   * @param batch batch to write
+   * @return number of bytes written
+   */
+  public long spillBatch(int partition, VectorContainer batch) throws IOException {
+    Preconditions.checkState(!finished, "spiller already finished");
+    final long written = writers[partition].write(batch, batch.getRecordCount());
+    spilledBytes += written;
+    return written;
+  }
+
+  /**
+   * @return total number of bytes spilled so far
+   */
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  public int getNumPartitions() {
+    return writers.length;
+  }
+
+  /**
+   * Closes all the spill files for writing.
+   *
+   * @return spilled partitions, indexed by partition number. The caller is responsible for closing them.
+   */
+  public List<SpilledPartition> finish() throws Exception {
+    Preconditions.checkState(!finished, "spiller already finished");
+    finished = true;
+    final ImmutableList.Builder<SpilledPartition> partitions = ImmutableList.builder();
+    for (PartitionWriter writer : writers) {
+      partitions.add(writer.finish());
+    }
+    return partitions.build();
+  }
+
+  /**
+   * Deletes the spill directories. Must only be called once all the spilled partitions have been consumed.
+   */
+  @Override
+  public void close() throws Exception {
+    final List<AutoCloseable> closeables = new ArrayList<>();
+    if (ownsPartitioner) {
+      closeables.add(partitioner);
+    }
+    closeables.add(staging);
+    for (PartitionWriter writer : writers) {
+      closeables.add(writer);
+    }
+    closeables.add(spillManager);
+    AutoCloseables.close(closeables);
+  }
+
+  /**
+   * Writer for a single partition. The spill file is only created once the partition receives its first batch.
+   */
+  private final class PartitionWriter implements AutoCloseable {
+    private final int partition;
+    private SpillFile file;
+    private FSDataOutputStream out;
+    private int batches;
+    private long records;
+
+    private PartitionWriter(int partition) {
+      this.partition = partition;
+    }
+
+    private long write(VectorContainer container, int count) throws IOException {
+      if (out == null) {
+        file = spillManager.getSpillFile(String.format("partition%05d", partition));
+        out = file.create();
+      }
+
+      try (WritableBatch batch = WritableBatch.getBatchNoHVWrap(count, container, false)) {
+        final long length = batch.getLength();
+        new VectorAccessibleSerializable(batch, null).writeToStream(out);
+        batches++;
+        records += count;
+        return length;
+      }
+    }
+
+    private SpilledPartition finish() throws IOException {
+      if (out != null) {
+        out.close();
+        out = null;
+      }
+      final SpilledPartition spilled = new SpilledPartition(partition, file, batches, records);
+      file = null;
+      return spilled;
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(out, file);
+    }
+  }
+}
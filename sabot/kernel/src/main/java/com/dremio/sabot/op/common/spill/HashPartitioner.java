@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.spill;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.sabot.op.common.ht2.FieldVectorPair;
+import com.dremio.sabot.op.common.ht2.FixedBlockVector;
+import com.dremio.sabot.op.common.ht2.LBlockHashTable;
+import com.dremio.sabot.op.common.ht2.PivotBuilder;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.common.ht2.Pivots;
+import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.common.ht2.XXH64;
+import com.google.common.base.Preconditions;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Assigns the records of a batch to a fixed number of partitions, based on the hash of a set of key vectors.<br>
+ * <br>
+ * After {@link #partition(int)}, the record indices of each partition are available as a contiguous range of a
+ * selection vector (2 bytes per index), which can be fed directly to a {@code FieldBufferCopier}. Two partitioners
+ * using the same seed and number of partitions assign equal pivoted keys to the same partition.<br>
+ * <br>
+ * A partition is usually loaded into a {@link LBlockHashTable} afterwards. Seeds should come from
+ * {@link #seedForLevel(int)}, and the partition is taken from the high bits of the hash, so that the keys of a
+ * partition don't share the low bits the table uses to pick their slot.
+ */
+public class HashPartitioner implements AutoCloseable {
+
+  public static final int SV2_SIZE = 2;
+  private static final int PARTITION_SIZE = 4;
+  // salt of the seeds, so that no level hashes with the seed of the hash tables (0)
+  private static final long SEED_SALT = 0x9E3779B97F4A7C15L;
+
+  private final BufferAllocator allocator;
+  private final PivotDef keyPivot;
+  private final int numPartitions;
+  private final long seed;
+  private final int[] counts;
+  private final int[] starts;
+
+  private ArrowBuf sv2;
+  private int records;
+
+  /**
+   * @param allocator allocator used for temporary buffers
+   * @param keys vectors used to compute the partition of each record
+   * @param numPartitions number of partitions
+   * @param seed hash seed
+   */
+  public HashPartitioner(BufferAllocator allocator, List<FieldVector> keys, int numPartitions, long seed) {
+    Preconditions.checkArgument(numPartitions > 0, "number of partitions must be positive");
+    this.allocator = allocator;
+    this.numPartitions = numPartitions;
+    this.seed = seed;
+    this.counts = new int[numPartitions];
+    this.starts = new int[numPartitions];
+
+    final List<FieldVectorPair> pairs = new ArrayList<>();
+    for (FieldVector key : keys) {
+      pairs.add(new FieldVectorPair(key, key));
+    }
+    this.keyPivot = PivotBuilder.getBlockDefinition(pairs);
+  }
+
+  /**
+   * @param level spilling level, 0 for the first partitioning
+   * @return the seed to partition with at the given level, distinct for each level and from the hash table seed
+   */
+  public static long seedForLevel(int level) {
+    return SEED_SALT + level;
+  }
+
+  /**
+   * Computes the partition of a pivoted key.
+   */
+  static int partition(long keyFixedAddr, long keyVarVectorAddr, int blockWidth, boolean fixedOnly, long seed, int numPartitions) {
+    final long hash;
+    if (fixedOnly) {
+      hash = XXH64.xxHash64(keyFixedAddr, blockWidth, seed);
+    } else {
+      final int dataWidth = blockWidth - LBlockHashTable.VAR_OFFSET_SIZE;
+      final long keyVarAddr = keyVarVectorAddr + PlatformDependent.getInt(keyFixedAddr + dataWidth);
+      final int keyVarLen = PlatformDependent.getInt(keyVarAddr);
+      hash = XXH64.xxHash64(keyVarAddr + LBlockHashTable.VAR_LENGTH_SIZE, keyVarLen, XXH64.xxHash64(keyFixedAddr, dataWidth, seed));
+    }
+    return (int) ((hash >>> 32) % numPartitions);
+  }
+
+  /**
+   * Partitions the first {@code records} records of the key vectors.
+   *
+   * @param records number of records, at most 65536
+   */
+  public void partition(int records) {
+    Preconditions.checkArgument(records <= Character.MAX_VALUE + 1, "too many records for a single batch");
+    this.records = records;
+    Arrays.fill(counts, 0);
+    if (records == 0) {
+      return;
+    }
+
+    if (sv2 == null || sv2.capacity() < records * SV2_SIZE) {
+      AutoCloseables.closeNoChecked(sv2);
+      sv2 = null;
+      sv2 = allocator.buffer(records * SV2_SIZE);
+    }
+
+    try (ArrowBuf partitions = allocator.buffer(records * PARTITION_SIZE);
+         FixedBlockVector fbv = new FixedBlockVector(allocator, keyPivot.getBlockWidth());
+         VariableBlockVector var = new VariableBlockVector(allocator, keyPivot.getVariableCount())) {
+      Pivots.pivot(keyPivot, records, fbv, var);
+
+      final int blockWidth = keyPivot.getBlockWidth();
+      final boolean fixedOnly = keyPivot.getVariableCount() == 0;
+      final long varAddr = var.getMemoryAddress();
+      final long partitionsAddr = partitions.memoryAddress();
+      long keyFixedAddr = fbv.getMemoryAddress();
+      for (int i = 0; i < records; i++, keyFixedAddr += blockWidth) {
+        final int partition = partition(keyFixedAddr, varAddr, blockWidth, fixedOnly, seed, numPartitions);
+        PlatformDependent.putInt(partitionsAddr + i * PARTITION_SIZE, partition);
+        counts[partition]++;
+      }
+
+      // counting sort of the record indices by partition, so each partition is a contiguous range of the sv2
+      starts[0] = 0;
+      for (int i = 1; i < numPartitions; i++) {
+        starts[i] = starts[i - 1] + counts[i - 1];
+      }
+      final int[] positions = starts.clone();
+      final long sv2Addr = sv2.memoryAddress();
+      for (int i = 0; i < records; i++) {
+        final int partition = PlatformDependent.getInt(partitionsAddr + i * PARTITION_SIZE);
+        PlatformDependent.putShort(sv2Addr + positions[partition] * SV2_SIZE, (short) i);
+        positions[partition]++;
+      }
+    }
+  }
+
+  /**
+   * @return number of records partitioned by the last call to {@link #partition(int)}
+   */
+  public int getRecords() {
+    return records;
+  }
+
+  /**
+   * @return number of records of the last partitioned batch that belong to the given partition
+   */
+  public int getCount(int partition) {
+    return counts[partition];
+  }
+
+  /**
+   * @return address of the selection vector holding the record indices of the given partition
+   */
+  public long getSv2Addr(int partition) {
+    return sv2.memoryAddress() + starts[partition] * SV2_SIZE;
+  }
+
+  public int getNumPartitions() {
+    return numPartitions;
+  }
+
+  /**
+   * @return the pivot definition of the keys
+   */
+  public PivotDef getKeyPivot() {
+    return keyPivot;
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(sv2);
+    sv2 = null;
+  }
+}
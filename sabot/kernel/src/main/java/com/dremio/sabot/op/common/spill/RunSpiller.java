@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.spill;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.config.SabotConfig;
+import com.dremio.common.utils.protos.QueryIdHelper;
+import com.dremio.exec.cache.VectorAccessibleSerializable;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.WritableBatch;
+import com.dremio.exec.store.LocalSyncableFileSystem;
+import com.dremio.exec.store.dfs.FileSystemPlugin;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+
+/**
+ * Writes whole batches to disk as a sequence of runs, each run holding consecutive batches in its own spill file. A
+ * finished run is returned as a {@link SpilledPartition}, numbered by its position in the sequence, and read back one
+ * batch at a time.
+ */
+public class RunSpiller implements AutoCloseable {
+
+  private final SpillManager spillManager;
+
+  private SpillFile file;
+  private FSDataOutputStream out;
+  private int runs;
+  private int batches;
+  private long records;
+  private long runBytes;
+  private long spilledBytes;
+
+  /**
+   * @param config sabot config, used to find the spill directories
+   * @param options option manager
+   * @param handle handle of the fragment spilling
+   * @param id unique id (within the fragment) of this spiller, used to name the spill directory
+   */
+  public RunSpiller(SabotConfig config, OptionManager options, FragmentHandle handle, String id) {
+    final Configuration conf = FileSystemPlugin.getNewFsConf();
+    conf.set(SpillManager.DREMIO_LOCAL_IMPL_STRING, LocalSyncableFileSystem.class.getName());
+    // If the location URI doesn't contain any schema, fall back to local.
+    conf.set(FileSystem.FS_DEFAULT_NAME_KEY, FileSystem.DEFAULT_FS);
+    final String spillId = String.format("%s-%s.%s.%s", id, QueryIdHelper.getQueryId(handle.getQueryId()),
+        handle.getMajorFragmentId(), handle.getMinorFragmentId());
+    this.spillManager = new SpillManager(config, options, spillId, conf, "run spilling");
+  }
+
+  /**
+   * Appends a batch to the current run, starting a new run if needed. The buffers of the batch are released.
+   *
+   * @param batch batch to write
+   * @param count number of records in the batch
+   * @return number of bytes written
+   */
+  public long write(VectorAccessible batch, int count) throws IOException {
+    if (out == null) {
+      file = spillManager.getSpillFile(String.format("run%05d", runs));
+      out = file.create();
+    }
+
+    try (WritableBatch writable = WritableBatch.getBatchNoHVWrap(count, batch, false)) {
+      final long length = writable.getLength();
+      new VectorAccessibleSerializable(writable, null).writeToStream(out);
+      batches++;
+      records += count;
+      runBytes += length;
+      spilledBytes += length;
+      return length;
+    }
+  }
+
+  /**
+   * @return number of bytes written to the current run
+   */
+  public long getRunBytes() {
+    return runBytes;
+  }
+
+  /**
+   * @return true if batches were written since the last run was finished
+   */
+  public boolean hasRun() {
+    return out != null;
+  }
+
+  /**
+   * Closes the current run for writing.
+   *
+   * @return the run, the caller is responsible for closing it
+   */
+  public SpilledPartition finishRun() throws IOException {
+    if (out != null) {
+      out.close();
+      out = null;
+    }
+    final SpilledPartition run = new SpilledPartition(runs++, file, batches, records);
+    file = null;
+    batches = 0;
+    records = 0;
+    runBytes = 0;
+    return run;
+  }
+
+  /**
+   * @return total number of bytes spilled so far
+   */
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * Deletes the spill directories. Must only be called once all the finished runs have been consumed.
+   */
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(out, file, spillManager);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.spill;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.util.TransferPair;
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.cache.VectorAccessibleSerializable;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+import com.google.common.base.Preconditions;
+
+/**
+ * A partition written to disk by {@link HashPartitionSpiller}, or a run written by {@link RunSpiller}. Closing the
+ * partition deletes its spill file.
+ */
+public class SpilledPartition implements AutoCloseable {
+
+  private final int partition;
+  private final SpillFile file;
+  private final int batches;
+  private final long records;
+
+  SpilledPartition(int partition, SpillFile file, int batches, long records) {
+    this.partition = partition;
+    this.file = file;
+    this.batches = batches;
+    this.records = records;
+  }
+
+  public int getPartition() {
+    return partition;
+  }
+
+  public int getBatches() {
+    return batches;
+  }
+
+  public long getRecords() {
+    return records;
+  }
+
+  public boolean isEmpty() {
+    return records == 0;
+  }
+
+  /**
+   * Opens the partition for reading.
+   *
+   * @param allocator allocator used to load the batches
+   * @return a reader over the batches of the partition
+   */
+  public Reader open(BufferAllocator allocator) throws IOException {
+    return new Reader(allocator, file == null ? null : file.open(), batches);
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(file);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("partition %d: %d batches, %d records", partition, batches, records);
+  }
+
+  /**
+   * Loads the batches of a spilled partition, one at a time.
+   */
+  public static final class Reader implements AutoCloseable {
+    private final BufferAllocator allocator;
+    private final FSDataInputStream input;
+    private int remainingBatches;
+
+    private Reader(BufferAllocator allocator, FSDataInputStream input, int batches) {
+      this.allocator = allocator;
+      this.input = input;
+      this.remainingBatches = batches;
+    }
+
+    /**
+     * Loads the next batch into the target container, whose schema must match the spilled schema. Previous content
+     * of the target is released.
+     *
+     * @param target container to load the batch into
+     * @return number of records loaded, or -1 if there are no more batches
+     */
+    public int loadNext(VectorContainer target) throws IOException {
+      if (remainingBatches == 0) {
+        return -1;
+      }
+
+      final VectorAccessibleSerializable serializer = new VectorAccessibleSerializable(allocator);
+      serializer.readFromStream(input);
+      final VectorContainer loaded = serializer.get();
+      try {
+        final Iterator<VectorWrapper<?>> loadedVectors = loaded.iterator();
+        for (VectorWrapper<?> w : target) {
+          Preconditions.checkState(loadedVectors.hasNext(), "Spilled batch doesn't match the target schema.");
+          final ValueVector source = loadedVectors.next().getValueVector();
+          final TransferPair pair = source.makeTransferPair(w.getValueVector());
+          pair.transfer();
+        }
+        remainingBatches--;
+        return target.setAllCount(loaded.getRecordCount());
+      } finally {
+        loaded.clear();
+      }
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(input);
+    }
+  }
+}
@@ -57,6 +57,7 @@ import com.dremio.sabot.op.common.hashtable.HashTableConfig;
 import com.dremio.sabot.op.common.hashtable.HashTableStats;
 import com.dremio.sabot.op.common.hashtable.HashTable.BatchAddedListener;
 import com.dremio.sabot.op.join.JoinUtils;
+import com.dremio.sabot.op.join.vhash.SpillingHashJoinOperator;
 import com.dremio.sabot.op.join.vhash.VectorizedHashJoinOperator;
 import com.dremio.sabot.op.spi.DualInputOperator;
 import com.google.common.collect.ImmutableList;
@@ -451,6 +452,9 @@ public class HashJoinOperator implements DualInputOperator {
     @Override
     public DualInputOperator create(OperatorContext context, HashJoinPOP config) throws ExecutionSetupException {
       if(config.isVectorize()){
+        if(context.getOptions().getOption(ExecConstants.VECTORIZED_HASHJOIN_SPILL_ENABLE)){
+          return new SpillingHashJoinOperator(context, config);
+        }
         return new VectorizedHashJoinOperator(context, config);
       } else {
         return new HashJoinOperator(context, config);
@@ -0,0 +1,432 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.range;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.calcite.sql.SqlKind;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.exceptions.ExecutionSetupException;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.expr.ValueVectorReadExpression;
+import com.dremio.exec.physical.config.RangeJoinPOP;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.exec.context.MetricDef;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.common.spill.RunSpiller;
+import com.dremio.sabot.op.common.spill.SpilledPartition;
+import com.dremio.sabot.op.spi.DualInputOperator;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+
+/**
+ * Joins each probe (left) record with the build (right) records whose range contains it, without comparing every pair
+ * as the nested loop join does. The build side is indexed in a {@link RangeJoinTable} sorted by lower bound, which
+ * each probe value looks up with a binary search.<br>
+ * <br>
+ * When spilling is enabled and the operator uses more than the configured ratio of its memory limit, the build records
+ * already indexed stay resident, and the remaining build batches are spilled in chunks of the same size. Probe records
+ * are joined with the resident table as they come, and spilled as well. Once the probe side is consumed, each chunk is
+ * loaded into its own table and joined with the spilled probe records.
+ */
+public class RangeJoinOperator implements DualInputOperator {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RangeJoinOperator.class);
+
+  public enum Metric implements MetricDef {
+    BUILD_SORT_NANOS,  // time spent sorting the build ranges
+    PROBE_FIND_NANOS,  // time spent looking for the matches of the probe records
+    COPY_NANOS,        // time spent copying the matches to the output
+    SPILL_CHUNKS,      // number of build chunks spilled to disk
+    SPILL_BYTES,       // number of bytes spilled to disk
+    SPILL_TIME_NANOS;  // time spent writing spilled batches
+
+    @Override
+    public int metricId() {
+      return ordinal();
+    }
+  }
+
+  private final OperatorContext context;
+  private final RangeJoinPOP config;
+  private final BufferAllocator allocator;
+  private final VectorContainer outgoing;
+  private final boolean spillEnabled;
+  private final double spillMemoryRatio;
+
+  private final Stopwatch sortWatch = Stopwatch.createUnstarted();
+  private final Stopwatch findWatch = Stopwatch.createUnstarted();
+  private final Stopwatch copyWatch = Stopwatch.createUnstarted();
+  private final Stopwatch spillWatch = Stopwatch.createUnstarted();
+
+  private State state = State.NEEDS_SETUP;
+
+  private VectorAccessible left;
+  private VectorAccessible right;
+  private List<FieldVector> probeOutputs;
+  private List<FieldVector> buildOutputs;
+  private int probeKeyFieldId;
+  private int lowerFieldId;
+  private int upperFieldId;
+  private boolean lowerStrict;
+  private boolean upperStrict;
+  private int keyWidth;
+
+  // resident build records and their probe
+  private RangeJoinTable table;
+  private RangeJoinProbe probe;
+  private long buildRecords;
+  private int probeRecords;
+
+  // spilled build chunks, and the probe records to join them with
+  private RunSpiller buildSpiller;
+  private RunSpiller probeSpiller;
+  private long chunkBytes;
+  private final List<SpilledPartition> chunks = new ArrayList<>();
+  private SpilledPartition spilledProbe;
+  private int chunkCursor;
+  private ChunkJoin chunkJoin;
+
+  public RangeJoinOperator(OperatorContext context, RangeJoinPOP config) {
+    this.context = context;
+    this.config = config;
+    this.allocator = context.getAllocator();
+    this.outgoing = new VectorContainer(allocator);
+    this.spillEnabled = context.getOptions().getOption(ExecConstants.RANGE_JOIN_SPILL_ENABLE);
+    this.spillMemoryRatio = context.getOptions().getOption(ExecConstants.RANGE_JOIN_SPILL_MEMORY_RATIO);
+  }
+
+  @Override
+  public State getState() {
+    return state;
+  }
+
+  @Override
+  public VectorAccessible setup(VectorAccessible left, VectorAccessible right) throws Exception {
+    state.is(State.NEEDS_SETUP);
+
+    this.left = left;
+    this.right = right;
+    outgoing.addSchema(right.getSchema());
+    outgoing.addSchema(left.getSchema());
+    outgoing.buildSchema(SelectionVectorMode.NONE);
+    outgoing.setInitialCapacity(context.getTargetBatchSize());
+
+    Integer probeField = null;
+    Integer lowerField = null;
+    Integer upperField = null;
+    for (JoinCondition c : config.getConditions()) {
+      final int leftFieldId = getFieldId(left, c.getLeft());
+      Preconditions.checkArgument(probeField == null || probeField == leftFieldId,
+          "Range join conditions must apply to the same probe field.");
+      probeField = leftFieldId;
+
+      final int rightFieldId = getFieldId(right, c.getRight());
+      switch (SqlKind.valueOf(c.getRelationship())) {
+      case GREATER_THAN:
+        lowerStrict = true;
+        // fall through
+      case GREATER_THAN_OR_EQUAL:
+        lowerField = rightFieldId;
+        break;
+      case LESS_THAN:
+        upperStrict = true;
+        // fall through
+      case LESS_THAN_OR_EQUAL:
+        upperField = rightFieldId;
+        break;
+      default:
+        throw new IllegalStateException("Unsupported range join relationship " + c.getRelationship());
+      }
+    }
+    Preconditions.checkArgument(lowerField != null && upperField != null,
+        "Range join requires a lower and an upper bound.");
+    probeKeyFieldId = probeField;
+    lowerFieldId = lowerField;
+    upperFieldId = upperField;
+
+    final CompleteType keyType = CompleteType.fromField(left.getSchema().getColumn(probeKeyFieldId));
+    if (!keyType.equals(CompleteType.fromField(right.getSchema().getColumn(lowerFieldId)))
+        || !keyType.equals(CompleteType.fromField(right.getSchema().getColumn(upperFieldId)))) {
+      throw UserException.unsupportedError()
+          .message("Range join requires the bounds to have the same type as the probe key.")
+          .build(logger);
+    }
+    keyWidth = RangeJoinTable.getKeyWidth(left.getSchema().getColumn(probeKeyFieldId));
+
+    final List<FieldVector> outputs = VectorContainer.getFieldVectors(outgoing);
+    final int buildFields = right.getSchema().getFieldCount();
+    buildOutputs = outputs.subList(0, buildFields);
+    probeOutputs = outputs.subList(buildFields, outputs.size());
+
+    table = newTable();
+    state = State.CAN_CONSUME_R;
+    return outgoing;
+  }
+
+  private int getFieldId(VectorAccessible accessible, LogicalExpression expr) {
+    final LogicalExpression materialized = context.getClassProducer().materialize(expr, accessible);
+    if (!(materialized instanceof ValueVectorReadExpression)) {
+      throw new IllegalStateException("Only direct references allowed.");
+    }
+    return ((ValueVectorReadExpression) materialized).getFieldId().getFieldIds()[0];
+  }
+
+  private RangeJoinTable newTable() {
+    return new RangeJoinTable(allocator, right.getSchema(), lowerFieldId, upperFieldId, keyWidth, lowerStrict,
+        upperStrict);
+  }
+
+  @Override
+  public void consumeDataRight(int records) throws Exception {
+    state.is(State.CAN_CONSUME_R);
+    buildRecords += records;
+
+    if (buildSpiller != null) {
+      spill(buildSpiller, right, records);
+      if (buildSpiller.getRunBytes() >= chunkBytes) {
+        chunks.add(buildSpiller.finishRun());
+      }
+      return;
+    }
+
+    table.addBatch(right, records);
+    if (spillEnabled && allocator.getAllocatedMemory() > allocator.getLimit() * spillMemoryRatio) {
+      // keep the indexed records resident, and spill the next ones in chunks of the same size
+      chunkBytes = Math.max(1, table.getBatchBytes());
+      buildSpiller = new RunSpiller(context.getConfig(), context.getOptions(), context.getFragmentHandle(),
+          "rangejoin-" + config.getOperatorId() + "-build");
+      logger.debug("Range join using {} bytes, spilling the remaining build batches in chunks of {} bytes",
+          allocator.getAllocatedMemory(), chunkBytes);
+    }
+  }
+
+  private void spill(RunSpiller spiller, VectorAccessible incoming, int records) throws Exception {
+    spillWatch.start();
+    try (VectorContainer batch = VectorContainer.getTransferClone(incoming, allocator)) {
+      spiller.write(batch, records);
+    } finally {
+      spillWatch.stop();
+    }
+  }
+
+  @Override
+  public void noMoreToConsumeRight() throws Exception {
+    state.is(State.CAN_CONSUME_R);
+
+    if (buildSpiller != null && buildSpiller.hasRun()) {
+      chunks.add(buildSpiller.finishRun());
+    }
+
+    if (table.size() == 0 && chunks.isEmpty()) {
+      logger.debug("No more to consume on right. No build range. Done");
+      state = State.DONE;
+      updateStats();
+      return;
+    }
+
+    sortWatch.start();
+    table.build();
+    sortWatch.stop();
+    probe = new RangeJoinProbe(allocator, table, left, probeKeyFieldId, keyWidth, probeOutputs, buildOutputs,
+        context.getTargetBatchSize(), findWatch, copyWatch);
+
+    if (!chunks.isEmpty()) {
+      probeSpiller = new RunSpiller(context.getConfig(), context.getOptions(), context.getFragmentHandle(),
+          "rangejoin-" + config.getOperatorId() + "-probe");
+    }
+    logger.debug("Range join built {} resident ranges out of {} build records, {} chunks spilled", table.size(),
+        buildRecords, chunks.size());
+    updateStats();
+    state = State.CAN_CONSUME_L;
+  }
+
+  @Override
+  public void consumeDataLeft(int records) throws Exception {
+    state.is(State.CAN_CONSUME_L);
+    probeRecords = records;
+    state = State.CAN_PRODUCE;
+  }
+
+  @Override
+  public int outputData() throws Exception {
+    state.is(State.CAN_PRODUCE);
+
+    if (spilledProbe == null) {
+      outgoing.allocateNew();
+      final int outputRecords = probe.probeBatch(probeRecords);
+      if (outputRecords >= 0) {
+        // probe batch consumed
+        if (probeSpiller != null) {
+          spill(probeSpiller, left, probeRecords);
+        }
+        state = State.CAN_CONSUME_L;
+      }
+      updateStats();
+      return outgoing.setAllCount(Math.abs(outputRecords));
+    }
+
+    while (true) {
+      if (chunkJoin == null) {
+        if (chunkCursor == chunks.size()) {
+          state = State.DONE;
+          updateStats();
+          return outgoing.setAllCount(0);
+        }
+        chunkJoin = new ChunkJoin(chunks.get(chunkCursor++));
+      }
+
+      final int outputRecords = chunkJoin.next();
+      if (outputRecords > 0) {
+        updateStats();
+        return outgoing.setAllCount(outputRecords);
+      }
+      chunkJoin.close();
+      chunkJoin = null;
+    }
+  }
+
+  @Override
+  public void noMoreToConsumeLeft() throws Exception {
+    state.is(State.CAN_CONSUME_L);
+
+    if (probeSpiller == null || !probeSpiller.hasRun()) {
+      state = State.DONE;
+      return;
+    }
+
+    // release the resident build records before loading the spilled chunks
+    spilledProbe = probeSpiller.finishRun();
+    AutoCloseables.close(probe, table);
+    probe = null;
+    table = null;
+    state = State.CAN_PRODUCE;
+  }
+
+  private void updateStats() {
+    final OperatorStats stats = context.getStats();
+    stats.setLongStat(Metric.BUILD_SORT_NANOS, sortWatch.elapsed(TimeUnit.NANOSECONDS));
+    stats.setLongStat(Metric.PROBE_FIND_NANOS, findWatch.elapsed(TimeUnit.NANOSECONDS));
+    stats.setLongStat(Metric.COPY_NANOS, copyWatch.elapsed(TimeUnit.NANOSECONDS));
+    stats.setLongStat(Metric.SPILL_CHUNKS, chunks.size());
+    stats.setLongStat(Metric.SPILL_BYTES, (buildSpiller == null ? 0 : buildSpiller.getSpilledBytes())
+        + (probeSpiller == null ? 0 : probeSpiller.getSpilledBytes()));
+    stats.setLongStat(Metric.SPILL_TIME_NANOS, spillWatch.elapsed(TimeUnit.NANOSECONDS));
+  }
+
+  @Override
+  public <OUT, IN, EXCEP extends Throwable> OUT accept(OperatorVisitor<OUT, IN, EXCEP> visitor, IN value) throws EXCEP {
+    return visitor.visitDualInput(this, value);
+  }
+
+  @Override
+  public void close() throws Exception {
+    final List<AutoCloseable> closeables = new ArrayList<>();
+    closeables.add(chunkJoin);
+    closeables.add(probe);
+    closeables.add(table);
+    closeables.add(outgoing);
+    closeables.addAll(chunks.subList(chunkCursor, chunks.size()));
+    closeables.add(spilledProbe);
+    closeables.add(buildSpiller);
+    closeables.add(probeSpiller);
+    AutoCloseables.close(closeables);
+  }
+
+  /**
+   * Join of a spilled build chunk with all the spilled probe records.
+   */
+  private final class ChunkJoin implements AutoCloseable {
+    private final RangeJoinTable chunkTable;
+    private final VectorContainer probeBatch;
+    private final SpilledPartition.Reader probeReader;
+    private final RangeJoinProbe chunkProbe;
+    // records of the current probe batch, -1 once it's consumed
+    private int probeBatchRecords = -1;
+
+    private ChunkJoin(SpilledPartition chunk) throws Exception {
+      logger.debug("Joining spilled build {} with {} spilled probe records", chunk, spilledProbe.getRecords());
+      chunkTable = newTable();
+      try (SpilledPartition c = chunk;
+           SpilledPartition.Reader reader = chunk.open(allocator);
+           VectorContainer buildBatch = VectorContainer.create(allocator, right.getSchema())) {
+        int records;
+        while ((records = reader.loadNext(buildBatch)) != -1) {
+          chunkTable.addBatch(buildBatch, records);
+        }
+      }
+
+      sortWatch.start();
+      chunkTable.build();
+      sortWatch.stop();
+      probeBatch = VectorContainer.create(allocator, left.getSchema());
+      probeReader = spilledProbe.open(allocator);
+      chunkProbe = new RangeJoinProbe(allocator, chunkTable, probeBatch, probeKeyFieldId, keyWidth, probeOutputs,
+          buildOutputs, context.getTargetBatchSize(), findWatch, copyWatch);
+    }
+
+    /**
+     * @return number of records output, 0 once all the probe records are joined
+     */
+    private int next() throws Exception {
+      if (chunkTable.size() == 0) {
+        return 0;
+      }
+
+      while (true) {
+        if (probeBatchRecords == -1) {
+          probeBatchRecords = probeReader.loadNext(probeBatch);
+          if (probeBatchRecords == -1) {
+            return 0;
+          }
+        }
+
+        outgoing.allocateNew();
+        final int outputRecords = chunkProbe.probeBatch(probeBatchRecords);
+        if (outputRecords < 0) {
+          return -outputRecords;
+        }
+        probeBatchRecords = -1;
+        if (outputRecords > 0) {
+          return outputRecords;
+        }
+      }
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(chunkProbe, probeReader, probeBatch, chunkTable);
+    }
+  }
+
+  public static class Creator implements DualInputOperator.Creator<RangeJoinPOP> {
+    @Override
+    public DualInputOperator create(OperatorContext context, RangeJoinPOP config) throws ExecutionSetupException {
+      return new RangeJoinOperator(context, config);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.range;
+
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
+import com.dremio.sabot.op.copier.FieldBufferCopier4;
+import com.google.common.base.Stopwatch;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Probes a {@link RangeJoinTable} with the records of a probe batch. For each probe value, the candidate build records
+ * are the ones whose lower bound is between the value minus the widest build range and the value, and the ones whose
+ * upper bound is also greater or equal to the value are matches. Matching pairs are recorded as an SV2 on the probe
+ * batch and an SV4 on the build batches, then copied to the output with the vectorized copiers.
+ */
+final class RangeJoinProbe implements AutoCloseable {
+
+  private static final int PROBE_OFFSET_SIZE = 2;
+  private static final int BUILD_OFFSET_SIZE = 4;
+
+  private final RangeJoinTable table;
+  private final FieldVector probeKey;
+  private final int keyWidth;
+  private final int targetRecordsPerBatch;
+  private final List<FieldBufferCopier> probeCopiers;
+  private final List<FieldBufferCopier> buildCopiers;
+  private final Stopwatch findWatch;
+  private final Stopwatch copyWatch;
+
+  private final ArrowBuf probeSv2;
+  private final long probeSv2Addr;
+  private final ArrowBuf buildSv4;
+  private final long buildSv4Addr;
+
+  // position to resume from when the previous output batch was full, the candidate is -1 when starting a new record
+  private int nextProbeIndex = 0;
+  private int nextCandidate = -1;
+  private int candidateEnd = -1;
+
+  /**
+   * @param allocator allocator of the selection vectors
+   * @param table built table to probe
+   * @param probeBatch probe batch, whose content changes between calls to {@link #probeBatch(int)}
+   * @param probeKeyFieldId position of the probe key in the probe batch
+   * @param keyWidth width in bytes of the key values
+   * @param probeOutputs output vectors of the probe side
+   * @param buildOutputs output vectors of the build side
+   * @param targetRecordsPerBatch maximum number of records per output batch
+   * @param findWatch accumulates the time spent looking for matches
+   * @param copyWatch accumulates the time spent copying matches to the output
+   */
+  RangeJoinProbe(BufferAllocator allocator, RangeJoinTable table, VectorAccessible probeBatch, int probeKeyFieldId,
+      int keyWidth, List<FieldVector> probeOutputs, List<FieldVector> buildOutputs, int targetRecordsPerBatch,
+      Stopwatch findWatch, Stopwatch copyWatch) {
+    this.table = table;
+    this.probeKey = probeBatch.getValueAccessorById(FieldVector.class, probeKeyFieldId).getValueVector();
+    this.keyWidth = keyWidth;
+    this.targetRecordsPerBatch = targetRecordsPerBatch;
+    this.findWatch = findWatch;
+    this.copyWatch = copyWatch;
+    this.probeCopiers = FieldBufferCopier.getCopiers(VectorContainer.getFieldVectors(probeBatch), probeOutputs);
+    // the build copiers resolve the addresses of the build buffers once, the table must be complete
+    this.buildCopiers = FieldBufferCopier4.getFourByteCopiers(
+        VectorContainer.getHyperFieldVectors(table.getContainer()), buildOutputs);
+    this.probeSv2 = allocator.buffer(targetRecordsPerBatch * PROBE_OFFSET_SIZE);
+    this.probeSv2Addr = probeSv2.memoryAddress();
+    this.buildSv4 = allocator.buffer(targetRecordsPerBatch * BUILD_OFFSET_SIZE);
+    this.buildSv4Addr = buildSv4.memoryAddress();
+  }
+
+  /**
+   * Finds the matches of the current probe batch and copies them to the output vectors, until the output is full.
+   *
+   * @param records number of records in the probe batch
+   * @return the number of records output, negative if the output is full and the probe batch isn't finished
+   */
+  int probeBatch(final int records) {
+    findWatch.start();
+    final RangeJoinTable table = this.table;
+    final int targetRecordsPerBatch = this.targetRecordsPerBatch;
+    final long validityAddr = probeKey.getValidityBufferAddress();
+    final long dataAddr = probeKey.getDataBufferAddress();
+    final int tableSize = table.size();
+    final long maxWidth = table.getMaxWidth();
+
+    int outputRecords = 0;
+    int probeIndex = nextProbeIndex;
+    int candidate = nextCandidate;
+    int end = candidateEnd;
+    long value = probeIndex < records && candidate != -1 ? RangeJoinTable.getKey(dataAddr, keyWidth, probeIndex) : 0;
+
+    while (probeIndex < records) {
+      if (candidate == -1) {
+        if (RangeJoinTable.isNull(validityAddr, probeIndex)) {
+          // null keys never match
+          probeIndex++;
+          continue;
+        }
+        value = RangeJoinTable.getKey(dataAddr, keyWidth, probeIndex);
+        // a build range contains the value only if its lower bound is in [value - maxWidth, value]
+        final long from = value - maxWidth;
+        candidate = from > value ? 0 : table.search(from);
+        end = value == Long.MAX_VALUE ? tableSize : table.search(value + 1);
+      }
+
+      while (candidate < end && outputRecords < targetRecordsPerBatch) {
+        if (table.getUpper(candidate) >= value) {
+          PlatformDependent.putShort(probeSv2Addr + outputRecords * PROBE_OFFSET_SIZE, (short) probeIndex);
+          PlatformDependent.putInt(buildSv4Addr + outputRecords * BUILD_OFFSET_SIZE, table.getSv4(candidate));
+          outputRecords++;
+        }
+        candidate++;
+      }
+
+      if (candidate < end) {
+        // output is full, more candidates to check for the current probe record
+        break;
+      }
+      candidate = -1;
+      probeIndex++;
+      if (outputRecords == targetRecordsPerBatch) {
+        break;
+      }
+    }
+    findWatch.stop();
+
+    copyWatch.start();
+    for (FieldBufferCopier c : probeCopiers) {
+      c.copy(probeSv2Addr, outputRecords);
+    }
+    for (FieldBufferCopier c : buildCopiers) {
+      c.copy(buildSv4Addr, outputRecords);
+    }
+    copyWatch.stop();
+
+    if (probeIndex < records) {
+      // save our position for when we return.
+      nextProbeIndex = probeIndex;
+      nextCandidate = candidate;
+      candidateEnd = end;
+      return -outputRecords;
+    }
+
+    // we completed consuming the current batch.
+    nextProbeIndex = 0;
+    nextCandidate = -1;
+    candidateEnd = -1;
+    return outputRecords;
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(probeSv2, buildSv4);
+  }
+}
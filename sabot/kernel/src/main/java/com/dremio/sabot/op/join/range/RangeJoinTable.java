@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.range;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.hadoop.util.IndexedSortable;
+import org.apache.hadoop.util.QuickSort;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.common.util.Numbers;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.ExpandableHyperContainer;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.google.common.base.Preconditions;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Build side of a range join. The build batches are kept in a hyper container, and each record with a non empty range
+ * is indexed by an entry holding its inclusive lower and upper bounds and its SV4 offset (batch index in the upper 16
+ * bits, record index in the lower 16 bits). Once {@link #build() built}, the entries are sorted by lower bound, so the
+ * records whose range may contain a value are the ones whose lower bound is between the value minus the widest range
+ * and the value.
+ */
+final class RangeJoinTable implements AutoCloseable, IndexedSortable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RangeJoinTable.class);
+
+  private static final int LOWER_OFFSET = 0;
+  private static final int UPPER_OFFSET = 8;
+  private static final int SV4_OFFSET = 16;
+  private static final int ENTRY_SIZE = 20;
+  private static final int INITIAL_CAPACITY = 4096;
+  private static final int BATCH_BITS = 16;
+  private static final int MAX_BATCHES = 1 << BATCH_BITS;
+
+  private final BufferAllocator allocator;
+  private final ExpandableHyperContainer container;
+  private final int lowerFieldId;
+  private final int upperFieldId;
+  private final int keyWidth;
+  private final boolean lowerStrict;
+  private final boolean upperStrict;
+
+  private ArrowBuf entries;
+  private long entriesAddr;
+  private int size;
+  private int batches;
+  private long batchBytes;
+  // widest range (upper - lower) of the indexed records
+  private long maxWidth;
+  private boolean built;
+
+  /**
+   * @param allocator allocator of the build batches and of the index
+   * @param schema schema of the build batches
+   * @param lowerFieldId position of the lower bound field in the build batches
+   * @param upperFieldId position of the upper bound field in the build batches
+   * @param keyWidth width in bytes of the bound values, see {@link #getKeyWidth(Field)}
+   * @param lowerStrict whether the lower bound is excluded from the range
+   * @param upperStrict whether the upper bound is excluded from the range
+   */
+  RangeJoinTable(BufferAllocator allocator, BatchSchema schema, int lowerFieldId, int upperFieldId, int keyWidth,
+      boolean lowerStrict, boolean upperStrict) {
+    this.allocator = allocator;
+    this.container = new ExpandableHyperContainer(allocator, schema);
+    this.lowerFieldId = lowerFieldId;
+    this.upperFieldId = upperFieldId;
+    this.keyWidth = keyWidth;
+    this.lowerStrict = lowerStrict;
+    this.upperStrict = upperStrict;
+  }
+
+  /**
+   * Takes ownership of the buffers of a build batch and indexes its records.
+   *
+   * @param incoming build batch
+   * @param records number of records in the batch
+   */
+  void addBatch(VectorAccessible incoming, int records) {
+    Preconditions.checkState(!built, "range join table already built");
+    if (batches == MAX_BATCHES) {
+      throw UserException.unsupportedError()
+          .message("Range join doesn't support more than %d batches on build side", MAX_BATCHES)
+          .build(logger);
+    }
+
+    final VectorContainer batch = VectorContainer.getTransferClone(incoming, allocator);
+    for (VectorWrapper<?> w : batch) {
+      batchBytes += w.getValueVector().getBufferSize();
+    }
+
+    ensureCapacity(size + records);
+    final FieldVector lower = batch.getValueAccessorById(FieldVector.class, lowerFieldId).getValueVector();
+    final FieldVector upper = batch.getValueAccessorById(FieldVector.class, upperFieldId).getValueVector();
+    final long lowerValidityAddr = lower.getValidityBufferAddress();
+    final long lowerDataAddr = lower.getDataBufferAddress();
+    final long upperValidityAddr = upper.getValidityBufferAddress();
+    final long upperDataAddr = upper.getDataBufferAddress();
+    final int keyWidth = this.keyWidth;
+    final int batchOffset = batches << BATCH_BITS;
+
+    long entryAddr = entriesAddr + size * ENTRY_SIZE;
+    for (int i = 0; i < records; i++) {
+      if (isNull(lowerValidityAddr, i) || isNull(upperValidityAddr, i)) {
+        // null bounds never match
+        continue;
+      }
+
+      long lowerValue = getKey(lowerDataAddr, keyWidth, i);
+      long upperValue = getKey(upperDataAddr, keyWidth, i);
+      if (lowerStrict) {
+        if (lowerValue == Long.MAX_VALUE) {
+          continue;
+        }
+        lowerValue++;
+      }
+      if (upperStrict) {
+        if (upperValue == Long.MIN_VALUE) {
+          continue;
+        }
+        upperValue--;
+      }
+      if (lowerValue > upperValue) {
+        // empty range
+        continue;
+      }
+
+      final long width = upperValue - lowerValue;
+      // a negative difference overflowed
+      maxWidth = width < 0 ? Long.MAX_VALUE : Math.max(maxWidth, width);
+
+      PlatformDependent.putLong(entryAddr + LOWER_OFFSET, lowerValue);
+      PlatformDependent.putLong(entryAddr + UPPER_OFFSET, upperValue);
+      PlatformDependent.putInt(entryAddr + SV4_OFFSET, batchOffset | i);
+      entryAddr += ENTRY_SIZE;
+      size++;
+    }
+
+    container.addBatch(batch);
+    batches++;
+  }
+
+  private void ensureCapacity(int entryCount) {
+    final long required = (long) entryCount * ENTRY_SIZE;
+    if (entries != null && entries.capacity() >= required) {
+      return;
+    }
+
+    final int capacity = Numbers.nextPowerOfTwo(Math.max(INITIAL_CAPACITY, entryCount)) * ENTRY_SIZE;
+    final ArrowBuf oldEntries = entries;
+    entries = allocator.buffer(capacity);
+    if (oldEntries != null) {
+      PlatformDependent.copyMemory(oldEntries.memoryAddress(), entries.memoryAddress(), size * ENTRY_SIZE);
+      oldEntries.release();
+    }
+    entriesAddr = entries.memoryAddress();
+  }
+
+  /**
+   * Sorts the index by lower bound. No batch can be added afterwards.
+   */
+  void build() {
+    built = true;
+    if (size > 1) {
+      new QuickSort().sort(this, 0, size);
+    }
+  }
+
+  @Override
+  public int compare(int i, int j) {
+    return Long.compare(getLower(i), getLower(j));
+  }
+
+  @Override
+  public void swap(int i, int j) {
+    final long addrI = entriesAddr + i * ENTRY_SIZE;
+    final long addrJ = entriesAddr + j * ENTRY_SIZE;
+    final long lower = PlatformDependent.getLong(addrI + LOWER_OFFSET);
+    final long upper = PlatformDependent.getLong(addrI + UPPER_OFFSET);
+    final int sv4 = PlatformDependent.getInt(addrI + SV4_OFFSET);
+    PlatformDependent.copyMemory(addrJ, addrI, ENTRY_SIZE);
+    PlatformDependent.putLong(addrJ + LOWER_OFFSET, lower);
+    PlatformDependent.putLong(addrJ + UPPER_OFFSET, upper);
+    PlatformDependent.putInt(addrJ + SV4_OFFSET, sv4);
+  }
+
+  /**
+   * @return the first entry whose lower bound is greater or equal to the value, or the number of entries if there is
+   * none
+   */
+  int search(long value) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (getLower(mid) < value) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  long getLower(int entry) {
+    return PlatformDependent.getLong(entriesAddr + entry * ENTRY_SIZE + LOWER_OFFSET);
+  }
+
+  long getUpper(int entry) {
+    return PlatformDependent.getLong(entriesAddr + entry * ENTRY_SIZE + UPPER_OFFSET);
+  }
+
+  int getSv4(int entry) {
+    return PlatformDependent.getInt(entriesAddr + entry * ENTRY_SIZE + SV4_OFFSET);
+  }
+
+  /**
+   * @return the widest range of the indexed records
+   */
+  long getMaxWidth() {
+    return maxWidth;
+  }
+
+  /**
+   * @return number of indexed records
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return memory used by the build batches
+   */
+  long getBatchBytes() {
+    return batchBytes;
+  }
+
+  ExpandableHyperContainer getContainer() {
+    return container;
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(container, entries);
+    entries = null;
+  }
+
+  /**
+   * @return the width in bytes of the values of a range join key
+   */
+  static int getKeyWidth(Field field) {
+    final MinorType type = CompleteType.fromField(field).toMinorType();
+    switch (type) {
+    case INT:
+    case TIME:
+      return 4;
+    case BIGINT:
+    case DATE:
+    case TIMESTAMP:
+      return 8;
+    default:
+      throw UserException.unsupportedError()
+          .message("Range join doesn't support keys of type %s", type)
+          .build(logger);
+    }
+  }
+
+  static boolean isNull(long validityAddr, int index) {
+    return (PlatformDependent.getByte(validityAddr + (index >>> 3)) & (1 << (index & 7))) == 0;
+  }
+
+  static long getKey(long dataAddr, int keyWidth, int index) {
+    return keyWidth == 4 ? PlatformDependent.getInt(dataAddr + index * 4) : PlatformDependent.getLong(dataAddr + index * 8);
+  }
+}
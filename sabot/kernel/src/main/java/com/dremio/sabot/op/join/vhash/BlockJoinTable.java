@@ -103,10 +103,7 @@ public class BlockJoinTable implements JoinTable {
         table.traceInsertStart(records);
       }
       insertWatch.start();
-      long ordAddr = findAddr;
-      for(int i =0 ; i < records; i++, ordAddr += 4){
-        PlatformDependent.putInt(ordAddr, table.add(keyFixedAddr, keyVarAddr, i));
-      }
+      table.addBatch(keyFixedAddr, keyVarAddr, 0, records, findAddr);
       insertWatch.stop();
       if (tableTracing) {
         table.traceOrdinals(findAddr, records);
@@ -134,14 +131,12 @@ public class BlockJoinTable implements JoinTable {
       final long keyFixedAddr = fbv.getMemoryAddress();
       final long keyVarAddr = var.getMemoryAddress();
 
-      // then we add all values to table.
+      // then we find all values in the table, and skip the records whose null keys are not comparable.
       probeFindWatch.start();
+      table.findBatch(keyFixedAddr, keyVarAddr, 0, records, offsetAddr);
       final NullComparator compare = nullMask;
       switch(compare.getMode()){
       case NONE:
-        for(int i = 0; i < records; i++, offsetAddr += 4){
-          PlatformDependent.putInt(offsetAddr, table.find(keyFixedAddr, keyVarAddr, i));
-        }
         break;
 
       // 32 bits to consider.
@@ -149,10 +144,8 @@ public class BlockJoinTable implements JoinTable {
         long bitsAddr = keyFixedAddr;
         final int nullMask = compare.getFour();
         for(int i = 0; i < records; i++, offsetAddr += 4, bitsAddr += blockWidth){
-          if((PlatformDependent.getInt(bitsAddr) & nullMask) == nullMask){
+          if((PlatformDependent.getInt(bitsAddr) & nullMask) != nullMask){
             // the nulls are not comparable. as such, this doesn't match.
-            PlatformDependent.putInt(offsetAddr, table.find(keyFixedAddr, keyVarAddr, i));
-          } else {
             PlatformDependent.putInt(offsetAddr, SKIP);
           }
         }
@@ -164,9 +157,7 @@ public class BlockJoinTable implements JoinTable {
         long bitsAddr = keyFixedAddr;
         final long nullMask = compare.getEight();
         for(int i = 0; i < records; i++, offsetAddr += 4, bitsAddr += blockWidth){
-          if((PlatformDependent.getLong(bitsAddr) & nullMask) == nullMask){
-            PlatformDependent.putInt(offsetAddr, table.find(keyFixedAddr, keyVarAddr, i));
-          } else {
+          if((PlatformDependent.getLong(bitsAddr) & nullMask) != nullMask){
             // the nulls are not comparable. as such, this doesn't match.
             PlatformDependent.putInt(offsetAddr, SKIP);
           }
@@ -178,9 +169,7 @@ public class BlockJoinTable implements JoinTable {
       case BIG: {
         long bitsAddr = keyFixedAddr;
         for(int i = 0; i < records; i++, offsetAddr += 4, bitsAddr += blockWidth){
-          if(compare.isComparableBigBits(bitsAddr)){
-            PlatformDependent.putInt(offsetAddr, table.find(keyFixedAddr, keyVarAddr, i));
-          } else {
+          if(!compare.isComparableBigBits(bitsAddr)){
             // the nulls are not comparable. as such, this doesn't match.
             PlatformDependent.putInt(offsetAddr, SKIP);
           }
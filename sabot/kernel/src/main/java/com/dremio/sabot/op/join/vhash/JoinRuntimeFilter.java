@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.expr.ValueVectorReadExpression;
+import com.dremio.exec.physical.MinorFragmentEndpoint;
+import com.dremio.exec.physical.base.AbstractSingle;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.base.Receiver;
+import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.RuntimeFilterInfo;
+import com.dremio.exec.physical.config.RuntimeFilterInfo.RuntimeFilterEntry;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.common.runtimefilter.RuntimeFilterBuilder;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Runtime filter of a hash join fragment: collects the build keys and sends the filter to the probe side scan once the
+ * build side is consumed. A fragment must send a single filter covering its whole build side, as the scan merges one
+ * filter per join fragment.
+ */
+final class JoinRuntimeFilter {
+
+  private final OperatorContext context;
+  private final HashJoinPOP config;
+  private RuntimeFilterBuilder builder;
+
+  private JoinRuntimeFilter(OperatorContext context, HashJoinPOP config, RuntimeFilterBuilder builder) {
+    this.context = context;
+    this.config = config;
+    this.builder = builder;
+  }
+
+  /**
+   * @return the runtime filter of the join, null if the join has none
+   */
+  static JoinRuntimeFilter create(OperatorContext context, HashJoinPOP config, VectorAccessible right) {
+    final RuntimeFilterInfo info = config.getRuntimeFilterInfo();
+    if (info == null || context.getTunnelProvider() == null) {
+      return null;
+    }
+
+    final List<FieldVector> buildKeys = new ArrayList<>();
+    final List<String> probeFields = new ArrayList<>();
+    for (RuntimeFilterEntry entry : info.getEntries()) {
+      buildKeys.add(getField(context, right, config.getConditions().get(entry.getConditionIndex()).getRight()));
+      probeFields.add(entry.getProbeField());
+    }
+    final RuntimeFilterBuilder builder = new RuntimeFilterBuilder(buildKeys, probeFields,
+        context.getOptions().getOption(ExecConstants.RUNTIME_FILTER_MAX_BLOOM_FILTER_BYTES));
+    return builder.hasColumns() ? new JoinRuntimeFilter(context, config, builder) : null;
+  }
+
+  private static FieldVector getField(OperatorContext context, VectorAccessible accessible, LogicalExpression expr) {
+    final LogicalExpression materialized = context.getClassProducer().materialize(expr, accessible);
+    if (!(materialized instanceof ValueVectorReadExpression)) {
+      throw new IllegalStateException("Only direct references allowed.");
+    }
+    final int[] fieldIds = ((ValueVectorReadExpression) materialized).getFieldId().getFieldIds();
+    return accessible.getValueAccessorById(FieldVector.class, fieldIds).getValueVector();
+  }
+
+  /**
+   * Collects the keys of the current build batch.
+   */
+  void add(int records) {
+    builder.add(records);
+  }
+
+  /**
+   * Sends the filter to the fragments of the probe side scan. Only the first call sends anything.
+   */
+  void send() {
+    if (builder == null) {
+      return;
+    }
+
+    final RuntimeFilterInfo info = config.getRuntimeFilterInfo();
+    final FragmentHandle handle = context.getFragmentHandle();
+    final RuntimeFilter.Builder filter = RuntimeFilter.newBuilder()
+        .setQueryId(handle.getQueryId())
+        .setSendingMajorFragmentId(handle.getMajorFragmentId())
+        .setSendingMinorFragmentId(handle.getMinorFragmentId())
+        .setProbeScanOperatorId(info.getProbeScanOperatorId())
+        .setPartial(info.isPartial())
+        .addAllColumn(builder.build());
+    builder = null;
+
+    final Receiver receiver = getProbeReceiver(config.getLeft());
+    if (receiver == null) {
+      // the scan is part of this fragment
+      filter.setReceivingMajorFragmentId(handle.getMajorFragmentId())
+          .addReceivingMinorFragmentId(handle.getMinorFragmentId());
+      context.getTunnelProvider().getExecTunnel(context.getNodeEndpoint()).sendRuntimeFilter(filter.build());
+      return;
+    }
+
+    if (!info.isPartial() && handle.getMinorFragmentId() != 0) {
+      // each fragment has the whole build side, one of them sending its filter is enough.
+      return;
+    }
+
+    final ListMultimap<NodeEndpoint, Integer> minorFragments = ArrayListMultimap.create();
+    for (MinorFragmentEndpoint endpoint : receiver.getProvidingEndpoints()) {
+      minorFragments.put(endpoint.getEndpoint(), endpoint.getId());
+    }
+    filter.setReceivingMajorFragmentId(receiver.getOppositeMajorFragmentId());
+    for (Map.Entry<NodeEndpoint, Collection<Integer>> entry : minorFragments.asMap().entrySet()) {
+      filter.clearReceivingMinorFragmentId().addAllReceivingMinorFragmentId(entry.getValue());
+      context.getTunnelProvider().getExecTunnel(entry.getKey()).sendRuntimeFilter(filter.build());
+    }
+  }
+
+  /**
+   * @return the receiver of the probe side, null if the probe side scan is part of this fragment
+   */
+  private static Receiver getProbeReceiver(PhysicalOperator probe) {
+    PhysicalOperator current = probe;
+    while (current instanceof AbstractSingle) {
+      current = ((AbstractSingle) current).getChild();
+    }
+    return current instanceof Receiver ? (Receiver) current : null;
+  }
+
+  /**
+   * @return the configuration of the join without its runtime filter, for joins nested in another operator which
+   * sends the filter of the whole build side itself
+   */
+  static HashJoinPOP withoutRuntimeFilter(HashJoinPOP config) {
+    if (config.getRuntimeFilterInfo() == null) {
+      return config;
+    }
+    final HashJoinPOP inner = new HashJoinPOP(config.getLeft(), config.getRight(), config.getConditions(),
+        config.getJoinType(), config.isVectorize(), null);
+    inner.setOperatorId(config.getOperatorId());
+    inner.setInitialAllocation(config.getInitialAllocation());
+    inner.setMaxAllocation(config.getMaxAllocation());
+    inner.setCost(config.getCost());
+    return inner;
+  }
+}
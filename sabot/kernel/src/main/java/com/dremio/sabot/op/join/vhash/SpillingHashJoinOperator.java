@@ -0,0 +1,691 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.util.TransferPair;
+import org.apache.calcite.rel.core.JoinRelType;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.expr.ValueVectorReadExpression;
+import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.aggregate.vectorized.VariableLengthValidator;
+import com.dremio.sabot.op.common.hashtable.HashTable;
+import com.dremio.sabot.op.common.hashtable.HashTableStats.Metric;
+import com.dremio.sabot.op.common.ht2.LBlockHashTable;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.common.spill.HashPartitionSpiller;
+import com.dremio.sabot.op.common.spill.HashPartitioner;
+import com.dremio.sabot.op.common.spill.SpilledPartition;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
+import com.dremio.sabot.op.spi.DualInputOperator;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Hybrid hash join, used in place of {@link VectorizedHashJoinOperator} when spilling is enabled.<br>
+ * <br>
+ * Build batches are hash partitioned on the join keys and kept in memory. Whenever the resident batches, plus an
+ * estimate of the hash table they will be loaded in, go above a configured ratio of the memory limit, the largest
+ * resident partition is spilled to disk, and all subsequent build records of that partition are spilled as well. Once
+ * the build side is consumed, all the resident partitions are loaded into a single
+ * {@link VectorizedHashJoinOperator}; if no partition was spilled, probe batches are passed through to it as is.<br>
+ * <br>
+ * Probe records of resident partitions are joined as they come, while probe records of spilled partitions are spilled
+ * next to the matching build records. Once the probe side is consumed, each pair of spilled partitions is joined by a
+ * nested operator which partitions again, using a different hash seed, up to a maximum depth.<br>
+ * <br>
+ * The runtime filter of the join, if any, is built here from the whole build side and sent once. The inner operators
+ * only see part of the build side, so they are given a configuration without runtime filter.
+ */
+public class SpillingHashJoinOperator implements DualInputOperator {
+
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SpillingHashJoinOperator.class);
+
+  private final OperatorContext context;
+  private final BufferAllocator allocator;
+  private final HashJoinPOP config;
+  // configuration of the inner operators, without runtime filter
+  private final HashJoinPOP innerConfig;
+  private final JoinRelType joinType;
+  private final VectorContainer outgoing;
+  private final Stopwatch spillWatch = Stopwatch.createUnstarted();
+
+  // spilling configuration
+  private final int depth;
+  private final String spillId;
+  private final int numPartitions;
+  private final double memoryRatio;
+  private final int maxDepth;
+
+  private VectorAccessible left;
+  private VectorAccessible right;
+  private final List<FieldVector> buildVectorsToValidate = new ArrayList<>();
+  private final List<FieldVector> probeVectorsToValidate = new ArrayList<>();
+  private State state = State.NEEDS_SETUP;
+
+  // build phase
+  private HashPartitioner buildPartitioner;
+  private VectorContainer buildStaging;
+  private List<FieldBufferCopier> buildCopiers;
+  private List<List<VectorContainer>> residentBatches;
+  private long[] residentRecords;
+  // number of records of the resident partitions, and estimated size of their hash table per record
+  private long residentTotal;
+  private long tableBytesPerRecord;
+  private boolean[] spilled;
+  private boolean anySpilled;
+  private long buildRecords;
+  // collects the build keys for the runtime filter sent to the probe side scan, null if there is none
+  private JoinRuntimeFilter runtimeFilter;
+  private HashPartitionSpiller buildSpiller;
+
+  // probe phase
+  private HashPartitioner probePartitioner;
+  private HashPartitionSpiller probeSpiller;
+  private ResidentJoin residentJoin;
+  private int probeRecords;
+  private boolean finishedProbe;
+
+  // spilled partitions
+  private List<SpilledPartition> spilledBuild;
+  private List<SpilledPartition> spilledProbe;
+  private int spilledCursor;
+  private SpilledJoin spilledJoin;
+
+  public SpillingHashJoinOperator(OperatorContext context, HashJoinPOP config) {
+    this(context, config, 0, "hashjoin-" + config.getOperatorId());
+  }
+
+  private SpillingHashJoinOperator(OperatorContext context, HashJoinPOP config, int depth, String spillId) {
+    this.context = context;
+    this.allocator = context.getAllocator();
+    this.config = config;
+    this.innerConfig = JoinRuntimeFilter.withoutRuntimeFilter(config);
+    this.joinType = config.getJoinType();
+    this.outgoing = new VectorContainer(allocator);
+    this.depth = depth;
+    this.spillId = spillId;
+    this.numPartitions = (int) context.getOptions().getOption(ExecConstants.VECTORIZED_HASHJOIN_SPILL_PARTITIONS);
+    this.memoryRatio = context.getOptions().getOption(ExecConstants.VECTORIZED_HASHJOIN_SPILL_MEMORY_RATIO);
+    this.maxDepth = (int) context.getOptions().getOption(ExecConstants.VECTORIZED_HASHJOIN_SPILL_MAX_DEPTH);
+  }
+
+  @Override
+  public State getState() {
+    return state;
+  }
+
+  @Override
+  public VectorAccessible setup(VectorAccessible left, VectorAccessible right) throws Exception {
+    state.is(State.NEEDS_SETUP);
+
+    this.left = left;
+    this.right = right;
+    outgoing.addSchema(right.getSchema());
+    outgoing.addSchema(left.getSchema());
+    outgoing.buildSchema(SelectionVectorMode.NONE);
+
+    final List<FieldVector> buildKeys = new ArrayList<>();
+    final List<FieldVector> probeKeys = new ArrayList<>();
+    for (JoinCondition c : config.getConditions()) {
+      buildKeys.add(getField(right, c.getRight()));
+      probeKeys.add(getField(left, c.getLeft()));
+    }
+    collectVariableWidth(right, buildVectorsToValidate);
+    collectVariableWidth(left, probeVectorsToValidate);
+
+    // both sides use the same seed, so matching keys end up in the same partition
+    final long seed = HashPartitioner.seedForLevel(depth);
+    buildPartitioner = new HashPartitioner(allocator, buildKeys, numPartitions, seed);
+    probePartitioner = new HashPartitioner(allocator, probeKeys, numPartitions, seed);
+    tableBytesPerRecord = estimateTableBytesPerRecord(buildPartitioner.getKeyPivot());
+
+    buildStaging = VectorContainer.create(allocator, right.getSchema());
+    buildCopiers = FieldBufferCopier.getCopiers(VectorContainer.getFieldVectors(right), VectorContainer.getFieldVectors(buildStaging));
+    residentBatches = new ArrayList<>();
+    for (int i = 0; i < numPartitions; i++) {
+      residentBatches.add(new ArrayList<VectorContainer>());
+    }
+    residentRecords = new long[numPartitions];
+    spilled = new boolean[numPartitions];
+    runtimeFilter = JoinRuntimeFilter.create(context, config, right);
+
+    state = State.CAN_CONSUME_R;
+    return outgoing;
+  }
+
+  private FieldVector getField(VectorAccessible accessible, LogicalExpression expr) {
+    final LogicalExpression materialized = context.getClassProducer().materialize(expr, accessible);
+    if (!(materialized instanceof ValueVectorReadExpression)) {
+      throw new IllegalStateException("Only direct references allowed.");
+    }
+    final int[] fieldIds = ((ValueVectorReadExpression) materialized).getFieldId().getFieldIds();
+    return accessible.getValueAccessorById(FieldVector.class, fieldIds).getValueVector();
+  }
+
+  private static void collectVariableWidth(VectorAccessible accessible, List<FieldVector> vectors) {
+    for (VectorWrapper<?> w : accessible) {
+      final FieldVector v = (FieldVector) w.getValueVector();
+      if (v instanceof VarBinaryVector || v instanceof VarCharVector) {
+        vectors.add(v);
+      }
+    }
+  }
+
+  @Override
+  public void consumeDataRight(int records) throws Exception {
+    state.is(State.CAN_CONSUME_R);
+
+    // ensure that none of the variable length vectors are corrupt before pivoting the keys.
+    for (FieldVector v : buildVectorsToValidate) {
+      VariableLengthValidator.validateVariable(v, records);
+    }
+    buildRecords += records;
+    if (runtimeFilter != null) {
+      runtimeFilter.add(records);
+    }
+
+    buildPartitioner.partition(records);
+    if (anySpilled) {
+      spillWatch.reset();
+      spillWatch.start();
+      final long written = buildSpiller.spillPartitioned(spilled);
+      spillWatch.stop();
+      updateSpillStats(written);
+    }
+
+    for (int p = 0; p < numPartitions; p++) {
+      final int count = buildPartitioner.getCount(p);
+      if (count == 0 || spilled[p]) {
+        continue;
+      }
+      final long addr = buildPartitioner.getSv2Addr(p);
+      for (FieldBufferCopier copier : buildCopiers) {
+        copier.copy(addr, count);
+      }
+      buildStaging.setAllCount(count);
+      residentBatches.get(p).add(VectorContainer.getTransferClone(buildStaging, allocator));
+      residentRecords[p] += count;
+      residentTotal += count;
+    }
+
+    while (isAboveMemoryRatio()) {
+      final int victim = largestResidentPartition();
+      if (victim == -1) {
+        break;
+      }
+      spillResidentPartition(victim);
+    }
+  }
+
+  /**
+   * Estimates the memory used by the hash table of the inner operator, per build record, on top of the build batches.
+   * Each record has a link to the next record with the same key. In the worst case each record has a distinct key,
+   * taking a pivoted key block, a control block and a start index in the table, which may be twice as large as
+   * needed since it grows by doubling.
+   */
+  private static long estimateTableBytesPerRecord(PivotDef keyPivot) {
+    final long entryBytes = keyPivot.getBlockWidth() + LBlockHashTable.CONTROL_WIDTH + HashTable.BUILD_RECORD_LINK_SIZE
+        + keyPivot.getVariableCount() * (LBlockHashTable.VAR_LENGTH_SIZE + VectorizedHashJoinOperator.INITIAL_VAR_FIELD_AVERAGE_SIZE);
+    return HashTable.BUILD_RECORD_LINK_SIZE + 2 * entryBytes;
+  }
+
+  /**
+   * @return true if the resident partitions, once loaded in a hash table, would go above the memory ratio
+   */
+  private boolean isAboveMemoryRatio() {
+    return allocator.getAllocatedMemory() + residentTotal * tableBytesPerRecord > allocator.getLimit() * memoryRatio;
+  }
+
+  private int largestResidentPartition() {
+    int largest = -1;
+    for (int p = 0; p < numPartitions; p++) {
+      if (!spilled[p] && residentRecords[p] > 0 && (largest == -1 || residentRecords[p] > residentRecords[largest])) {
+        largest = p;
+      }
+    }
+    return largest;
+  }
+
+  /**
+   * Writes the in memory batches of a partition to disk. All the following records of the partition, on both sides,
+   * are spilled as well.
+   */
+  private void spillResidentPartition(int partition) throws Exception {
+    spillWatch.reset();
+    spillWatch.start();
+    if (buildSpiller == null) {
+      buildSpiller = new HashPartitionSpiller(context.getConfig(), context.getOptions(), context.getFragmentHandle(),
+          spillId + "-build", allocator, right, buildPartitioner);
+    }
+
+    long written = 0;
+    final List<VectorContainer> batches = residentBatches.get(partition);
+    for (VectorContainer batch : batches) {
+      written += buildSpiller.spillBatch(partition, batch);
+    }
+    AutoCloseables.close(batches);
+    batches.clear();
+    logger.debug("Spilled partition {} ({} records) of hash join {}", partition, residentRecords[partition], spillId);
+
+    residentTotal -= residentRecords[partition];
+    residentRecords[partition] = 0;
+    spilled[partition] = true;
+    anySpilled = true;
+    spillWatch.stop();
+    context.getStats().addLongStat(Metric.SPILL_COUNT, 1);
+    updateSpillStats(written);
+  }
+
+  private void updateSpillStats(long bytes) {
+    final OperatorStats stats = context.getStats();
+    stats.addLongStat(Metric.SPILL_BYTES, bytes);
+    stats.addLongStat(Metric.SPILL_TIME_NANOS, spillWatch.elapsed(TimeUnit.NANOSECONDS));
+  }
+
+  @Override
+  public void noMoreToConsumeRight() throws Exception {
+    state.is(State.CAN_CONSUME_R);
+
+    // sent even if the build side is empty, so the probe side scan drops all its records
+    if (runtimeFilter != null) {
+      runtimeFilter.send();
+    }
+
+    if (buildRecords == 0 && !(joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL)) {
+      // nothing needs to be read on the left side as right side is empty
+      state = State.DONE;
+      return;
+    }
+
+    if (!allSpilled()) {
+      // a single operator joins all the resident partitions. If nothing was spilled, probe batches are passed through.
+      residentJoin = new ResidentJoin(anySpilled);
+      for (int p = 0; p < numPartitions; p++) {
+        if (!spilled[p]) {
+          residentJoin.consumeBuild(residentBatches.get(p));
+        }
+      }
+      residentJoin.noMoreBuild();
+    }
+    if (anySpilled) {
+      probeSpiller = new HashPartitionSpiller(context.getConfig(), context.getOptions(), context.getFragmentHandle(),
+          spillId + "-probe", allocator, left, probePartitioner);
+    }
+    AutoCloseables.close(buildStaging);
+    buildStaging = null;
+    state = State.CAN_CONSUME_L;
+  }
+
+  private boolean allSpilled() {
+    for (boolean s : spilled) {
+      if (!s) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void consumeDataLeft(int records) throws Exception {
+    state.is(State.CAN_CONSUME_L);
+
+    if (anySpilled) {
+      for (FieldVector v : probeVectorsToValidate) {
+        VariableLengthValidator.validateVariable(v, records);
+      }
+      probePartitioner.partition(records);
+      spillWatch.reset();
+      spillWatch.start();
+      final long written = probeSpiller.spillPartitioned(spilled);
+      spillWatch.stop();
+      updateSpillStats(written);
+    }
+
+    probeRecords = records;
+    if (residentJoin != null) {
+      residentJoin.fed = false;
+    }
+    state = State.CAN_PRODUCE;
+  }
+
+  @Override
+  public int outputData() throws Exception {
+    state.is(State.CAN_PRODUCE);
+
+    if (!finishedProbe) {
+      if (residentJoin != null) {
+        if (!residentJoin.fed) {
+          residentJoin.feedProbe();
+        }
+        while (residentJoin.operator.getState() == State.CAN_PRODUCE) {
+          final int records = residentJoin.operator.outputData();
+          if (records > 0) {
+            return transfer(residentJoin.transfers, records);
+          }
+        }
+      }
+      state = State.CAN_CONSUME_L;
+      return outgoing.setAllCount(0);
+    }
+
+    // project the unmatched build records of the resident partitions
+    if (residentJoin != null) {
+      while (residentJoin.operator.getState() == State.CAN_PRODUCE) {
+        final int records = residentJoin.operator.outputData();
+        if (records > 0) {
+          return transfer(residentJoin.transfers, records);
+        }
+      }
+      // release the memory of the resident partitions before joining the spilled ones
+      residentJoin.close();
+      residentJoin = null;
+    }
+
+    // join the spilled partitions, one at a time
+    while (true) {
+      if (spilledJoin == null) {
+        if (spilledBuild == null || spilledCursor == numPartitions) {
+          state = State.DONE;
+          return outgoing.setAllCount(0);
+        }
+        final int p = spilledCursor++;
+        if (!spilled[p]) {
+          continue;
+        }
+        final SpilledPartition build = spilledBuild.get(p);
+        final SpilledPartition probe = spilledProbe.get(p);
+        if (!needsJoin(build, probe)) {
+          AutoCloseables.close(build, probe);
+          continue;
+        }
+        spilledJoin = new SpilledJoin(build, probe);
+      }
+
+      final int records = spilledJoin.next();
+      if (records > 0) {
+        return transfer(spilledJoin.transfers, records);
+      }
+      spilledJoin.close();
+      spilledJoin = null;
+    }
+  }
+
+  private boolean needsJoin(SpilledPartition build, SpilledPartition probe) {
+    if (build.isEmpty() && probe.isEmpty()) {
+      return false;
+    }
+    final boolean projectUnmatchedProbe = joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL;
+    final boolean projectUnmatchedBuild = joinType == JoinRelType.RIGHT || joinType == JoinRelType.FULL;
+    return (!build.isEmpty() || projectUnmatchedProbe) && (!probe.isEmpty() || projectUnmatchedBuild);
+  }
+
+  private int transfer(List<TransferPair> transfers, int records) {
+    for (TransferPair transfer : transfers) {
+      transfer.transfer();
+    }
+    return outgoing.setAllCount(records);
+  }
+
+  private List<TransferPair> createTransfers(VectorAccessible source) {
+    final List<TransferPair> transfers = new ArrayList<>();
+    final Iterator<VectorWrapper<?>> targets = outgoing.iterator();
+    for (VectorWrapper<?> w : source) {
+      transfers.add(w.getValueVector().makeTransferPair(targets.next().getValueVector()));
+    }
+    return transfers;
+  }
+
+  @Override
+  public void noMoreToConsumeLeft() throws Exception {
+    state.is(State.CAN_CONSUME_L);
+
+    finishedProbe = true;
+    if (residentJoin != null && residentJoin.operator.getState() == State.CAN_CONSUME_L) {
+      residentJoin.operator.noMoreToConsumeLeft();
+    }
+
+    if (anySpilled) {
+      spilledBuild = buildSpiller.finish();
+      spilledProbe = probeSpiller.finish();
+    }
+    state = State.CAN_PRODUCE;
+  }
+
+  @Override
+  public <OUT, IN, EXCEP extends Throwable> OUT accept(OperatorVisitor<OUT, IN, EXCEP> visitor, IN value) throws EXCEP {
+    return visitor.visitDualInput(this, value);
+  }
+
+  @VisibleForTesting
+  public OperatorContext getOperatorContext() {
+    return context;
+  }
+
+  @Override
+  public void close() throws Exception {
+    final List<AutoCloseable> closeables = new ArrayList<>();
+    closeables.add(outgoing);
+    closeables.add(buildStaging);
+    if (residentBatches != null) {
+      for (List<VectorContainer> batches : residentBatches) {
+        closeables.addAll(batches);
+      }
+    }
+    closeables.add(residentJoin);
+    closeables.add(spilledJoin);
+    if (spilledBuild != null) {
+      for (int p = spilledCursor; p < numPartitions; p++) {
+        closeables.add(spilledBuild.get(p));
+        closeables.add(spilledProbe.get(p));
+      }
+    }
+    closeables.add(buildSpiller);
+    closeables.add(probeSpiller);
+    closeables.add(buildPartitioner);
+    closeables.add(probePartitioner);
+    AutoCloseables.close(closeables);
+  }
+
+  /**
+   * Join of the in memory part of the build side, either the resident partitions or the whole build side if nothing
+   * was spilled.
+   */
+  private final class ResidentJoin implements AutoCloseable {
+    private final boolean partitioned;
+    private final VectorContainer buildIncoming;
+    private final VectorContainer probeIncoming;
+    private final List<FieldBufferCopier> probeCopiers;
+    private final VectorizedHashJoinOperator operator;
+    private final List<TransferPair> transfers;
+    // indices of the probe records of the resident partitions
+    private ArrowBuf probeSv2;
+    private boolean fed;
+    private boolean closed;
+
+    private ResidentJoin(boolean partitioned) throws Exception {
+      this.partitioned = partitioned;
+      this.buildIncoming = VectorContainer.create(allocator, right.getSchema());
+      this.operator = new VectorizedHashJoinOperator(context, innerConfig);
+      if (!partitioned) {
+        this.probeIncoming = null;
+        this.probeCopiers = null;
+        this.transfers = createTransfers(operator.setup(left, buildIncoming));
+      } else {
+        this.probeIncoming = VectorContainer.create(allocator, left.getSchema());
+        this.probeCopiers = FieldBufferCopier.getCopiers(VectorContainer.getFieldVectors(left), VectorContainer.getFieldVectors(probeIncoming));
+        this.transfers = createTransfers(operator.setup(probeIncoming, buildIncoming));
+      }
+    }
+
+    private void consumeBuild(List<VectorContainer> batches) throws Exception {
+      for (VectorContainer batch : batches) {
+        final Iterator<VectorWrapper<?>> targets = buildIncoming.iterator();
+        for (VectorWrapper<?> w : batch) {
+          w.getValueVector().makeTransferPair(targets.next().getValueVector()).transfer();
+        }
+        final int records = buildIncoming.setAllCount(batch.getRecordCount());
+        batch.close();
+        operator.consumeDataRight(records);
+      }
+      batches.clear();
+    }
+
+    private void noMoreBuild() throws Exception {
+      operator.noMoreToConsumeRight();
+      buildIncoming.zeroVectors();
+    }
+
+    private void feedProbe() throws Exception {
+      fed = true;
+      if (operator.getState() != State.CAN_CONSUME_L) {
+        return;
+      }
+      if (!partitioned) {
+        operator.consumeDataLeft(probeRecords);
+        return;
+      }
+
+      if (probeSv2 == null || probeSv2.capacity() < probeRecords * HashPartitioner.SV2_SIZE) {
+        AutoCloseables.close(probeSv2);
+        probeSv2 = null;
+        probeSv2 = allocator.buffer(probeRecords * HashPartitioner.SV2_SIZE);
+      }
+      // each partition is a contiguous range of the partitioner selection vector
+      int count = 0;
+      for (int p = 0; p < numPartitions; p++) {
+        final int partitionCount = probePartitioner.getCount(p);
+        if (spilled[p] || partitionCount == 0) {
+          continue;
+        }
+        PlatformDependent.copyMemory(probePartitioner.getSv2Addr(p),
+            probeSv2.memoryAddress() + count * HashPartitioner.SV2_SIZE, partitionCount * HashPartitioner.SV2_SIZE);
+        count += partitionCount;
+      }
+      if (count == 0) {
+        return;
+      }
+      for (FieldBufferCopier copier : probeCopiers) {
+        copier.copy(probeSv2.memoryAddress(), count);
+      }
+      probeIncoming.setAllCount(count);
+      operator.consumeDataLeft(count);
+    }
+
+    @Override
+    public void close() throws Exception {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      AutoCloseables.close(operator, buildIncoming, probeIncoming, probeSv2);
+    }
+  }
+
+  /**
+   * Join of a pair of spilled partitions, read back from disk.
+   */
+  private final class SpilledJoin implements AutoCloseable {
+    private final SpilledPartition build;
+    private final SpilledPartition probe;
+    private final VectorContainer buildIncoming;
+    private final VectorContainer probeIncoming;
+    private final DualInputOperator operator;
+    private final List<TransferPair> transfers;
+    private final SpilledPartition.Reader buildReader;
+    private final SpilledPartition.Reader probeReader;
+
+    private SpilledJoin(SpilledPartition build, SpilledPartition probe) throws Exception {
+      this.build = build;
+      this.probe = probe;
+      this.buildIncoming = VectorContainer.create(allocator, right.getSchema());
+      this.probeIncoming = VectorContainer.create(allocator, left.getSchema());
+      if (depth + 1 < maxDepth) {
+        this.operator = new SpillingHashJoinOperator(context, innerConfig, depth + 1, spillId + "." + build.getPartition());
+      } else {
+        this.operator = new VectorizedHashJoinOperator(context, innerConfig);
+      }
+      this.transfers = createTransfers(operator.setup(probeIncoming, buildIncoming));
+      this.buildReader = build.open(allocator);
+      this.probeReader = probe.open(allocator);
+    }
+
+    /**
+     * @return number of records of the next output batch, or -1 once the partitions are joined
+     */
+    private int next() throws Exception {
+      while (true) {
+        switch (operator.getState()) {
+        case CAN_CONSUME_R: {
+          final int records = buildReader.loadNext(buildIncoming);
+          if (records < 0) {
+            operator.noMoreToConsumeRight();
+          } else if (records > 0) {
+            operator.consumeDataRight(records);
+          }
+          break;
+        }
+        case CAN_CONSUME_L: {
+          final int records = probeReader.loadNext(probeIncoming);
+          if (records < 0) {
+            operator.noMoreToConsumeLeft();
+          } else if (records > 0) {
+            operator.consumeDataLeft(records);
+          }
+          break;
+        }
+        case CAN_PRODUCE: {
+          final int records = operator.outputData();
+          if (records > 0) {
+            return records;
+          }
+          break;
+        }
+        case DONE:
+          return -1;
+        default:
+          throw new IllegalStateException("Unexpected state " + operator.getState());
+        }
+      }
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(operator, buildReader, probeReader, buildIncoming, probeIncoming, build, probe);
+    }
+  }
+}
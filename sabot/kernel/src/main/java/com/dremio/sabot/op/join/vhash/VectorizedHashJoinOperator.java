@@ -68,7 +68,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
 
   public static final int BATCH_MASK = 0x0000FFFF;
 
-  private static final int INITIAL_VAR_FIELD_AVERAGE_SIZE = 10;
+  static final int INITIAL_VAR_FIELD_AVERAGE_SIZE = 10;
 
   // Constant to indicate index is empty.
   private static final int INDEX_EMPTY = -1;
@@ -125,6 +125,8 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
    */
   private PivotDef buildUnpivot;
   private NullComparator comparator;
+  // collects the build keys for the runtime filter sent to the probe side scan, null if there is none
+  private JoinRuntimeFilter runtimeFilter;
 
   private VectorAccessible left;
   private VectorAccessible right;
@@ -308,6 +310,8 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
 
     debugInsertion = context.getOptions().getOption(ExecConstants.DEBUG_HASHJOIN_INSERTION);
 
+    this.runtimeFilter = JoinRuntimeFilter.create(context, config, right);
+
     state = State.CAN_CONSUME_R;
     return outgoing;
   }
@@ -344,6 +348,11 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     final List<ArrowBuf> startIndices = this.startIndices;
     final List<BuildInfo> buildInfoList = this.buildInfoList;
 
+    // the keys must be collected before the batch is transferred to the hyper container.
+    if (runtimeFilter != null) {
+      runtimeFilter.add(records);
+    }
+
     BuildInfo info = new BuildInfo(newLinksBuffer(records), records);
     buildInfoList.add(info);
 
@@ -497,6 +506,11 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   public void noMoreToConsumeRight() throws Exception {
     state.is(State.CAN_CONSUME_R);
 
+    // sent even if the build side is empty, so the probe side scan drops all its records
+    if (runtimeFilter != null) {
+      runtimeFilter.send();
+    }
+
     if ((table.size() == 0) && !(joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL)) {
       // nothing needs to be read on the left side as right side is empty
       state = State.DONE;
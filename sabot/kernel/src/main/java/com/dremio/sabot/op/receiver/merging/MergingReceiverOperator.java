@@ -80,7 +80,8 @@ public class MergingReceiverOperator implements ProducerOperator {
   public static enum Metric implements MetricDef{
     BYTES_RECEIVED,
     NUM_SENDERS,
-    NEXT_WAIT_NANOS;
+    NEXT_WAIT_NANOS,
+    DECOMPRESSION_NANOS; // time spent decompressing batches
 
     @Override
     public int metricId() {
@@ -287,6 +288,7 @@ public class MergingReceiverOperator implements ProducerOperator {
     private int inputCounts;
     private RawFragmentBatch currentBatch;
     private boolean done = false;
+    private long decompressionNanos;
 
     public Node(int batchId, RawFragmentBatchProvider provider) {
       this.batchId = batchId;
@@ -329,6 +331,8 @@ public class MergingReceiverOperator implements ProducerOperator {
 
         // we received actual data, let's set things up and add to priority queue.
         stats.addLongStat(Metric.BYTES_RECEIVED, currentBatch.getByteCount());
+        stats.addLongStat(Metric.DECOMPRESSION_NANOS, loader.getDecompressionNanos() - decompressionNanos);
+        decompressionNanos = loader.getDecompressionNanos();
         stats.batchReceived(0, loader.getRecordCount(), size);
         inputCounts += loader.getRecordCount();
         valueIndex = 0;
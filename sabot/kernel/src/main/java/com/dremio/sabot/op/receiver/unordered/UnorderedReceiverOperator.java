@@ -44,7 +44,8 @@ public class UnorderedReceiverOperator implements ProducerOperator {
 
   public enum Metric implements MetricDef {
     BYTES_RECEIVED,
-    NUM_SENDERS;
+    NUM_SENDERS,
+    DECOMPRESSION_NANOS; // time spent decompressing batches
 
     @Override
     public int metricId() {
@@ -63,9 +64,9 @@ public class UnorderedReceiverOperator implements ProducerOperator {
     this.stats.setLongStat(Metric.NUM_SENDERS, config.getNumSenders());
     this.outgoing = context.createOutputVectorContainer(config.getSchema());
 
-    // In normal case, batchLoader does not require an allocator. However, in case of splitAndTransfer of a value vector,
-    // we may need an allocator for the new offset vector. Therefore, here we pass the context's allocator to batchLoader.
-    this.batchLoader = new ArrowRecordBatchLoader(outgoing);
+    // The batchLoader needs an allocator to decompress the batches compressed by the senders. Therefore, here we pass
+    // the context's allocator to batchLoader.
+    this.batchLoader = new ArrowRecordBatchLoader(context.getAllocator(), outgoing);
   }
 
   @Override
@@ -101,6 +102,7 @@ public class UnorderedReceiverOperator implements ProducerOperator {
       int size = batchLoader.load(batch);
 
       stats.addLongStat(Metric.BYTES_RECEIVED, batch.getByteCount());
+      stats.setLongStat(Metric.DECOMPRESSION_NANOS, batchLoader.getDecompressionNanos());
 
       final int count = batchLoader.getRecordCount();
       stats.batchReceived(0, count, size);
@@ -18,17 +18,21 @@ package com.dremio.sabot.op.scan;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.arrow.vector.AllocationHelper;
+import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.SchemaChangeCallBack;
 import org.apache.arrow.vector.ValueVector;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.util.CallBack;
+import org.apache.arrow.vector.util.TransferPair;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.security.UserGroupInformation;
 
@@ -39,6 +43,7 @@ import com.dremio.common.expression.SchemaPath;
 import com.dremio.exec.exception.SchemaChangeException;
 import com.dremio.exec.expr.TypeHelper;
 import com.dremio.exec.physical.base.SubScan;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.exec.record.VectorAccessible;
@@ -53,6 +58,8 @@ import com.dremio.sabot.driver.SchemaChangeListener;
 import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.common.runtimefilter.RuntimeFilterProbe;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
 import com.dremio.sabot.op.spi.ProducerOperator;
 import com.dremio.sabot.op.values.EmptyValuesCreator.EmptyRecordReader;
 import com.google.common.base.Function;
@@ -87,7 +94,10 @@ public class ScanOperator implements ProducerOperator {
     FILTER_MS,
     PARQUET_EXEC_PATH, // type of readers (vectorized, non-vectorized or combination used) in parquet
     FILTER_EXISTS, // Is there a filter pushed into scan?
-    PARQUET_BYTES_READ // Represents total number of actual bytes (uncompressed) read while parquet scan.
+    PARQUET_BYTES_READ, // Represents total number of actual bytes (uncompressed) read while parquet scan.
+    RUNTIME_FILTERS_RECEIVED, // number of runtime filters received from the joins reading this scan
+    RUNTIME_FILTER_ROWS_PRUNED, // number of records dropped by runtime filters
+    RUNTIME_FILTER_NANOS // time spent applying runtime filters
     ;
 
     @Override
@@ -113,6 +123,15 @@ public class ScanOperator implements ProducerOperator {
   private final GlobalDictionaries globalDictionaries;
   private final Stopwatch readTime = Stopwatch.createUnstarted();
 
+  // runtime filter sent by the join reading this scan, applied once the filters of all the join fragments arrived
+  private RuntimeFilterProbe runtimeFilter;
+  private int runtimeFilterSender = -1;
+  private ArrowBuf runtimeFilterSelection;
+  private VectorContainer runtimeFilterStaging;
+  private List<FieldBufferCopier> runtimeFilterCopiers;
+  private final List<TransferPair> runtimeFilterTransfers = new ArrayList<>();
+  private final Stopwatch runtimeFilterWatch = Stopwatch.createUnstarted();
+
   public ScanOperator(SchemaChangeListener schemaUpdater, SubScan config, OperatorContext context, Iterator<RecordReader> readers) {
     this(schemaUpdater, config, context, readers, null);
   }
@@ -198,6 +217,20 @@ public class ScanOperator implements ProducerOperator {
 
     injector.injectChecked(context.getExecutionControls(), "next-allocate", OutOfMemoryException.class);
 
+    int recordCount;
+    do {
+      recordCount = readBatch();
+      if (state == State.DONE) {
+        return 0;
+      }
+      recordCount = applyRuntimeFilter(recordCount);
+      // read the next batch if all the records were dropped by the runtime filter
+    } while (recordCount == 0);
+
+    return outgoing.setAllCount(recordCount);
+  }
+
+  private int readBatch() throws Exception {
     currentReader.allocate(fieldVectorMap);
 
     int recordCount;
@@ -241,7 +274,93 @@ public class ScanOperator implements ProducerOperator {
     stats.batchReceived(0, recordCount, VectorUtil.getSize(outgoing));
 
     checkAndLearnSchema();
-    return outgoing.setAllCount(recordCount);
+    return recordCount;
+  }
+
+  /**
+   * Adds a runtime filter sent by the join reading this scan.
+   *
+   * @param filter the filter
+   * @param expectedFilters number of filters to merge before the filter can be applied
+   */
+  public void addRuntimeFilter(RuntimeFilter filter, int expectedFilters) {
+    if (filter.getProbeScanOperatorId() != config.getOperatorId() || state == State.DONE) {
+      return;
+    }
+    if (runtimeFilterSender == -1) {
+      runtimeFilter = new RuntimeFilterProbe(expectedFilters);
+      runtimeFilterSender = filter.getSendingMajorFragmentId();
+    } else if (runtimeFilter == null || runtimeFilterSender != filter.getSendingMajorFragmentId()
+        || runtimeFilter.isComplete()) {
+      return;
+    }
+    runtimeFilter.merge(filter);
+    context.getStats().addLongStat(Metric.RUNTIME_FILTERS_RECEIVED, 1);
+  }
+
+  /**
+   * Drops the records which can't match the build side of the join reading this scan, if its filter is complete.
+   *
+   * @return the number of remaining records
+   */
+  private int applyRuntimeFilter(int recordCount) throws Exception {
+    if (runtimeFilter == null || !runtimeFilter.isComplete()) {
+      return recordCount;
+    }
+
+    runtimeFilterWatch.start();
+    try {
+      if (runtimeFilterStaging == null) {
+        setupRuntimeFilter();
+        if (runtimeFilter == null) {
+          return recordCount;
+        }
+      }
+
+      if (runtimeFilterSelection == null || runtimeFilterSelection.capacity() < recordCount * 2) {
+        if (runtimeFilterSelection != null) {
+          runtimeFilterSelection.release();
+        }
+        runtimeFilterSelection = context.getAllocator().buffer(recordCount * 2);
+      }
+
+      final long addr = runtimeFilterSelection.memoryAddress();
+      final int selected = runtimeFilter.apply(fieldVectorMap, recordCount, addr);
+      context.getStats().addLongStat(Metric.RUNTIME_FILTER_ROWS_PRUNED, recordCount - selected);
+      if (selected == recordCount || selected == 0) {
+        return selected;
+      }
+
+      // compact the remaining records and move them back to the outgoing vectors.
+      for (FieldBufferCopier copier : runtimeFilterCopiers) {
+        copier.copy(addr, selected);
+      }
+      for (TransferPair transfer : runtimeFilterTransfers) {
+        transfer.transfer();
+      }
+      return selected;
+    } finally {
+      runtimeFilterWatch.stop();
+      context.getStats().setLongStat(Metric.RUNTIME_FILTER_NANOS, runtimeFilterWatch.elapsed(TimeUnit.NANOSECONDS));
+    }
+  }
+
+  private void setupRuntimeFilter() {
+    final VectorContainer staging = VectorContainer.create(context.getAllocator(), outgoing.getSchema());
+    final List<FieldVector> outgoingVectors = VectorContainer.getFieldVectors(outgoing);
+    final List<FieldVector> stagingVectors = VectorContainer.getFieldVectors(staging);
+    try {
+      runtimeFilterCopiers = FieldBufferCopier.getCopiers(outgoingVectors, stagingVectors);
+    } catch (UnsupportedOperationException e) {
+      logger.debug("Unable to copy the scan records, ignoring runtime filter", e);
+      staging.close();
+      runtimeFilter = null;
+      return;
+    }
+    for (int i = 0; i < outgoingVectors.size(); i++) {
+      runtimeFilterTransfers.add(stagingVectors.get(i).makeTransferPair(outgoingVectors.get(i)));
+    }
+    runtimeFilterStaging = staging;
   }
 
   private void checkAndLearnSchema(){
@@ -353,7 +472,7 @@ public class ScanOperator implements ProducerOperator {
 
   @Override
   public void close() throws Exception {
-    AutoCloseables.close(outgoing, currentReader, globalDictionaries);
+    AutoCloseables.close(outgoing, currentReader, globalDictionaries, runtimeFilterStaging, runtimeFilterSelection);
   }
 
 }
@@ -15,14 +15,22 @@
  */
 package com.dremio.sabot.op.screen;
 
+import java.util.List;
+
 import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.arrow.vector.util.TransferPair;
 
+import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.utils.protos.QueryWritableBatch;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.config.Screen;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.UserBitShared.QueryData;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
 import com.dremio.exec.record.WritableBatch;
 import com.dremio.exec.testing.ControlsInjector;
 import com.dremio.exec.testing.ControlsInjectorFactory;
@@ -32,7 +40,14 @@ import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecToCoordTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.spi.TerminalOperator;
+import com.google.common.collect.Lists;
 
+/**
+ * Sends the results of a query to the coordinator.<br>
+ * <br>
+ * If {@link ExecConstants#SCREEN_COALESCE_RECORDS} is set, small incoming batches are copied into larger ones before
+ * they are sent, so clients receive fewer, larger batches.
+ */
 public class ScreenOperator implements TerminalOperator {
   private static final ControlsInjector injector = ControlsInjectorFactory.getInjector(ScreenOperator.class);
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ScreenOperator.class);
@@ -46,6 +61,13 @@ public class ScreenOperator implements TerminalOperator {
   private RecordMaterializer materializer;
   private long batchesSent = 0;
 
+  private int coalesceRecords;
+  // batch the small incoming batches are copied into, null if batches are not coalesced
+  private VectorContainer pending;
+  private RecordMaterializer pendingMaterializer;
+  private List<TransferPair> copiers;
+  private int pendingRecords;
+
   public static enum Metric implements MetricDef {
     BYTES_SENT;
 
@@ -70,12 +92,24 @@ public class ScreenOperator implements TerminalOperator {
   public void setup(VectorAccessible incoming) {
     this.incoming = incoming;
     this.materializer = new VectorRecordMaterializer(context, incoming);
+    this.coalesceRecords = (int) context.getOptions().getOption(ExecConstants.SCREEN_COALESCE_RECORDS);
+    if (coalesceRecords > 0 && incoming.getSchema().getSelectionVectorMode() == SelectionVectorMode.NONE) {
+      pending = new VectorContainer(context.getAllocator());
+      copiers = Lists.newArrayList();
+      for (VectorWrapper<?> vv : incoming) {
+        copiers.add(vv.getValueVector().makeTransferPair(pending.addOrGet(vv.getField())));
+      }
+      pending.buildSchema(SelectionVectorMode.NONE);
+      pendingMaterializer = new VectorRecordMaterializer(context, pending);
+    }
     state = State.CAN_CONSUME;
   }
 
   @Override
   public void noMoreToConsume() {
     state = State.DONE;
+    flushPending();
+
     // make sure we send a schema batch.
     if(batchesSent == 0){
 
@@ -101,7 +135,45 @@ public class ScreenOperator implements TerminalOperator {
   @Override
   public void consumeData(int records) {
     state.is(State.CAN_CONSUME);
-    final QueryWritableBatch batch = materializer.convertNext(records);
+    if (pending == null) {
+      send(materializer.convertNext(records));
+      return;
+    }
+
+    // never grow a batch past the target, unless a single incoming batch is larger
+    if (pendingRecords + records > coalesceRecords) {
+      flushPending();
+    }
+    if (records >= coalesceRecords) {
+      send(materializer.convertNext(records));
+      return;
+    }
+
+    if (pendingRecords == 0) {
+      pending.allocateNew();
+    }
+    for (TransferPair copier : copiers) {
+      for (int i = 0; i < records; i++) {
+        copier.copyValueSafe(i, pendingRecords + i);
+      }
+    }
+    pendingRecords += records;
+    if (pendingRecords >= coalesceRecords) {
+      flushPending();
+    }
+  }
+
+  private void flushPending() {
+    if (pendingRecords == 0) {
+      return;
+    }
+    pending.setAllCount(pendingRecords);
+    final QueryWritableBatch batch = pendingMaterializer.convertNext(pendingRecords);
+    pendingRecords = 0;
+    send(batch);
+  }
+
+  private void send(QueryWritableBatch batch) {
     stats.addLongStat(Metric.BYTES_SENT, batch.getByteCount());
     stats.startWait();
     try {
@@ -125,6 +197,7 @@ public class ScreenOperator implements TerminalOperator {
 
   @Override
   public void close() throws Exception {
+    AutoCloseables.close(pending);
   }
 
   public static class Creator implements TerminalOperator.Creator<Screen>{
@@ -29,6 +29,7 @@ import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
+import com.dremio.exec.record.FragmentBatchCodec;
 import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.sabot.exec.context.MetricDef;
@@ -44,6 +45,7 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.primitives.Ints;
 
 import io.netty.buffer.ArrowBuf;
+import io.netty.buffer.ByteBuf;
 
 /**
  * Broadcast Sender broadcasts incoming batches to all receivers (one or more).
@@ -61,12 +63,16 @@ public class BroadcastOperator extends BaseSender {
   private final ExecProtos.FragmentHandle handle;
   private final OperatorStats stats;
   private final OperatorContext context;
+  private final FragmentBatchCodec codec;
 
   private VectorAccessible incoming;
 
   public enum Metric implements MetricDef {
     N_RECEIVERS,
-    BYTES_SENT;
+    BYTES_SENT,
+    UNCOMPRESSED_BYTES, // size of the batches the sender attempted to compress
+    COMPRESSED_BYTES, // size of those batches once compressed
+    COMPRESSION_NANOS;
     @Override
     public int metricId() {
       return ordinal();
@@ -79,6 +85,7 @@ public class BroadcastOperator extends BaseSender {
     this.context = context;
     this.handle = context.getFragmentHandle();
     this.stats = context.getStats();
+    this.codec = new FragmentBatchCodec(context.getAllocator(), context.getOptions());
 
     final List<MinorFragmentEndpoint> destinations = config.getDestinations();
     final ArrayListMultimap<NodeEndpoint, Integer> dests = ArrayListMultimap.create();
@@ -116,6 +123,9 @@ public class BroadcastOperator extends BaseSender {
   private void updateStats(FragmentWritableBatch writableBatch) {
     stats.setLongStat(Metric.N_RECEIVERS, tunnels.length);
     stats.addLongStat(Metric.BYTES_SENT, writableBatch.getByteCount());
+    stats.setLongStat(Metric.UNCOMPRESSED_BYTES, codec.getUncompressedBytes());
+    stats.setLongStat(Metric.COMPRESSED_BYTES, codec.getCompressedBytes());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, codec.getCompressionNanos());
   }
 
   @Override
@@ -178,14 +188,29 @@ public class BroadcastOperator extends BaseSender {
       }
     }
 
+    FragmentWritableBatch batch = null;
     for (int i = 0; i < tunnels.length; ++i) {
-      FragmentWritableBatch batch = new FragmentWritableBatch(
-          handle.getQueryId(),
-          handle.getMajorFragmentId(),
-          handle.getMinorFragmentId(),
-          config.getOppositeMajorFragmentId(),
-          new ArrowRecordBatch(arrowRecordBatch.getLength(), arrowRecordBatch.getNodes(), buffers, false),
-          receivingMinorFragments[i]);
+      if (batch != null && batch.isCompressed()) {
+        // the compressed body was retained once per receiver when compressing the first batch
+        batch = batch.withReceivingMinorFragmentIds(receivingMinorFragments[i]);
+      } else {
+        batch = new FragmentWritableBatch(
+            handle.getQueryId(),
+            handle.getMajorFragmentId(),
+            handle.getMinorFragmentId(),
+            config.getOppositeMajorFragmentId(),
+            new ArrowRecordBatch(arrowRecordBatch.getLength(), arrowRecordBatch.getNodes(), buffers, false),
+            receivingMinorFragments[i]);
+        if (i == 0) {
+          // compress once, and send the same compressed body to all receivers
+          batch = codec.compress(batch);
+          if (batch.isCompressed() && tunnels.length > 1) {
+            for (ByteBuf buf : batch.getBuffers()) {
+              buf.retain(tunnels.length - 1);
+            }
+          }
+        }
+      }
       updateStats(batch);
       tunnels[i].sendRecordBatch(batch);
       for (ArrowBuf buf : buffers) {
@@ -26,6 +26,7 @@ import org.apache.arrow.vector.VarCharVector;
 import com.dremio.exec.expr.TypeHelper;
 import com.dremio.exec.physical.config.HashPartitionSender;
 import com.dremio.exec.proto.ExecProtos;
+import com.dremio.exec.record.FragmentBatchCodec;
 import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
@@ -50,6 +51,7 @@ public class OutgoingBatch extends VectorContainer {
   private final int oppositeMinorFragmentId;
 
   private final OperatorStats stats;
+  private final FragmentBatchCodec codec;
 
   // we need these to set the lastSet value for variable length vectors
   private final List<VarCharVector> varchars = Lists.newArrayList();
@@ -66,7 +68,7 @@ public class OutgoingBatch extends VectorContainer {
 
   OutgoingBatch(int batchIdx, int nextBatchIdx, int maxRecords, final VectorAccessible incoming,
                 BufferAllocator allocator, AccountingExecTunnel tunnel, HashPartitionSender config,
-                OperatorContext context, int oppositeMinorFragmentId, OperatorStats stats) {
+                OperatorContext context, int oppositeMinorFragmentId, OperatorStats stats, FragmentBatchCodec codec) {
     Preconditions.checkArgument(maxRecords <= Character.MAX_VALUE, "maxRecords cannot exceed " + Character.MAX_VALUE);
     this.batchIdx = batchIdx;
     this.nextBatchIdx = nextBatchIdx;
@@ -78,6 +80,7 @@ public class OutgoingBatch extends VectorContainer {
     this.oppositeMinorFragmentId = oppositeMinorFragmentId;
 
     this.stats = stats;
+    this.codec = codec;
 
     for (VectorWrapper<?> v : incoming) {
       ValueVector outgoingVector = TypeHelper.getNewVector(v.getField(), allocator);
@@ -160,13 +163,13 @@ public class OutgoingBatch extends VectorContainer {
     }
 
     final ExecProtos.FragmentHandle handle = context.getFragmentHandle();
-    FragmentWritableBatch writableBatch = FragmentWritableBatch.create(
+    FragmentWritableBatch writableBatch = codec.compress(FragmentWritableBatch.create(
       handle.getQueryId(),
       handle.getMajorFragmentId(),
       handle.getMinorFragmentId(),
       config.getOppositeMajorFragmentId(),
       this,
-      oppositeMinorFragmentId);
+      oppositeMinorFragmentId));
 
     updateStats(writableBatch);
 
@@ -181,5 +184,8 @@ public class OutgoingBatch extends VectorContainer {
     stats.addLongStat(Metric.BYTES_SENT, writableBatch.getByteCount());
     stats.addLongStat(Metric.BATCHES_SENT, 1);
     stats.addLongStat(Metric.RECORDS_SENT, writableBatch.getRecordCount());
+    stats.setLongStat(Metric.UNCOMPRESSED_BYTES, codec.getUncompressedBytes());
+    stats.setLongStat(Metric.COMPRESSED_BYTES, codec.getCompressedBytes());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, codec.getCompressionNanos());
   }
 }
@@ -39,6 +39,7 @@ import com.dremio.exec.physical.config.HashPartitionSender;
 import com.dremio.exec.proto.ExecProtos;
 import com.dremio.exec.proto.ExecRPC;
 import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.FragmentBatchCodec;
 import com.dremio.exec.record.TypedFieldId;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
@@ -83,6 +84,7 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
   private final CopyWatches copyWatches = new CopyWatches();
   private final Stopwatch preCopyWatch = Stopwatch.createUnstarted();
   private final Stopwatch flushWatch = Stopwatch.createUnstarted();
+  private final FragmentBatchCodec codec;
 
   /**
    * number of records before we flush any outgoing batch.<br>
@@ -147,6 +149,7 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
     remaingReceiverCount = new AtomicInteger(numReceivers);
 
     stats.setLongStat(N_RECEIVERS, numReceivers);
+    codec = new FragmentBatchCodec(context.getAllocator(), context.getOptions());
 
     modSize = PARTITION_MULTIPLE * Numbers.nextPowerOfTwo(numReceivers);
     modLookup = new OutgoingBatch[modSize];
@@ -218,8 +221,8 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
       final MinorFragmentEndpoint destination = destinations.get(p);
       final AccountingExecTunnel tunnel = tunnelProvider.getExecTunnel(destination.getEndpoint());
 
-      batches[p] = new OutgoingBatch(p, batchB, numRecordsBeforeFlush, incoming, allocator, tunnel, config, context, destination.getId(), stats);
-      batches[batchB] = new OutgoingBatch(batchB, p, numRecordsBeforeFlush, incoming, allocator, tunnel, config, context, destination.getId(), stats);
+      batches[p] = new OutgoingBatch(p, batchB, numRecordsBeforeFlush, incoming, allocator, tunnel, config, context, destination.getId(), stats, codec);
+      batches[batchB] = new OutgoingBatch(batchB, p, numRecordsBeforeFlush, incoming, allocator, tunnel, config, context, destination.getId(), stats, codec);
 
       // Only allocate the primary batch. Backup batch is allocated when it is needed.
       batches[p].allocateNew();
@@ -21,6 +21,7 @@ import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.exec.physical.config.SingleSender;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
+import com.dremio.exec.record.FragmentBatchCodec;
 import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.testing.ControlsInjector;
@@ -42,12 +43,16 @@ public class SingleSenderOperator extends BaseSender {
     private final AccountingExecTunnel tunnel;
     private final FragmentHandle handle;
     private final int recMajor;
+    private final FragmentBatchCodec codec;
 
     private State state = State.NEEDS_SETUP;
     private VectorAccessible incoming;
 
     public enum Metric implements MetricDef {
-      BYTES_SENT;
+      BYTES_SENT,
+      UNCOMPRESSED_BYTES, // size of the batches the sender attempted to compress
+      COMPRESSED_BYTES, // size of those batches once compressed
+      COMPRESSION_NANOS;
 
       @Override
       public int metricId() {
@@ -65,19 +70,20 @@ public class SingleSenderOperator extends BaseSender {
           .setMinorFragmentId(config.getOppositeMinorFragmentId())
           .build();
       this.tunnel = tunnelProvider.getExecTunnel(config.getDestination());
+      this.codec = new FragmentBatchCodec(context.getAllocator(), context.getOptions());
     }
 
     @Override
     public void consumeData(int records) {
       Preconditions.checkArgument(records > 0);
-      final FragmentWritableBatch batch = FragmentWritableBatch.create(
+      final FragmentWritableBatch batch = codec.compress(FragmentWritableBatch.create(
           handle.getQueryId(),
           handle.getMajorFragmentId(),
           handle.getMinorFragmentId(),
           recMajor,
           incoming,
           oppositeHandle.getMinorFragmentId()
-          );
+          ));
       updateStats(batch);
       context.getStats().startWait();
       try {
@@ -123,6 +129,9 @@ public class SingleSenderOperator extends BaseSender {
 
     private void updateStats(FragmentWritableBatch writableBatch) {
       context.getStats().addLongStat(Metric.BYTES_SENT, writableBatch.getByteCount());
+      context.getStats().setLongStat(Metric.UNCOMPRESSED_BYTES, codec.getUncompressedBytes());
+      context.getStats().setLongStat(Metric.COMPRESSED_BYTES, codec.getCompressedBytes());
+      context.getStats().setLongStat(Metric.COMPRESSION_NANOS, codec.getCompressionNanos());
     }
 
     @Override
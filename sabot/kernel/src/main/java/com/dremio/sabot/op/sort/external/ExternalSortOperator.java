@@ -42,6 +42,7 @@ import com.dremio.options.OptionManager;
 import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.spi.Operator.ShrinkableOperator;
 import com.dremio.sabot.op.spi.SingleInputOperator;
 import com.google.common.base.Throwables;
 import com.sun.codemodel.JConditional;
@@ -78,7 +79,7 @@ import com.sun.codemodel.JExpr;
  * merge where n is the final number of disk runs.)
  *
  */
-public class ExternalSortOperator implements SingleInputOperator {
+public class ExternalSortOperator implements SingleInputOperator, ShrinkableOperator {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ExternalSortOperator.class);
 
   private final int targetBatchSize;
@@ -101,6 +102,9 @@ public class ExternalSortOperator implements SingleInputOperator {
 
   private SortState sortState = SortState.CONSUME;
 
+  // whether the batches held in memory can be spilled, read by the memory arbiter thread.
+  private volatile boolean canSpill = false;
+
   public enum Metric implements MetricDef {
     SPILL_COUNT,            // number of times operator spilled to disk
     MERGE_COUNT,            // number of times spills were merged
@@ -276,6 +280,7 @@ public class ExternalSortOperator implements SingleInputOperator {
     if (memoryRun != null) {
       maxBatchesInMemory = Math.max(maxBatchesInMemory, memoryRun.getNumberOfBatches());
     }
+    canSpill = sortState == SortState.CONSUME && memoryRun != null && !memoryRun.isEmpty();
 
     OperatorStats stats = context.getStats();
 
@@ -305,12 +310,27 @@ public class ExternalSortOperator implements SingleInputOperator {
     }
   }
 
-//  @Override
-//  public void reduceMemoryConsumption(long target) {
-//    if(!memoryRun.isEmpty()){
-//      rotateRuns();
-//    }
-//  }
+  @Override
+  public int getOperatorId() {
+    return config.getOperatorId();
+  }
+
+  @Override
+  public long shrinkableMemory() {
+    // the batches held in memory are spilled all at once
+    return canSpill ? allocator.getAllocatedMemory() : 0;
+  }
+
+  @Override
+  public boolean shrinkMemory(long size) {
+    // once all the input is consumed, the remaining batches are either returned or spilled by noMoreToConsume()
+    if (state != State.CAN_CONSUME || sortState != SortState.CONSUME || memoryRun.isEmpty()) {
+      return false;
+    }
+    rotateRuns();
+    updateStats();
+    return true;
+  }
 
   @Override
   public <OUT, IN, EXCEP extends Throwable> OUT accept(OperatorVisitor<OUT, IN, EXCEP> visitor, IN value) throws EXCEP {
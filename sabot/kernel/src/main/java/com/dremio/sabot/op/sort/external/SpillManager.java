@@ -46,7 +46,7 @@ import com.google.common.collect.Lists;
 public class SpillManager implements AutoCloseable {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SpillManager.class);
 
-  static final String DREMIO_LOCAL_IMPL_STRING = "fs.dremio-local.impl";
+  public static final String DREMIO_LOCAL_IMPL_STRING = "fs.dremio-local.impl";
   private static final String DREMIO_LOCAL_SCHEME = "dremio-local";
   private static final String LOCAL_SCHEMA = "file";
   private static final FsPermission PERMISSIONS = new FsPermission(FsAction.ALL, FsAction.NONE, FsAction.NONE);
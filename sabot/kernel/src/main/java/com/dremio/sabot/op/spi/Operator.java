@@ -90,6 +90,34 @@ public interface Operator extends AutoCloseable {
 
   }
 
+  /**
+   * A type of operator that can release some of the memory it holds, typically by spilling it to disk. The
+   * {@link com.dremio.sabot.exec.MemoryArbiter} asks these operators to shrink when the node runs low on memory.
+   */
+  interface ShrinkableOperator extends Operator {
+
+    /**
+     * @return the id of the operator within its fragment.
+     */
+    int getOperatorId();
+
+    /**
+     * Informs how much memory the operator could release if asked to shrink. Unlike other operator methods, this one
+     * is called by the arbiter thread and must be thread safe.
+     *
+     * @return The number of bytes that can be released.
+     */
+    long shrinkableMemory();
+
+    /**
+     * Informs the operator to release memory. Only called by the fragment thread, between two calls to the operator.
+     *
+     * @param size The number of bytes the operator is asked to release.
+     * @return true if the operator released memory.
+     */
+    boolean shrinkMemory(long size) throws Exception;
+  }
+
   /**
    * A visitor pattern used to visit the four core operator types.
    *
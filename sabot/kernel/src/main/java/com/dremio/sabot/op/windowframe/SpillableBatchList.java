@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.windowframe;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.util.TransferPair;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.config.SabotConfig;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.utils.protos.QueryIdHelper;
+import com.dremio.exec.cache.VectorAccessibleSerializable;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.exec.record.WritableBatch;
+import com.dremio.exec.store.LocalSyncableFileSystem;
+import com.dremio.exec.store.dfs.FileSystemPlugin;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+import com.google.common.base.Preconditions;
+
+/**
+ * Batches buffered by the {@link WindowFrameOperator} until the first one can be processed. Batches are added at the
+ * end and removed from the start.<br>
+ * <br>
+ * Batches in the middle of the list can be spilled to disk, while the first two batches, processed and copied from by
+ * the framers, and the last one, compared with the first one to find the end of the partition, always stay in memory.
+ * A spilled batch is read back once it becomes one of the first two. Framers scanning the whole list read the spilled
+ * batches through their own {@link #newView() view}.
+ */
+class SpillableBatchList implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SpillableBatchList.class);
+
+  // number of batches at the start of the list that are never spilled
+  private static final int RESIDENT_BATCHES = 2;
+
+  private final SabotConfig config;
+  private final OptionManager options;
+  private final FragmentHandle handle;
+  private final String id;
+  private final BufferAllocator allocator;
+  private final BatchSchema schema;
+  private final List<Entry> entries = new ArrayList<>();
+  private final List<View> views = new ArrayList<>();
+
+  private SpillManager spillManager;
+  private SpillFile spillFile;
+  private FSDataOutputStream output;
+
+  // all the batches from RESIDENT_BATCHES to this index (excluded) are spilled
+  private int spilledUpTo = RESIDENT_BATCHES;
+  // memory used by the batches that can be spilled
+  private long spillableMemory;
+  private long spilledBatches;
+  private long spilledBytes;
+
+  /**
+   * @param config sabot config, used to find the spill directories
+   * @param options option manager
+   * @param handle handle of the fragment spilling
+   * @param id unique id (within the fragment) of this list, used to name the spill directory
+   * @param allocator allocator of the buffered batches
+   * @param schema schema of the buffered batches
+   */
+  SpillableBatchList(SabotConfig config, OptionManager options, FragmentHandle handle, String id,
+      BufferAllocator allocator, BatchSchema schema) {
+    this.config = config;
+    this.options = options;
+    this.handle = handle;
+    this.id = id;
+    this.allocator = allocator;
+    this.schema = schema;
+  }
+
+  /**
+   * Takes ownership of the buffers of a batch and adds it at the end of the list.
+   */
+  void add(VectorAccessible incoming) {
+    if (entries.size() > RESIDENT_BATCHES) {
+      // the current last batch is now in the middle of the list
+      spillableMemory += entries.get(entries.size() - 1).getMemory();
+    }
+    entries.add(new Entry(VectorContainer.getTransferClone(incoming, allocator)));
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  VectorContainer getFirst() {
+    return entries.get(0).batch;
+  }
+
+  VectorContainer getLast() {
+    return entries.get(entries.size() - 1).batch;
+  }
+
+  /**
+   * Releases the first batch, and reads back the batches becoming resident.
+   */
+  void removeFirst() throws IOException {
+    if (entries.size() > RESIDENT_BATCHES + 1) {
+      // the first batch in the middle of the list becomes resident
+      spillableMemory -= entries.get(RESIDENT_BATCHES).getMemory();
+    }
+    entries.remove(0).close();
+    spilledUpTo = Math.max(RESIDENT_BATCHES, spilledUpTo - 1);
+    for (int i = 0; i < Math.min(RESIDENT_BATCHES, entries.size()); i++) {
+      final Entry entry = entries.get(i);
+      if (entry.batch == null) {
+        final VectorContainer batch = VectorContainer.create(allocator, schema);
+        load(entry, batch);
+        entry.batch = batch;
+      }
+    }
+  }
+
+  /**
+   * @return a list of all the batches, loading the spilled ones when accessed. Each view has its own buffers for the
+   * loaded batches, so a batch read through a view remains valid until two other spilled batches are read through it.
+   */
+  List<VectorContainer> newView() {
+    final View view = new View();
+    views.add(view);
+    return view;
+  }
+
+  /**
+   * Spills the batches in the middle of the list, in order, until enough memory is released.
+   *
+   * @param target number of bytes to release
+   * @return number of bytes released
+   */
+  long spill(long target) throws IOException {
+    final long before = allocator.getAllocatedMemory();
+    long released = 0;
+    for (; spilledUpTo < entries.size() - 1 && released < target; spilledUpTo++) {
+      final Entry entry = entries.get(spilledUpTo);
+      spillableMemory -= entry.getMemory();
+      write(entry);
+      entry.batch.close();
+      entry.batch = null;
+      released = before - allocator.getAllocatedMemory();
+    }
+
+    if (output != null) {
+      output.hsync();
+    }
+    logger.debug("Released {} bytes by spilling window batches, {} batches spilled so far", released, spilledBatches);
+    return released;
+  }
+
+  /**
+   * @return the memory used by the batches that can be spilled.
+   */
+  long getSpillableMemory() {
+    return spillableMemory;
+  }
+
+  long getSpilledBatches() {
+    return spilledBatches;
+  }
+
+  long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  private void write(Entry entry) throws IOException {
+    if (output == null) {
+      final Configuration conf = FileSystemPlugin.getNewFsConf();
+      conf.set(SpillManager.DREMIO_LOCAL_IMPL_STRING, LocalSyncableFileSystem.class.getName());
+      // If the location URI doesn't contain any schema, fall back to local.
+      conf.set(FileSystem.FS_DEFAULT_NAME_KEY, FileSystem.DEFAULT_FS);
+      final String spillId = String.format("%s-%s.%s.%s", id, QueryIdHelper.getQueryId(handle.getQueryId()),
+          handle.getMajorFragmentId(), handle.getMinorFragmentId());
+      spillManager = new SpillManager(config, options, spillId, conf, "window spilling");
+      spillFile = spillManager.getSpillFile("batches");
+      output = spillFile.create();
+    }
+
+    entry.offset = output.getPos();
+    try (WritableBatch batch = WritableBatch.getBatchNoHVWrap(entry.records, entry.batch, false)) {
+      new VectorAccessibleSerializable(batch, null).writeToStream(output);
+    }
+    spilledBatches++;
+    spilledBytes += output.getPos() - entry.offset;
+  }
+
+  /**
+   * Loads a spilled batch into the target container. Previous content of the target is released.
+   */
+  private void load(Entry entry, VectorContainer target) throws IOException {
+    final VectorAccessibleSerializable serializer = new VectorAccessibleSerializable(allocator);
+    try (FSDataInputStream input = spillFile.open()) {
+      input.seek(entry.offset);
+      serializer.readFromStream(input);
+    }
+
+    final VectorContainer loaded = serializer.get();
+    try {
+      final Iterator<VectorWrapper<?>> loadedVectors = loaded.iterator();
+      for (VectorWrapper<?> w : target) {
+        Preconditions.checkState(loadedVectors.hasNext(), "Spilled batch doesn't match the window schema.");
+        final ValueVector source = loadedVectors.next().getValueVector();
+        final TransferPair pair = source.makeTransferPair(w.getValueVector());
+        pair.transfer();
+      }
+      target.setAllCount(loaded.getRecordCount());
+    } finally {
+      loaded.clear();
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    final List<AutoCloseable> closeables = new ArrayList<>();
+    closeables.addAll(entries);
+    closeables.addAll(views);
+    closeables.add(output);
+    closeables.add(spillFile);
+    closeables.add(spillManager);
+    AutoCloseables.close(closeables);
+    entries.clear();
+  }
+
+  private static final class Entry implements AutoCloseable {
+    private final int records;
+    private final long memory;
+    // null while the batch is spilled
+    private VectorContainer batch;
+    // position of the batch in the spill file
+    private long offset;
+
+    private Entry(VectorContainer batch) {
+      this.batch = batch;
+      this.records = batch.getRecordCount();
+      long memory = 0;
+      for (VectorWrapper<?> w : batch) {
+        memory += w.getValueVector().getBufferSize();
+      }
+      this.memory = memory;
+    }
+
+    /**
+     * @return memory used by the batch, 0 if it's spilled.
+     */
+    private long getMemory() {
+      return batch == null ? 0 : memory;
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(batch);
+    }
+  }
+
+  /**
+   * Read only list of the batches, loading spilled batches into one of two alternating buffers.
+   */
+  private final class View extends AbstractList<VectorContainer> implements AutoCloseable {
+    private final VectorContainer[] buffers = new VectorContainer[2];
+    private final Entry[] loaded = new Entry[2];
+    private int next;
+
+    @Override
+    public VectorContainer get(int index) {
+      final Entry entry = entries.get(index);
+      if (entry.batch != null) {
+        return entry.batch;
+      }
+
+      for (int i = 0; i < buffers.length; i++) {
+        if (loaded[i] == entry) {
+          return buffers[i];
+        }
+      }
+
+      if (buffers[next] == null) {
+        buffers[next] = VectorContainer.create(allocator, schema);
+      }
+      final VectorContainer buffer = buffers[next];
+      try {
+        load(entry, buffer);
+      } catch (IOException e) {
+        throw UserException.dataReadError(e)
+            .message("Failure while attempting to read spilled window data from disk.")
+            .build(logger);
+      }
+      loaded[next] = entry;
+      next = (next + 1) % buffers.length;
+      return buffer;
+    }
+
+    @Override
+    public int size() {
+      return entries.size();
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(buffers);
+    }
+  }
+}
@@ -18,9 +18,9 @@ package com.dremio.sabot.op.windowframe;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.arrow.vector.ValueVector;
 import org.apache.arrow.vector.util.TransferPair;
@@ -30,6 +30,7 @@ import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.logical.data.NamedExpression;
 import com.dremio.common.logical.data.Order;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.compile.TemplateClassDefinition;
 import com.dremio.exec.compile.sig.GeneratorMapping;
 import com.dremio.exec.compile.sig.MappingSet;
@@ -42,7 +43,10 @@ import com.dremio.exec.physical.config.WindowPOP;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.VectorWrapper;
+import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.spi.Operator.ShrinkableOperator;
 import com.dremio.sabot.op.spi.SingleInputOperator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -52,14 +56,22 @@ import com.sun.codemodel.JExpr;
 /**
  * support for OVER(PARTITION BY expression1,expression2,... [ORDER BY expressionA, expressionB,...])
  *
+ * Batches are buffered until the window functions can process the first one. When spilling is enabled and the operator
+ * uses too much memory, or when the memory arbiter asks it to shrink, the batches buffered in the middle of a large
+ * partition or frame are spilled to disk, see {@link SpillableBatchList}.
  */
-public class WindowFrameOperator implements SingleInputOperator {
+public class WindowFrameOperator implements SingleInputOperator, ShrinkableOperator {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(WindowFrameOperator.class);
 
   private final OperatorContext context;
   private final List<WindowFunction> functions = Lists.newArrayList();
   private final WindowPOP config;
-  private final LinkedList<VectorContainer> batches = new LinkedList<>();
+  private final boolean spillEnabled;
+  private final double spillMemoryRatio;
+  private SpillableBatchList batches;
+
+  // memory used by the batches that can be spilled, read by the memory arbiter thread.
+  private volatile long spillableMemory;
 
   private VectorAccessible incoming;
   private VectorContainer outgoing;
@@ -70,9 +82,21 @@ public class WindowFrameOperator implements SingleInputOperator {
 
   private boolean noMoreToConsume;
 
+  public enum Metric implements MetricDef {
+    SPILLED_BATCHES,  // number of batches spilled to disk
+    SPILLED_BYTES;    // number of bytes spilled to disk
+
+    @Override
+    public int metricId() {
+      return ordinal();
+    }
+  }
+
   public WindowFrameOperator(OperatorContext context, WindowPOP config) throws OutOfMemoryException {
     this.context = context;
     this.config = config;
+    this.spillEnabled = context.getOptions().getOption(ExecConstants.WINDOW_SPILL_ENABLE);
+    this.spillMemoryRatio = context.getOptions().getOption(ExecConstants.WINDOW_SPILL_MEMORY_RATIO);
   }
 
   @Override
@@ -80,6 +104,8 @@ public class WindowFrameOperator implements SingleInputOperator {
     state.is(State.NEEDS_SETUP);
 
     incoming = accessible;
+    batches = new SpillableBatchList(context.getConfig(), context.getOptions(), context.getFragmentHandle(),
+        "window-" + config.getOperatorId(), context.getAllocator(), incoming.getSchema());
     outgoing = context.createOutputVectorContainer();
     createFramers(incoming);
     outgoing.buildSchema();
@@ -96,10 +122,30 @@ public class WindowFrameOperator implements SingleInputOperator {
   @Override
   public void consumeData(int records) throws Exception {
     state.is(State.CAN_CONSUME);
-    batches.add(VectorContainer.getTransferClone(incoming, context.getAllocator()));
+    batches.add(incoming);
     if(canDoWork()){
       state = State.CAN_PRODUCE;
+    } else if (shouldSpill()) {
+      batches.spill(Long.MAX_VALUE);
     }
+    updateStats();
+  }
+
+  private boolean shouldSpill() {
+    if (!spillEnabled || batches.getSpillableMemory() == 0) {
+      return false;
+    }
+
+    final BufferAllocator allocator = context.getAllocator();
+    return allocator.getAllocatedMemory() > allocator.getLimit() * spillMemoryRatio;
+  }
+
+  private void updateStats() {
+    spillableMemory = spillEnabled ? batches.getSpillableMemory() : 0;
+
+    final OperatorStats stats = context.getStats();
+    stats.setLongStat(Metric.SPILLED_BATCHES, batches.getSpilledBatches());
+    stats.setLongStat(Metric.SPILLED_BYTES, batches.getSpilledBytes());
   }
 
   @Override
@@ -123,13 +169,14 @@ public class WindowFrameOperator implements SingleInputOperator {
     }else if(!noMoreToConsume && !canDoWork()){
       state = State.CAN_CONSUME;
     }
+    updateStats();
     return outgoing.getRecordCount();
   }
 
 
   private int doWork() throws Exception {
 
-    final VectorContainer current = batches.get(0);
+    final VectorContainer current = batches.getFirst();
     final int recordCount = current.getRecordCount();
 
     logger.trace("WindowFramer.doWork() START, num batches {}, current batch has {} rows", batches.size(), recordCount);
@@ -157,8 +204,7 @@ public class WindowFrameOperator implements SingleInputOperator {
     }
 
     // we can safely free the current batch
-    current.close();
-    batches.remove(0);
+    batches.removeFirst();
 
     logger.trace("doWork() END");
     return recordCount;
@@ -257,13 +303,13 @@ public class WindowFrameOperator implements SingleInputOperator {
     int index = 0;
     if (useDefaultFrame) {
       framers[index] = generateFramer(keyExprs, orderExprs, functions, false);
-      framers[index].setup(batches, outgoing, context, requireFullPartition, config, context.getFunctionContext());
+      framers[index].setup(batches.newView(), outgoing, context, requireFullPartition, config, context.getFunctionContext());
       index++;
     }
 
     if (useCustomFrame) {
       framers[index] = generateFramer(keyExprs, orderExprs, functions, true);
-      framers[index].setup(batches, outgoing, context, requireFullPartition, config, context.getFunctionContext());
+      framers[index].setup(batches.newView(), outgoing, context, requireFullPartition, config, context.getFunctionContext());
     }
   }
 
@@ -328,6 +374,26 @@ public class WindowFrameOperator implements SingleInputOperator {
     cg.getEvalBlock()._return(JExpr.TRUE);
   }
 
+  @Override
+  public int getOperatorId() {
+    return config.getOperatorId();
+  }
+
+  @Override
+  public long shrinkableMemory() {
+    return spillableMemory;
+  }
+
+  @Override
+  public boolean shrinkMemory(long size) throws Exception {
+    if (!spillEnabled || batches == null) {
+      return false;
+    }
+    final boolean released = batches.spill(size) > 0;
+    updateStats();
+    return released;
+  }
+
   @Override
   public <OUT, IN, EXCEP extends Throwable> OUT accept(OperatorVisitor<OUT, IN, EXCEP> visitor, IN value) throws EXCEP {
     return visitor.visitSingleInput(this, value);
@@ -340,7 +406,7 @@ public class WindowFrameOperator implements SingleInputOperator {
     if (framers != null) {
       closeables.addAll(Arrays.asList(framers));
     }
-    closeables.addAll(batches);
+    closeables.add(batches);
     AutoCloseables.close(closeables);
   }
 
@@ -0,0 +1,386 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dremio.sabot.task.Observer;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.Task;
+import com.dremio.sabot.task.TaskManager;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A {@code TaskManager} that keeps one run queue per executing thread.<br>
+ * <br>
+ * Each run queue is ordered by virtual runtime (vruntime): the time a task spent running, scaled by the inverse of
+ * its effective weight. The effective weight of a task depends on its own weight, the weight of its enclosing
+ * {@code SchedulingGroup}s and on the number of active tasks in those groups, so that a group gets its share of cpu
+ * regardless of how many tasks it contains.<br>
+ * <br>
+ * A thread whose run queue is empty steals a task from the most loaded run queue before going idle.
+ */
+public class MultiQueueTaskManager<T extends Task> implements TaskManager<T> {
+
+  private final Comparator<TaskHandleImpl> vruntimeOrder = new Comparator<TaskHandleImpl>() {
+    @Override
+    public int compare(TaskHandleImpl o1, TaskHandleImpl o2) {
+      final int cmp = Long.compare(o1.vruntime, o2.vruntime);
+      return cmp != 0 ? cmp : Long.compare(o1.id, o2.id);
+    }
+  };
+
+  private final List<RunQueue> runQueues;
+  private final Observer<T> observer;
+  private final boolean rescheduleOnUnblock;
+  private final GroupImpl root = new GroupImpl(null, MAX_WEIGHT);
+  private final AtomicLong nextTaskId = new AtomicLong();
+  private final AtomicInteger nextThread = new AtomicInteger();
+
+  /**
+   * @param numThreads number of executing threads
+   * @param rescheduleOnUnblock if true, unblocked tasks are moved to the least loaded thread
+   * @param observer observer notified of the manager's events
+   */
+  public MultiQueueTaskManager(int numThreads, boolean rescheduleOnUnblock, Observer<T> observer) {
+    Preconditions.checkArgument(numThreads > 0, "number of threads must be positive");
+    final ImmutableList.Builder<RunQueue> builder = ImmutableList.builder();
+    for (int i = 0; i < numThreads; i++) {
+      builder.add(new RunQueue(i));
+    }
+    this.runQueues = builder.build();
+    this.rescheduleOnUnblock = rescheduleOnUnblock;
+    this.observer = Preconditions.checkNotNull(observer);
+  }
+
+  @Override
+  public TaskHandle<T> addTask(T task, long weight) {
+    return root.addTask(task, weight);
+  }
+
+  @Override
+  public SchedulingGroup<T> newGroup(long weight) {
+    return root.addGroup(weight);
+  }
+
+  @Override
+  public TaskProvider<T> getTaskProvider(int thread, WakeUpListener listener) {
+    Preconditions.checkElementIndex(thread, runQueues.size());
+    final RunQueue queue = runQueues.get(thread);
+    queue.listener = Preconditions.checkNotNull(listener);
+    return queue;
+  }
+
+  int getNumThreads() {
+    return runQueues.size();
+  }
+
+  private static void checkWeight(long weight) {
+    Preconditions.checkArgument(weight > 0 && weight <= MAX_WEIGHT, "weight must be in (0, %s]", MAX_WEIGHT);
+  }
+
+  /**
+   * @return index of the thread with the fewest assigned tasks, ties broken round-robin
+   */
+  private int leastLoadedThread() {
+    final int start = Math.abs(nextThread.getAndIncrement() % runQueues.size());
+    int best = start;
+    for (int i = 1; i < runQueues.size(); i++) {
+      final int candidate = (start + i) % runQueues.size();
+      if (runQueues.get(candidate).numTasks.get() < runQueues.get(best).numTasks.get()) {
+        best = candidate;
+      }
+    }
+    return best;
+  }
+
+  private void wakeUpIdleThread() {
+    for (RunQueue queue : runQueues) {
+      if (queue.idle) {
+        queue.wakeUp();
+        return;
+      }
+    }
+  }
+
+  /**
+   * A scheduling group. Tracks the number of active (not done) tasks so their runtime can be scaled by the group's
+   * share.
+   */
+  private final class GroupImpl implements SchedulingGroup<T> {
+    private final GroupImpl parent;
+    private final long weight;
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private GroupImpl(GroupImpl parent, long weight) {
+      this.parent = parent;
+      this.weight = weight;
+    }
+
+    @Override
+    public SchedulingGroup<T> addGroup(long weight) {
+      checkWeight(weight);
+      return new GroupImpl(this, weight);
+    }
+
+    @Override
+    public TaskHandle<T> addTask(T task, long weight) {
+      checkWeight(weight);
+      final int thread = leastLoadedThread();
+      final TaskHandleImpl handle = new TaskHandleImpl(nextTaskId.getAndIncrement(), task, weight, this, thread);
+      for (GroupImpl g = this; g != null; g = g.parent) {
+        g.activeTasks.incrementAndGet();
+      }
+
+      final RunQueue queue = runQueues.get(thread);
+      queue.numTasks.incrementAndGet();
+      observer.addTask(handle, thread);
+      queue.enqueue(handle, true);
+      return handle;
+    }
+
+    /**
+     * @return factor applied to the runtime of the tasks of this group. The root group has a factor of 1, a child
+     * group sharing its weight between n tasks has a factor of {@code n * MAX_WEIGHT / weight} times its parent's.
+     */
+    private double runtimeFactor() {
+      if (parent == null) {
+        return 1.0;
+      }
+      return Math.max(1, activeTasks.get()) * ((double) MAX_WEIGHT / weight) * parent.runtimeFactor();
+    }
+
+    private void taskDone() {
+      for (GroupImpl g = this; g != null; g = g.parent) {
+        g.activeTasks.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Handle of a task assigned to one of the run queues.
+   */
+  private final class TaskHandleImpl implements TaskHandle<T> {
+    private final long id;
+    private final T task;
+    private final long weight;
+    private final GroupImpl group;
+
+    private volatile int thread;
+    // only updated while the handle is not part of a run queue, see vruntimeOrder
+    private long vruntime;
+
+    private TaskHandleImpl(long id, T task, long weight, GroupImpl group, int thread) {
+      this.id = id;
+      this.task = task;
+      this.weight = weight;
+      this.group = group;
+      this.thread = thread;
+    }
+
+    @Override
+    public T getTask() {
+      return task;
+    }
+
+    @Override
+    public void reEnqueue() {
+      final int current = thread;
+      int target = current;
+      if (rescheduleOnUnblock) {
+        target = leastLoadedThread();
+        if (runQueues.get(target).numTasks.get() >= runQueues.get(current).numTasks.get()) {
+          // only move if it actually helps, the task is likely cache-hot on its current thread
+          target = current;
+        }
+      }
+
+      if (target != current) {
+        runQueues.get(current).numTasks.decrementAndGet();
+        runQueues.get(target).numTasks.incrementAndGet();
+        vruntime = vruntime - runQueues.get(current).minVruntime + runQueues.get(target).minVruntime;
+        thread = target;
+        observer.rebalance(this, current, target);
+      }
+      runQueues.get(target).enqueue(this, false);
+    }
+
+    @Override
+    public int getThread() {
+      return thread;
+    }
+
+    private void charge(long elapsedNanos) {
+      vruntime += (long) (elapsedNanos * group.runtimeFactor() * MAX_WEIGHT / weight);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s (thread %d, vruntime %d)", task.getState(), thread, vruntime);
+    }
+  }
+
+  /**
+   * Run queue of a single executing thread. {@code TaskProvider} methods are only called by the owning thread, while
+   * {@code enqueue()} and {@code steal()} can be called from any thread.
+   */
+  private final class RunQueue implements TaskProvider<T> {
+    private final int thread;
+    private final TreeSet<TaskHandleImpl> queue = new TreeSet<>(vruntimeOrder);
+    private final AtomicInteger numTasks = new AtomicInteger();
+    private final AtomicInteger numWorkRequests = new AtomicInteger();
+
+    private volatile WakeUpListener listener;
+    private volatile boolean idle;
+    private volatile long minVruntime;
+
+    // only accessed by the owning thread
+    private TaskHandleImpl current;
+
+    private RunQueue(int thread) {
+      this.thread = thread;
+    }
+
+    private void enqueue(TaskHandleImpl handle, boolean newTask) {
+      final boolean wasEmpty;
+      synchronized (this) {
+        // new and woken up tasks can't claim the cpu time they didn't use while away
+        handle.vruntime = newTask ? minVruntime : Math.max(handle.vruntime, minVruntime);
+        wasEmpty = queue.isEmpty();
+        queue.add(handle);
+      }
+
+      if (idle) {
+        wakeUp();
+      } else if (!wasEmpty) {
+        // this thread is busy, give an idle thread a chance to steal the task
+        wakeUpIdleThread();
+      }
+    }
+
+    private synchronized TaskHandleImpl poll() {
+      final TaskHandleImpl handle = queue.pollFirst();
+      if (handle != null) {
+        minVruntime = Math.max(minVruntime, handle.vruntime);
+      }
+      return handle;
+    }
+
+    /**
+     * Removes the task with the highest vruntime, leaving the most deserving tasks to the owning thread
+     */
+    private synchronized TaskHandleImpl steal() {
+      return queue.pollLast();
+    }
+
+    private synchronized int size() {
+      return queue.size();
+    }
+
+    private void wakeUp() {
+      final WakeUpListener l = listener;
+      if (l != null) {
+        l.wakeUpIfIdle();
+      }
+    }
+
+    @Override
+    public TaskHandle<T> getTask(long time) {
+      if (current != null) {
+        current.charge(time);
+        switch (current.getTask().getState()) {
+        case RUNNABLE:
+          enqueue(current, false);
+          break;
+        case DONE:
+          numTasks.decrementAndGet();
+          current.group.taskDone();
+          break;
+        default:
+          // blocked, the task will be re-enqueued once it becomes available
+          break;
+        }
+        current = null;
+      }
+
+      TaskHandleImpl next = poll();
+      if (next == null) {
+        next = stealWork();
+      }
+
+      if (next == null) {
+        // mark the thread idle before polling one last time: a task enqueued after this poll sees the thread idle and
+        // wakes it up, instead of waiting for the thread to stop parking
+        idle = true;
+        next = poll();
+      }
+
+      idle = next == null;
+      current = next;
+      return next;
+    }
+
+    private TaskHandleImpl stealWork() {
+      RunQueue victim = null;
+      int victimSize = 0;
+      for (int i = 1; i < runQueues.size(); i++) {
+        final RunQueue candidate = runQueues.get((thread + i) % runQueues.size());
+        final int size = candidate.size();
+        if (size > victimSize) {
+          victim = candidate;
+          victimSize = size;
+        }
+      }
+
+      final TaskHandleImpl stolen = victim != null ? victim.steal() : null;
+      if (stolen == null) {
+        observer.workRequestRejected(thread);
+        return null;
+      }
+
+      numWorkRequests.incrementAndGet();
+      victim.numTasks.decrementAndGet();
+      numTasks.incrementAndGet();
+      synchronized (this) {
+        stolen.vruntime = Math.max(minVruntime, stolen.vruntime - victim.minVruntime + minVruntime);
+        minVruntime = Math.max(minVruntime, stolen.vruntime);
+      }
+      stolen.thread = thread;
+      observer.rebalance(stolen, victim.thread, thread);
+      return stolen;
+    }
+
+    @Override
+    public int getNumTasks() {
+      return numTasks.get();
+    }
+
+    @Override
+    public int getNumStaged() {
+      return size();
+    }
+
+    @Override
+    public int getNumWorkRequests() {
+      return numWorkRequests.get();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.proto.CoordExecRPC.FragmentPriority;
+import com.dremio.exec.proto.UserBitShared.WorkloadClass;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.Observer;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.task.TaskPoolFactory;
+import com.google.common.base.Function;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A task pool that runs all tasks on a fixed number of threads, giving out time slices to each of them.<br>
+ * <br>
+ * Tasks are scheduled by a {@code MultiQueueTaskManager}: each thread has its own run queue and steals work from the
+ * other threads when idle. Each workload class is assigned its own {@code SchedulingGroup}.<br>
+ * <br>
+ * To use it, set {@code dremio.task.pool.factory.class} to {@code com.dremio.sabot.task.slicing.SlicingTaskPool$Factory}
+ */
+public class SlicingTaskPool implements TaskPool {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SlicingTaskPool.class);
+
+  /**
+   * Factory for {@code SlicingTaskPool}
+   */
+  public static final class Factory implements TaskPoolFactory {
+    @Override
+    public TaskPool newInstance(OptionManager options, DremioConfig config) {
+      int numThreads = (int) options.getOption(ExecConstants.SLICING_THREAD_COUNT);
+      if (numThreads == 0) {
+        numThreads = Runtime.getRuntime().availableProcessors();
+      }
+      final long sliceMillis = options.getOption(ExecConstants.SLICING_SLICE_MILLIS);
+      final boolean rescheduleOnUnblock = config.getBoolean(DremioConfig.TASK_RESCHEDULE_ON_UNBLOCK);
+
+      return new SlicingTaskPool(numThreads, TimeUnit.MILLISECONDS.toNanos(sliceMillis), rescheduleOnUnblock);
+    }
+  }
+
+  private static final Observer<AsyncTaskWrapper> LOGGING_OBSERVER = new Observer<AsyncTaskWrapper>() {
+    @Override
+    public void addTask(TaskHandle<AsyncTaskWrapper> task, int thread) {
+      logger.debug("task {} added to thread {}", task, thread);
+    }
+
+    @Override
+    public void rebalance(TaskHandle<AsyncTaskWrapper> task, int srcThread, int dstThread) {
+      logger.debug("task {} moved from thread {} to thread {}", task, srcThread, dstThread);
+    }
+
+    @Override
+    public void workRequestRejected(int thread) {
+      logger.trace("thread {} found no work to steal", thread);
+    }
+  };
+
+  private final MultiQueueTaskManager<AsyncTaskWrapper> manager;
+  private final Map<WorkloadClass, SchedulingGroup<AsyncTaskWrapper>> groups = new EnumMap<>(WorkloadClass.class);
+  private final List<SlicingThread> threads;
+
+  public SlicingTaskPool(int numThreads, long sliceNanos, boolean rescheduleOnUnblock) {
+    this.manager = new MultiQueueTaskManager<>(numThreads, rescheduleOnUnblock, LOGGING_OBSERVER);
+    for (WorkloadClass workloadClass : WorkloadClass.values()) {
+      groups.put(workloadClass, manager.newGroup(getWeight(workloadClass)));
+    }
+
+    final ImmutableList.Builder<SlicingThread> builder = ImmutableList.builder();
+    for (int i = 0; i < numThreads; i++) {
+      final SlicingThread thread = new SlicingThread(i, sliceNanos, manager);
+      builder.add(thread);
+      thread.start();
+    }
+    this.threads = builder.build();
+  }
+
+  /**
+   * @return the scheduling weight of a workload class, higher classes get a larger share of cpu time
+   */
+  static long getWeight(WorkloadClass workloadClass) {
+    switch (workloadClass) {
+    case REALTIME:
+      return TaskManager.MAX_WEIGHT;
+    case NRT:
+      return TaskManager.MAX_WEIGHT / 2;
+    case BACKGROUND:
+      return TaskManager.MAX_WEIGHT / 100;
+    case GENERAL:
+    default:
+      return TaskManager.MAX_WEIGHT / 10;
+    }
+  }
+
+  @Override
+  public void execute(AsyncTaskWrapper task) {
+    final FragmentPriority priority = task.getPriority();
+    final WorkloadClass workloadClass = priority.hasWorkloadClass() ? priority.getWorkloadClass() : WorkloadClass.GENERAL;
+    final TaskHandle<AsyncTaskWrapper> handle = groups.get(workloadClass).addTask(task, TaskManager.MAX_WEIGHT);
+    task.setTaskHandle(handle);
+  }
+
+  @Override
+  public Iterable<ThreadInfo> getSlicingThreads() {
+    return FluentIterable.from(threads).transform(new Function<SlicingThread, ThreadInfo>() {
+      @Override
+      public ThreadInfo apply(SlicingThread thread) {
+        return thread.getThreadInfo();
+      }
+    });
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (SlicingThread thread : threads) {
+      thread.shutdown();
+    }
+    for (SlicingThread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(1));
+    }
+  }
+}
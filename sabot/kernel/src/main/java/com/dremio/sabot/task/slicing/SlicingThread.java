@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.BlockRun;
+import com.dremio.sabot.task.Task.State;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import com.dremio.sabot.task.TaskManager.TaskProvider;
+import com.dremio.sabot.task.TaskManager.WakeUpListener;
+import com.dremio.sabot.task.TaskPool.ThreadInfo;
+
+/**
+ * An executing thread of the {@code SlicingTaskPool}. Repeatedly picks a task from its {@code TaskProvider} and runs
+ * it until it blocks, finishes or exhausts its time slice.
+ */
+class SlicingThread extends Thread implements WakeUpListener {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SlicingThread.class);
+
+  // upper bound of an idle period, so the thread periodically checks if it can steal work
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final int slicingThreadId;
+  private final long sliceNanos;
+  private final TaskProvider<AsyncTaskWrapper> provider;
+
+  private volatile boolean running = true;
+
+  SlicingThread(int slicingThreadId, long sliceNanos, MultiQueueTaskManager<AsyncTaskWrapper> manager) {
+    super("slicing-thread-" + slicingThreadId);
+    setDaemon(true);
+    this.slicingThreadId = slicingThreadId;
+    this.sliceNanos = sliceNanos;
+    this.provider = manager.getTaskProvider(slicingThreadId, this);
+  }
+
+  @Override
+  public void wakeUpIfIdle() {
+    LockSupport.unpark(this);
+  }
+
+  @Override
+  public void run() {
+    long lastScheduled = System.nanoTime();
+    TaskHandle<AsyncTaskWrapper> blocked = null;
+
+    while (running) {
+      final long now = System.nanoTime();
+      final TaskHandle<AsyncTaskWrapper> handle = provider.getTask(now - lastScheduled);
+      lastScheduled = now;
+
+      // only register the wake up callback once the provider accounted for the previous run, otherwise the task
+      // could be re-enqueued and picked by another thread while still being accounted for by this one
+      if (blocked != null) {
+        blocked.getTask().setAvailabilityCallback(new BlockRun(blocked));
+        blocked = null;
+      }
+
+      if (handle == null) {
+        LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        lastScheduled = System.nanoTime();
+        continue;
+      }
+
+      final AsyncTaskWrapper task = handle.getTask();
+      try {
+        runSlice(task, now);
+
+        switch (task.getState()) {
+        case BLOCKED_ON_DOWNSTREAM:
+        case BLOCKED_ON_UPSTREAM:
+        case BLOCKED_ON_SHARED_RESOURCE:
+          blocked = handle;
+          break;
+        case DONE:
+          task.getCleaner().close();
+          break;
+        case RUNNABLE:
+        default:
+          // time slice is over, the provider will re-enqueue the task
+          break;
+        }
+      } catch (Throwable t) {
+        logger.error("Unhandled Exception in Fragment Thread.", t);
+      }
+    }
+  }
+
+  private void runSlice(AsyncTaskWrapper task, long sliceStart) {
+    do {
+      task.run();
+    } while (running && task.getState() == State.RUNNABLE && System.nanoTime() - sliceStart < sliceNanos);
+  }
+
+  ThreadInfo getThreadInfo() {
+    return new ThreadInfo(getName(), slicingThreadId, (int) getId(), -1, provider.getNumTasks(),
+      provider.getNumStaged(), provider.getNumWorkRequests());
+  }
+
+  void shutdown() {
+    running = false;
+    interrupt();
+  }
+}
@@ -25,6 +25,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Provider;
 
@@ -43,6 +44,7 @@ import com.dremio.common.config.LogicalPlanPersistence;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.utils.SqlUtils;
+import com.dremio.datastore.KVStore;
 import com.dremio.datastore.KVStoreProvider;
 import com.dremio.datastore.LocalKVStoreProvider;
 import com.dremio.exec.catalog.conf.ConnectionConf;
@@ -59,6 +61,7 @@ import com.dremio.exec.store.StoragePlugin;
 import com.dremio.exec.store.StoragePluginRulesFactory;
 import com.dremio.exec.store.sys.SystemTablePluginConfigProvider;
 import com.dremio.exec.store.sys.store.provider.KVPersistentStoreProvider;
+import com.dremio.options.OptionValue;
 import com.dremio.service.DirectProvider;
 import com.dremio.service.coordinator.ClusterCoordinator;
 import com.dremio.service.coordinator.local.LocalClusterCoordinator;
@@ -76,6 +79,7 @@ import com.dremio.service.namespace.dataset.proto.PhysicalDataset;
 import com.dremio.service.namespace.dataset.proto.ReadDefinition;
 import com.dremio.service.namespace.source.proto.MetadataPolicy;
 import com.dremio.service.namespace.source.proto.SourceConfig;
+import com.dremio.service.namespace.source.proto.SourceInternalData;
 import com.dremio.service.namespace.source.proto.UpdateMode;
 import com.dremio.service.scheduler.LocalSchedulerService;
 import com.dremio.service.scheduler.SchedulerService;
@@ -101,6 +105,7 @@ public class TestCatalogServiceImpl {
   private static MockUpPlugin mockUpPlugin;
 
   private KVStoreProvider storeProvider;
+  private SystemOptionManager som;
   private NamespaceService namespaceService;
   private BufferAllocator allocator;
   private LocalClusterCoordinator clusterCoordinator;
@@ -140,7 +145,7 @@ public class TestCatalogServiceImpl {
     when(sabotContext.getLpPersistence())
         .thenReturn(lpp);
 
-    final SystemOptionManager som = new SystemOptionManager(CLASSPATH_SCAN_RESULT, lpp, psp);
+    som = new SystemOptionManager(CLASSPATH_SCAN_RESULT, lpp, psp);
     som.init();
     when(sabotContext.getOptionManager())
         .thenReturn(som);
@@ -303,6 +308,50 @@ public class TestCatalogServiceImpl {
     assertNoDatasetsAfterSourceDeletion();
   }
 
+  @Test
+  public void refreshSourceMetadata_ResumeInterruptedRefresh() throws Exception {
+    doMockDatasets(mockUpPlugin, mockDatasets);
+    catalogService.refreshSource(mockUpKey, CatalogService.REFRESH_EVERYTHING_NOW, CatalogService.UpdateType.FULL);
+
+    som.setOption(OptionValue.createLong(OptionValue.OptionType.SYSTEM,
+        CatalogOptions.METADATA_REFRESH_BATCH_SIZE.getOptionName(), 2));
+
+    // pretend a refresh was interrupted after checking the datasets of fld1
+    final KVStore<NamespaceKey, SourceInternalData> sourceDataStore =
+        storeProvider.getStore(CatalogSourceDataCreator.class);
+    final SourceInternalData srcData = sourceDataStore.get(mockUpKey);
+    srcData.setFullRefreshStartDateMs(System.currentTimeMillis())
+        .setFullRefreshCheckpoint(new NamespaceKey(SqlUtils.parseSchemaPath(MOCK_UP + ".fld1.ds12")).getSchemaPath());
+    sourceDataStore.put(mockUpKey, srcData);
+
+    final List<SourceTableDefinition> testDatasets = Lists.newArrayList();
+    testDatasets.add(newDataset(MOCK_UP + ".fld2.fld21.ds211"));
+    testDatasets.add(newDataset(MOCK_UP + ".fld2.ds22"));
+
+    final MetadataPolicy resumePolicy = new MetadataPolicy()
+        .setAuthTtlMs(0L)
+        .setDatasetUpdateMode(UpdateMode.PREFETCH)
+        .setNamesRefreshMs(0L)
+        .setDatasetDefinitionRefreshAfterMs(TimeUnit.HOURS.toMillis(1))
+        .setDatasetDefinitionExpireAfterMs(CatalogService.DEFAULT_EXPIRE_MILLIS);
+    doMockDatasets(mockUpPlugin, testDatasets);
+    catalogService.refreshSource(mockUpKey, resumePolicy, CatalogService.UpdateType.FULL);
+
+    // datasets before the checkpoint are not checked again, the others are
+    final List<NamespaceKey> actualDatasetKeys = Lists.newArrayList(namespaceService.getAllDatasets(mockUpKey));
+    assertDatasetsAreEqual(ImmutableList.of(
+        newDataset(MOCK_UP + ".fld1.ds11"),
+        newDataset(MOCK_UP + ".fld1.ds12"),
+        newDataset(MOCK_UP + ".fld2.fld21.ds211"),
+        newDataset(MOCK_UP + ".fld2.ds22")), actualDatasetKeys);
+    assertFoldersExist(Lists.newArrayList(MOCK_UP + ".fld1", MOCK_UP + ".fld2", MOCK_UP + ".fld2.fld21"));
+
+    // the refresh completed, so the next one starts over
+    assertEquals(null, sourceDataStore.get(mockUpKey).getFullRefreshCheckpoint());
+    catalogService.refreshSource(mockUpKey, resumePolicy, CatalogService.UpdateType.FULL);
+    assertDatasetsAreEqual(testDatasets, Lists.newArrayList(namespaceService.getAllDatasets(mockUpKey)));
+  }
+
   // Test whether name refresh will get new source dataset names, without refreshing the metadata for the datasets
   @Test
   public void refreshSourceNames() throws Exception {
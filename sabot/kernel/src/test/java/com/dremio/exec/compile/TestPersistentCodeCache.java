@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.exec.compile.ClassTransformer.ClassNames;
+
+/**
+ * Tests for {@code PersistentCodeCache}
+ */
+public class TestPersistentCodeCache {
+
+  private static final ClassNames CLASS_NAME = new ClassNames("org.apache.dremio.Generated");
+  private static final String SOURCE = "package org.apache.dremio; public class Generated {}";
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static ClassBytes[] classes() {
+    return new ClassBytes[] {
+        new ClassBytes("org.apache.dremio.Generated", new byte[] { 1, 2, 3 }),
+        new ClassBytes("org.apache.dremio.Generated$Inner", new byte[] { 4, 5 })
+    };
+  }
+
+  private static void assertSameClasses(ClassBytes[] expected, ClassBytes[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].getName(), actual[i].getName());
+      assertArrayEquals(expected[i].getBytes(), actual[i].getBytes());
+    }
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    final Path root = temporaryFolder.getRoot().toPath();
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0", 10, 0);
+    final String key = cache.getKey(CLASS_NAME, SOURCE, "janino", true);
+    assertNull(cache.get(key, CLASS_NAME));
+
+    cache.put(key, CLASS_NAME, classes());
+    assertSameClasses(classes(), cache.get(key, CLASS_NAME));
+
+    // a new instance, as after a restart, finds the entry on disk
+    final PersistentCodeCache restarted = new PersistentCodeCache(root, "1.0", 10, 0);
+    assertSameClasses(classes(), restarted.get(key, CLASS_NAME));
+  }
+
+  @Test
+  public void keys() {
+    final PersistentCodeCache cache = new PersistentCodeCache(temporaryFolder.getRoot().toPath(), "1.0", 10, 0);
+    final String key = cache.getKey(CLASS_NAME, SOURCE, "janino", true);
+    assertEquals(key, cache.getKey(CLASS_NAME, SOURCE, "janino", true));
+    assertNotEquals(key, cache.getKey(CLASS_NAME, SOURCE + " ", "janino", true));
+    assertNotEquals(key, cache.getKey(CLASS_NAME, SOURCE, "jdk", true));
+    assertNotEquals(key, cache.getKey(CLASS_NAME, SOURCE, "janino", false));
+
+    // the name of the generated class is not part of the key
+    assertEquals(cache.getKey(new ClassNames("org.apache.dremio.Gen1"), "package org.apache.dremio; class Gen1 {}", "janino", true),
+        cache.getKey(new ClassNames("org.apache.dremio.Gen2"), "package org.apache.dremio; class Gen2 {}", "janino", true));
+    assertNotEquals(cache.getKey(new ClassNames("org.apache.dremio.Gen1"), "package org.apache.dremio; class Gen1 {}", "janino", true),
+        cache.getKey(new ClassNames("org.apache.dremio.Gen1"), "package org.apache.dremio; class Gen12 {}", "janino", true));
+
+    final PersistentCodeCache otherVersion = new PersistentCodeCache(temporaryFolder.getRoot().toPath(), "2.0", 10, 0);
+    assertNotEquals(key, otherVersion.getKey(CLASS_NAME, SOURCE, "janino", true));
+  }
+
+  @Test
+  public void corruptedEntry() throws Exception {
+    final Path root = temporaryFolder.getRoot().toPath();
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0", 10, 0);
+    final String key = cache.getKey(CLASS_NAME, SOURCE, "janino", true);
+    cache.put(key, CLASS_NAME, classes());
+
+    final Path file = root.resolve("1.0").resolve(key);
+    Files.write(file, new byte[] { 0, 0 });
+    assertNull(cache.get(key, CLASS_NAME));
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  public void warmUp() throws Exception {
+    final Path root = temporaryFolder.getRoot().toPath();
+    final PersistentCodeCache oldCache = new PersistentCodeCache(root, "1.0", 10, 0);
+    oldCache.put(oldCache.getKey(CLASS_NAME, SOURCE, "janino", true), CLASS_NAME, classes());
+
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "2.0", 10, 0);
+    final String key = cache.getKey(CLASS_NAME, SOURCE, "janino", true);
+    cache.put(key, CLASS_NAME, classes());
+    Files.write(root.resolve("2.0").resolve(".tmp-partial"), new byte[] { 1 });
+
+    final PersistentCodeCache restarted = new PersistentCodeCache(root, "2.0", 10, 0);
+    assertEquals(1, restarted.warmUp());
+    assertFalse(Files.exists(root.resolve("1.0")));
+    assertFalse(Files.exists(root.resolve("2.0").resolve(".tmp-partial")));
+
+    // entries loaded during warm up are served from memory
+    Files.delete(root.resolve("2.0").resolve(key));
+    assertSameClasses(classes(), restarted.get(key, CLASS_NAME));
+    assertTrue(Files.isDirectory(root.resolve("2.0")));
+  }
+
+  @Test
+  public void renamedOnLoad() throws Exception {
+    final String source = "package org.apache.dremio;\n"
+        + "public class %1$s {\n"
+        + "  public static class Inner {\n"
+        + "    public %1$s outer = new %1$s();\n"
+        + "  }\n"
+        + "  public String name() {\n"
+        + "    return new Inner().outer.getClass().getName();\n"
+        + "  }\n"
+        + "}\n";
+    final ClassNames compiledName = new ClassNames("org.apache.dremio.Gen1");
+    final ClassBytes[] compiled = new JaninoClassCompiler(getClass().getClassLoader())
+        .getClassByteCode(compiledName, String.format(source, "Gen1"), true);
+
+    final Path root = temporaryFolder.getRoot().toPath();
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0", 10, 0);
+    cache.put(cache.getKey(compiledName, String.format(source, "Gen1"), "janino", true), compiledName, compiled);
+
+    // after a restart, the same source is generated under another name
+    final ClassNames requestedName = new ClassNames("org.apache.dremio.Gen2");
+    final PersistentCodeCache restarted = new PersistentCodeCache(root, "1.0", 10, 0);
+    final ClassBytes[] loaded = restarted.get(
+        restarted.getKey(requestedName, String.format(source, "Gen2"), "janino", true), requestedName);
+    assertEquals(compiled.length, loaded.length);
+
+    final BytesClassLoader classLoader = new BytesClassLoader(loaded);
+    final Class<?> clazz = classLoader.loadClass("org.apache.dremio.Gen2");
+    final Method name = clazz.getMethod("name");
+    assertEquals("org.apache.dremio.Gen2", name.invoke(clazz.newInstance()));
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() throws Exception {
+    final Path sizingRoot = temporaryFolder.newFolder("sizing").toPath();
+    new PersistentCodeCache(sizingRoot, "1.0", 10, 0).put("entry", CLASS_NAME, classes());
+    final long entrySize = Files.size(sizingRoot.resolve("1.0").resolve("entry"));
+
+    // room for three and a half entries
+    final Path root = temporaryFolder.newFolder("cache").toPath();
+    final PersistentCodeCache cache = new PersistentCodeCache(root, "1.0", 10, entrySize * 3 + entrySize / 2);
+    final Path directory = root.resolve("1.0");
+    final long now = System.currentTimeMillis();
+    for (int i = 1; i <= 3; i++) {
+      cache.put("key" + i, CLASS_NAME, classes());
+      Files.setLastModifiedTime(directory.resolve("key" + i), FileTime.fromMillis(now - 10000 + i * 1000));
+    }
+    // a hit makes key1 the most recently used entry
+    assertSameClasses(classes(), cache.get("key1", CLASS_NAME));
+
+    cache.put("key4", CLASS_NAME, classes());
+    assertTrue(Files.exists(directory.resolve("key1")));
+    assertFalse(Files.exists(directory.resolve("key2")));
+    assertTrue(Files.exists(directory.resolve("key3")));
+    assertTrue(Files.exists(directory.resolve("key4")));
+  }
+
+  private static final class BytesClassLoader extends ClassLoader {
+    private final ClassBytes[] classes;
+
+    private BytesClassLoader(ClassBytes[] classes) {
+      super(TestPersistentCodeCache.class.getClassLoader());
+      this.classes = classes;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      for (ClassBytes clazz : classes) {
+        if (clazz.getName().equals(name)) {
+          return defineClass(name, clazz.getBytes(), 0, clazz.getBytes().length);
+        }
+      }
+      throw new ClassNotFoundException(name);
+    }
+  }
+}
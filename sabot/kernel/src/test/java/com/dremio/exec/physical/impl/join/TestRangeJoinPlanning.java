@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.physical.impl.join;
+
+import org.junit.Test;
+
+import com.dremio.PlanTestBase;
+
+public class TestRangeJoinPlanning extends PlanTestBase {
+
+  private static final String RANGE_JOIN = "RangeJoin";
+  private static final String NESTED_LOOP_JOIN = "NestedLoopJoin";
+
+  private static final String DISABLE_RANGE_JOIN = "alter session set \"planner.enable_rangejoin\" = false";
+  private static final String RESET_RANGE_JOIN = "alter session reset \"planner.enable_rangejoin\"";
+  private static final String DISABLE_BROADCAST = "alter session set \"planner.enable_broadcast_join\" = false";
+  private static final String RESET_BROADCAST = "alter session reset \"planner.enable_broadcast_join\"";
+  private static final String NLJ_BASELINE = "alter session set \"planner.enable_rangejoin\" = false; " +
+      "alter session set \"planner.enable_nljoin_for_scalar_only\" = false";
+  private static final String RESET_NLJ_BASELINE = "alter session reset \"planner.enable_rangejoin\"; " +
+      "alter session reset \"planner.enable_nljoin_for_scalar_only\"";
+
+  // n1.n_nationkey BETWEEN n2.n_regionkey AND n2.n_nationkey is the band
+  private static final String BETWEEN = "select n1.n_nationkey as k1, n2.n_nationkey as k2 " +
+      "from cp.\"tpch/nation.parquet\" n1 inner join cp.\"tpch/nation.parquet\" n2 " +
+      "on n1.n_nationkey between n2.n_regionkey and n2.n_nationkey";
+
+  private static final String BETWEEN_WITH_FILTER = BETWEEN + " and n1.n_regionkey <> n2.n_regionkey";
+
+  @Test
+  public void between() throws Exception {
+    testPlanMatchingPatterns(BETWEEN, new String[]{RANGE_JOIN}, new String[]{NESTED_LOOP_JOIN});
+
+    testBuilder()
+        .sqlQuery(BETWEEN)
+        .unOrdered()
+        .sqlBaselineQuery(BETWEEN)
+        .optionSettingQueriesForBaseline(NLJ_BASELINE)
+        .go();
+    test(RESET_NLJ_BASELINE);
+  }
+
+  @Test
+  public void betweenWithRemainingCondition() throws Exception {
+    // the conjunct that isn't part of the band is applied by a filter on top of the range join
+    testPlanMatchingPatterns(BETWEEN_WITH_FILTER, new String[]{"Filter.*\\n.*" + RANGE_JOIN},
+        new String[]{NESTED_LOOP_JOIN});
+
+    testBuilder()
+        .sqlQuery(BETWEEN_WITH_FILTER)
+        .unOrdered()
+        .sqlBaselineQuery(BETWEEN_WITH_FILTER)
+        .optionSettingQueriesForBaseline(NLJ_BASELINE)
+        .go();
+    test(RESET_NLJ_BASELINE);
+  }
+
+  @Test
+  public void rangeJoinDisabled() throws Exception {
+    test(DISABLE_RANGE_JOIN);
+    try {
+      errorMsgTestHelper(BETWEEN,
+          "This query cannot be planned possibly due to either a cartesian join or an inequality join");
+    } finally {
+      test(RESET_RANGE_JOIN);
+    }
+  }
+
+  @Test
+  public void broadcastDisabled() throws Exception {
+    // the range join broadcasts its right input, so the band join can't be planned as one
+    test(DISABLE_BROADCAST);
+    try {
+      errorMsgTestHelper(BETWEEN,
+          "This query cannot be planned possibly due to either a cartesian join or an inequality join");
+    } finally {
+      test(RESET_BROADCAST);
+    }
+  }
+}
@@ -36,6 +36,7 @@ import org.junit.Test;
 
 import com.dremio.common.logical.data.NamedExpression;
 import com.dremio.common.logical.data.Order;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.config.WindowPOP;
 import com.dremio.exec.physical.config.WindowPOP.Bound;
 import com.dremio.sabot.BaseTestOperator;
@@ -106,6 +107,14 @@ public class TestWindowOperator extends BaseTestOperator {
     runTests(dataB4P4(true), dataB4P4(false));
   }
 
+  @Test
+  public void testB4P4Spill() throws Exception {
+    try(AutoCloseable enable = with(ExecConstants.WINDOW_SPILL_ENABLE, true);
+        AutoCloseable ratio = with(ExecConstants.WINDOW_SPILL_MEMORY_RATIO, 0)){
+      runTests(dataB4P4(true), dataB4P4(false));
+    }
+  }
+
   @Test // DRILL-4657
   public void test4657() throws Exception {
     // SELECT row_number() OVER(ORDER BY position_id) rn, rank() OVER(ORDER BY position_id) rnk FROM dfs.\"%s/window/b3.p2\"
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.sql.handlers.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.exec.catalog.Catalog;
+import com.dremio.exec.catalog.DremioTable;
+import com.dremio.exec.ops.QueryContext;
+import com.dremio.exec.planner.sql.MaterializationDescriptor;
+import com.dremio.exec.planner.sql.handlers.commands.HandlerToPreparePlan.RecordingObserver;
+import com.dremio.exec.server.MaterializationDescriptorProvider;
+import com.dremio.service.namespace.NamespaceKey;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for {@link PlanCache}
+ */
+public class TestPlanCache {
+  private static final NamespaceKey DATASET = new NamespaceKey(ImmutableList.of("space", "ds"));
+
+  private QueryContext context;
+  private DremioTable table;
+  private List<MaterializationDescriptor> materializations;
+
+  @Before
+  public void setup() {
+    table = mock(DremioTable.class);
+    when(table.getPath()).thenReturn(DATASET);
+    when(table.getVersion()).thenReturn(1L);
+
+    final Catalog catalog = mock(Catalog.class);
+    when(catalog.getTable(DATASET)).thenReturn(table);
+
+    materializations = ImmutableList.of();
+    context = mock(QueryContext.class);
+    when(context.getCatalog()).thenReturn(catalog);
+    when(context.getMaterializationProvider()).thenReturn(new MaterializationDescriptorProvider() {
+      @Override
+      public List<MaterializationDescriptor> get() {
+        return materializations;
+      }
+    });
+  }
+
+  private PlanCache.Capture plan(PlanCache cache, DremioTable... tables) {
+    final PlanCache.Capture capture = cache.newCapture(context);
+    capture.tablesCollected(ImmutableList.copyOf(tables));
+    return capture;
+  }
+
+  private static PreparedPlan newPlan() {
+    return new PreparedPlan(null, "user", "select * from space.ds", null, new RecordingObserver());
+  }
+
+  @Test
+  public void normalizedSql() {
+    assertEquals("select * from t where a = 'x  y'",
+        PlanCache.normalizeSql("  select *\n from   t\twhere a = 'x  y' ; "));
+    assertEquals("select \"a  b\" from t", PlanCache.normalizeSql("select \"a  b\"  from t;;"));
+  }
+
+  @Test
+  public void datasetChanged() {
+    final PlanCache cache = new PlanCache(10, TimeUnit.HOURS.toMillis(1));
+    final PreparedPlan plan = newPlan();
+
+    assertNull(cache.get("key", context));
+    cache.put("key", plan, plan(cache, table));
+    assertSame(plan, cache.get("key", context));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    // metadata of the dataset was refreshed
+    when(table.getVersion()).thenReturn(2L);
+    assertNull(cache.get("key", context));
+    assertEquals(0, cache.size());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void materializationsChanged() {
+    final PlanCache cache = new PlanCache(10, TimeUnit.HOURS.toMillis(1));
+    final PreparedPlan plan = newPlan();
+    cache.put("key", plan, plan(cache, table));
+
+    final MaterializationDescriptor materialization = mock(MaterializationDescriptor.class);
+    when(materialization.getMaterializationId()).thenReturn("m1");
+    materializations = ImmutableList.of(materialization);
+    assertNull(cache.get("key", context));
+
+    // planned with the new materialization
+    cache.put("key", plan, plan(cache, table));
+    assertSame(plan, cache.get("key", context));
+  }
+
+  @Test
+  public void notCacheable() {
+    final PlanCache cache = new PlanCache(10, TimeUnit.HOURS.toMillis(1));
+
+    // no tables collected, the plan can't be validated
+    cache.put("key", newPlan(), cache.newCapture(context));
+    assertEquals(0, cache.size());
+
+    // dataset without a version
+    final DremioTable unversioned = mock(DremioTable.class);
+    when(unversioned.getPath()).thenReturn(new NamespaceKey(ImmutableList.of("sys", "options")));
+    when(unversioned.getVersion()).thenReturn(-1L);
+    cache.put("key", newPlan(), plan(cache, table, unversioned));
+    assertEquals(0, cache.size());
+  }
+}
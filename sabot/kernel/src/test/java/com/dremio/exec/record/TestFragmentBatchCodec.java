@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.record;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.types.Types.MinorType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.Test;
+
+import com.dremio.exec.proto.ExecRPC.BatchCodec;
+import com.dremio.exec.proto.UserBitShared.QueryId;
+import com.dremio.sabot.op.receiver.RawFragmentBatch;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Tests for {@code FragmentBatchCodec}
+ */
+public class TestFragmentBatchCodec {
+  private static final int RECORDS = 4096;
+
+  private static FragmentWritableBatch newBatch(VectorContainer container) {
+    return FragmentWritableBatch.create(QueryId.getDefaultInstance(), 0, 0, 0, container, 0);
+  }
+
+  /**
+   * Copies the buffers of a batch into a single body, as the receiver gets it.
+   */
+  private static RawFragmentBatch receive(BufferAllocator allocator, FragmentWritableBatch batch) {
+    final ArrowBuf body = allocator.buffer((int) batch.getByteCount());
+    for (ByteBuf buf : batch.getBuffers()) {
+      body.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+      buf.release();
+    }
+    final RawFragmentBatch rawBatch = new RawFragmentBatch(batch.getHeader(), body, null);
+    body.release();
+    return rawBatch;
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+         VectorContainer container = new VectorContainer(allocator)) {
+      final BigIntVector vector = container.addOrGet(
+          new Field("a", true, MinorType.BIGINT.getType(), null));
+      vector.allocateNew(RECORDS);
+      for (int i = 0; i < RECORDS; i++) {
+        if (i % 10 != 0) {
+          vector.set(i, i % 7);
+        }
+      }
+      container.setAllCount(RECORDS);
+      container.buildSchema();
+
+      final FragmentBatchCodec codec = new FragmentBatchCodec(allocator, BatchCodec.SNAPPY, 0.9);
+      final FragmentWritableBatch batch = codec.compress(newBatch(container));
+      assertTrue(batch.isCompressed());
+      assertEquals(1, batch.getBuffers().length);
+      assertEquals(batch.getByteCount(), codec.getCompressedBytes());
+      assertTrue(codec.getCompressedBytes() < codec.getUncompressedBytes() / 2);
+
+      try (ArrowRecordBatchLoader loader = new ArrowRecordBatchLoader(allocator, container.getSchema());
+           RawFragmentBatch rawBatch = receive(allocator, batch)) {
+        assertEquals(codec.getUncompressedBytes(), loader.load(rawBatch));
+        assertEquals(RECORDS, loader.getRecordCount());
+        final BigIntVector loaded = (BigIntVector) loader.iterator().next().getValueVector();
+        for (int i = 0; i < RECORDS; i++) {
+          if (i % 10 != 0) {
+            assertEquals(i % 7, loaded.get(i));
+          } else {
+            assertTrue(loaded.isNull(i));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void incompressible() throws Exception {
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+         VectorContainer container = new VectorContainer(allocator)) {
+      final VarBinaryVector vector = container.addOrGet(
+          new Field("a", true, MinorType.VARBINARY.getType(), null));
+      final Random random = new Random(0);
+      final byte[] value = new byte[64];
+      vector.allocateNew(RECORDS * value.length, RECORDS);
+      for (int i = 0; i < RECORDS; i++) {
+        random.nextBytes(value);
+        vector.setSafe(i, value);
+      }
+      container.setAllCount(RECORDS);
+      container.buildSchema();
+
+      final FragmentBatchCodec codec = new FragmentBatchCodec(allocator, BatchCodec.SNAPPY, 0.9);
+      final FragmentWritableBatch batch = newBatch(container);
+      assertSame(batch, codec.compress(batch));
+      assertEquals(codec.getUncompressedBytes(), codec.getCompressedBytes());
+      final long attempted = codec.getUncompressedBytes();
+      assertEquals(batch.getByteCount(), attempted);
+
+      // the next batch is not even attempted
+      final FragmentWritableBatch next = newBatch(container);
+      assertSame(next, codec.compress(next));
+      assertEquals(attempted, codec.getUncompressedBytes());
+
+      // uncompressed batches are still loaded as is
+      try (ArrowRecordBatchLoader loader = new ArrowRecordBatchLoader(allocator, container.getSchema());
+           RawFragmentBatch rawBatch = receive(allocator, batch)) {
+        assertFalse(batch.isCompressed());
+        assertEquals(attempted, loader.load(rawBatch));
+        assertEquals(RECORDS, loader.getRecordCount());
+      }
+      for (ByteBuf buf : next.getBuffers()) {
+        buf.release();
+      }
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.dfs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+/**
+ * Tests for {@code BlockCache}, with the local filesystem standing in for a remote object store.
+ */
+public class TestBlockCache {
+  private static final int BLOCK_SIZE = 16;
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private FileSystemWrapper fs;
+  private File cacheDirectory;
+  private File file;
+  private byte[] data;
+
+  @Before
+  public void setup() throws Exception {
+    Configuration conf = new Configuration();
+    conf.set(FileSystem.FS_DEFAULT_NAME_KEY, "file:///");
+    fs = new FileSystemWrapper(conf, null, null);
+
+    cacheDirectory = new File(tempFolder.getRoot(), "cache");
+    file = tempFolder.newFile("data.bin");
+    data = newData(100, 0);
+    Files.write(data, file);
+  }
+
+  private static byte[] newData(int length, int seed) {
+    final byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) (i + seed);
+    }
+    return bytes;
+  }
+
+  private BlockCache newCache(long maxSize) {
+    return new BlockCache(ImmutableList.of(cacheDirectory), maxSize, BLOCK_SIZE, ImmutableList.of("file"));
+  }
+
+  private static byte[] readAll(FileSystem fs, Path path, int length) throws Exception {
+    final byte[] bytes = new byte[length];
+    try (FSDataInputStream is = fs.open(path)) {
+      int read = 0;
+      while (read < length) {
+        final int res = is.read(bytes, read, length - read);
+        if (res == -1) {
+          break;
+        }
+        read += res;
+      }
+      assertEquals(length, read);
+      assertEquals(-1, is.read());
+    }
+    return bytes;
+  }
+
+  @Test
+  public void schemes() throws Exception {
+    assertSame(fs, fs.withBlockCache(null));
+    assertFalse(fs.isBlockCached());
+    final BlockCache otherSchemes = new BlockCache(ImmutableList.of(cacheDirectory), 1024, BLOCK_SIZE, ImmutableList.of("dremioS3"));
+    assertFalse(fs.withBlockCache(otherSchemes).isBlockCached());
+    assertTrue(fs.withBlockCache(newCache(1024)).isBlockCached());
+  }
+
+  @Test
+  public void readThrough() throws Exception {
+    final BlockCache cache = newCache(1024);
+    final FileSystemWrapper cachedFs = fs.withBlockCache(cache);
+    final Path path = new Path(file.toURI());
+
+    assertArrayEquals(data, readAll(cachedFs, path, data.length));
+    assertEquals(0, cache.getHits());
+    assertEquals(7, cache.getMisses());
+
+    // the second read is served from the cache
+    assertArrayEquals(data, readAll(cachedFs, path, data.length));
+    assertEquals(7, cache.getHits());
+    assertEquals(7, cache.getMisses());
+
+    // positioned reads crossing block boundaries
+    try (FSDataInputStream is = cachedFs.open(path)) {
+      final byte[] bytes = new byte[40];
+      is.readFully(10, bytes);
+      assertArrayEquals(Arrays.copyOfRange(data, 10, 50), bytes);
+
+      is.seek(95);
+      assertEquals(5, is.read(bytes, 0, 40));
+      assertArrayEquals(Arrays.copyOfRange(data, 95, 100), Arrays.copyOfRange(bytes, 0, 5));
+      assertEquals(-1, is.read(bytes, 0, 40));
+    }
+    assertEquals(7, cache.getMisses());
+  }
+
+  @Test
+  public void rewrittenFile() throws Exception {
+    final BlockCache cache = newCache(1024);
+    final FileSystemWrapper cachedFs = fs.withBlockCache(cache);
+    final Path path = new Path(file.toURI());
+    assertArrayEquals(data, readAll(cachedFs, path, data.length));
+
+    final byte[] newData = newData(50, 7);
+    Files.write(newData, file);
+    assertTrue(file.setLastModified(file.lastModified() + 10000));
+    assertArrayEquals(newData, readAll(cachedFs, path, newData.length));
+  }
+
+  @Test
+  public void quota() throws Exception {
+    // room for two blocks only
+    final BlockCache cache = newCache(2 * BLOCK_SIZE);
+    final FileSystemWrapper cachedFs = fs.withBlockCache(cache);
+    assertArrayEquals(data, readAll(cachedFs, new Path(file.toURI()), data.length));
+
+    final File[] blocks = new File(cacheDirectory, BlockCache.SUBDIRECTORY).listFiles();
+    assertTrue(blocks.length <= 2);
+  }
+
+  @Test
+  public void sharedDirectory() throws Exception {
+    assertTrue(cacheDirectory.mkdirs());
+    final File other = new File(cacheDirectory, "other.bin");
+    Files.write(data, other);
+
+    final FileSystemWrapper cachedFs = fs.withBlockCache(newCache(1024));
+    assertArrayEquals(data, readAll(cachedFs, new Path(file.toURI()), data.length));
+    newCache(1024);
+
+    // files the cache didn't create are left alone
+    assertArrayEquals(data, Files.toByteArray(other));
+  }
+
+  @Test
+  public void preferredEndpoint() {
+    final NodeEndpoint a = NodeEndpoint.newBuilder().setAddress("a").setFabricPort(1).build();
+    final NodeEndpoint b = NodeEndpoint.newBuilder().setAddress("b").setFabricPort(1).build();
+    final NodeEndpoint c = NodeEndpoint.newBuilder().setAddress("c").setFabricPort(1).build();
+
+    final NodeEndpoint preferred = BlockCache.getPreferredEndpoint("/bucket/file.parquet", ImmutableList.of(a, b, c));
+    assertEquals(preferred, BlockCache.getPreferredEndpoint("/bucket/file.parquet", ImmutableList.of(c, b, a)));
+    assertEquals(null, BlockCache.getPreferredEndpoint("/bucket/file.parquet", Collections.<NodeEndpoint>emptyList()));
+
+    // removing another executor doesn't move the file
+    for (NodeEndpoint other : ImmutableList.of(a, b, c)) {
+      if (!other.equals(preferred)) {
+        final ImmutableList.Builder<NodeEndpoint> remaining = ImmutableList.builder();
+        for (NodeEndpoint endpoint : ImmutableList.of(a, b, c)) {
+          if (!endpoint.equals(other)) {
+            remaining.add(endpoint);
+          }
+        }
+        assertEquals(preferred, BlockCache.getPreferredEndpoint("/bucket/file.parquet", remaining.build()));
+      }
+    }
+  }
+}
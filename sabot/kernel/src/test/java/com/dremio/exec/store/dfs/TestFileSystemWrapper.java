@@ -15,15 +15,24 @@
  */
 package com.dremio.exec.store.dfs;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -126,4 +135,109 @@ public class TestFileSystemWrapper {
     OperatorProfile operatorProfile = stats.getProfile();
     assertTrue("Expected wait time is non-zero, but got zero wait time", operatorProfile.getWaitNanos() > 0);
   }
+
+  private static List<FileStatus> listRecursive(Configuration conf, File root) throws Exception {
+    conf.set(FileSystem.FS_DEFAULT_NAME_KEY, "file:///");
+    final FileSystemWrapper dfs = new FileSystemWrapper(conf, FileSystem.getLocal(conf));
+    return dfs.listRecursive(new Path(root.toURI()), false);
+  }
+
+  @Test
+  public void testListRecursiveBoundsConcurrentListings() throws Exception {
+    final File root = tempFolder.newFolder("boundedListing");
+    for (int i = 0; i < 10; i++) {
+      for (int j = 0; j < 2; j++) {
+        final File dir = new File(root, "a=" + i + "/b=" + j);
+        assertTrue(dir.mkdirs());
+        assertTrue(new File(dir, "0.parquet").createNewFile());
+      }
+    }
+
+    final Configuration conf = new Configuration();
+    conf.set(FileSystem.FS_DEFAULT_NAME_KEY, "file:///");
+    conf.setInt(FileSystemWrapper.LISTING_PARALLELISM_KEY, 3);
+    final CountingFileSystem fs = new CountingFileSystem(FileSystem.getLocal(conf));
+    final List<FileStatus> statuses = new FileSystemWrapper(conf, fs).listRecursive(new Path(root.toURI()), false);
+
+    final Configuration sequential = new Configuration();
+    sequential.setInt(FileSystemWrapper.LISTING_PARALLELISM_KEY, 1);
+    assertEquals(listRecursive(sequential, root), statuses);
+    assertTrue("Listed " + fs.maxListings.get() + " directories at once", fs.maxListings.get() <= 3);
+  }
+
+  /**
+   * Local filesystem keeping track of the number of directories listed at once.
+   */
+  private static final class CountingFileSystem extends FilterFileSystem {
+    private final AtomicInteger listings = new AtomicInteger();
+    private final AtomicInteger maxListings = new AtomicInteger();
+
+    private CountingFileSystem(FileSystem fs) {
+      super(fs);
+    }
+
+    @Override
+    public FileStatus[] listStatus(Path path) throws IOException {
+      final int current = listings.incrementAndGet();
+      try {
+        int max = maxListings.get();
+        while (current > max && !maxListings.compareAndSet(max, current)) {
+          max = maxListings.get();
+        }
+        // keep the listing in flight long enough for the others to overlap
+        Thread.sleep(10);
+        return super.listStatus(path);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      } finally {
+        listings.decrementAndGet();
+      }
+    }
+  }
+
+  private static Set<String> paths(List<FileStatus> statuses) {
+    final Set<String> paths = new HashSet<>();
+    for (FileStatus status : statuses) {
+      paths.add(Path.getPathWithoutSchemeAndAuthority(status.getPath()).toString() + (status.isDirectory() ? "/" : ""));
+    }
+    return paths;
+  }
+
+  @Test
+  public void testListRecursive() throws Exception {
+    final File root = tempFolder.newFolder("listing");
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 3; j++) {
+        final File dir = new File(root, "a=" + i + "/b=" + j);
+        assertTrue(dir.mkdirs());
+        assertTrue(new File(dir, "0.parquet").createNewFile());
+        assertTrue(new File(dir, "_SUCCESS").createNewFile());
+      }
+      assertTrue(new File(root, "a=" + i + "/.hidden").mkdirs());
+      assertTrue(new File(root, "a=" + i + "/.hidden/1.parquet").createNewFile());
+    }
+
+    final Configuration sequential = new Configuration();
+    sequential.setInt(FileSystemWrapper.LISTING_PARALLELISM_KEY, 1);
+    final List<FileStatus> expected = listRecursive(sequential, root);
+    // root, 5 + 15 directories and 15 files
+    assertEquals(36, expected.size());
+
+    final Configuration parallel = new Configuration();
+    parallel.setInt(FileSystemWrapper.LISTING_PARALLELISM_KEY, 4);
+    assertEquals(expected, listRecursive(parallel, root));
+
+    final Configuration flat = new Configuration();
+    flat.set(FileSystemWrapper.FLAT_LISTING_SCHEMES_KEY, "file");
+    final List<FileStatus> flatStatuses = listRecursive(flat, root);
+    assertEquals(paths(expected), paths(flatStatuses));
+    for (int i = 0; i < flatStatuses.size(); i++) {
+      // directories come before their content
+      final Path parent = flatStatuses.get(i).getPath().getParent();
+      for (int j = i + 1; j < flatStatuses.size(); j++) {
+        assertFalse(flatStatuses.get(j).getPath().equals(parent));
+      }
+    }
+  }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+/**
+ * Tests for {@code ParquetFooterCache}
+ */
+public class TestParquetFooterCache {
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private FileSystem fs;
+  private Path file;
+
+  @Before
+  public void setup() throws Exception {
+    fs = FileSystem.getLocal(new Configuration());
+    final File copy = temporaryFolder.newFile("region.parquet");
+    Files.write(Resources.toByteArray(Resources.getResource("dremio-region-210.parquet")), copy);
+    file = new Path(copy.toURI());
+  }
+
+  @Test
+  public void cachedByStatus() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final ParquetMetadata footer = cache.getFooter(fs, fs.getFileStatus(file));
+    assertSame(footer, cache.getFooter(fs, fs.getFileStatus(file)));
+
+    // a rewritten file gets a new footer
+    fs.setTimes(file, fs.getFileStatus(file).getModificationTime() + 10000, -1);
+    final ParquetMetadata updated = cache.getFooter(fs, fs.getFileStatus(file));
+    assertNotSame(footer, updated);
+    assertEquals(footer.getBlocks().size(), updated.getBlocks().size());
+  }
+
+  @Test
+  public void cachedByStream() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final FileStatus status = fs.getFileStatus(file);
+    try (FSDataInputStream is = fs.open(file)) {
+      final ParquetMetadata footer = cache.getFooter(is, file.toString(), status.getLen(), status.getModificationTime(), fs);
+      assertSame(footer, cache.getFooter(is, file.toString(), status.getLen(), status.getModificationTime(), fs));
+      // same file, seen through its status
+      assertSame(footer, cache.getFooter(fs, status));
+
+      // unknown modification time bypasses the cache
+      assertNotSame(footer, cache.getFooter(is, file.toString(), status.getLen(), null, fs));
+    }
+  }
+
+  @Test
+  public void evicted() throws Exception {
+    // too small to hold any footer
+    final ParquetFooterCache cache = new ParquetFooterCache(1);
+    final FileStatus status = fs.getFileStatus(file);
+    assertNotSame(cache.getFooter(fs, status), cache.getFooter(fs, status));
+  }
+}
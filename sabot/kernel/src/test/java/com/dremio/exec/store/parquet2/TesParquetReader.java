@@ -37,7 +37,7 @@ import org.junit.Test;
 import com.dremio.BaseTestQuery;
 import com.dremio.common.arrow.DremioArrowSchema;
 import com.dremio.exec.planner.physical.PlannerSettings;
-import com.dremio.exec.store.parquet.SingletonParquetFooterCache;
+import com.dremio.exec.store.parquet.ParquetFooterCache;
 
 public class TesParquetReader extends BaseTestQuery {
   // enable decimal data type
@@ -104,7 +104,7 @@ public class TesParquetReader extends BaseTestQuery {
     URL parquet205 = getClass().getResource("/dremio-region-205.parquet");
     Path filePath = new Path(parquet205.toURI());
     ParquetMetadata parquetMetadata =
-      SingletonParquetFooterCache.readFooter(localFs, filePath, ParquetMetadataConverter.NO_FILTER);
+      ParquetFooterCache.readFooter(localFs, filePath, ParquetMetadataConverter.NO_FILTER);
     Map<String, String> metadata = parquetMetadata.getFileMetaData().getKeyValueMetaData();
 
     // should have DREMIO_ARROW_SCHEMA field, but no DREMIO_ARROW_SCHEMA_2_1
@@ -121,7 +121,7 @@ public class TesParquetReader extends BaseTestQuery {
     URL parquet210 = getClass().getResource("/dremio-region-210.parquet");
     Path filePath210 = new Path(parquet210.toURI());
     ParquetMetadata parquetMetadata210 =
-      SingletonParquetFooterCache.readFooter(localFs, filePath210, ParquetMetadataConverter.NO_FILTER);
+      ParquetFooterCache.readFooter(localFs, filePath210, ParquetMetadataConverter.NO_FILTER);
     Map<String, String> metadata210 = parquetMetadata210.getFileMetaData().getKeyValueMetaData();
 
     // should not have DREMIO_ARROW_SCHEMA field, but should have DREMIO_ARROW_SCHEMA_2_1
@@ -139,7 +139,7 @@ public class TesParquetReader extends BaseTestQuery {
 
     Path filePathBad = new Path(badparquet.toURI());
     ParquetMetadata parquetMetadataBad =
-      SingletonParquetFooterCache.readFooter(localFs, filePathBad, ParquetMetadataConverter.NO_FILTER);
+      ParquetFooterCache.readFooter(localFs, filePathBad, ParquetMetadataConverter.NO_FILTER);
     Map<String, String> metadataBad = parquetMetadataBad.getFileMetaData().getKeyValueMetaData();
 
     // should have DREMIO_ARROW_SCHEMA field, but no DREMIO_ARROW_SCHEMA_2_1
@@ -233,7 +233,7 @@ public class BaseTestOperator extends ExecTest {
         pop.getMaxAllocation() == 0 ? Long.MAX_VALUE : pop.getMaxAllocation());
 
     // we don't close child allocator as the operator context will manage this.
-    final OperatorContextImpl context = testContext.getNewOperatorContext(childAllocator, pop, targetBatchSize);
+    final OperatorContextImpl context = testContext.getNewOperatorContext(childAllocator, pop, targetBatchSize, tunnelProvider);
     testCloseables.add(context);
 
     // mock FEC
@@ -309,6 +309,10 @@ public class BaseTestOperator extends ExecTest {
     }
 
     protected OperatorContextImpl getNewOperatorContext(BufferAllocator child, PhysicalOperator pop, int targetBatchSize) throws Exception {
+      return getNewOperatorContext(child, pop, targetBatchSize, null);
+    }
+
+    protected OperatorContextImpl getNewOperatorContext(BufferAllocator child, PhysicalOperator pop, int targetBatchSize, TunnelProvider tunnelProvider) throws Exception {
       OperatorStats stats = new OperatorStats(new OpProfileDef(1, 1, 1), child);
       final NamespaceService namespaceService = new NamespaceServiceImpl(testContext.storeProvider);
       final FragmentHandle handle = FragmentHandle.newBuilder()
@@ -331,7 +335,9 @@ public class BaseTestOperator extends ExecTest {
           options,
           namespaceService,
           NodeDebugContextProvider.NOOP,
-          targetBatchSize);
+          targetBatchSize,
+          NodeEndpoint.getDefaultInstance(),
+          tunnelProvider);
     }
 
     public ClassProducer newClassProducer(BufferManager bufferManager) {
@@ -574,6 +580,24 @@ public class BaseTestOperator extends ExecTest {
       int batchSize,
       Table result,
       boolean isProduceRequired) throws Exception {
+    validateDual(pop, clazz, left, right, batchSize, result, isProduceRequired, null);
+  }
+
+  /**
+   * Check whether a dual input operator with the provided generators produces the expected output, giving the
+   * operator the provided tunnel provider
+   *
+   * @return the operator, closed when the test finishes
+   */
+  protected <T extends DualInputOperator> T validateDual(
+      PhysicalOperator pop,
+      Class<T> clazz,
+      Generator left,
+      Generator right,
+      int batchSize,
+      Table result,
+      boolean isProduceRequired,
+      TunnelProvider tunnelProvider) throws Exception {
 
     final List<RecordBatchData> data = new ArrayList<>();
     try(
@@ -582,7 +606,7 @@ public class BaseTestOperator extends ExecTest {
         ){
 
       // op is added to closeable list and will be closed when test finished. no need to close here.
-      T op = newOperator(clazz, pop, batchSize);
+      T op = newOperator(clazz, pop, batchSize, tunnelProvider);
 
       final VectorAccessible output = op.setup(leftGen.getOutput(), right.getOutput());
 
@@ -624,6 +648,7 @@ public class BaseTestOperator extends ExecTest {
         data.add(new RecordBatchData(output, getTestAllocator()));
       }
       result.checkValid(data);
+      return op;
 
     } finally {
       AutoCloseables.close(data);
@@ -466,6 +466,32 @@ public class TestHashAgg extends BaseTestOperator {
     }
   }
 
+  @Test
+  public void largeSumWithSpill() throws Exception {
+    final List<NamedExpression> dim = Arrays.asList(n("c_mktsegment"));
+    final List<NamedExpression> measure = Arrays.asList(
+        n("sum(c_acctbal)", "sum"),
+        n("count(1)", "cnt")
+        );
+
+    final Table expected = t(
+        th("c_mktsegment", "sum", "cnt"),
+        tr("BUILDING", 13588862194l, 30142l),
+        tr("AUTOMOBILE", 13386684709l, 29752l),
+        tr("MACHINERY", 13443886167l, 29949l),
+        tr("HOUSEHOLD", 13587334117l, 30189l),
+        tr("FURNITURE", 13425917787l, 29968l)
+        );
+
+    final HashAggregate conf = new HashAggregate(null, dim, measure, true, 1f);
+    try(AutoCloseable enable = with(ExecConstants.VECTORIZED_HASHAGG_SPILL_ENABLE, true);
+        AutoCloseable ratio = with(ExecConstants.VECTORIZED_HASHAGG_SPILL_MEMORY_RATIO, 0);
+        AutoCloseable partitions = with(ExecConstants.VECTORIZED_HASHAGG_SPILL_PARTITIONS, 4);
+        AutoCloseable depth = with(ExecConstants.VECTORIZED_HASHAGG_SPILL_MAX_DEPTH, 2)){
+      validateSingle(conf, VectorizedHashAggOperator.class, TpchGenerator.singleGenerator(TpchTable.CUSTOMER, 1, allocator), expected, 1000);
+    }
+  }
+
   @Test
   public void decimalWork() throws Exception {
     final Table inputData = t(
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.exec;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.proto.UserBitShared.QueryId;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.op.spi.Operator.ShrinkableOperator;
+
+/**
+ * Unit test of MemoryArbiter
+ */
+public class TestMemoryArbiter {
+  private static final FragmentHandle HANDLE = FragmentHandle.newBuilder()
+      .setQueryId(QueryId.newBuilder().setPart1(1).setPart2(2))
+      .setMajorFragmentId(1)
+      .setMinorFragmentId(0)
+      .build();
+
+  private BufferAllocator allocator;
+  private MemoryArbiter arbiter;
+  // shrink requests handed to the fragment threads
+  private final List<Runnable> requests = new ArrayList<>();
+  private final Executor fragmentExecutor = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      requests.add(command);
+    }
+  };
+
+  @Before
+  public void setup() {
+    allocator = mock(BufferAllocator.class);
+    when(allocator.getLimit()).thenReturn(1000L);
+
+    final OptionManager options = mock(OptionManager.class);
+    when(options.getOption(ExecConstants.MEMORY_ARBITER_ENABLE)).thenReturn(true);
+    when(options.getOption(ExecConstants.MEMORY_ARBITER_SPILL_RATIO)).thenReturn(0.9);
+    when(options.getOption(ExecConstants.MEMORY_ARBITER_TARGET_RATIO)).thenReturn(0.5);
+    arbiter = new MemoryArbiter(allocator, options);
+  }
+
+  private static ShrinkableOperator operator(long shrinkable) throws Exception {
+    final ShrinkableOperator operator = mock(ShrinkableOperator.class);
+    when(operator.shrinkableMemory()).thenReturn(shrinkable);
+    when(operator.shrinkMemory(anyLong())).thenReturn(true);
+    return operator;
+  }
+
+  @Test
+  public void underLimit() throws Exception {
+    final ShrinkableOperator operator = operator(500);
+    arbiter.register(HANDLE, operator, fragmentExecutor);
+
+    when(allocator.getAllocatedMemory()).thenReturn(800L);
+    assertEquals(0, arbiter.arbitrate());
+    assertEquals(0, requests.size());
+  }
+
+  @Test
+  public void largestFirst() throws Exception {
+    final ShrinkableOperator small = operator(100);
+    final ShrinkableOperator large = operator(400);
+    final ShrinkableOperator medium = operator(200);
+    arbiter.register(HANDLE, small, fragmentExecutor);
+    arbiter.register(HANDLE, large, fragmentExecutor);
+    arbiter.register(HANDLE, medium, fragmentExecutor);
+
+    // 950 allocated, 450 to release to get back to 500
+    when(allocator.getAllocatedMemory()).thenReturn(950L);
+    assertEquals(2, arbiter.arbitrate());
+
+    // requests are pending until run by the fragment threads
+    assertEquals(0, arbiter.arbitrate());
+
+    for (Runnable request : requests) {
+      request.run();
+    }
+    verify(large).shrinkMemory(400);
+    verify(medium).shrinkMemory(50);
+    verify(small, never()).shrinkMemory(anyLong());
+  }
+
+  @Test
+  public void unregistered() throws Exception {
+    final ShrinkableOperator operator = operator(500);
+    final MemoryArbiter.Registration registration = arbiter.register(HANDLE, operator, fragmentExecutor);
+
+    when(allocator.getAllocatedMemory()).thenReturn(950L);
+    assertEquals(1, arbiter.arbitrate());
+
+    // the fragment completed before running the request
+    registration.close();
+    assertEquals(0, arbiter.getRegistrationCount());
+    requests.get(0).run();
+    verify(operator, never()).shrinkMemory(anyLong());
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.join.hash;
+
+import static com.dremio.sabot.Fixtures.NULL_BIGINT;
+import static com.dremio.sabot.Fixtures.NULL_VARCHAR;
+import static com.dremio.sabot.Fixtures.split;
+import static com.dremio.sabot.Fixtures.t;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.RuntimeFilterInfo;
+import com.dremio.exec.physical.config.RuntimeFilterInfo.RuntimeFilterEntry;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
+import com.dremio.sabot.Fixtures.DataRow;
+import com.dremio.sabot.Fixtures.Table;
+import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
+import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.join.BaseTestJoin;
+import com.dremio.sabot.op.common.hashtable.HashTableStats.Metric;
+import com.dremio.sabot.op.common.runtimefilter.RuntimeFilterProbe;
+import com.dremio.sabot.op.join.vhash.SpillingHashJoinOperator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import io.netty.buffer.ArrowBuf;
+
+/**
+ * Runs the join tests with a memory ratio of 0, so that every partition is spilled and joined from disk. Other memory
+ * ratios are tested separately.
+ */
+public class TestVHashJoinSpill extends BaseTestJoin {
+
+  private static final int PARTITIONS = 4;
+  private static final int HOT_RECORDS = 100_000;
+  private static final long MAX_ALLOCATION = 64 * 1024 * 1024;
+
+  private AutoCloseable options;
+
+  @Before
+  public void enableSpilling() {
+    options = AutoCloseables.all(Arrays.asList(
+        with(ExecConstants.VECTORIZED_HASHJOIN_SPILL_ENABLE, true),
+        with(ExecConstants.VECTORIZED_HASHJOIN_SPILL_MEMORY_RATIO, 0),
+        with(ExecConstants.VECTORIZED_HASHJOIN_SPILL_PARTITIONS, PARTITIONS),
+        with(ExecConstants.VECTORIZED_HASHJOIN_SPILL_MAX_DEPTH, 2)));
+  }
+
+  @After
+  public void resetSpilling() throws Exception {
+    AutoCloseables.close(options);
+  }
+
+  @Override
+  protected JoinInfo getJoinInfo(List<JoinCondition> conditions, JoinRelType type) {
+    return new JoinInfo(SpillingHashJoinOperator.class, new HashJoinPOP(null, null, conditions, type, true));
+  }
+
+  @Test
+  public void manyColumns() throws Exception {
+    baseManyColumns();
+  }
+
+  @Test
+  public void runtimeFilterCoversWholeBuildSide() throws Exception {
+    final List<RuntimeFilter> filters = new ArrayList<>();
+    final AccountingExecTunnel tunnel = mock(AccountingExecTunnel.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        filters.add((RuntimeFilter) invocation.getArguments()[0]);
+        return null;
+      }
+    }).when(tunnel).sendRuntimeFilter(any(RuntimeFilter.class));
+    final TunnelProvider provider = mock(TunnelProvider.class);
+    when(provider.getExecTunnel(any(NodeEndpoint.class))).thenReturn(tunnel);
+
+    final HashJoinPOP pop = new HashJoinPOP(null, null,
+        Arrays.asList(new JoinCondition("EQUALS", f("id1"), f("id2"))), JoinRelType.INNER, true,
+        new RuntimeFilterInfo(1, false, ImmutableList.of(new RuntimeFilterEntry(0, "id1"))));
+
+    final Table left = t(
+        th("id1", "name1"),
+        tr(1l, "a1"), tr(2l, "a2"), tr(3l, "a3"), tr(4l, "a4"), tr(5l, "a5"),
+        tr(6l, "a6"), tr(7l, "a7"), tr(8l, "a8"), tr(9l, "a9"), tr(10l, "a10")
+        );
+    final Table right = t(
+        th("id2", "name2"),
+        tr(1l, "b1"), tr(2l, "b2"), tr(3l, "b3"), tr(4l, "b4"), tr(5l, "b5"), tr(6l, "b6")
+        );
+    final Table expected = t(
+        th("id2", "name2", "id1", "name1"),
+        tr(1l, "b1", 1l, "a1"), tr(2l, "b2", 2l, "a2"), tr(3l, "b3", 3l, "a3"),
+        tr(4l, "b4", 4l, "a4"), tr(5l, "b5", 5l, "a5"), tr(6l, "b6", 6l, "a6")
+        );
+
+    // every partition is spilled and joined by nested operators, which must not send filters of their own
+    validateDual(pop, SpillingHashJoinOperator.class, left.toGenerator(getTestAllocator()),
+        right.toGenerator(getTestAllocator()), DEFAULT_BATCH, expected, true, provider);
+    assertEquals(1, filters.size());
+
+    final RuntimeFilterProbe probe = new RuntimeFilterProbe(1);
+    probe.merge(filters.get(0));
+    assertTrue(probe.isComplete());
+    try (BigIntVector keys = new BigIntVector("id1", getTestAllocator());
+         ArrowBuf selection = getTestAllocator().buffer(10 * 2)) {
+      keys.allocateNew(10);
+      for (int i = 0; i < 10; i++) {
+        keys.set(i, i + 1);
+      }
+      keys.setValueCount(10);
+      // the range of the build keys drops 7 to 10, while none of the build keys may be dropped
+      assertEquals(6, probe.apply(ImmutableMap.<String, ValueVector>of("id1", keys), 10, selection.memoryAddress()));
+    }
+  }
+
+  @Test
+  public void someResidentPartitions() throws Exception {
+    // 4MB out of 64MB: the partition of the hot key goes above it, but the other partitions fit
+    final long spillCount = joinHotKey(4.0 / 64);
+    assertTrue(spillCount > 0);
+    assertTrue(spillCount < PARTITIONS);
+  }
+
+  @Test
+  public void noSpill() throws Exception {
+    assertEquals(0, joinHotKey(1));
+  }
+
+  /**
+   * Right joins a build side with a hot key, 1, and a few other keys, 2 to 12, of which 12 has no match. The other
+   * keys come first, so that their partitions only hold a small batch. The maximum depth is 1, so spilled partitions
+   * are not partitioned again.
+   *
+   * @return the number of partitions spilled
+   */
+  private long joinHotKey(double memoryRatio) throws Exception {
+    final HashJoinPOP pop = new HashJoinPOP(null, null,
+        Arrays.asList(new JoinCondition("EQUALS", f("id1"), f("id2"))), JoinRelType.RIGHT, true);
+    pop.setMaxAllocation(MAX_ALLOCATION);
+
+    final List<DataRow> leftRows = new ArrayList<>();
+    for (long key = 1; key <= 11; key++) {
+      leftRows.add(tr(key, "a" + key));
+    }
+    final List<DataRow> rightRows = new ArrayList<>();
+    final List<DataRow> expectedRows = new ArrayList<>();
+    long row = 0;
+    for (long key = 2; key <= 12; key++, row++) {
+      rightRows.add(tr(row, key));
+      expectedRows.add(key <= 11 ? tr(row, key, key, "a" + key) : tr(row, key, NULL_BIGINT, NULL_VARCHAR));
+    }
+    for (int i = 0; i < HOT_RECORDS; i++, row++) {
+      rightRows.add(tr(row, 1l));
+      expectedRows.add(tr(row, 1l, 1l, "a1"));
+    }
+
+    final Table left = t(th("id1", "name1"), leftRows.toArray(new DataRow[0]));
+    final Table right = split(th("row2", "id2"), DEFAULT_BATCH, rightRows.toArray(new DataRow[0]));
+    final Table expected = t(th("row2", "id2", "id1", "name1"), expectedRows.toArray(new DataRow[0]))
+        .orderInsensitive();
+
+    try (AutoCloseable ratio = with(ExecConstants.VECTORIZED_HASHJOIN_SPILL_MEMORY_RATIO, memoryRatio);
+         AutoCloseable depth = with(ExecConstants.VECTORIZED_HASHJOIN_SPILL_MAX_DEPTH, 1)) {
+      final SpillingHashJoinOperator op = validateDual(pop, SpillingHashJoinOperator.class,
+          left.toGenerator(getTestAllocator()), right.toGenerator(getTestAllocator()), DEFAULT_BATCH, expected, true,
+          null);
+      return op.getOperatorContext().getStats().getLongStat(Metric.SPILL_COUNT);
+    }
+  }
+}
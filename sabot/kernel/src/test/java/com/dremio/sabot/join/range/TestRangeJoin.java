@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.join.range;
+
+import static com.dremio.sabot.Fixtures.t;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
+
+import java.util.Arrays;
+
+import org.apache.calcite.rel.core.JoinRelType;
+import org.junit.Test;
+
+import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.config.RangeJoinPOP;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.Fixtures;
+import com.dremio.sabot.Fixtures.Table;
+import com.dremio.sabot.op.join.range.RangeJoinOperator;
+
+public class TestRangeJoin extends BaseTestOperator {
+
+  private static final RangeJoinPOP BAND = new RangeJoinPOP(null, null, Arrays.asList(
+      new JoinCondition("GREATER_THAN_OR_EQUAL", f("ts"), f("lo")),
+      new JoinCondition("LESS_THAN", f("ts"), f("hi"))),
+      JoinRelType.INNER);
+
+  private final Table left = t(
+      th("ts"),
+      tr(1L),
+      tr(5L),
+      tr(10L),
+      tr(Fixtures.NULL_BIGINT),
+      tr(20L)
+      );
+
+  private final Table right = t(
+      th("lo", "hi", "name"),
+      tr(0L, 5L, "a"),
+      tr(4L, 11L, "b"),
+      tr(10L, 10L, "c"),
+      tr(Fixtures.NULL_BIGINT, 30L, "d"),
+      tr(15L, 25L, "e")
+      );
+
+  private final Table expected = t(
+      th("lo", "hi", "name", "ts"),
+      tr(0L, 5L, "a", 1L),
+      tr(4L, 11L, "b", 5L),
+      tr(4L, 11L, "b", 10L),
+      tr(15L, 25L, "e", 20L)
+      ).orderInsensitive();
+
+  @Test
+  public void band() throws Exception {
+    validateDual(BAND, RangeJoinOperator.class, left.toGenerator(getTestAllocator()),
+        right.toGenerator(getTestAllocator()), DEFAULT_BATCH, expected);
+  }
+
+  @Test
+  public void bandSmallBatches() throws Exception {
+    validateDual(BAND, RangeJoinOperator.class, left.toGenerator(getTestAllocator()),
+        right.toGenerator(getTestAllocator()), 2, expected);
+  }
+
+  @Test
+  public void bandSpill() throws Exception {
+    try (AutoCloseable enable = with(ExecConstants.RANGE_JOIN_SPILL_ENABLE, true);
+         AutoCloseable ratio = with(ExecConstants.RANGE_JOIN_SPILL_MEMORY_RATIO, 0)) {
+      validateDual(BAND, RangeJoinOperator.class, left.toGenerator(getTestAllocator()),
+          right.toGenerator(getTestAllocator()), 2, expected);
+    }
+  }
+}
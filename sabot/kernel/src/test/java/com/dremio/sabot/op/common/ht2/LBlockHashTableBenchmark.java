@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.ht2;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.google.common.base.Stopwatch;
+import com.koloboke.collect.hash.HashConfig;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Compares the per key and the batch operations of {@code LBlockHashTable}, inserting then probing a number of
+ * distinct bigint keys in random order.<br>
+ * <br>
+ * Not run as part of the build. The key counts can be changed with {@code -Dht2.benchmark.keys=1000000,10000000}; the
+ * largest counts need a few GB of direct memory.
+ */
+@Ignore("benchmark")
+public class LBlockHashTableBenchmark {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(LBlockHashTableBenchmark.class);
+
+  private static final int BATCH_SIZE = LBlockHashTable.MAX_VALUES_PER_BATCH;
+  private static final int ITERATIONS = 3;
+
+  @Test
+  public void compare() throws Exception {
+    for (String keys : System.getProperty("ht2.benchmark.keys", "1000000,10000000,100000000").split(",")) {
+      run(Integer.parseInt(keys.trim()));
+    }
+  }
+
+  private void run(int distinctKeys) throws Exception {
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+         BigIntVector keys = new BigIntVector("key", allocator)) {
+      final PivotDef pivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(keys, keys));
+      final long[] order = shuffledKeys(distinctKeys);
+
+      for (int i = 0; i < ITERATIONS; i++) {
+        final long perKey = time(allocator, pivot, keys, order, false);
+        final long batch = time(allocator, pivot, keys, order, true);
+        logger.info(String.format("%,d keys: per key %,d ms, batch %,d ms", distinctKeys, perKey, batch));
+      }
+    }
+  }
+
+  private static long[] shuffledKeys(int count) {
+    final long[] keys = new long[count];
+    for (int i = 0; i < count; i++) {
+      keys[i] = i;
+    }
+    final Random random = new Random(42);
+    for (int i = count - 1; i > 0; i--) {
+      final int j = random.nextInt(i + 1);
+      final long tmp = keys[i];
+      keys[i] = keys[j];
+      keys[j] = tmp;
+    }
+    return keys;
+  }
+
+  /**
+   * Inserts all the keys, then probes them all again.
+   *
+   * @return elapsed time in milliseconds, excluding pivoting
+   */
+  private static long time(BufferAllocator allocator, PivotDef pivot, BigIntVector keys, long[] order, boolean batch) throws Exception {
+    final Stopwatch watch = Stopwatch.createUnstarted();
+    try (LBlockHashTable table = new LBlockHashTable(HashConfig.getDefault(), pivot, allocator, 16000, 10, ResizeListener.NO_OP);
+         FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+         VariableBlockVector var = new VariableBlockVector(allocator, pivot.getVariableCount());
+         ArrowBuf ordinals = allocator.buffer(BATCH_SIZE * LBlockHashTable.ORDINAL_SIZE)) {
+      for (int pass = 0; pass < 2; pass++) {
+        final boolean insert = pass == 0;
+        for (int start = 0; start < order.length; start += BATCH_SIZE) {
+          final int records = Math.min(BATCH_SIZE, order.length - start);
+          keys.allocateNew(records);
+          for (int i = 0; i < records; i++) {
+            keys.set(i, order[start + i]);
+          }
+          keys.setValueCount(records);
+          Pivots.pivot(pivot, records, fbv, var);
+
+          final long keyFixedAddr = fbv.getMemoryAddress();
+          final long keyVarAddr = var.getMemoryAddress();
+          watch.start();
+          if (batch) {
+            if (insert) {
+              table.addBatch(keyFixedAddr, keyVarAddr, 0, records, ordinals.memoryAddress());
+            } else {
+              table.findBatch(keyFixedAddr, keyVarAddr, 0, records, ordinals.memoryAddress());
+            }
+          } else {
+            long ordinalAddr = ordinals.memoryAddress();
+            for (int i = 0; i < records; i++, ordinalAddr += LBlockHashTable.ORDINAL_SIZE) {
+              PlatformDependent.putInt(ordinalAddr, insert ? table.add(keyFixedAddr, keyVarAddr, i) : table.find(keyFixedAddr, keyVarAddr, i));
+            }
+          }
+          watch.stop();
+        }
+      }
+    }
+    return watch.elapsed(TimeUnit.MILLISECONDS);
+  }
+}
@@ -23,6 +23,9 @@ import org.apache.arrow.vector.IntVector;
 import org.apache.arrow.vector.VarCharVector;
 import org.junit.Test;
 
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
 import com.dremio.exec.record.VectorContainer;
 import com.koloboke.collect.hash.HashConfig;
 
@@ -112,4 +115,77 @@ public class TestHashTable2 {
 
     }
   }
+
+  @Test
+  public void batchFixed() throws Exception {
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        final VectorContainer c = new VectorContainer();) {
+      IntVector col1 = new IntVector("col1", allocator);
+      c.add(col1);
+      col1.allocateNew(3000);
+      for (int i = 0; i < 3000; i++) {
+        col1.setSafe(i, i % 1000);
+      }
+      final int records = c.setAllCount(3000);
+      final PivotDef pivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(col1, col1));
+      checkBatch(allocator, pivot, records, 1000);
+    }
+  }
+
+  @Test
+  public void batchVariable() throws Exception {
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        final VectorContainer c = new VectorContainer();) {
+      final String[] values = new String[3000];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = (i % 1000 == 0) ? null : "value-" + (i % 1000);
+      }
+      VarCharVector col1 = new VarCharVector("col1", allocator);
+      TestVarBinaryPivot.populate(col1, values);
+      c.add(col1);
+      final int records = c.setAllCount(values.length);
+      final PivotDef pivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(col1, col1));
+      checkBatch(allocator, pivot, records, 1000);
+    }
+  }
+
+  /**
+   * Checks that the batch operations return the same ordinals as the single key ones, when each key k is repeated at
+   * positions k, k + distinct, k + 2 * distinct...
+   */
+  private static void checkBatch(BufferAllocator allocator, PivotDef pivot, int records, int distinct) throws Exception {
+    try (
+        final FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+        final VariableBlockVector var = new VariableBlockVector(allocator, pivot.getVariableCount());
+        final ArrowBuf ordinals = allocator.buffer(records * LBlockHashTable.ORDINAL_SIZE)) {
+
+      Pivots.pivot(pivot, records, fbv, var);
+      final long keyFixedAddr = fbv.getMemoryAddress();
+      final long keyVarAddr = var.getMemoryAddress();
+      final long ordinalsAddr = ordinals.memoryAddress();
+
+      // start small so that the table is rehashed while inserting.
+      try (LBlockHashTable bht = new LBlockHashTable(HashConfig.getDefault(), pivot, allocator, 16, 10, ResizeListener.NO_OP);) {
+        assertEquals(0, bht.findBatch(keyFixedAddr, keyVarAddr, 0, records, ordinalsAddr));
+        for (int i = 0; i < records; i++) {
+          assertEquals(LBlockHashTable.NO_MATCH, PlatformDependent.getInt(ordinalsAddr + i * LBlockHashTable.ORDINAL_SIZE));
+        }
+
+        // insert the first half in one batch, the second half with an unaligned start
+        final int half = records / 2 + 3;
+        bht.addBatch(keyFixedAddr, keyVarAddr, 0, half, ordinalsAddr);
+        bht.addBatch(keyFixedAddr, keyVarAddr, half, records - half, ordinalsAddr + half * LBlockHashTable.ORDINAL_SIZE);
+        assertEquals(distinct, bht.size());
+        for (int i = 0; i < records; i++) {
+          assertEquals(i % distinct, PlatformDependent.getInt(ordinalsAddr + i * LBlockHashTable.ORDINAL_SIZE));
+          assertEquals(i % distinct, bht.find(keyFixedAddr, keyVarAddr, i));
+        }
+
+        assertEquals(records, bht.findBatch(keyFixedAddr, keyVarAddr, 0, records, ordinalsAddr));
+        for (int i = 0; i < records; i++) {
+          assertEquals(i % distinct, PlatformDependent.getInt(ordinalsAddr + i * LBlockHashTable.ORDINAL_SIZE));
+        }
+      }
+    }
+  }
 }
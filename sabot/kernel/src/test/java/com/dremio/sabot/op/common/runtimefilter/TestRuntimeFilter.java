@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.runtimefilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.junit.Test;
+
+import com.dremio.exec.proto.ExecRPC.RuntimeFilter;
+import com.dremio.sabot.BaseTestWithAllocator;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Tests for runtime filters built from the build side of a hash join and applied by scans.
+ */
+public class TestRuntimeFilter extends BaseTestWithAllocator {
+
+  private static void set(IntVector vector, Integer... values) {
+    vector.allocateNew(values.length);
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        vector.set(i, values[i]);
+      }
+    }
+    vector.setValueCount(values.length);
+  }
+
+  private static RuntimeFilter build(FieldVector build, int records, boolean partial) {
+    final RuntimeFilterBuilder builder = new RuntimeFilterBuilder(ImmutableList.of(build), ImmutableList.of("Key"), 1024);
+    builder.add(records);
+    return RuntimeFilter.newBuilder()
+        .setPartial(partial)
+        .addAllColumn(builder.build())
+        .build();
+  }
+
+  private List<Integer> apply(RuntimeFilterProbe probe, Map<String, ValueVector> vectors, int records) {
+    try (ArrowBuf selection = allocator.buffer(records * 2)) {
+      final int selected = probe.apply(vectors, records, selection.memoryAddress());
+      final List<Integer> indices = new ArrayList<>();
+      for (int i = 0; i < selected; i++) {
+        indices.add((int) PlatformDependent.getShort(selection.memoryAddress() + i * 2));
+      }
+      return indices;
+    }
+  }
+
+  @Test
+  public void bloomFilterFoldAndMerge() {
+    final BloomFilter large = new BloomFilter(1 << 16, RuntimeFilterBuilder.NUM_HASH_FUNCTIONS);
+    final BloomFilter small = new BloomFilter(1 << 10, RuntimeFilterBuilder.NUM_HASH_FUNCTIONS);
+    for (long i = 0; i < 100; i++) {
+      large.put(i * 0x9E3779B97F4A7C15L);
+      small.put(-i * 0x9E3779B97F4A7C15L);
+    }
+
+    final BloomFilter folded = large.fold(1 << 12);
+    assertEquals(1 << 12, folded.getNumBits());
+    final BloomFilter merged = BloomFilter.merge(large, small);
+    assertEquals(1 << 10, merged.getNumBits());
+    final BloomFilter deserialized = BloomFilter.fromByteString(merged.toByteString(), merged.getNumHashFunctions());
+    for (long i = 0; i < 100; i++) {
+      assertTrue(folded.mightContain(i * 0x9E3779B97F4A7C15L));
+      assertTrue(deserialized.mightContain(i * 0x9E3779B97F4A7C15L));
+      assertTrue(deserialized.mightContain(-i * 0x9E3779B97F4A7C15L));
+    }
+
+    assertEquals(64, BloomFilter.getNumBits(0, 10, 1 << 20));
+    assertEquals(1024, BloomFilter.getNumBits(100, 10, 1 << 20));
+    assertEquals(1 << 20, BloomFilter.getNumBits(1L << 30, 10, 1 << 20));
+  }
+
+  @Test
+  public void integralKeys() {
+    try (IntVector build = new IntVector("build", allocator);
+         IntVector probe = new IntVector("key", allocator)) {
+      set(build, 3, 7, null, 11);
+      set(probe, 1, 3, null, 7, 8, 11, 12, 3);
+
+      final RuntimeFilterProbe filter = new RuntimeFilterProbe(1);
+      filter.merge(build(build, 4, false));
+      assertTrue(filter.isComplete());
+
+      final List<Integer> selected = apply(filter, ImmutableMap.<String, ValueVector>of("key", probe), 8);
+      // 8 is in the range, but not in the bloom filter unless there is a false positive
+      assertTrue(selected.containsAll(ImmutableList.of(1, 3, 5, 7)));
+      assertFalse(selected.contains(0));
+      assertFalse(selected.contains(2));
+      assertFalse(selected.contains(6));
+    }
+  }
+
+  @Test
+  public void partialFilters() {
+    try (IntVector build = new IntVector("build", allocator);
+         IntVector probe = new IntVector("key", allocator)) {
+      set(probe, 1, 2, 10, 11, 20);
+      final RuntimeFilterProbe filter = new RuntimeFilterProbe(3);
+
+      set(build, 1, 2);
+      filter.merge(build(build, 2, true));
+      // an empty build side doesn't restrict the merged range
+      filter.merge(build(build, 0, true));
+      assertFalse(filter.isComplete());
+      set(build, 10, 11);
+      filter.merge(build(build, 2, true));
+      assertTrue(filter.isComplete());
+
+      assertEquals(ImmutableList.of(0, 1, 2, 3),
+          apply(filter, ImmutableMap.<String, ValueVector>of("key", probe), 5));
+    }
+  }
+
+  @Test
+  public void emptyBuildSide() {
+    try (VarCharVector build = new VarCharVector("build", allocator);
+         VarCharVector probe = new VarCharVector("key", allocator)) {
+      build.allocateNew();
+      build.setValueCount(0);
+      probe.allocateNew();
+      probe.setSafe(0, "a".getBytes(Charsets.UTF_8));
+      probe.setSafe(1, "b".getBytes(Charsets.UTF_8));
+      probe.setValueCount(2);
+
+      final RuntimeFilterProbe filter = new RuntimeFilterProbe(1);
+      filter.merge(build(build, 0, false));
+      assertEquals(ImmutableList.of(), apply(filter, ImmutableMap.<String, ValueVector>of("key", probe), 2));
+    }
+  }
+
+  @Test
+  public void mismatchedType() {
+    try (VarCharVector build = new VarCharVector("build", allocator);
+         IntVector probe = new IntVector("key", allocator)) {
+      build.allocateNew();
+      build.setValueCount(0);
+      set(probe, 1, 2);
+
+      // the scan doesn't read the keys the join expects, the filter is ignored
+      final RuntimeFilterProbe filter = new RuntimeFilterProbe(1);
+      filter.merge(build(build, 0, false));
+      assertEquals(ImmutableList.of(0, 1), apply(filter, ImmutableMap.<String, ValueVector>of("key", probe), 2));
+    }
+  }
+}
@@ -29,16 +29,21 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.exec.expr.ClassProducer;
 import com.dremio.exec.physical.config.ExternalSort;
+import com.dremio.exec.record.VectorAccessible;
 import com.dremio.sabot.BaseTestOperator;
 import com.dremio.sabot.CustomGenerator;
 import com.dremio.sabot.Fixtures;
 import com.dremio.sabot.exec.context.BufferManagerImpl;
+import com.dremio.sabot.op.spi.SingleInputOperator.State;
 import org.junit.rules.TestRule;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class TestSortOp extends BaseTestOperator {
@@ -104,4 +109,40 @@ public class TestSortOp extends BaseTestOperator {
     Fixtures.Table table = generator.getExpectedSortedTable();
     validateSingle(sort, ExternalSortOperator.class, generator, table, 1000);
   }
+
+  @Test
+  public void testShrinkMemory() throws Exception {
+    ExternalSort sort = new ExternalSort(null, singletonList(ordering(ID.getName(), ASCENDING, FIRST)), false);
+    sort.setInitialAllocation(1_000_000);
+    sort.setMaxAllocation(100_000_000); // large enough to sort the whole input in memory
+    final List<RecordBatchData> data = new ArrayList<>();
+    try (CustomGenerator input = new CustomGenerator(20_000, getTestAllocator());
+         ExternalSortOperator op = newOperator(ExternalSortOperator.class, sort, 1000)) {
+      final VectorAccessible output = op.setup(input.getOutput());
+
+      // the memory arbiter asks the sort to release its memory halfway through the input
+      for (int i = 0; i < 10; i++) {
+        op.consumeData(input.next(1000));
+      }
+      assertTrue(op.shrinkableMemory() > 0);
+      assertTrue(op.shrinkMemory(op.shrinkableMemory()));
+      assertEquals(0, op.shrinkableMemory());
+
+      int count;
+      while ((count = input.next(1000)) != 0) {
+        op.consumeData(count);
+      }
+      op.noMoreToConsume();
+      while (op.getState() == State.CAN_PRODUCE) {
+        if (op.outputData() > 0) {
+          data.add(new RecordBatchData(output, getTestAllocator()));
+        }
+      }
+      assertState(op, State.DONE);
+      // the spilled run is merged with the rest of the input
+      input.getExpectedSortedTable().checkValid(data);
+    } finally {
+      AutoCloseables.close(data);
+    }
+  }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.dremio.sabot.task.Observer;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.Task;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import com.dremio.sabot.task.TaskManager.TaskProvider;
+
+/**
+ * Unit tests of {@code MultiQueueTaskManager}
+ */
+public class TestMultiQueueTaskManager {
+
+  private static final class TestTask implements Task {
+    private State state = State.RUNNABLE;
+
+    @Override
+    public State getState() {
+      return state;
+    }
+  }
+
+  private static class CountingObserver implements Observer<TestTask> {
+    private int added;
+    private int rebalanced;
+    private int rejected;
+
+    @Override
+    public void addTask(TaskHandle<TestTask> task, int thread) {
+      added++;
+    }
+
+    @Override
+    public void rebalance(TaskHandle<TestTask> task, int srcThread, int dstThread) {
+      rebalanced++;
+    }
+
+    @Override
+    public void workRequestRejected(int thread) {
+      rejected++;
+    }
+  }
+
+  private static final TaskManager.WakeUpListener NO_OP_LISTENER = new TaskManager.WakeUpListener() {
+    @Override
+    public void wakeUpIfIdle() {
+    }
+  };
+
+  @Test
+  public void testTasksSpreadAcrossThreads() {
+    final CountingObserver observer = new CountingObserver();
+    final MultiQueueTaskManager<TestTask> manager = new MultiQueueTaskManager<>(2, true, observer);
+    final TaskHandle<TestTask> first = manager.addTask(new TestTask(), TaskManager.MAX_WEIGHT);
+    final TaskHandle<TestTask> second = manager.addTask(new TestTask(), TaskManager.MAX_WEIGHT);
+
+    assertEquals(2, observer.added);
+    assertTrue(first.getThread() != second.getThread());
+    assertEquals(1, manager.getTaskProvider(0, NO_OP_LISTENER).getNumTasks());
+    assertEquals(1, manager.getTaskProvider(1, NO_OP_LISTENER).getNumTasks());
+  }
+
+  @Test
+  public void testIdleThreadStealsWork() {
+    final CountingObserver observer = new CountingObserver();
+    final MultiQueueTaskManager<TestTask> manager = new MultiQueueTaskManager<>(2, false, observer);
+    final TaskProvider<TestTask> provider0 = manager.getTaskProvider(0, NO_OP_LISTENER);
+    final TaskProvider<TestTask> provider1 = manager.getTaskProvider(1, NO_OP_LISTENER);
+
+    final TaskHandle<TestTask> handle = manager.addTask(new TestTask(), TaskManager.MAX_WEIGHT);
+    final int owner = handle.getThread();
+    final TaskProvider<TestTask> thief = owner == 0 ? provider1 : provider0;
+
+    assertSame(handle, thief.getTask(0));
+    assertEquals(1 - owner, handle.getThread());
+    assertEquals(1, observer.rebalanced);
+    assertEquals(1, thief.getNumWorkRequests());
+
+    // nothing left to steal
+    handle.getTask().state = Task.State.DONE;
+    assertNull(thief.getTask(10));
+    assertEquals(0, thief.getNumTasks());
+    assertTrue(observer.rejected > 0);
+  }
+
+  @Test
+  public void testBlockedTaskIsReEnqueued() {
+    final MultiQueueTaskManager<TestTask> manager = new MultiQueueTaskManager<>(1, false, new CountingObserver());
+    final TaskProvider<TestTask> provider = manager.getTaskProvider(0, NO_OP_LISTENER);
+    final TaskHandle<TestTask> handle = manager.addTask(new TestTask(), TaskManager.MAX_WEIGHT);
+
+    assertSame(handle, provider.getTask(0));
+    handle.getTask().state = Task.State.BLOCKED_ON_UPSTREAM;
+    assertNull(provider.getTask(10));
+    assertEquals(1, provider.getNumTasks());
+
+    handle.getTask().state = Task.State.RUNNABLE;
+    handle.reEnqueue();
+    assertSame(handle, provider.getTask(0));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testTaskEnqueuedWhileLookingForWork() {
+    final TaskHandle<TestTask>[] toWake = new TaskHandle[1];
+    // re-enqueues the blocked task after the thread found its queue empty, but before it goes idle
+    final CountingObserver observer = new CountingObserver() {
+      @Override
+      public void workRequestRejected(int thread) {
+        if (toWake[0] != null) {
+          toWake[0].getTask().state = Task.State.RUNNABLE;
+          toWake[0].reEnqueue();
+          toWake[0] = null;
+        }
+      }
+    };
+    final MultiQueueTaskManager<TestTask> manager = new MultiQueueTaskManager<>(1, false, observer);
+    final TaskProvider<TestTask> provider = manager.getTaskProvider(0, NO_OP_LISTENER);
+    final TaskHandle<TestTask> handle = manager.addTask(new TestTask(), TaskManager.MAX_WEIGHT);
+
+    assertSame(handle, provider.getTask(0));
+    handle.getTask().state = Task.State.BLOCKED_ON_UPSTREAM;
+    toWake[0] = handle;
+    // the thread must not go idle with the task queued
+    assertSame(handle, provider.getTask(10));
+  }
+
+  @Test
+  public void testGroupWeightsAreHonored() {
+    final MultiQueueTaskManager<TestTask> manager = new MultiQueueTaskManager<>(1, false, new CountingObserver());
+    final TaskProvider<TestTask> provider = manager.getTaskProvider(0, NO_OP_LISTENER);
+    final SchedulingGroup<TestTask> high = manager.newGroup(TaskManager.MAX_WEIGHT);
+    final SchedulingGroup<TestTask> low = manager.newGroup(TaskManager.MAX_WEIGHT / 10);
+
+    final TaskHandle<TestTask> highTask = high.addTask(new TestTask(), TaskManager.MAX_WEIGHT);
+    // the low priority group shares its weight between two tasks
+    low.addTask(new TestTask(), TaskManager.MAX_WEIGHT);
+    low.addTask(new TestTask(), TaskManager.MAX_WEIGHT);
+
+    int highRuns = 0;
+    int lowRuns = 0;
+    for (int i = 0; i < 2100; i++) {
+      final TaskHandle<TestTask> handle = provider.getTask(1000);
+      assertNotNull(handle);
+      if (handle == highTask) {
+        highRuns++;
+      } else {
+        lowRuns++;
+      }
+    }
+
+    // high group should get ~20x the cpu time of each low task, ~10x the time of the whole low group
+    assertTrue("high: " + highRuns + ", low: " + lowRuns, highRuns > 8 * lowRuns);
+  }
+}
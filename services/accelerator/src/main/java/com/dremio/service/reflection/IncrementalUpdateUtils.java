@@ -15,22 +15,27 @@
  */
 package com.dremio.service.reflection;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.AggregateCall;
 import org.apache.calcite.rel.core.TableScan;
 import org.apache.calcite.rel.logical.LogicalAggregate;
 import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rel.logical.LogicalJoin;
 import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.dremio.exec.planner.RoutingShuttle;
-import com.dremio.exec.planner.StatelessRelShuttleImpl;
-import com.dremio.service.Pointer;
 import com.dremio.service.namespace.NamespaceKey;
 import com.dremio.service.namespace.dataset.proto.AccelerationSettings;
 import com.dremio.service.namespace.dataset.proto.RefreshMethod;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 
 /**
@@ -43,8 +48,11 @@ public class IncrementalUpdateUtils {
    * compute acceleration settings from the plan
    */
   public static AccelerationSettings extractRefreshSettings(final RelNode normalizedPlan, ReflectionSettings reflectionSettings) {
-    final boolean incremental = getIncremental(normalizedPlan, reflectionSettings);
-    final String refreshField = !incremental ? null : findRefreshField(normalizedPlan, reflectionSettings);
+    final IncrementalChecker checker = check(normalizedPlan, reflectionSettings);
+    final boolean incremental = checker.isIncremental();
+    final String refreshField = !incremental ? null : reflectionSettings
+      .getReflectionSettings(new NamespaceKey(checker.getUpdateTable()))
+      .getRefreshField();
     final RefreshMethod refreshMethod = incremental ? RefreshMethod.INCREMENTAL : RefreshMethod.FULL;
 
     return new AccelerationSettings()
@@ -52,39 +60,45 @@ public class IncrementalUpdateUtils {
       .setRefreshField(refreshField);
   }
 
-  private static String findRefreshField(RelNode plan, final ReflectionSettings reflectionSettings) {
-    final Pointer<String> refreshField = new Pointer<>();
-    plan.accept(new StatelessRelShuttleImpl() {
-      @Override
-      public RelNode visit(TableScan tableScan) {
-        List<String> tablePath = tableScan.getTable().getQualifiedName();
-        final AccelerationSettings settings = reflectionSettings.getReflectionSettings(new NamespaceKey(tablePath));
-        refreshField.value = settings.getRefreshField();
-        return tableScan;
-      }
-    });
-    return refreshField.value;
+  /**
+   * Finds the table new data is read from, when an incrementally updated plan reads several tables. Other tables are
+   * read entirely on each update.
+   *
+   * @return path of the table, or null if the plan is not incremental or only reads one table
+   */
+  public static List<String> findUpdateTable(final RelNode normalizedPlan, ReflectionSettings reflectionSettings) {
+    final IncrementalChecker checker = check(normalizedPlan, reflectionSettings);
+    if (!checker.isIncremental() || checker.scanCount == 1) {
+      return null;
+    }
+    return checker.getUpdateTable();
   }
 
   /**
    * Check if a plan can support incremental update
    */
-  private static boolean getIncremental(RelNode plan, final ReflectionSettings reflectionSettings) {
+  private static IncrementalChecker check(RelNode plan, final ReflectionSettings reflectionSettings) {
     IncrementalChecker checker = new IncrementalChecker(reflectionSettings);
     plan.accept(checker);
-    return checker.isIncremental();
+    return checker;
   }
 
   /**
    * Visitor that checks if a logical plan can support incremental update. The supported pattern right now is a plan
-   * that contains only Filters, Projects, Scans, and Aggregates. There can only be one Aggregate in the plan, and the
-   * Scan most support incremental update.
+   * that contains only Filters, Projects, Scans, Joins and Aggregates, and reads exactly one table that supports
+   * incremental update. Other tables are read entirely on each update, so they are expected to rarely change.<br>
+   * <br>
+   * New rows of the incrementally updated table must only add rows to the joins: they can't be on the null generating
+   * side of an outer join. Aggregates can't be below a join, and an aggregate on top of another aggregate must roll up
+   * its partial results, see {@link #isRollup(LogicalAggregate)}. Parts of the plan only reading other tables are not
+   * restricted.
    */
   private static class IncrementalChecker extends RoutingShuttle {
     private final ReflectionSettings reflectionSettings;
 
     private RelNode unsupportedOperator = null;
-    private boolean isIncremental = false;
+    private final List<List<String>> incrementalTables = new ArrayList<>();
+    private int scanCount = 0;
     private int aggCount = 0;
 
     IncrementalChecker(ReflectionSettings reflectionSettings) {
@@ -92,29 +106,37 @@ public class IncrementalUpdateUtils {
     }
 
     public boolean isIncremental() {
-      if (!isIncremental) {
+      if (incrementalTables.isEmpty()) {
         logger.debug("Cannot do incremental update because the table is not incrementally updateable");
         return false;
       }
 
-      if (unsupportedOperator != null) {
-        logger.debug("Cannot do incremental update because {} does not support incremental update", unsupportedOperator.getRelTypeName());
+      if (incrementalTables.size() > 1) {
+        logger.debug("Cannot do incremental update because it reads several incrementally updateable tables");
         return false;
       }
 
-      if (aggCount > 1) {
-        logger.debug("Cannot do incremental update because has multiple aggregate operators");
+      if (unsupportedOperator != null) {
+        logger.debug("Cannot do incremental update because {} does not support incremental update", unsupportedOperator.getRelTypeName());
         return false;
       }
 
       return true;
     }
 
-    @Override
-    public RelNode visit(RelNode other) {
+    List<String> getUpdateTable() {
+      return incrementalTables.get(0);
+    }
+
+    private void unsupported(RelNode node) {
       if (unsupportedOperator == null) {
-        unsupportedOperator = other;
+        unsupportedOperator = node;
       }
+    }
+
+    @Override
+    public RelNode visit(RelNode other) {
+      unsupported(other);
       return other;
     }
 
@@ -122,13 +144,64 @@ public class IncrementalUpdateUtils {
     public RelNode visit(TableScan tableScan) {
       List<String> tablePath = tableScan.getTable().getQualifiedName();
       final AccelerationSettings settings = reflectionSettings.getReflectionSettings(new NamespaceKey(tablePath));
-      isIncremental  = settings.getMethod() == RefreshMethod.INCREMENTAL;
+      scanCount++;
+      if (settings.getMethod() == RefreshMethod.INCREMENTAL) {
+        incrementalTables.add(tablePath);
+      }
       return tableScan;
     }
 
+    @Override
     public RelNode visit(LogicalAggregate aggregate) {
+      final int incrementalBefore = incrementalTables.size();
+      final int aggBefore = aggCount;
+      visitChild(aggregate, 0, aggregate.getInput());
+      if (incrementalTables.size() == incrementalBefore) {
+        // only reads tables read entirely
+        return aggregate;
+      }
+
+      if (aggCount > aggBefore && !isRollup(aggregate)) {
+        logger.debug("Cannot do incremental update because an aggregate can't be computed from partial aggregates");
+        unsupported(aggregate);
+      }
       aggCount++;
-      return visitChild(aggregate, 0, aggregate.getInput());
+      return aggregate;
+    }
+
+    @Override
+    public RelNode visit(LogicalJoin join) {
+      final int incrementalBefore = incrementalTables.size();
+      final int aggBefore = aggCount;
+      visitChild(join, 0, join.getLeft());
+      final boolean leftUpdated = incrementalTables.size() > incrementalBefore;
+      final int incrementalLeft = incrementalTables.size();
+      visitChild(join, 1, join.getRight());
+      final boolean rightUpdated = incrementalTables.size() > incrementalLeft;
+
+      switch (join.getJoinType()) {
+      case INNER:
+        break;
+      case LEFT:
+        if (rightUpdated) {
+          unsupported(join);
+        }
+        break;
+      case RIGHT:
+        if (leftUpdated) {
+          unsupported(join);
+        }
+        break;
+      default:
+        unsupported(join);
+        break;
+      }
+
+      if (aggCount > aggBefore) {
+        logger.debug("Cannot do incremental update because an aggregate of new data is joined");
+        unsupported(join);
+      }
+      return join;
     }
 
     @Override
@@ -142,4 +215,138 @@ public class IncrementalUpdateUtils {
     }
   }
 
+  /**
+   * Checks that an aggregate rolls up the results of the aggregate below it, so it gives the same results when computed
+   * over partial aggregates of each update: SUM of SUM or COUNT, MIN of MIN and MAX of MAX. Group keys of the aggregate
+   * below can be grouped on, or used in MIN and MAX.
+   */
+  @VisibleForTesting
+  static boolean isRollup(LogicalAggregate aggregate) {
+    if (aggregate.indicator || aggregate.getGroupSets().size() > 1) {
+      return false;
+    }
+    final List<Origin> origins = getOrigins(aggregate.getInput());
+    if (origins == null) {
+      return false;
+    }
+    for (int key : aggregate.getGroupSet()) {
+      if (origins.get(key) != Origin.GROUP_KEY) {
+        return false;
+      }
+    }
+
+    for (AggregateCall call : aggregate.getAggCallList()) {
+      if (call.isDistinct() || call.getArgList().size() != 1) {
+        return false;
+      }
+      final Origin origin = origins.get(call.getArgList().get(0));
+      if (origin == null) {
+        return false;
+      }
+      switch (call.getAggregation().getKind()) {
+      case SUM:
+      case SUM0:
+        if (!origin.isSummable()) {
+          return false;
+        }
+        break;
+      case MIN:
+      case MAX:
+        if (origin != Origin.GROUP_KEY && origin.call.getAggregation().getKind() != call.getAggregation().getKind()) {
+          return false;
+        }
+        break;
+      default:
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds where each field of a plan comes from, in the closest aggregate below it.
+   *
+   * @return origin of each field, null for fields computed from aggregated values. null if the plan isn't supported.
+   */
+  private static List<Origin> getOrigins(RelNode node) {
+    if (node instanceof LogicalAggregate) {
+      final LogicalAggregate aggregate = (LogicalAggregate) node;
+      if (aggregate.indicator || aggregate.getGroupSets().size() > 1) {
+        return null;
+      }
+      final List<Origin> origins = new ArrayList<>();
+      for (int i = 0; i < aggregate.getGroupCount(); i++) {
+        origins.add(Origin.GROUP_KEY);
+      }
+      for (AggregateCall call : aggregate.getAggCallList()) {
+        origins.add(new Origin(call));
+      }
+      return origins;
+    }
+
+    if (node instanceof LogicalProject) {
+      final List<Origin> inputOrigins = getOrigins(((LogicalProject) node).getInput());
+      if (inputOrigins == null) {
+        return null;
+      }
+      final List<Origin> origins = new ArrayList<>();
+      for (RexNode expr : ((LogicalProject) node).getProjects()) {
+        if (expr instanceof RexInputRef) {
+          origins.add(inputOrigins.get(((RexInputRef) expr).getIndex()));
+        } else {
+          // expressions of group keys are constant for each partial aggregate
+          origins.add(onlyGroupKeys(expr, inputOrigins) ? Origin.GROUP_KEY : null);
+        }
+      }
+      return origins;
+    }
+
+    if (node instanceof LogicalFilter) {
+      final List<Origin> inputOrigins = getOrigins(((LogicalFilter) node).getInput());
+      // partial aggregates can't be filtered
+      if (inputOrigins == null || !onlyGroupKeys(((LogicalFilter) node).getCondition(), inputOrigins)) {
+        return null;
+      }
+      return inputOrigins;
+    }
+
+    return null;
+  }
+
+  private static boolean onlyGroupKeys(RexNode expr, List<Origin> origins) {
+    for (int index : RelOptUtil.InputFinder.bits(expr)) {
+      if (origins.get(index) != Origin.GROUP_KEY) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Origin of a field in an aggregate: either one of its group keys, or one of its calls.
+   */
+  private static final class Origin {
+    private static final Origin GROUP_KEY = new Origin(null);
+
+    private final AggregateCall call;
+
+    private Origin(AggregateCall call) {
+      this.call = call;
+    }
+
+    private boolean isSummable() {
+      if (call == null || call.isDistinct()) {
+        return false;
+      }
+      switch (call.getAggregation().getKind()) {
+      case SUM:
+      case SUM0:
+      case COUNT:
+        return true;
+      default:
+        return false;
+      }
+    }
+  }
+
 }
@@ -579,6 +579,7 @@ public class ReflectionManager implements Runnable {
       // but if we really fail to handle a successful refresh job for 3 times in a row, the entry is in a bad state
       entry.setRefreshMethod(decision.getAccelerationSettings().getMethod())
         .setRefreshField(decision.getAccelerationSettings().getRefreshField())
+        .setUpdateTableList(decision.getUpdateTableList())
         .setDatasetHash(decision.getDatasetHash())
         .setDontGiveUp(dependencyManager.dontGiveUp(entry.getId()));
     } catch (Exception | AssertionError e) {
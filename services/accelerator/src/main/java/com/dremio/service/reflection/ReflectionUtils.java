@@ -212,7 +212,8 @@ public class ReflectionUtils {
       double originalCost) {
     final IncrementalUpdateSettings updateSettings = new IncrementalUpdateSettings(
       reflectionEntry.getRefreshMethod() == RefreshMethod.INCREMENTAL,
-      reflectionEntry.getRefreshField());
+      reflectionEntry.getRefreshField(),
+      reflectionEntry.getUpdateTableList());
     return new MaterializationDescriptor(
       toReflectionInfo(reflectionGoal),
       materialization.getId().getId(),
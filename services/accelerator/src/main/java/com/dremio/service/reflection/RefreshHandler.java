@@ -385,9 +385,23 @@ public class RefreshHandler implements SqlToPlanHandler {
     final RefreshDecision decision = new RefreshDecision();
 
     // We load settings here to determine what type of update we need to do (full or incremental)
-    final AccelerationSettings settings = IncrementalUpdateUtils.extractRefreshSettings(normalizedPlan, reflectionSettings);
+    AccelerationSettings settings = IncrementalUpdateUtils.extractRefreshSettings(normalizedPlan, reflectionSettings);
+    List<String> updateTable = null;
+    Integer readEntirelyHash = null;
+    if (settings.getMethod() == RefreshMethod.INCREMENTAL) {
+      updateTable = IncrementalUpdateUtils.findUpdateTable(normalizedPlan, reflectionSettings);
+      if (updateTable != null) {
+        readEntirelyHash = computeReadEntirelyHash(requestedTables, updateTable);
+        if (readEntirelyHash == null) {
+          logger.trace("Changes of the joined tables can't be tracked, doing a full refresh.");
+          settings = new AccelerationSettings().setMethod(RefreshMethod.FULL);
+          updateTable = null;
+        }
+      }
+    }
 
     decision.setAccelerationSettings(settings);
+    decision.setUpdateTableList(updateTable);
 
     if (requestedTables != null && !Iterables.isEmpty(requestedTables)) {
       // store all physical dataset paths in the refresh decision
@@ -416,7 +430,9 @@ public class RefreshHandler implements SqlToPlanHandler {
 
     try {
       final DatasetConfig dataset = namespace.findDatasetByUUID(entry.getDatasetId());
-      decision.setDatasetHash(ReflectionUtils.computeDatasetHash(dataset, namespace));
+      final Integer datasetHash = ReflectionUtils.computeDatasetHash(dataset, namespace);
+      // tables read entirely are part of every refresh, if they change the reflection needs to be rebuilt
+      decision.setDatasetHash(readEntirelyHash == null ? datasetHash : 31 * datasetHash + readEntirelyHash);
     } catch (Exception e) {
       throw UserException.validationError()
         .message("Couldn't expand a materialized view on a non existing dataset")
@@ -438,7 +454,8 @@ public class RefreshHandler implements SqlToPlanHandler {
     }
 
     // if the refresh settings changed, do an initial refresh.
-    if (entry.getRefreshMethod() != settings.getMethod() || !Objects.equal(entry.getRefreshField(), settings.getRefreshField())) {
+    if (entry.getRefreshMethod() != settings.getMethod() || !Objects.equal(entry.getRefreshField(), settings.getRefreshField())
+        || !Objects.equal(entry.getUpdateTableList(), decision.getUpdateTableList())) {
       logger.trace("Change in refresh method, doing an initial refresh.");
       return decision.setInitialRefresh(true)
           .setUpdateId(Long.MIN_VALUE)
@@ -458,20 +475,50 @@ public class RefreshHandler implements SqlToPlanHandler {
         .setSeriesOrdinal(refresh.getSeriesOrdinal() + 1);
   }
 
+  /**
+   * Computes a hash of the data of the physical datasets read entirely by incremental refreshes.
+   *
+   * @return the hash, or null if the changes of one of the datasets can't be tracked
+   */
+  private static Integer computeReadEntirelyHash(Iterable<DremioTable> requestedTables, List<String> updateTable) {
+    if (requestedTables == null) {
+      return null;
+    }
+
+    int hash = 1;
+    for (DremioTable table : requestedTables) {
+      final DatasetConfig dataset = table.getDatasetConfig();
+      if (dataset == null || !ReflectionUtils.isPhysicalDataset(dataset.getType())
+          || updateTable.equals(table.getPath().getPathComponents())) {
+        continue;
+      }
+      if (dataset.getReadDefinition() == null || dataset.getReadDefinition().getReadSignature() == null) {
+        return null;
+      }
+      hash = 31 * hash + table.getPath().hashCode();
+      hash = 31 * hash + dataset.getReadDefinition().getReadSignature().hashCode();
+    }
+    return hash;
+  }
+
   private static boolean useShuttle(RefreshDecision decision) {
     return decision.getAccelerationSettings().getMethod() == RefreshMethod.INCREMENTAL;
   }
 
   private static RelShuttle getShuttle(RefreshDecision decision) {
     Preconditions.checkArgument(useShuttle(decision));
-    return getShuttle(decision.getAccelerationSettings(), decision.getUpdateId());
+    return getShuttle(decision.getAccelerationSettings(), decision.getUpdateId(), decision.getUpdateTableList());
   }
 
   public static RelShuttle getShuttle(AccelerationSettings settings, long updateId) {
+    return getShuttle(settings, updateId, null);
+  }
+
+  public static RelShuttle getShuttle(AccelerationSettings settings, long updateId, List<String> updateTable) {
     if (settings.getRefreshField() != null) {
-      return new ColumnMaterializationShuttle(settings.getRefreshField(), updateId);
+      return new ColumnMaterializationShuttle(settings.getRefreshField(), updateId, updateTable);
     } else {
-      return new FileMaterializationShuttle(updateId);
+      return new FileMaterializationShuttle(updateId, updateTable);
     }
   }
 
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.reflection;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.hep.HepPlanner;
+import org.apache.calcite.plan.hep.HepProgram;
+import org.apache.calcite.rel.logical.LogicalAggregate;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.tools.RelBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.exec.planner.types.JavaTypeFactoryImpl;
+
+/**
+ * Tests for {@link IncrementalUpdateUtils}
+ */
+public class TestIncrementalUpdateUtils {
+  private RelBuilder builder;
+
+  @Before
+  public void setup() {
+    final RelOptCluster cluster = RelOptCluster.create(new HepPlanner(HepProgram.builder().build()),
+        new RexBuilder(JavaTypeFactoryImpl.INSTANCE));
+    builder = com.dremio.exec.planner.logical.RelBuilder.newCalciteRelBuilderWithoutContext(cluster);
+  }
+
+  /**
+   * Pushes an aggregate of (a, b, x) on (a, b), computing s = sum(x), c = count(), mn = min(x) and mx = max(x).
+   */
+  private void pushInnerAggregate() {
+    builder.values(new String[] {"a", "b", "x"}, 1, 2, 3, 4, 5, 6)
+        .aggregate(builder.groupKey("a", "b"),
+            builder.sum(false, "s", builder.field("x")),
+            builder.count(false, "c"),
+            builder.min("mn", builder.field("x")),
+            builder.max("mx", builder.field("x")));
+  }
+
+  private LogicalAggregate outer(RelBuilder.AggCall call) {
+    return (LogicalAggregate) builder.aggregate(builder.groupKey("a"), call).build();
+  }
+
+  @Test
+  public void rollup() {
+    pushInnerAggregate();
+    assertTrue(IncrementalUpdateUtils.isRollup(outer(builder.sum(false, "s", builder.field("s")))));
+    pushInnerAggregate();
+    assertTrue(IncrementalUpdateUtils.isRollup(outer(builder.sum(false, "c", builder.field("c")))));
+    pushInnerAggregate();
+    assertTrue(IncrementalUpdateUtils.isRollup(outer(builder.min("mn", builder.field("mn")))));
+    pushInnerAggregate();
+    assertTrue(IncrementalUpdateUtils.isRollup(outer(builder.max("mb", builder.field("b")))));
+  }
+
+  @Test
+  public void notRollup() {
+    // counting inner groups depends on all the data
+    pushInnerAggregate();
+    assertFalse(IncrementalUpdateUtils.isRollup(outer(builder.count(false, "c"))));
+    pushInnerAggregate();
+    assertFalse(IncrementalUpdateUtils.isRollup(outer(builder.min("s", builder.field("s")))));
+    pushInnerAggregate();
+    assertFalse(IncrementalUpdateUtils.isRollup(outer(builder.sum(true, "s", builder.field("s")))));
+
+    // filtering on an aggregated value depends on all the data
+    pushInnerAggregate();
+    builder.filter(builder.call(SqlStdOperatorTable.GREATER_THAN, builder.field("s"), builder.literal(10)));
+    assertFalse(IncrementalUpdateUtils.isRollup(outer(builder.sum(false, "s", builder.field("s")))));
+  }
+}
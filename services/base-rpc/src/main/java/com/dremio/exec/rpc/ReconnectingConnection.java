@@ -24,6 +24,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.dremio.exec.rpc.RpcConnectionHandler.FailureType;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.AbstractFuture;
 import com.google.protobuf.MessageLite;
@@ -221,6 +222,14 @@ public abstract class ReconnectingConnection<CONNECTION_TYPE extends RemoteConne
     return new CloseHandlerCreator();
   }
 
+  /**
+   * @return the current connection, null if not connected
+   */
+  @VisibleForTesting
+  public CONNECTION_TYPE getConnection() {
+    return connectionHolder.get();
+  }
+
   public void addExternalConnection(CONNECTION_TYPE connection) {
     // if the connection holder is not set, set it to this incoming connection. We'll simply ignore if already set.
     this.connectionHolder.compareAndSet(null, connection);
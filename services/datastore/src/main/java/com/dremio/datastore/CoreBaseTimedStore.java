@@ -78,6 +78,13 @@ abstract class CoreBaseTimedStore<K, V> implements CoreKVStore<K, V> {
     }
   }
 
+  @Override
+  public void put(Map<KVStoreTuple<K>, KVStoreTuple<V>> entries) {
+    try (TimedBlock b = time(name + ".put(Map)")) {
+      kvStore.put(entries);
+    }
+  }
+
   @Override
   public boolean contains(KVStoreTuple<K> key) {
     try (TimedBlock b = time(name + ".contains")) {
@@ -92,6 +99,13 @@ abstract class CoreBaseTimedStore<K, V> implements CoreKVStore<K, V> {
     }
   }
 
+  @Override
+  public void delete(List<KVStoreTuple<K>> keys) {
+    try (TimedBlock b = time(name + ".delete(List)")) {
+      kvStore.delete(keys);
+    }
+  }
+
   @Override
   public void delete(KVStoreTuple<K> key, long previousVersion) {
     try (TimedBlock b = time(name + ".delete(K, long)")) {
@@ -15,6 +15,7 @@
  */
 package com.dremio.datastore;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -82,6 +83,15 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
     rawStore.put(key.getSerializedBytes(), value.getSerializedBytes());
   }
 
+  @Override
+  public void put(Map<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> entries) {
+    final Map<byte[], byte[]> convertedEntries = new LinkedHashMap<>();
+    for (Map.Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> entry : entries.entrySet()) {
+      convertedEntries.put(entry.getKey().getSerializedBytes(), entry.getValue().getSerializedBytes());
+    }
+    rawStore.put(convertedEntries);
+  }
+
   @Override
   public boolean checkAndPut(KVStoreTuple<KEY> key, KVStoreTuple<VALUE> oldValue, KVStoreTuple<VALUE> newValue) {
     return rawStore.checkAndPut(key.getSerializedBytes(), oldValue.isNull()? null : oldValue.getSerializedBytes(), newValue.getSerializedBytes());
@@ -97,6 +107,11 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
     rawStore.delete(key.getSerializedBytes());
   }
 
+  @Override
+  public void delete(List<KVStoreTuple<KEY>> keys) {
+    rawStore.delete(Lists.newArrayList(Lists.transform(keys, keyToBytes)));
+  }
+
   @Override
   public boolean checkAndDelete(KVStoreTuple<KEY> key, KVStoreTuple<VALUE> value) {
     return rawStore.checkAndDelete(key.getSerializedBytes(), value.getSerializedBytes());
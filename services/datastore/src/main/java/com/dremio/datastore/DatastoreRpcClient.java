@@ -47,6 +47,8 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.WriteBatchRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.WriteBatchResponse;
 import com.dremio.datastore.SearchTypes.SearchQuery;
 import com.dremio.exec.rpc.RpcException;
 import com.dremio.services.fabric.simple.ReceivedResponseMessage;
@@ -144,6 +146,19 @@ public class DatastoreRpcClient {
     return null;
   }
 
+  public List<Long> put(String storeId, List<ByteString> keys, List<ByteString> values) throws RpcException {
+    Preconditions.checkArgument(keys.size() == values.size());
+    final WriteBatchRequest.Builder builder = WriteBatchRequest.newBuilder();
+    builder.setStoreId(storeId);
+    builder.addAllPutKeys(keys);
+    builder.addAllPutValues(values);
+    ReceivedResponseMessage<WriteBatchResponse> response = rpcService.getWriteBatchEndpoint().send(builder.build());
+    if (response.getBody().hasConcurrentModificationError()) {
+      throw new ConcurrentModificationException(response.getBody().getConcurrentModificationError());
+    }
+    return response.getBody().getVersionsList();
+  }
+
   public Pair<Boolean, Long> checkAndPut(String storeId, ByteString key, ByteString oldValue, ByteString newValue) throws RpcException {
     final CheckAndPutRequest.Builder builder = CheckAndPutRequest.newBuilder();
     builder.setStoreId(storeId);
@@ -163,6 +178,13 @@ public class DatastoreRpcClient {
     rpcService.getDeleteEndpoint().send(builder.build());
   }
 
+  public void delete(String storeId, List<ByteString> keys) throws RpcException {
+    final WriteBatchRequest.Builder builder = WriteBatchRequest.newBuilder();
+    builder.setStoreId(storeId);
+    builder.addAllDeleteKeys(keys);
+    rpcService.getWriteBatchEndpoint().send(builder.build());
+  }
+
   public void delete(String storeId, ByteString key, long previousVersion) throws RpcException {
     final DeleteRequest.Builder builder = DeleteRequest.newBuilder();
     builder.setStoreId(storeId);
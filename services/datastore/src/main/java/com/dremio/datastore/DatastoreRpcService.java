@@ -39,6 +39,8 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.WriteBatchRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.WriteBatchResponse;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.rpc.RpcException;
 import com.dremio.services.fabric.api.FabricService;
@@ -68,6 +70,7 @@ public class DatastoreRpcService {
   private SendEndpointCreator<CheckAndPutRequest, CheckAndPutResponse> checkAndPutEndpointCreator;
   private SendEndpointCreator<CheckAndDeleteRequest, CheckAndDeleteResponse> checkAndDeleteEndpointCreator;
   private SendEndpointCreator<GetStoreRequest, GetStoreResponse> getStoreEndpointCreator;
+  private SendEndpointCreator<WriteBatchRequest, WriteBatchResponse> writeBatchEndpointCreator;
 
   public DatastoreRpcService(Provider<NodeEndpoint> masterNode,
                              FabricService fabricService, BufferAllocator allocator,
@@ -157,6 +160,14 @@ public class DatastoreRpcService {
         }
       });
 
+    writeBatchEndpointCreator = builder.register(typeId++,
+      new AbstractReceiveHandler<WriteBatchRequest, WriteBatchResponse>(WriteBatchRequest.getDefaultInstance(), WriteBatchResponse.getDefaultInstance()) {
+        @Override
+        public SentResponseMessage<WriteBatchResponse> handle(WriteBatchRequest request, ArrowBuf dBody) throws RpcException {
+          return new SentResponseMessage<>(handler.writeBatch(request));
+        }
+      });
+
     builder.register(fabricService);
   }
 
@@ -209,4 +220,8 @@ public class DatastoreRpcService {
     return newEndpoint(getStoreEndpointCreator);
   }
 
+  public SendEndpoint<WriteBatchRequest, WriteBatchResponse> getWriteBatchEndpoint() throws RpcException {
+    return newEndpoint(writeBatchEndpointCreator);
+  }
+
 }
@@ -35,6 +35,8 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.WriteBatchRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.WriteBatchResponse;
 
 /**
  * Request handler for incoming datastore rpc.
@@ -83,6 +85,10 @@ public class DefaultDataStoreRpcHandler {
     throw new UnsupportedOperationException("Remote datastore operations are not supported on this host " + hostName);
   }
 
+  public WriteBatchResponse writeBatch(WriteBatchRequest request) {
+    throw new UnsupportedOperationException("Remote datastore operations are not supported on this host " + hostName);
+  }
+
   public GetStoreResponse getStore(GetStoreRequest request) {
     throw new UnsupportedOperationException("Remote datastore operations are not supported on this host " + hostName);
   }
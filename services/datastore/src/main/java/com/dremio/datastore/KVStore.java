@@ -69,6 +69,16 @@ public interface KVStore<K, V> {
    */
   boolean checkAndPut(K key, V oldValue, V newValue);
 
+  /**
+   * Save all the provided entries. Depending on the underlying storage system, the entries are
+   * written atomically, and more efficiently than putting them one at a time. Versioned stores
+   * validate and write each entry separately.
+   *
+   * @param entries the entries to save, values can not be null.
+   * @throws NullPointerException when a value is null.
+   */
+  void put(Map<K, V> entries);
+
   /**
    * Indicate if the store contains an entry associated with the key. Return {@code true}
    * if such a key exist, {@code false} otherwise.
@@ -86,6 +96,13 @@ public interface KVStore<K, V> {
    */
   void delete(K key);
 
+  /**
+   * Remove all the provided keys, and the associated values, from the store. Depending on the
+   * underlying storage system, the keys are removed atomically. Keys which don't exist are ignored.
+   *
+   * @param keys the keys to remove.
+   */
+  void delete(List<K> keys);
 
   /**
    * Delete the value at the provided key if the current value is equal to the provided value.
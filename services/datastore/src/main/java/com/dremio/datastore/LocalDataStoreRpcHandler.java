@@ -15,7 +15,9 @@
  */
 package com.dremio.datastore;
 
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -41,6 +43,8 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.WriteBatchRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.WriteBatchResponse;
 import com.dremio.datastore.SearchTypes.SearchQuery;
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
@@ -172,6 +176,42 @@ public class LocalDataStoreRpcHandler extends DefaultDataStoreRpcHandler {
     return DeleteResponse.getDefaultInstance();
   }
 
+  @Override
+  public WriteBatchResponse writeBatch(WriteBatchRequest request) {
+    final CoreKVStore<Object, Object> store = coreStoreProvider.getStore(request.getStoreId());
+    final WriteBatchResponse.Builder builder = WriteBatchResponse.newBuilder();
+    if (request.getPutKeysCount() > 0) {
+      final Map<KVStoreTuple<Object>, KVStoreTuple<Object>> entries = new LinkedHashMap<>();
+      final List<KVStoreTuple<Object>> values = new ArrayList<>(request.getPutValuesCount());
+      for (int i = 0; i < request.getPutKeysCount(); i++) {
+        final KVStoreTuple<Object> value = store.newValue().setSerializedBytes(request.getPutValues(i).toByteArray());
+        entries.put(store.newKey().setSerializedBytes(request.getPutKeys(i).toByteArray()), value);
+        values.add(value);
+      }
+      try {
+        store.put(entries);
+      } catch (ConcurrentModificationException cme) {
+        return WriteBatchResponse.newBuilder().setConcurrentModificationError(cme.getMessage()).build();
+      }
+      for (KVStoreTuple<Object> value : values) {
+        if (value.getVersion() == null) {
+          builder.clearVersions();
+          break;
+        }
+        builder.addVersions(value.getVersion());
+      }
+    }
+
+    if (request.getDeleteKeysCount() > 0) {
+      final List<KVStoreTuple<Object>> keys = new ArrayList<>(request.getDeleteKeysCount());
+      for (ByteString key : request.getDeleteKeysList()) {
+        keys.add(store.newKey().setSerializedBytes(key.toByteArray()));
+      }
+      store.delete(keys);
+    }
+    return builder.build();
+  }
+
   @Override
   public CheckAndPutResponse checkAndPut(CheckAndPutRequest request) {
     final CoreKVStore<Object, Object> store = coreStoreProvider.getStore(request.getStoreId());
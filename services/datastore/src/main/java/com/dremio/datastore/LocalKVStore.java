@@ -15,6 +15,8 @@
  */
 package com.dremio.datastore;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -83,6 +85,15 @@ public class LocalKVStore<K, V> implements KVStore<K, V> {
     coreKVStore.put(buildKey(key), buildValue(value));
   }
 
+  @Override
+  public void put(Map<K, V> entries) {
+    final Map<KVStoreTuple<K>, KVStoreTuple<V>> convertedEntries = new LinkedHashMap<>();
+    for (Map.Entry<K, V> entry : entries.entrySet()) {
+      convertedEntries.put(buildKey(entry.getKey()), buildValue(entry.getValue()));
+    }
+    coreKVStore.put(convertedEntries);
+  }
+
   @Override
   public boolean checkAndPut(K key, V oldValue, V newValue) {
     return coreKVStore.checkAndPut(buildKey(key), buildValue(oldValue), buildValue(newValue));
@@ -98,6 +109,15 @@ public class LocalKVStore<K, V> implements KVStore<K, V> {
     coreKVStore.delete(buildKey(key));
   }
 
+  @Override
+  public void delete(List<K> keys) {
+    final List<KVStoreTuple<K>> convertedKeys = new ArrayList<>(keys.size());
+    for (K key : keys) {
+      convertedKeys.add(buildKey(key));
+    }
+    coreKVStore.delete(convertedKeys);
+  }
+
   @Override
   public boolean checkAndDelete(K key, V value) {
     return coreKVStore.checkAndDelete(buildKey(key), buildValue(value));
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentSkipListMap;
 
@@ -62,6 +63,13 @@ class MapStore implements ByteStore {
     map.put(key, ByteBuffer.wrap(v));
   }
 
+  @Override
+  public void put(Map<byte[], byte[]> entries) {
+    for (Entry<byte[], byte[]> entry : entries.entrySet()) {
+      put(entry.getKey(), entry.getValue());
+    }
+  }
+
   @Override
   public boolean checkAndPut(byte[] key, byte[] oldValue, byte[] newValue) {
     Preconditions.checkNotNull(newValue);
@@ -82,6 +90,13 @@ class MapStore implements ByteStore {
     map.remove(key);
   }
 
+  @Override
+  public void delete(List<byte[]> keys) {
+    for (byte[] key : keys) {
+      delete(key);
+    }
+  }
+
   @Override
   public boolean checkAndDelete(byte[] key, byte[] value) {
     Preconditions.checkNotNull(value);
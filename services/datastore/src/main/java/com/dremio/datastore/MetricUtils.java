@@ -77,7 +77,7 @@ public class MetricUtils {
 
     private final Timer.Context context;
 
-    MetricTimer(Timer timer) {
+    public MetricTimer(Timer timer) {
       Preconditions.checkNotNull(timer, "timer required");
       context = timer.time();
     }
@@ -95,6 +95,25 @@ class OCCStore<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
     }
   }
 
+  @Override
+  public void put(Map<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> entries) {
+    if (!disableValidation) {
+      // each entry is validated against its previous version, so it cannot be part of a batch
+      for (Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> entry : entries.entrySet()) {
+        put(entry.getKey(), entry.getValue());
+      }
+      return;
+    }
+
+    for (KVStoreTuple<VALUE> newValue : entries.values()) {
+      newValue.incrementVersion();
+      if (newValue.getVersion() == null) {
+        throw new IllegalArgumentException("missing version in " + newValue);
+      }
+    }
+    store.put(entries);
+  }
+
   @Override
   public void delete(KVStoreTuple<KEY> key, long previousVersion) {
     if (disableValidation) {
@@ -127,6 +146,11 @@ class OCCStore<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
     store.delete(key);
   }
 
+  @Override
+  public void delete(List<KVStoreTuple<KEY>> keys) {
+    store.delete(keys);
+  }
+
   @Override
   public boolean checkAndDelete(KVStoreTuple<KEY> key, KVStoreTuple<VALUE> value) {
     return store.checkAndDelete(key, value);
@@ -21,6 +21,7 @@ import static java.lang.String.format;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -49,9 +50,11 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
     GET,
     GET_LIST,
     PUT,
+    PUT_MAP,
     CHECK_AND_PUT,
     CONTAINS,
     DELETE,
+    DELETE_LIST,
     CHECK_AND_DELETE,
     DELETE_VERSION,
     FIND_BY_RANGE,
@@ -199,6 +202,27 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
     }
   }
 
+  @Override
+  public void put(Map<K, V> entries) {
+    try (CloseableTimer timer = time(Stats.PUT_MAP)) {
+      final List<ByteString> keys = new ArrayList<>(entries.size());
+      final List<ByteString> values = new ArrayList<>(entries.size());
+      for (Entry<K, V> entry : entries.entrySet()) {
+        keys.add(ByteString.copyFrom(keySerializer.serialize(entry.getKey())));
+        values.add(ByteString.copyFrom(valueSerializer.serialize(entry.getValue())));
+      }
+      final List<Long> versions = client.put(storeId, keys, values);
+      if (versionExtractor != null && versions.size() == entries.size()) {
+        int i = 0;
+        for (V value : entries.values()) {
+          versionExtractor.setVersion(value, versions.get(i++));
+        }
+      }
+    } catch (RpcException e) {
+      throw new DatastoreException(format("Failed to put multiple values in store id: %s, config: %s", getStoreId(), getConfig().toString()), e);
+    }
+  }
+
   @Override
   public boolean checkAndPut(K key, V oldValue, V newValue) {
     try (CloseableTimer timer = time(Stats.CHECK_AND_PUT)) {
@@ -234,6 +258,19 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
     }
   }
 
+  @Override
+  public void delete(List<K> keys) {
+    try (CloseableTimer timer = time(Stats.DELETE_LIST)) {
+      final List<ByteString> keyList = new ArrayList<>(keys.size());
+      for (K key : keys) {
+        keyList.add(ByteString.copyFrom(keySerializer.serialize(key)));
+      }
+      client.delete(storeId, keyList);
+    } catch (RpcException e) {
+      throw new DatastoreException(format("Failed to delete multiple keys from store id: %s, config: %s", getStoreId(), getConfig().toString()), e);
+    }
+  }
+
   @Override
   public boolean checkAndDelete(K key, V value) {
     try (CloseableTimer timer = time(Stats.CHECK_AND_DELETE)) {
@@ -22,6 +22,7 @@ import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -38,16 +39,21 @@ import org.rocksdb.FlushOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.DeferredException;
 import com.dremio.common.concurrent.AutoCloseableLock;
+import com.dremio.datastore.MetricUtils.CloseableTimer;
 import com.dremio.datastore.MetricUtils.MetricSetBuilder;
 import com.dremio.metrics.Metrics;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.UnsignedBytes;
 
@@ -63,7 +69,8 @@ import com.google.common.primitives.UnsignedBytes;
  * ensure a consistent viewpoint of data. As such, we grab an exclusive lock for
  * the desired key range for the life of the set of operations. We use the
  * AutoCloseableLock pattern with try-with-resources to ensure that we avoid any
- * lock leaking.
+ * lock leaking. Multi-key reads (multiGet) and batched writes (WriteBatch) take
+ * the shared locks of all the stripes they touch, in stripe order.
  *
  * Since the RocksDB interface is native, we need to manage native memory
  * cautiously. To this end, we manage the range iterator through the use of a
@@ -75,6 +82,19 @@ class RocksDBStore implements ByteStore {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RocksDBStore.class);
 
   private static final String METRICS_PREFIX = "kvstore.stores";
+
+  private enum Stats {
+    GET,
+    GET_LIST,
+    PUT,
+    PUT_MAP,
+    CHECK_AND_PUT,
+    CONTAINS,
+    DELETE,
+    DELETE_LIST,
+    CHECK_AND_DELETE
+  }
+
   private static final String[] METRIC_PROPERTIES = {
     // number of immutable memtables that have not yet been flushed
     "rocksdb.num-immutable-mem-table",
@@ -143,6 +163,8 @@ class RocksDBStore implements ByteStore {
   private final AtomicLong gcIterators = new AtomicLong(0);
   private final AtomicLong closedIterators = new AtomicLong(0);
 
+  private final Map<Stats, Timer> timers;
+
   public RocksDBStore(String name, ColumnFamilyDescriptor family, ColumnFamilyHandle handle, RocksDB db, int stripes) {
     super();
     this.family = family;
@@ -162,6 +184,7 @@ class RocksDBStore implements ByteStore {
     if (COLLECT_METRICS) {
       registerMetrics();
     }
+    this.timers = registerTimers();
   }
 
   private void registerMetrics() {
@@ -180,6 +203,26 @@ class RocksDBStore implements ByteStore {
     Metrics.getInstance().registerAll(builder.build());
   }
 
+  private Map<Stats, Timer> registerTimers() {
+    if (!COLLECT_METRICS) {
+      return ImmutableMap.of();
+    }
+
+    final MetricRegistry registry = Metrics.getInstance();
+    final ImmutableMap.Builder<Stats, Timer> builder = ImmutableMap.builder();
+    for (Stats stat : Stats.values()) {
+      builder.put(stat, registry.timer(MetricRegistry.name(METRICS_PREFIX, name, stat.name())));
+    }
+    return builder.build();
+  }
+
+  private CloseableTimer time(Stats stat) {
+    if (COLLECT_METRICS) {
+      return new MetricUtils.MetricTimer(timers.get(stat));
+    }
+    return MetricUtils.NO_OP;
+  }
+
   private void compact() throws RocksDBException {
     db.compactRange(handle);
   }
@@ -243,6 +286,32 @@ class RocksDBStore implements ByteStore {
     return lock;
   }
 
+  /**
+   * Acquire the shared locks of all the stripes used by the keys. Locks are taken in stripe order
+   * so that concurrent batches cannot deadlock.
+   */
+  private List<AutoCloseableLock> sharedLocks(Iterable<byte[]> keys) {
+    final boolean[] stripes = new boolean[parallel];
+    for (byte[] key : keys) {
+      Preconditions.checkNotNull(key);
+      stripes[Math.abs(Arrays.hashCode(key) % parallel)] = true;
+    }
+
+    final List<AutoCloseableLock> locks = new ArrayList<>();
+    for (int i = 0; i < parallel; i++) {
+      if (stripes[i]) {
+        locks.add(sharedLocks[i].open());
+      }
+    }
+    return locks;
+  }
+
+  private static void release(List<AutoCloseableLock> locks) {
+    for (AutoCloseableLock lock : locks) {
+      lock.close();
+    }
+  }
+
   private AutoCloseableLock exclusiveLock(byte[] key) {
     Preconditions.checkNotNull(key);
     final int hash = Arrays.hashCode(key);
@@ -277,7 +346,8 @@ class RocksDBStore implements ByteStore {
 
   @Override
   public byte[] get(byte[] key) {
-    try (AutoCloseableLock ac = sharedLock(key)) {
+    try (CloseableTimer timer = time(Stats.GET);
+         AutoCloseableLock ac = sharedLock(key)) {
       return db.get(handle, key);
     } catch (RocksDBException e) {
       throw wrap(e);
@@ -381,7 +451,8 @@ class RocksDBStore implements ByteStore {
       throw new NullPointerException("null values are not allowed in kvstore");
     }
 
-    try (AutoCloseableLock ac = sharedLock(key)) {
+    try (CloseableTimer timer = time(Stats.PUT);
+         AutoCloseableLock ac = sharedLock(key)) {
       db.put(handle, key, value);
     } catch (RocksDBException e) {
       throw wrap(e);
@@ -391,11 +462,74 @@ class RocksDBStore implements ByteStore {
 
   @Override
   public List<byte[]> get(List<byte[]> keys) {
-    List<byte[]> values = new ArrayList<>();
-    for (byte[] key : keys) {
-      values.add(get(key));
+    // keys might be a lazy view, and values are returned by key identity
+    final List<byte[]> keyList = new ArrayList<>(keys);
+    final List<byte[]> values = new ArrayList<>(keyList.size());
+    if (keyList.isEmpty()) {
+      return values;
+    }
+
+    final CloseableTimer timer = time(Stats.GET_LIST);
+    final List<AutoCloseableLock> locks = sharedLocks(keyList);
+    try {
+      final Map<byte[], byte[]> found = db.multiGet(Collections.nCopies(keyList.size(), handle), keyList);
+      for (byte[] key : keyList) {
+        values.add(found.get(key));
+      }
+      return values;
+    } catch (RocksDBException e) {
+      throw wrap(e);
+    } finally {
+      release(locks);
+      timer.close();
+    }
+  }
+
+  @Override
+  public void put(Map<byte[], byte[]> entries) {
+    for (byte[] value : entries.values()) {
+      if (value == null) {
+        throw new NullPointerException("null values are not allowed in kvstore");
+      }
+    }
+    if (entries.isEmpty()) {
+      return;
+    }
+
+    final CloseableTimer timer = time(Stats.PUT_MAP);
+    final List<AutoCloseableLock> locks = sharedLocks(entries.keySet());
+    try (WriteBatch batch = new WriteBatch(); WriteOptions options = new WriteOptions()) {
+      for (Entry<byte[], byte[]> entry : entries.entrySet()) {
+        batch.put(handle, entry.getKey(), entry.getValue());
+      }
+      db.write(options, batch);
+    } catch (RocksDBException e) {
+      throw wrap(e);
+    } finally {
+      release(locks);
+      timer.close();
+    }
+  }
+
+  @Override
+  public void delete(List<byte[]> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+
+    final CloseableTimer timer = time(Stats.DELETE_LIST);
+    final List<AutoCloseableLock> locks = sharedLocks(keys);
+    try (WriteBatch batch = new WriteBatch(); WriteOptions options = new WriteOptions()) {
+      for (byte[] key : keys) {
+        batch.remove(handle, key);
+      }
+      db.write(options, batch);
+    } catch (RocksDBException e) {
+      throw wrap(e);
+    } finally {
+      release(locks);
+      timer.close();
     }
-    return values;
   }
 
   @Override
@@ -404,7 +538,8 @@ class RocksDBStore implements ByteStore {
       throw new NullPointerException("null values are not allowed in kvstore");
     }
 
-    try (AutoCloseableLock ac = exclusiveLock(key)) {
+    try (CloseableTimer timer = time(Stats.CHECK_AND_PUT);
+         AutoCloseableLock ac = exclusiveLock(key)) {
       byte[] oldValue = db.get(handle, key);
       if (!Arrays.equals(oldValue, expectedOldValue)) {
         return false;
@@ -418,7 +553,8 @@ class RocksDBStore implements ByteStore {
 
   @Override
   public boolean contains(byte[] key) {
-    try (AutoCloseableLock ac = sharedLock(key)) {
+    try (CloseableTimer timer = time(Stats.CONTAINS);
+         AutoCloseableLock ac = sharedLock(key)) {
       return db.get(handle, key) != null;
     } catch (RocksDBException e) {
       throw wrap(e);
@@ -427,7 +563,8 @@ class RocksDBStore implements ByteStore {
 
   @Override
   public void delete(byte[] key) {
-    try (AutoCloseableLock ac = sharedLock(key)) {
+    try (CloseableTimer timer = time(Stats.DELETE);
+         AutoCloseableLock ac = sharedLock(key)) {
       db.delete(handle, key);
     } catch (RocksDBException e) {
       throw wrap(e);
@@ -436,7 +573,8 @@ class RocksDBStore implements ByteStore {
 
   @Override
   public boolean checkAndDelete(byte[] key, byte[] expectedOldValue) {
-    try (AutoCloseableLock ac = exclusiveLock(key)) {
+    try (CloseableTimer timer = time(Stats.CHECK_AND_DELETE);
+         AutoCloseableLock ac = exclusiveLock(key)) {
       byte[] oldValue = db.get(handle, key);
       if (!Arrays.equals(oldValue, expectedOldValue)) {
         return false;
@@ -17,15 +17,19 @@ package com.dremio.datastore;
 
 import java.util.concurrent.TimeUnit;
 
+import com.codahale.metrics.MetricRegistry;
+import com.dremio.metrics.Metrics;
 import com.google.common.base.Stopwatch;
 
 /**
  * Fancy watch that computes the elapsed time between creation and closing and logs a warning if it exceeds
- * the given warnDelay
+ * the given warnDelay. Elapsed times are also recorded in the {@code timers.<name>} metric.
  */
 public final class WarningTimer implements AutoCloseable {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(WarningTimer.class);
 
+  private static final String METRIC_PREFIX = "timers";
+
   private final Stopwatch stopwatch;
   private final String name;
   private final long warnDelay;
@@ -39,6 +43,7 @@ public final class WarningTimer implements AutoCloseable {
   @Override
   public void close() {
     long elapsed = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+    Metrics.getInstance().timer(MetricRegistry.name(METRIC_PREFIX, name)).update(elapsed, TimeUnit.MILLISECONDS);
     if (elapsed > warnDelay) {
       logger.warn("{} took {} ms", name, elapsed);
     }
@@ -18,6 +18,7 @@ package com.dremio.datastore.indexed;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import org.apache.lucene.document.Document;
@@ -106,6 +107,14 @@ public class CoreIndexedStoreImpl<K, V> implements CoreIndexedStore<K, V> {
     index(key, v);
   }
 
+  @Override
+  public void put(Map<KVStoreTuple<K>, KVStoreTuple<V>> entries) {
+    base.put(entries);
+    for (Entry<KVStoreTuple<K>, KVStoreTuple<V>> entry : entries.entrySet()) {
+      index(entry.getKey(), entry.getValue());
+    }
+  }
+
   private void index(KVStoreTuple<K> key, KVStoreTuple<V> v) {
     final Document document = toDoc(key, v);
     if (document != null) {
@@ -198,6 +207,14 @@ public class CoreIndexedStoreImpl<K, V> implements CoreIndexedStore<K, V> {
     index.deleteDocuments(keyAsTerm(key));
   }
 
+  @Override
+  public void delete(List<KVStoreTuple<K>> keys) {
+    base.delete(keys);
+    for (KVStoreTuple<K> key : keys) {
+      index.deleteDocuments(keyAsTerm(key));
+    }
+  }
+
   @Override
   public List<KVStoreTuple<V>> get(List<KVStoreTuple<K>> keys) {
     return base.get(keys);
@@ -15,6 +15,8 @@
  */
 package com.dremio.datastore.indexed;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -103,6 +105,15 @@ public class LocalIndexedStore<K, V> implements IndexedStore<K, V> {
     coreIndexedStore.put(buildKey(key), buildValue(value));
   }
 
+  @Override
+  public void put(Map<K, V> entries) {
+    final Map<KVStoreTuple<K>, KVStoreTuple<V>> convertedEntries = new LinkedHashMap<>();
+    for (Map.Entry<K, V> entry : entries.entrySet()) {
+      convertedEntries.put(buildKey(entry.getKey()), buildValue(entry.getValue()));
+    }
+    coreIndexedStore.put(convertedEntries);
+  }
+
   @Override
   public boolean checkAndPut(K key, V oldValue, V newValue) {
     return coreIndexedStore.checkAndPut(buildKey(key), buildValue(oldValue), buildValue(newValue));
@@ -118,6 +129,15 @@ public class LocalIndexedStore<K, V> implements IndexedStore<K, V> {
     coreIndexedStore.delete(buildKey(key));
   }
 
+  @Override
+  public void delete(List<K> keys) {
+    final List<KVStoreTuple<K>> convertedKeys = new ArrayList<>(keys.size());
+    for (K key : keys) {
+      convertedKeys.add(buildKey(key));
+    }
+    coreIndexedStore.delete(convertedKeys);
+  }
+
   @Override
   public boolean checkAndDelete(K key, V value) {
     return coreIndexedStore.checkAndDelete(buildKey(key), buildValue(value));
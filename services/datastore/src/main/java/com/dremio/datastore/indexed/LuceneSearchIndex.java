@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.document.Document;
@@ -42,14 +43,17 @@ import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.BytesRef;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.dremio.datastore.IndexedStore;
 import com.dremio.datastore.MetricUtils;
+import com.dremio.datastore.MetricUtils.CloseableTimer;
 import com.dremio.datastore.WarningTimer;
 import com.dremio.metrics.Metrics;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 /**
  * Local search index based on lucene.
@@ -59,6 +63,11 @@ public class LuceneSearchIndex implements AutoCloseable {
 
   private static final String METRIC_PREFIX = "kvstore.lucene";
 
+  private enum Stats {
+    COUNT,
+    SEARCH
+  }
+
   //delay between end of a commit and next commit
   private static final long COMMIT_FREQUENCY = Integer.getInteger("dremio.lucene.commit_frequency", 60_000);
 
@@ -135,6 +144,7 @@ public class LuceneSearchIndex implements AutoCloseable {
   private final DirectoryReader reader;
   private final SearcherManager searcherManager;
   private final String name;
+  private final Map<Stats, Timer> timers;
 
   public LuceneSearchIndex(final String localStorageDir, final String name, boolean inMemory) {
     this(new File(localStorageDir), name, inMemory);
@@ -180,6 +190,7 @@ public class LuceneSearchIndex implements AutoCloseable {
     if (COLLECT_METRICS) {
       registerMetrics();
     }
+    this.timers = registerTimers();
   }
 
   private void registerMetrics() {
@@ -189,6 +200,26 @@ public class LuceneSearchIndex implements AutoCloseable {
       .build());
   }
 
+  private Map<Stats, Timer> registerTimers() {
+    if (!COLLECT_METRICS) {
+      return ImmutableMap.of();
+    }
+
+    final MetricRegistry registry = Metrics.getInstance();
+    final ImmutableMap.Builder<Stats, Timer> builder = ImmutableMap.builder();
+    for (Stats stat : Stats.values()) {
+      builder.put(stat, registry.timer(MetricRegistry.name(METRIC_PREFIX, name, stat.name())));
+    }
+    return builder.build();
+  }
+
+  private CloseableTimer time(Stats stat) {
+    if (COLLECT_METRICS) {
+      return new MetricUtils.MetricTimer(timers.get(stat));
+    }
+    return MetricUtils.NO_OP;
+  }
+
   private void checkIfChanged() {
     try{
       if (!reader.isCurrent()) {
@@ -232,7 +263,8 @@ public class LuceneSearchIndex implements AutoCloseable {
   public int count(final Query query){
     committerThread.throwExceptionIfAny();
     checkIfChanged();
-    try(Searcher searcher = acquireSearcher()) {
+    try(CloseableTimer timer = time(Stats.COUNT);
+        Searcher searcher = acquireSearcher()) {
       return searcher.count(query);
     }
   }
@@ -242,7 +274,8 @@ public class LuceneSearchIndex implements AutoCloseable {
     checkIfChanged();
     List<Integer> integers = new ArrayList<>(queries.size());
 
-    try(Searcher searcher = acquireSearcher()) {
+    try(CloseableTimer timer = time(Stats.COUNT);
+        Searcher searcher = acquireSearcher()) {
       for(Query q : queries){
         integers.add(searcher.count(q));
       }
@@ -281,7 +314,8 @@ public class LuceneSearchIndex implements AutoCloseable {
   public List<Doc> searchAfter(final Query query, int pageSize, Sort sort, Doc doc) throws IOException {
     committerThread.throwExceptionIfAny();
     checkIfChanged();
-    try(Searcher searcher = acquireSearcher()) {
+    try(CloseableTimer timer = time(Stats.SEARCH);
+        Searcher searcher = acquireSearcher()) {
       TopDocs fieldDocs = searcher.searchAfter(doc.doc, query, pageSize, sort);
       if(fieldDocs == null) {
         return ImmutableList.of();
@@ -294,7 +328,8 @@ public class LuceneSearchIndex implements AutoCloseable {
   public List<Document> searchForDocuments(final Query query, int pageSize, Sort sort) throws IOException {
     committerThread.throwExceptionIfAny();
     checkIfChanged();
-    try (Searcher searcher = acquireSearcher()){
+    try (CloseableTimer timer = time(Stats.SEARCH);
+         Searcher searcher = acquireSearcher()){
       final List<Document> documents = new ArrayList<>();
       TopDocs fieldDocs = searcher.search(query, pageSize, sort);
       for(ScoreDoc d : fieldDocs.scoreDocs){
@@ -310,7 +345,8 @@ public class LuceneSearchIndex implements AutoCloseable {
     checkIfChanged();
     Preconditions.checkArgument(skip > -1, "Skip must be zero or greater. Was %d.", skip);
 
-    try (Searcher searcher = acquireSearcher()){
+    try (CloseableTimer timer = time(Stats.SEARCH);
+         Searcher searcher = acquireSearcher()){
 
       if(skip == 0){
         // don't skip anything.
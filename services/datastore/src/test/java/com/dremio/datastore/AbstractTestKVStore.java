@@ -186,6 +186,34 @@ public abstract class AbstractTestKVStore {
     assertNull(backend.get("random key"));
   }
 
+  @Test
+  public void testGetKeys() {
+    backend.put("key1", "value1");
+    backend.put("key3", "value3");
+    assertEquals(Lists.newArrayList("value3", null, "value1", "value3"),
+        kvStore.get(ImmutableList.of("key3", "key2", "key1", "key3")));
+  }
+
+  @Test
+  public void testPutEntries() {
+    backend.put("key1", "value1");
+    kvStore.put(ImmutableMap.of("key1", "value11", "key2", "value2", "key3", "value3"));
+    assertEquals("value11", backend.get("key1"));
+    assertEquals("value2", backend.get("key2"));
+    assertEquals("value3", backend.get("key3"));
+  }
+
+  @Test
+  public void testDeleteKeys() {
+    backend.put("key1", "value1");
+    backend.put("key2", "value2");
+    backend.put("key3", "value3");
+    kvStore.delete(ImmutableList.of("key1", "key3", "missing key"));
+    assertNull(backend.get("key1"));
+    assertEquals("value2", backend.get("key2"));
+    assertNull(backend.get("key3"));
+  }
+
   @Test
   public void testCheckAndPut() throws Exception {
     boolean updated = kvStore.checkAndPut("key1", null, "value1");
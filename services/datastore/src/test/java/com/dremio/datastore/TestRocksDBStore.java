@@ -20,6 +20,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -27,6 +28,11 @@ import static org.junit.Assume.assumeThat;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.concurrent.Callable;
@@ -163,6 +169,30 @@ public class TestRocksDBStore {
     }
   }
 
+  @Test
+  public void testBatches() {
+    final byte[] key1 = "batchKey1".getBytes(UTF_8);
+    final byte[] key2 = "batchKey2".getBytes(UTF_8);
+    final byte[] key3 = "batchKey3".getBytes(UTF_8);
+    final Map<byte[], byte[]> entries = new LinkedHashMap<>();
+    entries.put(key1, "value1".getBytes(UTF_8));
+    entries.put(key2, "value2".getBytes(UTF_8));
+    store.put(entries);
+
+    // copies of the keys, as values are matched by content
+    final List<byte[]> values = store.get(Arrays.asList(key2.clone(), key3, key1.clone(), key2));
+    assertEquals(4, values.size());
+    assertArrayEquals("value2".getBytes(UTF_8), values.get(0));
+    assertNull(values.get(1));
+    assertArrayEquals("value1".getBytes(UTF_8), values.get(2));
+    assertArrayEquals("value2".getBytes(UTF_8), values.get(3));
+
+    store.delete(Arrays.asList(key1, key3));
+    assertNull(store.get(key1));
+    assertArrayEquals("value2".getBytes(UTF_8), store.get(key2));
+    assertTrue(store.get(Collections.<byte[]>emptyList()).isEmpty());
+  }
+
   @Test()
   public void testNotClosed() throws InterruptedException, ExecutionException {
     ExecutorService executor = Executors.newFixedThreadPool(4);
@@ -23,44 +23,101 @@ import org.apache.arrow.memory.BufferAllocator;
 import com.dremio.common.AutoCloseables;
 import com.dremio.exec.rpc.RpcConfig;
 import com.dremio.services.fabric.proto.FabricProto.FabricIdentity;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import io.netty.channel.EventLoopGroup;
 
 /**
- * Manages available remote connections
+ * Manages available remote connections. Each remote node is reached through a fixed number of channels, each channel
+ * being its own connection. Channel 0 carries control messages, while bulk data is striped over the other channels,
+ * so that control messages are never queued behind data and data transfers spread over several sockets and event loop
+ * threads. With a single channel, all the messages share the same connection.
  */
 class ConnectionManagerRegistry implements AutoCloseable {
   static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ConnectionManagerRegistry.class);
 
-  private final ConcurrentMap<FabricIdentity, FabricConnectionManager> registry = Maps.newConcurrentMap();
+  static final int CONTROL_CHANNEL = 0;
+
+  private final ConcurrentMap<FabricIdentity, FabricConnectionManager[]> registry = Maps.newConcurrentMap();
 
   private volatile FabricIdentity localIdentity;
   private final BufferAllocator allocator;
   private final RpcConfig config;
   private final EventLoopGroup eventLoop;
   private final FabricMessageHandler handler;
+  private final FabricChannelStats[] stats;
 
-  public ConnectionManagerRegistry(RpcConfig config, EventLoopGroup eventLoop, BufferAllocator allocator, FabricMessageHandler handler) {
+  public ConnectionManagerRegistry(RpcConfig config, EventLoopGroup eventLoop, BufferAllocator allocator,
+      FabricMessageHandler handler, int channels) {
     super();
+    Preconditions.checkArgument(channels > 0, "At least one channel per remote node is required.");
     this.allocator = allocator;
     this.config = config;
     this.eventLoop = eventLoop;
     this.handler = handler;
+    this.stats = new FabricChannelStats[channels];
+    for (int i = 0; i < channels; i++) {
+      stats[i] = new FabricChannelStats();
+    }
   }
 
+  /**
+   * @return the connection manager of the control channel to the remote node
+   */
   public FabricConnectionManager getConnectionManager(FabricIdentity remoteIdentity) {
+    return getConnectionManager(remoteIdentity, CONTROL_CHANNEL);
+  }
+
+  /**
+   * @return the connection manager of the given channel to the remote node
+   */
+  public FabricConnectionManager getConnectionManager(FabricIdentity remoteIdentity, int channel) {
     assert localIdentity != null : "Fabric identity must be set before a connection manager can be retrieved";
-    FabricConnectionManager m = registry.get(remoteIdentity);
+    Preconditions.checkElementIndex(channel, stats.length, "channel");
+    FabricConnectionManager[] m = registry.get(remoteIdentity);
     if (m == null) {
-      m = new FabricConnectionManager(config, allocator, remoteIdentity, localIdentity, eventLoop, handler);
-      FabricConnectionManager m2 = registry.putIfAbsent(remoteIdentity, m);
+      // connection managers are lazy, they only connect once a command is run
+      m = new FabricConnectionManager[stats.length];
+      for (int i = 0; i < m.length; i++) {
+        m[i] = new FabricConnectionManager(config, allocator, remoteIdentity, localIdentity, eventLoop, handler, i, stats[i]);
+      }
+      FabricConnectionManager[] m2 = registry.putIfAbsent(remoteIdentity, m);
       if (m2 != null) {
         m = m2;
       }
     }
-    return m;
+    return m[channel];
+  }
+
+  /**
+   * Maps a stripe, e.g. the hash of a data stream, to a data channel. A given stripe always uses the same channel.
+   *
+   * @param stripe the stripe
+   * @return the data channel of the stripe, the control channel if there is only one channel
+   */
+  public int getDataChannel(int stripe) {
+    if (stats.length == 1) {
+      return CONTROL_CHANNEL;
+    }
+    return 1 + (stripe & Integer.MAX_VALUE) % (stats.length - 1);
+  }
+
+  /**
+   * Maps the channel announced by a remote node, which may be configured with a different number of channels, to a
+   * local channel.
+   */
+  public int getInboundChannel(int remoteChannel) {
+    return remoteChannel <= CONTROL_CHANNEL ? CONTROL_CHANNEL : getDataChannel(remoteChannel - 1);
+  }
+
+  public int getChannelCount() {
+    return stats.length;
+  }
+
+  public FabricChannelStats getStats(int channel) {
+    return stats[channel];
   }
 
   public void setIdentity(FabricIdentity localIdentity) {
@@ -71,8 +128,10 @@ class ConnectionManagerRegistry implements AutoCloseable {
   public void close() throws Exception {
     List<AutoCloseable> closeables = Lists.newArrayList();
 
-    for (FabricConnectionManager bt : registry.values()) {
-      closeables.add(bt);
+    for (FabricConnectionManager[] managers : registry.values()) {
+      for (FabricConnectionManager bt : managers) {
+        closeables.add(bt);
+      }
     }
 
     AutoCloseables.close(closeables);
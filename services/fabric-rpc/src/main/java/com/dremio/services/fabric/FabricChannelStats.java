@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.services.fabric;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Messages and bytes sent on a fabric channel, summed over all the remote nodes.
+ */
+final class FabricChannelStats {
+
+  private final AtomicLong messagesSent = new AtomicLong();
+  private final AtomicLong bytesSent = new AtomicLong();
+
+  void sent(long bytes) {
+    messagesSent.incrementAndGet();
+    bytesSent.addAndGet(bytes);
+  }
+
+  long getMessagesSent() {
+    return messagesSent.get();
+  }
+
+  long getBytesSent() {
+    return bytesSent.get();
+  }
+}
@@ -26,7 +26,7 @@ import com.dremio.services.fabric.proto.FabricProto.FabricIdentity;
 import io.netty.channel.EventLoopGroup;
 
 /**
- * Maintains connection between two particular daemons/sockets.
+ * Maintains connection between two particular daemons/sockets, on one of the channels between them.
  */
 final class FabricConnectionManager extends ReconnectingConnection<FabricConnection, FabricHandshake> {
   static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(FabricConnectionManager.class);
@@ -36,6 +36,8 @@ final class FabricConnectionManager extends ReconnectingConnection<FabricConnect
   private final BufferAllocator allocator;
   private final EventLoopGroup eventLoop;
   private final FabricMessageHandler handler;
+  private final int channel;
+  private final FabricChannelStats stats;
   private RpcConfig rpcConfig;
 
   public FabricConnectionManager(
@@ -44,12 +46,15 @@ final class FabricConnectionManager extends ReconnectingConnection<FabricConnect
       final FabricIdentity remoteIdentity,
       final FabricIdentity localIdentity,
       final EventLoopGroup eventLoop,
-      final FabricMessageHandler handler) {
+      final FabricMessageHandler handler,
+      final int channel,
+      final FabricChannelStats stats) {
     super(
         rpcConfig.getName(),
         FabricHandshake.newBuilder()
           .setRpcVersion(FabricRpcConfig.RPC_VERSION)
           .setIdentity(localIdentity)
+          .setChannel(channel)
           .build(),
         remoteIdentity.getAddress(),
         remoteIdentity.getPort());
@@ -63,6 +68,16 @@ final class FabricConnectionManager extends ReconnectingConnection<FabricConnect
     this.remoteIdentity = remoteIdentity;
     this.localIdentity = localIdentity;
     this.handler = handler;
+    this.channel = channel;
+    this.stats = stats;
+  }
+
+  public int getChannel() {
+    return channel;
+  }
+
+  FabricChannelStats getStats() {
+    return stats;
   }
 
   @Override
@@ -70,5 +85,4 @@ final class FabricConnectionManager extends ReconnectingConnection<FabricConnect
     return new FabricClient(rpcConfig, eventLoop, allocator, remoteIdentity, localIdentity, handler, new CloseHandlerCreator());
   }
 
-
 }
@@ -114,7 +114,8 @@ class FabricServer extends BasicServer<RpcType, FabricConnection>{
         final boolean isLoopback = inbound.getIdentity().getAddress().equals(address) && inbound.getIdentity().getPort() == port;
 
         if (!isLoopback) {
-          FabricConnectionManager manager = connectionRegistry.getConnectionManager(inbound.getIdentity());
+          FabricConnectionManager manager = connectionRegistry.getConnectionManager(inbound.getIdentity(),
+              connectionRegistry.getInboundChannel(inbound.getChannel()));
 
           // update the close handler.
           connection.wrapCloseHandler(manager.getCloseHandlerCreator());
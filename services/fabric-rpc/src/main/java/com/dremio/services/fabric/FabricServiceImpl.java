@@ -31,6 +31,7 @@ import com.dremio.services.fabric.api.FabricProtocol;
 import com.dremio.services.fabric.api.FabricRunnerFactory;
 import com.dremio.services.fabric.api.FabricService;
 import com.dremio.services.fabric.proto.FabricProto.FabricIdentity;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.MessageLite;
 
 import io.netty.channel.EventLoopGroup;
@@ -63,13 +64,32 @@ public class FabricServiceImpl implements FabricService {
       BufferAllocator allocator,
       long reservationInBytes,
       long maxAllocationInBytes) {
+    this(address, initialPort, allowPortHunting, timeoutInSeconds, threadCount, 1, rpcHandleDispatcher, allocator,
+        reservationInBytes, maxAllocationInBytes);
+  }
+
+  /**
+   * @param channelsPerNode number of connections to each remote node. The first one carries control messages, the
+   *                        others the data streams, see {@link FabricRunnerFactory#getCommandRunner(String, int, int)}
+   */
+  public FabricServiceImpl(
+      String address,
+      int initialPort,
+      boolean allowPortHunting,
+      int timeoutInSeconds,
+      int threadCount,
+      int channelsPerNode,
+      Executor rpcHandleDispatcher,
+      BufferAllocator allocator,
+      long reservationInBytes,
+      long maxAllocationInBytes) {
     this.address = address;
     this.initialPort = allowPortHunting ? initialPort + 333 : initialPort;
     this.allowPortHunting = allowPortHunting;
     this.allocator = allocator.newChildAllocator("fabric-allocator", reservationInBytes, maxAllocationInBytes);
     this.config = FabricRpcConfig.getMapping(timeoutInSeconds, rpcHandleDispatcher);
     this.eventLoop = TransportCheck.createEventLoopGroup(threadCount, "FABRIC-");
-    this.registry = new ConnectionManagerRegistry(config, eventLoop, this.allocator, handler);
+    this.registry = new ConnectionManagerRegistry(config, eventLoop, this.allocator, handler, channelsPerNode);
 
     logger.info("fabric service has {} bytes reserved", reservationInBytes);
   }
@@ -106,6 +126,26 @@ public class FabricServiceImpl implements FabricService {
     return address;
   }
 
+  @Override
+  public int getChannelCount() {
+    return registry.getChannelCount();
+  }
+
+  @Override
+  public long getMessagesSent(int channel) {
+    return registry.getStats(channel).getMessagesSent();
+  }
+
+  @Override
+  public long getBytesSent(int channel) {
+    return registry.getStats(channel).getBytesSent();
+  }
+
+  @VisibleForTesting
+  ConnectionManagerRegistry getRegistry() {
+    return registry;
+  }
+
   @Override
   public void close() throws Exception {
     AutoCloseables.close(registry, new EventLoopCloseable(eventLoop), allocator);
@@ -124,7 +164,7 @@ public class FabricServiceImpl implements FabricService {
 
     @Override
     public <R extends MessageLite, C extends RpcCommand<R, ProxyConnection>> void runCommand(C cmd) {
-      manager.runCommand(new ProxyCommand<>(cmd, protocol));
+      manager.runCommand(new ProxyCommand<>(cmd, protocol, manager.getStats()));
     }
 
   }
@@ -133,16 +173,18 @@ public class FabricServiceImpl implements FabricService {
 
     private final RpcCommand<R, ProxyConnection> proxyCommand;
     private final FabricProtocol protocol;
+    private final FabricChannelStats stats;
 
-    public ProxyCommand(RpcCommand<R, ProxyConnection> proxyCommand, FabricProtocol protocol) {
+    public ProxyCommand(RpcCommand<R, ProxyConnection> proxyCommand, FabricProtocol protocol, FabricChannelStats stats) {
       super();
       this.proxyCommand = proxyCommand;
       this.protocol = protocol;
+      this.stats = stats;
     }
 
     @Override
     public void connectionSucceeded(FabricConnection connection) {
-      proxyCommand.connectionAvailable(new ProxyConnection(connection, protocol));
+      proxyCommand.connectionAvailable(new ProxyConnection(connection, protocol, stats));
     }
 
     @Override
@@ -152,7 +194,7 @@ public class FabricServiceImpl implements FabricService {
 
     @Override
     public void connectionAvailable(FabricConnection connection) {
-      proxyCommand.connectionAvailable(new ProxyConnection(connection, protocol));
+      proxyCommand.connectionAvailable(new ProxyConnection(connection, protocol, stats));
     }
 
   }
@@ -170,6 +212,13 @@ public class FabricServiceImpl implements FabricService {
       final FabricConnectionManager manager = registry.getConnectionManager(FabricIdentity.newBuilder().setAddress(address).setPort(port).build());
       return new CommandRunner(protocol, manager);
     }
+
+    @Override
+    public FabricCommandRunner getCommandRunner(String address, int port, int stripe) {
+      final FabricConnectionManager manager = registry.getConnectionManager(
+          FabricIdentity.newBuilder().setAddress(address).setPort(port).build(), registry.getDataChannel(stripe));
+      return new CommandRunner(protocol, manager);
+    }
   }
 
   public static String getAddress(boolean useIP) throws UnknownHostException {
@@ -41,12 +41,19 @@ public class ProxyConnection extends RemoteConnection {
   private final RpcConfig rpcConfig;
   private final FabricConnection connection;
   private final FabricProtocol protocol;
+  // stats of the channel of the connection, null if not tracked
+  private final FabricChannelStats stats;
 
   public ProxyConnection(FabricConnection connection, FabricProtocol protocol) {
+    this(connection, protocol, null);
+  }
+
+  ProxyConnection(FabricConnection connection, FabricProtocol protocol, FabricChannelStats stats) {
     super(connection);
     this.connection = connection;
     this.protocol = protocol;
     this.rpcConfig = protocol.getConfig();
+    this.stats = stats;
   }
 
   @Override
@@ -61,7 +68,9 @@ public class ProxyConnection extends RemoteConnection {
       Class<RECEIVE> clazz,
       ByteBuf... dataBodies) {
     assert rpcConfig.checkSend(rpcType, protobufBody.getClass(), clazz);
-    connection.send(new ProxyListener<RECEIVE>(outcomeListener), RpcType.MESSAGE, msg(rpcType, protobufBody), FabricMessage.class, dataBodies);
+    final FabricMessage message = msg(rpcType, protobufBody);
+    recordSend(message, dataBodies);
+    connection.send(new ProxyListener<RECEIVE>(outcomeListener), RpcType.MESSAGE, message, FabricMessage.class, dataBodies);
   }
 
   public <SEND extends MessageLite, RECEIVE extends MessageLite> void sendUnsafe(
@@ -71,7 +80,22 @@ public class ProxyConnection extends RemoteConnection {
       Class<RECEIVE> clazz,
       ByteBuf... dataBodies) {
     assert rpcConfig.checkSend(rpcType, protobufBody.getClass(), clazz);
-    connection.sendUnsafe(new ProxyListener<RECEIVE>(outcomeListener), RpcType.MESSAGE, msg(rpcType, protobufBody), FabricMessage.class, dataBodies);
+    final FabricMessage message = msg(rpcType, protobufBody);
+    recordSend(message, dataBodies);
+    connection.sendUnsafe(new ProxyListener<RECEIVE>(outcomeListener), RpcType.MESSAGE, message, FabricMessage.class, dataBodies);
+  }
+
+  private void recordSend(FabricMessage message, ByteBuf... dataBodies) {
+    if (stats == null) {
+      return;
+    }
+    long bytes = message.getSerializedSize();
+    if (dataBodies != null) {
+      for (ByteBuf body : dataBodies) {
+        bytes += body.readableBytes();
+      }
+    }
+    stats.sent(bytes);
   }
 
   private <SEND extends MessageLite> FabricMessage msg(EnumLite rpcType, SEND protobufBody){
@@ -31,4 +31,20 @@ public interface FabricRunnerFactory {
    *         attempt to send a message, a connection may not be made.
    */
   FabricCommandRunner getCommandRunner(String address, int port);
+
+  /**
+   * Get a runner for bulk data to another node. Runners are spread over the
+   * data channels to the node by stripe, so that a stream uses the same channel
+   * for all its messages when it always uses the same stripe.
+   *
+   * @param address
+   *          The hostname or IP to connect to.
+   * @param port
+   *          The port to connect to.
+   * @param stripe
+   *          Identifies the data stream, e.g. a hash of the sending fragment.
+   * @return The command runner to this point. Note that this is lazy. Until you
+   *         attempt to send a message, a connection may not be made.
+   */
+  FabricCommandRunner getCommandRunner(String address, int port, int stripe);
 }
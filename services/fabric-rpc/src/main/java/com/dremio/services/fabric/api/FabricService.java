@@ -49,4 +49,24 @@ public interface FabricService extends Service {
    */
   String getAddress();
 
+  /**
+   * The number of channels (connections) to each remote node. Channel 0 carries control messages.
+   * @return A channel count.
+   */
+  int getChannelCount();
+
+  /**
+   * Number of messages sent on a channel, to all the remote nodes.
+   * @param channel The channel.
+   * @return A message count.
+   */
+  long getMessagesSent(int channel);
+
+  /**
+   * Number of bytes sent on a channel, to all the remote nodes.
+   * @param channel The channel.
+   * @return A byte count.
+   */
+  long getBytesSent(int channel);
+
 }
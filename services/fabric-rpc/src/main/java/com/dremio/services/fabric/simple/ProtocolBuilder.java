@@ -189,6 +189,12 @@ public final class ProtocolBuilder {
       return factory.getCommandRunner(address, port);
     }
 
+    @Override
+    public FabricCommandRunner getCommandRunner(String address, int port, int stripe) {
+      Preconditions.checkNotNull(factory, "You must register your protocol before you attempt to send a message.");
+      return factory.getCommandRunner(address, port, stripe);
+    }
+
   }
 
   private static class PseudoEnum implements EnumLite {
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.services.fabric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.dremio.services.fabric.proto.FabricProto.FabricIdentity;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Tests the mapping of streams to the channels between two nodes.
+ */
+public class TestConnectionManagerRegistry {
+
+  private static final FabricIdentity LOCAL = FabricIdentity.newBuilder().setAddress("local").setPort(1234).build();
+  private static final FabricIdentity REMOTE = FabricIdentity.newBuilder().setAddress("remote").setPort(1234).build();
+
+  private static ConnectionManagerRegistry newRegistry(int channels) {
+    final ConnectionManagerRegistry registry = new ConnectionManagerRegistry(
+        FabricRpcConfig.getMapping(300, MoreExecutors.directExecutor()), null, null, null, channels);
+    registry.setIdentity(LOCAL);
+    return registry;
+  }
+
+  @Test
+  public void singleChannel() throws Exception {
+    try (ConnectionManagerRegistry registry = newRegistry(1)) {
+      for (int stripe = -10; stripe < 10; stripe++) {
+        assertEquals(ConnectionManagerRegistry.CONTROL_CHANNEL, registry.getDataChannel(stripe));
+      }
+      // a remote node with more channels
+      assertEquals(ConnectionManagerRegistry.CONTROL_CHANNEL, registry.getInboundChannel(3));
+      assertSame(registry.getConnectionManager(REMOTE), registry.getConnectionManager(REMOTE, registry.getDataChannel(42)));
+    }
+  }
+
+  @Test
+  public void dataChannels() throws Exception {
+    try (ConnectionManagerRegistry registry = newRegistry(4)) {
+      for (int stripe = -100; stripe < 100; stripe++) {
+        final int channel = registry.getDataChannel(stripe);
+        assertTrue(channel >= 1 && channel < 4);
+        assertEquals(channel, registry.getDataChannel(stripe));
+      }
+
+      // remote nodes with the same configuration use the same channels
+      for (int channel = 0; channel < 4; channel++) {
+        assertEquals(channel, registry.getInboundChannel(channel));
+        assertEquals(channel, registry.getConnectionManager(REMOTE, channel).getChannel());
+      }
+      // remote nodes with more channels never use the control channel for data
+      assertTrue(registry.getInboundChannel(7) >= 1);
+
+      assertSame(registry.getConnectionManager(REMOTE, 2), registry.getConnectionManager(REMOTE, 2));
+      assertNotSame(registry.getConnectionManager(REMOTE, 1), registry.getConnectionManager(REMOTE, 2));
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.services.fabric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.UserBitShared.QueryId;
+import com.dremio.exec.rpc.CloseableThreadPool;
+import com.dremio.exec.rpc.FutureBitCommand;
+import com.dremio.exec.rpc.Response;
+import com.dremio.exec.rpc.ResponseSender;
+import com.dremio.exec.rpc.RpcConfig;
+import com.dremio.exec.rpc.RpcException;
+import com.dremio.exec.rpc.RpcOutcomeListener;
+import com.dremio.services.fabric.BaseTestFabric.FakeEnum;
+import com.dremio.services.fabric.api.FabricCommandRunner;
+import com.dremio.services.fabric.api.FabricProtocol;
+import com.dremio.services.fabric.api.FabricRunnerFactory;
+import com.dremio.services.fabric.api.PhysicalConnection;
+import com.dremio.services.fabric.proto.FabricProto.FabricIdentity;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.MessageLite;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Tests messages sent between two fabrics configured with a different number of channels.
+ */
+public class TestFabricChannels {
+
+  private static final QueryId MESSAGE = QueryId.newBuilder().setPart1(1).setPart2(2).build();
+  private static final NodeEndpoint RESPONSE = NodeEndpoint.newBuilder().setAddress("response").build();
+
+  private BufferAllocator allocator;
+  private CloseableThreadPool pool;
+  // three channels: control channel and two data channels
+  private FabricServiceImpl large;
+  // two channels: control channel and one data channel
+  private FabricServiceImpl small;
+  private final BlockingQueue<PhysicalConnection> largeInbound = new LinkedBlockingQueue<>();
+  private final BlockingQueue<PhysicalConnection> smallInbound = new LinkedBlockingQueue<>();
+  private FabricRunnerFactory largeRunners;
+  private FabricRunnerFactory smallRunners;
+
+  @Before
+  public void setupServers() throws Exception {
+    allocator = new RootAllocator(20 * 1024 * 1024);
+    pool = new CloseableThreadPool("test-fabric-channels");
+    large = new FabricServiceImpl("localhost", 45678, true, 300, 2, 3, pool, allocator, 0, Long.MAX_VALUE);
+    large.start();
+    small = new FabricServiceImpl("localhost", 45678, true, 300, 2, 2, pool, allocator, 0, Long.MAX_VALUE);
+    small.start();
+    largeRunners = large.registerProtocol(new Protocol(largeInbound));
+    smallRunners = small.registerProtocol(new Protocol(smallInbound));
+  }
+
+  @After
+  public void shutdown() throws Exception {
+    AutoCloseables.close(large, small, pool, allocator);
+  }
+
+  @Test
+  public void moreChannelsToFewer() throws Exception {
+    // control channel
+    send(largeRunners.getCommandRunner(small.getAddress(), small.getPort()));
+    final PhysicalConnection control = smallInbound.poll(10, TimeUnit.SECONDS);
+    assertSame(control, small.getRegistry().getConnectionManager(identity(large), 0).getConnection());
+
+    // data channels 1 and 2 of the large fabric, both folded onto the only data channel of the small fabric
+    assertEquals(1, large.getRegistry().getDataChannel(0));
+    assertEquals(2, large.getRegistry().getDataChannel(1));
+    send(largeRunners.getCommandRunner(small.getAddress(), small.getPort(), 0));
+    final PhysicalConnection data1 = smallInbound.poll(10, TimeUnit.SECONDS);
+    send(largeRunners.getCommandRunner(small.getAddress(), small.getPort(), 1));
+    final PhysicalConnection data2 = smallInbound.poll(10, TimeUnit.SECONDS);
+
+    // each channel is its own connection, the first one announced as a data channel is the inbound data channel
+    assertNotSame(control, data1);
+    assertNotSame(control, data2);
+    assertNotSame(data1, data2);
+    assertSame(data1, small.getRegistry().getConnectionManager(identity(large), 1).getConnection());
+
+    for (int channel = 0; channel < 3; channel++) {
+      assertEquals(1, large.getMessagesSent(channel));
+      assertTrue(large.getBytesSent(channel) > 0);
+    }
+  }
+
+  @Test
+  public void fewerChannelsToMore() throws Exception {
+    send(smallRunners.getCommandRunner(large.getAddress(), large.getPort()));
+    final PhysicalConnection control = largeInbound.poll(10, TimeUnit.SECONDS);
+    assertSame(control, large.getRegistry().getConnectionManager(identity(small), 0).getConnection());
+
+    // all the stripes use the only data channel of the small fabric
+    for (int stripe = 0; stripe < 4; stripe++) {
+      send(smallRunners.getCommandRunner(large.getAddress(), large.getPort(), stripe));
+    }
+    final PhysicalConnection data = largeInbound.poll(10, TimeUnit.SECONDS);
+    for (int stripe = 1; stripe < 4; stripe++) {
+      assertSame(data, largeInbound.poll(10, TimeUnit.SECONDS));
+    }
+
+    assertNotSame(control, data);
+    assertSame(data, large.getRegistry().getConnectionManager(identity(small), 1).getConnection());
+    assertEquals(1, small.getMessagesSent(0));
+    assertEquals(4, small.getMessagesSent(1));
+
+    // the large fabric sends data back on the connection the small fabric opened, instead of opening its own
+    send(largeRunners.getCommandRunner(small.getAddress(), small.getPort(), 0));
+    assertSame(small.getRegistry().getConnectionManager(identity(large), 1).getConnection(),
+        smallInbound.poll(10, TimeUnit.SECONDS));
+  }
+
+  private static FabricIdentity identity(FabricServiceImpl fabric) {
+    return FabricIdentity.newBuilder().setAddress(fabric.getAddress()).setPort(fabric.getPort()).build();
+  }
+
+  private static void send(FabricCommandRunner runner) throws Exception {
+    final SimpleMessage m = new SimpleMessage();
+    runner.runCommand(m);
+    assertEquals(RESPONSE, m.getFuture().checkedGet(10, TimeUnit.SECONDS));
+  }
+
+  private static class SimpleMessage extends FutureBitCommand<NodeEndpoint, ProxyConnection> {
+
+    @Override
+    public void doRpcCall(RpcOutcomeListener<NodeEndpoint> outcomeListener, ProxyConnection connection) {
+      connection.send(outcomeListener, new FakeEnum(1), MESSAGE, NodeEndpoint.class);
+    }
+
+  }
+
+  /**
+   * Answers every message, keeping track of the connections they came from.
+   */
+  private class Protocol implements FabricProtocol {
+
+    private final BlockingQueue<PhysicalConnection> inbound;
+
+    public Protocol(BlockingQueue<PhysicalConnection> inbound) {
+      this.inbound = inbound;
+    }
+
+    @Override
+    public int getProtocolId() {
+      return 2;
+    }
+
+    @Override
+    public BufferAllocator getAllocator() {
+      return allocator;
+    }
+
+    @Override
+    public RpcConfig getConfig() {
+      return RpcConfig.newBuilder().name("test-channels").timeout(0)
+          .add(new FakeEnum(1), QueryId.class, new FakeEnum(1), NodeEndpoint.class)
+          .build();
+    }
+
+    @Override
+    public MessageLite getResponseDefaultInstance(int rpcType) throws RpcException {
+      return NodeEndpoint.getDefaultInstance();
+    }
+
+    @Override
+    public void handle(PhysicalConnection connection, int rpcType, ByteString pBody, ByteBuf dBody,
+        ResponseSender sender) throws RpcException {
+      inbound.add(connection);
+      sender.send(new Response(new FakeEnum(1), RESPONSE));
+    }
+
+  }
+}
@@ -104,6 +104,8 @@ public final class JobIndexKeys {
   public static final IndexKey QUERY_TYPE = new IndexKey("qt", "QUERY_TYPE", String.class, null, false, false, QUERY_TYPE_FILTERS);
   // index all dataset this job accessed.
   public static final IndexKey ALL_DATASETS = new IndexKey("ads", "ALL_DATASETS", String.class, null, true, false);
+  // job whose results a job served from the query result cache reads. Not part of the search filters.
+  public static final IndexKey RESULTS_JOBID = new IndexKey("rjob", "RESULTS_JOBID", String.class, null, false, false);
   public static final FilterIndexMapping MAPPING = new FilterIndexMapping(JOBID, USER, SPACE, DATASET, DATASET_VERSION, START_TIME,
     END_TIME, DURATION, PARENT_DATASET, JOB_STATE, SQL, QUERY_TYPE, ALL_DATASETS);
 }
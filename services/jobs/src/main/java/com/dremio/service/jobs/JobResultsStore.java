@@ -109,9 +109,23 @@ public class JobResultsStore implements Service {
     }
   }
 
+  /**
+   * Get the size of the results stored for a job.
+   *
+   * @return the size in bytes, or -1 if unknown
+   */
+  long getJobOutputSize(JobId jobId) {
+    try {
+      return dfs.getContentSummary(getJobOutputDir(jobId)).getLength();
+    } catch (IOException e) {
+      logger.debug("Could not get size of job output directory for job {}", jobId.getId(), e);
+      return -1;
+    }
+  }
+
   @VisibleForTesting
   public boolean jobOutputDirectoryExists(JobId jobId) {
-    final Path jobOutputDir = getJobOutputDir(jobId);
+    final Path jobOutputDir = getJobOutputDir(getResultsJobId(jobId, store.get(jobId)));
     try {
       return dfs.exists(jobOutputDir);
     } catch (IOException e) {
@@ -150,6 +164,17 @@ public class JobResultsStore implements Service {
     return jobResult.getAttemptsList().get(jobResult.getAttemptsList().size() - 1).getInfo();
   }
 
+  /**
+   * Jobs served from the query result cache read the results of the job which produced them.
+   */
+  private static JobId getResultsJobId(JobId jobId, JobResult jobResult) {
+    if (jobResult == null) {
+      return jobId;
+    }
+    final JobId resultsJobId = getLastAttempt(jobResult).getResultsJobId();
+    return resultsJobId != null ? resultsJobId : jobId;
+  }
+
   public String getJobResultsTableName(JobId jobId) {
     return String.format("TABLE(%s(type => 'arrow'))",
         PathUtils.constructFullPath(ImmutableList.of(storageName, jobId.getId())));
@@ -157,7 +182,7 @@ public class JobResultsStore implements Service {
 
   public RecordBatches loadJobData(JobId jobId, JobResult job, int offset, int limit){
     try (TimedBlock b = time("getJobResult")) {
-      final Path jobOutputDir = getJobOutputDir(jobId);
+      final Path jobOutputDir = getJobOutputDir(getResultsJobId(jobId, job));
       if (!dfs.isDirectory(jobOutputDir)) {
         throw UserException.dataReadError()
             .message("Job '%s' output doesn't exist", jobId.getId())
@@ -258,7 +283,7 @@ public class JobResultsStore implements Service {
 
     @Override
     public String getJobResultsTable() {
-      return getJobResultsTableName(jobId);
+      return getJobResultsTableName(getResultsJobId(jobId, store.get(jobId)));
     }
   }
 
@@ -28,6 +28,7 @@ import static com.dremio.service.jobs.JobIndexKeys.JOBID;
 import static com.dremio.service.jobs.JobIndexKeys.JOB_STATE;
 import static com.dremio.service.jobs.JobIndexKeys.PARENT_DATASET;
 import static com.dremio.service.jobs.JobIndexKeys.QUERY_TYPE;
+import static com.dremio.service.jobs.JobIndexKeys.RESULTS_JOBID;
 import static com.dremio.service.jobs.JobIndexKeys.SPACE;
 import static com.dremio.service.jobs.JobIndexKeys.SQL;
 import static com.dremio.service.jobs.JobIndexKeys.START_TIME;
@@ -38,6 +39,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -153,7 +155,9 @@ import com.dremio.service.job.proto.JoinAnalysis;
 import com.dremio.service.job.proto.JoinInfo;
 import com.dremio.service.job.proto.ParentDatasetInfo;
 import com.dremio.service.job.proto.QueryType;
+import com.dremio.service.job.proto.ScanPath;
 import com.dremio.service.jobs.metadata.QueryMetadata;
+import com.dremio.service.namespace.NamespaceException;
 import com.dremio.service.namespace.NamespaceKey;
 import com.dremio.service.namespace.NamespaceService;
 import com.dremio.service.namespace.dataset.DatasetVersion;
@@ -168,6 +172,7 @@ import com.dremio.service.users.SystemUser;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
@@ -220,6 +225,7 @@ public class LocalJobsService implements JobsService {
   private NamespaceService namespaceService;
   private String storageName;
   private JobResultsStore jobResultsStore;
+  private QueryResultCache resultCache;
   private Cancellable cleanupTask;
 
   public LocalJobsService(
@@ -259,6 +265,7 @@ public class LocalJobsService implements JobsService {
     final FileSystemPlugin fileSystemPlugin = fileSystemPluginProvider.get();
     this.storageName = fileSystemPlugin.getName();
     this.jobResultsStore = new JobResultsStore(fileSystemPlugin, store, allocator);
+    this.resultCache = new QueryResultCache();
 
     if (isMaster) { // if Dremio process died, clean up
       setAbandonedJobsToFailedState(store);
@@ -351,17 +358,32 @@ public class LocalJobsService implements JobsService {
     }
   }
 
+  private String getSpace(JobRequest jobRequest) {
+    return !jobRequest.getDatasetPathComponents().isEmpty() &&
+        namespaceService.exists(new NamespaceKey(jobRequest.getDatasetPathComponents().get(0)),
+            NameSpaceContainer.Type.SPACE)
+        ? jobRequest.getDatasetPathComponents().get(0) : null;
+  }
+
   private Job startJob(JobRequest jobRequest, JobStatusListener statusListener) {
+    // (0) serve the job from the result cache if possible
+    final OptionManager optionManager = contextProvider.get().getOptionManager();
+    String requestKey = null;
+    if (jobRequest.getQueryType() == QueryType.REST && optionManager.getOption(QueryResultCache.ENABLED)) {
+      final SqlQuery sqlQuery = jobRequest.getSqlQuery();
+      requestKey = QueryResultCache.getRequestKey(jobRequest.getQueryType(), sqlQuery.getUsername(),
+          sqlQuery.getContext(), sqlQuery.getSql());
+      final Job cachedJob = startCachedJob(jobRequest, statusListener, requestKey,
+          TimeUnit.SECONDS.toMillis(optionManager.getOption(QueryResultCache.TTL_SECONDS)));
+      if (cachedJob != null) {
+        return cachedJob;
+      }
+    }
+
     // (1) create job details
     final ExternalId externalId = ExternalIdHelper.generateExternalId();
     final JobId jobId = JobsServiceUtil.getExternalIdAsJobId(externalId);
-    final String inSpace =
-        !jobRequest.getDatasetPathComponents().isEmpty() &&
-            namespaceService.exists(new NamespaceKey(jobRequest.getDatasetPathComponents().get(0)),
-                NameSpaceContainer.Type.SPACE)
-            ? jobRequest.getDatasetPathComponents().get(0) : null;
-
-    final JobInfo jobInfo = jobRequest.asJobInfo(jobId, inSpace);
+    final JobInfo jobInfo = jobRequest.asJobInfo(jobId, getSpace(jobRequest));
     final JobAttempt jobAttempt = new JobAttempt()
         .setInfo(jobInfo)
         .setEndpoint(identity)
@@ -388,7 +410,7 @@ public class LocalJobsService implements JobsService {
             .build();
 
     // (3) register listener
-    final QueryListener jobObserver = new QueryListener(job, statusListener);
+    final QueryListener jobObserver = new QueryListener(job, statusListener, requestKey);
     Preconditions.checkArgument(store.checkAndPut(job.getJobId(), null, toJobResult(job)),
         "Job had a duplicate jobId. " + job);
     runningJobs.put(jobId, jobObserver);
@@ -418,6 +440,87 @@ public class LocalJobsService implements JobsService {
     return job;
   }
 
+  /**
+   * Completes a new job with the results of a previous job, if the results of the same request are cached and the
+   * datasets read haven't changed since.
+   *
+   * @return the completed job, or null if nothing can be reused
+   */
+  private Job startCachedJob(JobRequest jobRequest, JobStatusListener statusListener, String requestKey,
+      long ttlMillis) {
+    final QueryResultCache.CachedResult cachedResult = resultCache.get(requestKey, ttlMillis);
+    if (cachedResult == null) {
+      return null;
+    }
+
+    // datasets were modified or results cleaned up since. Results old enough to be cleaned up are not reused either,
+    // the cleanup may not see the new job before deleting them.
+    final JobResult sourceResult = store.get(cachedResult.getJobId());
+    final JobAttempt sourceAttempt = sourceResult == null ? null
+        : sourceResult.getAttemptsList().get(sourceResult.getAttemptsList().size() - 1);
+    final Map<List<String>, Long> datasetVersions = getDatasetVersions(cachedResult.getDatasetVersions().keySet());
+    if (sourceAttempt == null || !jobResultsStore.jobOutputDirectoryExists(cachedResult.getJobId())
+        || sourceAttempt.getInfo().getFinishTime() == null
+        || sourceAttempt.getInfo().getFinishTime() <= getResultsCutOffTime()
+        || !Objects.equal(cachedResult.getDatasetVersions(), datasetVersions)) {
+      resultCache.invalidate(cachedResult);
+      return null;
+    }
+
+    final JobInfo sourceInfo = sourceAttempt.getInfo();
+    final ExternalId externalId = ExternalIdHelper.generateExternalId();
+    final JobId jobId = JobsServiceUtil.getExternalIdAsJobId(externalId);
+    final AttemptId attemptId = AttemptId.of(externalId);
+    final long now = System.currentTimeMillis();
+
+    final JobInfo jobInfo = jobRequest.asJobInfo(jobId, getSpace(jobRequest))
+        .setStartTime(now)
+        .setFinishTime(now)
+        .setParentsList(sourceInfo.getParentsList())
+        .setGrandParentsList(sourceInfo.getGrandParentsList())
+        .setFieldOriginsList(sourceInfo.getFieldOriginsList())
+        .setScanPathsList(sourceInfo.getScanPathsList())
+        .setResultMetadataList(sourceInfo.getResultMetadataList())
+        .setResultsJobId(cachedResult.getJobId());
+    final JobAttempt jobAttempt = new JobAttempt()
+        .setInfo(jobInfo)
+        .setAttemptId(AttemptIdUtils.toString(attemptId))
+        .setEndpoint(identity)
+        .setState(JobState.COMPLETED)
+        .setStats(sourceAttempt.getStats())
+        .setDetails(new JobDetails());
+    final JobResult jobResult = new JobResult().setAttemptsList(Lists.newArrayList(jobAttempt));
+    Preconditions.checkArgument(store.checkAndPut(jobId, null, jobResult), "Job had a duplicate jobId. " + jobId);
+
+    final QueryProfile sourceProfile = profileStore.get(AttemptIdUtils.fromString(sourceAttempt.getAttemptId()));
+    if (sourceProfile != null) {
+      profileStore.put(attemptId, sourceProfile);
+    }
+
+    logger.debug("Job {} served from results of job {}", jobId.getId(), cachedResult.getJobId().getId());
+    final Job job = new Job(jobId, jobResult, jobResultsStore);
+    statusListener.jobSubmitted(jobId);
+    statusListener.jobCompleted();
+    return job;
+  }
+
+  /**
+   * Gets the current version of datasets.
+   *
+   * @return the versions by dataset path, or null if a dataset doesn't exist
+   */
+  private Map<List<String>, Long> getDatasetVersions(Iterable<List<String>> paths) {
+    final Map<List<String>, Long> versions = new HashMap<>();
+    for (List<String> path : paths) {
+      try {
+        versions.put(path, namespaceService.getDataset(new NamespaceKey(path)).getVersion());
+      } catch (NamespaceException e) {
+        return null;
+      }
+    }
+    return versions;
+  }
+
   @Override
   public Job submitJob(JobRequest jobRequest, JobStatusListener statusListener) {
     checkNotNull(statusListener, "a status listener must be provided");
@@ -621,6 +724,9 @@ public class LocalJobsService implements JobsService {
       writer.write(DATASET_VERSION, jobInfo.getDatasetVersion());
       writer.write(START_TIME, jobInfo.getStartTime());
       writer.write(END_TIME, jobInfo.getFinishTime());
+      if (jobInfo.getResultsJobId() != null) {
+        writer.write(RESULTS_JOBID, jobInfo.getResultsJobId().getId());
+      }
 
       final Long duration = jobInfo.getStartTime() == null || jobInfo.getFinishTime() == null ? null :
           jobInfo.getFinishTime() - jobInfo.getStartTime();
@@ -830,6 +936,7 @@ public class LocalJobsService implements JobsService {
     private final UserResponseHandler responseHandler;
     private final JobStatusListener statusListener;
     private final boolean isInternal;
+    private final String requestKey;
     private final ExternalListenerManager listeners = new ExternalListenerManager();
     private final CountDownLatch completionLatch = new CountDownLatch(1);
     private final DeferredException exception = new DeferredException();
@@ -842,16 +949,18 @@ public class LocalJobsService implements JobsService {
       this.responseHandler = Preconditions.checkNotNull(connection, "handler cannot be null");
       this.statusListener = null;
       isInternal = false;
+      this.requestKey = null;
 
       setupJobData();
     }
 
-    private QueryListener(Job job, JobStatusListener statusListener) {
+    private QueryListener(Job job, JobStatusListener statusListener, String requestKey) {
       this.job = job;
       externalId = JobsServiceUtil.getJobIdAsExternalId(job.getJobId());
       this.responseHandler = null;
       this.statusListener = Preconditions.checkNotNull(statusListener, "statusListener cannot be null");
       isInternal = true;
+      this.requestKey = requestKey;
 
       setupJobData();
     }
@@ -922,6 +1031,9 @@ public class LocalJobsService implements JobsService {
           }
         }
         addAttemptToJob(job, state, profile);
+        if (state == QueryState.COMPLETED && requestKey != null) {
+          cacheResults();
+        }
       } catch (IOException e) {
         exception.addException(e);
       }
@@ -968,6 +1080,29 @@ public class LocalJobsService implements JobsService {
 
       listeners.close(job);
     }
+
+    private void cacheResults() {
+      final JobAttempt jobAttempt = job.getJobAttempt();
+      final Prel finalPrel = attemptObserver.finalPrel;
+      final Map<List<String>, Long> datasetVersions = attemptObserver.datasetVersions;
+      if (!attemptObserver.deterministic || finalPrel == null || datasetVersions == null
+          || jobAttempt.getInfo().getResultMetadataList() == null
+          || jobAttempt.getInfo().getResultMetadataList().isEmpty()
+          || (jobAttempt.getStats() != null && Boolean.TRUE.equals(jobAttempt.getStats().getIsOutputLimited()))) {
+        return;
+      }
+
+      final String planFingerprint = QueryResultCache.getPlanFingerprint(finalPrel);
+      final long size = jobResultsStore.getJobOutputSize(job.getJobId());
+      if (planFingerprint == null || size < 0) {
+        return;
+      }
+
+      final OptionManager optionManager = contextProvider.get().getOptionManager();
+      resultCache.put(requestKey, planFingerprint, job.getJobId(), datasetVersions, size,
+          optionManager.getOption(QueryResultCache.MAX_SIZE_BYTES),
+          TimeUnit.SECONDS.toMillis(optionManager.getOption(QueryResultCache.TTL_SECONDS)));
+    }
   }
 
   private static class ExternalJobLoader implements JobLoader {
@@ -1102,6 +1237,11 @@ public class LocalJobsService implements JobsService {
     private final AccelerationDetailsPopulator detailsPopulator;
     private final ExternalListenerManager externalListenerManager;
 
+    // used by the query result cache
+    private volatile boolean deterministic = true;
+    private volatile Prel finalPrel;
+    private volatile Map<List<String>, Long> datasetVersions;
+
     JobResultListener(AttemptId attemptId, Job job, BufferAllocator allocator,
         JobStatusListener statusListener, ExternalListenerManager externalListenerManager) {
       Preconditions.checkNotNull(jobResultsStore);
@@ -1143,6 +1283,12 @@ public class LocalJobsService implements JobsService {
       builder.addRowType(rowType).addParsedSql(node);
     }
 
+    @Override
+    public void planConvertedToRel(RelNode converted, long millisTaken) {
+      // functions such as now() are reduced to constants later on, so check them before
+      deterministic = QueryResultCache.isDeterministic(converted);
+    }
+
     @Override
     public void planSerializable(RelNode converted) {
       builder.addSerializablePlan(converted);
@@ -1209,6 +1355,18 @@ public class LocalJobsService implements JobsService {
 
       // plan is parallelized after physical planning is done so we need to finalize metadata here
       finalizeMetadata();
+      datasetVersions = getDatasetVersions(getReadDatasets(job.getJobAttempt().getInfo()));
+    }
+
+    private List<List<String>> getReadDatasets(JobInfo jobInfo) {
+      final List<List<String>> paths = new ArrayList<>();
+      for (ParentDatasetInfo parent : listNotNull(jobInfo.getParentsList())) {
+        paths.add(parent.getDatasetPathList());
+      }
+      for (ScanPath scanPath : listNotNull(jobInfo.getScanPathsList())) {
+        paths.add(scanPath.getPathList());
+      }
+      return paths;
     }
 
     @Override
@@ -1313,6 +1471,7 @@ public class LocalJobsService implements JobsService {
 
     @Override
     public void finalPrel(Prel prel) {
+      finalPrel = prel;
       detailsPopulator.finalPrel(prel);
     }
 
@@ -1551,13 +1710,8 @@ public class LocalJobsService implements JobsService {
     }
 
     public void cleanup() {
-      //obtain the max age values during each cleanup as the values could change.
-      final OptionManager optionManager = contextProvider.get().getOptionManager();
-      final long maxAgeInMillis = optionManager.getOption(ExecConstants.DEBUG_RESULTS_MAX_AGE_IN_MILLISECONDS);
-      long maxAgeInDays = optionManager.getOption(ExecConstants.RESULTS_MAX_AGE_IN_DAYS);
-      long jobResultsMaxAgeInMillis = (maxAgeInDays * ONE_DAY_IN_MILLIS) + maxAgeInMillis;
-      long cutOffTime = System.currentTimeMillis() - jobResultsMaxAgeInMillis;
-      if (maxAgeInDays != DISABLE_CLEANUP_VALUE) {
+      final long cutOffTime = getResultsCutOffTime();
+      if (cutOffTime != Long.MIN_VALUE) {
         cleanupJobs(cutOffTime);
       }
     }
@@ -1567,9 +1721,36 @@ public class LocalJobsService implements JobsService {
       final FindByCondition condition = getOldJobsCondition(cutOffTime).setPageSize(MAX_NUMBER_JOBS_TO_FETCH);
 
       for (Entry<JobId, JobResult> entry : store.find(condition)) {
+        // results still read by more recent jobs served from the query result cache are kept, until they are old too
+        if (isResultsReferenced(entry.getKey(), cutOffTime)) {
+          continue;
+        }
         jobResultsStore.cleanup(entry.getKey());
       }
     }
+
+    private boolean isResultsReferenced(JobId jobId, long cutOffTime) {
+      final SearchQuery referencing = SearchQueryUtils.and(
+          SearchQueryUtils.newTermQuery(RESULTS_JOBID, jobId.getId()),
+          SearchQueryUtils.newRangeLong(END_TIME.getIndexFieldName(), cutOffTime, Long.MAX_VALUE, false, true));
+      return store.getCounts(referencing).get(0) > 0;
+    }
+  }
+
+  /**
+   * Get the time before which jobs have their results cleaned up.
+   * @return the epoch millis cutoff time, or Long.MIN_VALUE if results are never cleaned up.
+   */
+  private long getResultsCutOffTime() {
+    //obtain the max age values on each call as the values could change.
+    final OptionManager optionManager = contextProvider.get().getOptionManager();
+    final long maxAgeInMillis = optionManager.getOption(ExecConstants.DEBUG_RESULTS_MAX_AGE_IN_MILLISECONDS);
+    long maxAgeInDays = optionManager.getOption(ExecConstants.RESULTS_MAX_AGE_IN_DAYS);
+    if (maxAgeInDays == DISABLE_CLEANUP_VALUE) {
+      return Long.MIN_VALUE;
+    }
+    long jobResultsMaxAgeInMillis = (maxAgeInDays * ONE_DAY_IN_MILLIS) + maxAgeInMillis;
+    return System.currentTimeMillis() - jobResultsMaxAgeInMillis;
   }
 
   /**
@@ -375,6 +375,7 @@ class QueryProfileParser {
             case HASH_JOIN:
             case MERGE_JOIN:
             case NESTED_LOOP_JOIN:
+            case RANGE_JOIN:
               setOperationStats(OperationType.Join, toMillis(operatorProfile.getProcessNanos() + operatorProfile.getSetupNanos()));
               break;
 
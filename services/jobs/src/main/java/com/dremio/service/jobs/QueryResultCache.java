@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelVisitor;
+
+import com.dremio.exec.planner.physical.Prel;
+import com.dremio.exec.planner.physical.WriterPrel;
+import com.dremio.exec.planner.sql.handlers.commands.PlanCache;
+import com.dremio.options.Options;
+import com.dremio.options.TypeValidators.BooleanValidator;
+import com.dremio.options.TypeValidators.PositiveLongValidator;
+import com.dremio.service.job.proto.JobId;
+import com.dremio.service.job.proto.QueryType;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Cache of query results, reusing the results stored by previous jobs.<br>
+ * <br>
+ * Results are keyed by the fingerprint of the physical plan and the version of every dataset the query read, so
+ * queries planned the same way share one entry. As the plan is only known once a query is planned, requests are
+ * looked up by their normalized sql, context, user and query type, pointing to the results they last produced. Entries
+ * expire after a ttl, and the least recently used ones are evicted once the size of the cached results goes above the
+ * quota. Results are only reused while the job which produced them still has its results stored.
+ */
+@Options
+public class QueryResultCache {
+
+  public static final BooleanValidator ENABLED = new BooleanValidator("jobs.result_cache.enabled", false);
+  public static final PositiveLongValidator MAX_SIZE_BYTES =
+      new PositiveLongValidator("jobs.result_cache.max_size_bytes", Long.MAX_VALUE, 1L << 30);
+  public static final PositiveLongValidator TTL_SECONDS =
+      new PositiveLongValidator("jobs.result_cache.ttl_seconds", Long.MAX_VALUE, 3600);
+
+  private final Ticker ticker;
+  // request key -> result key
+  private final Map<String, String> requests = new HashMap<>();
+  // result key -> cached result, in access order
+  private final LinkedHashMap<String, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalSize = 0;
+  private long hits = 0;
+  private long misses = 0;
+
+  public QueryResultCache() {
+    this(Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  QueryResultCache(Ticker ticker) {
+    this.ticker = ticker;
+  }
+
+  /**
+   * Gets the result last produced for a request.
+   *
+   * @param requestKey the request key
+   * @param ttlMillis maximum age of the result
+   * @return the cached result, or null if none is cached
+   */
+  public synchronized CachedResult get(String requestKey, long ttlMillis) {
+    final String resultKey = requests.get(requestKey);
+    final CachedResult result = resultKey != null ? results.get(resultKey) : null;
+    if (result == null) {
+      requests.remove(requestKey);
+      misses++;
+      return null;
+    }
+    if (isExpired(result, ticker.read(), ttlMillis)) {
+      remove(result);
+      misses++;
+      return null;
+    }
+    hits++;
+    return result;
+  }
+
+  /**
+   * Caches the results of a job.
+   *
+   * @param requestKey the key of the request which ran the job
+   * @param planFingerprint fingerprint of the job physical plan
+   * @param jobId the job whose results are cached
+   * @param datasetVersions the version of every dataset the job read, by dataset path
+   * @param size size of the results, in bytes
+   * @param maxSize maximum size of all cached results
+   * @param ttlMillis maximum age of the results
+   */
+  public synchronized void put(String requestKey, String planFingerprint, JobId jobId,
+      Map<List<String>, Long> datasetVersions, long size, long maxSize, long ttlMillis) {
+    Preconditions.checkArgument(size >= 0, "size of the results must be known");
+    if (size > maxSize) {
+      return;
+    }
+
+    final String resultKey = getResultKey(planFingerprint, datasetVersions);
+    final CachedResult result = new CachedResult(resultKey, jobId, datasetVersions, size, ticker.read());
+    result.requestKeys.add(requestKey);
+
+    final CachedResult previous = results.get(resultKey);
+    if (previous != null) {
+      // same plan on the same data, requests of the previous result now point to this one
+      result.requestKeys.addAll(previous.requestKeys);
+      results.remove(resultKey);
+      totalSize -= previous.size;
+    }
+
+    final String previousKey = requests.put(requestKey, resultKey);
+    if (previousKey != null && !previousKey.equals(resultKey)) {
+      final CachedResult other = results.get(previousKey);
+      if (other != null) {
+        other.requestKeys.remove(requestKey);
+      }
+    }
+
+    results.put(resultKey, result);
+    totalSize += size;
+    evict(maxSize, ttlMillis);
+  }
+
+  /**
+   * Removes a result from the cache, for example when the data it was computed from changed.
+   */
+  public synchronized void invalidate(CachedResult result) {
+    if (results.get(result.resultKey) == result) {
+      remove(result);
+    }
+  }
+
+  private void evict(long maxSize, long ttlMillis) {
+    final long now = ticker.read();
+    final Iterator<CachedResult> iterator = results.values().iterator();
+    while (iterator.hasNext()) {
+      final CachedResult result = iterator.next();
+      if (totalSize > maxSize || isExpired(result, now, ttlMillis)) {
+        iterator.remove();
+        onRemoval(result);
+      }
+    }
+  }
+
+  private void remove(CachedResult result) {
+    results.remove(result.resultKey);
+    onRemoval(result);
+  }
+
+  private void onRemoval(CachedResult result) {
+    totalSize -= result.size;
+    for (String requestKey : result.requestKeys) {
+      if (result.resultKey.equals(requests.get(requestKey))) {
+        requests.remove(requestKey);
+      }
+    }
+  }
+
+  private static boolean isExpired(CachedResult result, long now, long ttlMillis) {
+    return now - result.created > TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+  }
+
+  synchronized long getTotalSize() {
+    return totalSize;
+  }
+
+  synchronized long getHits() {
+    return hits;
+  }
+
+  synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Computes the key of a request. Whitespace outside of quoted strings and identifiers is collapsed, and a trailing
+   * semicolon is ignored.
+   */
+  public static String getRequestKey(QueryType queryType, String username, List<String> context, String sql) {
+    final Hasher hasher = Hashing.sha256().newHasher()
+        .putString(queryType.name(), UTF_8)
+        .putByte((byte) 0)
+        .putString(username, UTF_8)
+        .putByte((byte) 0);
+    if (context != null) {
+      for (String element : context) {
+        hasher.putString(element, UTF_8).putByte((byte) 0);
+      }
+    }
+    return hasher.putByte((byte) 1)
+        .putString(normalizeSql(sql), UTF_8)
+        .hash()
+        .toString();
+  }
+
+  @VisibleForTesting
+  static String normalizeSql(String sql) {
+    return PlanCache.normalizeSql(sql);
+  }
+
+  /**
+   * Checks whether a plan always produces the same results on the same data.
+   */
+  public static boolean isDeterministic(RelNode plan) {
+    return PlanCache.isDeterministic(plan);
+  }
+
+  /**
+   * Computes the fingerprint of a physical plan.
+   *
+   * @return the fingerprint, or null if the results of the plan can't be cached
+   */
+  public static String getPlanFingerprint(Prel plan) {
+    final int[] writers = {0};
+    new RelVisitor() {
+      @Override
+      public void visit(RelNode node, int ordinal, RelNode parent) {
+        if (node instanceof WriterPrel) {
+          writers[0]++;
+        }
+        super.visit(node, ordinal, parent);
+      }
+    }.go(plan);
+
+    // queries have their results stored by a single writer, more means the query writes a table itself
+    if (writers[0] != 1 || !isDeterministic(plan)) {
+      return null;
+    }
+    return Hashing.sha256().hashString(RelOptUtil.toString(plan), UTF_8).toString();
+  }
+
+  private static String getResultKey(String planFingerprint, Map<List<String>, Long> datasetVersions) {
+    final Hasher hasher = Hashing.sha256().newHasher().putString(planFingerprint, UTF_8);
+    // sorted, so the key doesn't depend on the order datasets were found in
+    final Map<String, Long> sorted = new TreeMap<>();
+    for (Map.Entry<List<String>, Long> entry : datasetVersions.entrySet()) {
+      sorted.put(entry.getKey().toString(), entry.getValue());
+    }
+    for (Map.Entry<String, Long> entry : sorted.entrySet()) {
+      hasher.putString(entry.getKey(), UTF_8).putByte((byte) 0).putString(String.valueOf(entry.getValue()), UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Results of a job, reusable by later requests.
+   */
+  public static final class CachedResult {
+    private final String resultKey;
+    private final JobId jobId;
+    private final Map<List<String>, Long> datasetVersions;
+    private final long size;
+    private final long created;
+    private final Set<String> requestKeys = new HashSet<>();
+
+    private CachedResult(String resultKey, JobId jobId, Map<List<String>, Long> datasetVersions, long size,
+        long created) {
+      this.resultKey = resultKey;
+      this.jobId = jobId;
+      this.datasetVersions = Collections.unmodifiableMap(new HashMap<>(datasetVersions));
+      this.size = size;
+      this.created = created;
+    }
+
+    public JobId getJobId() {
+      return jobId;
+    }
+
+    /**
+     * @return the version of every dataset read to compute the results, by dataset path
+     */
+    public Map<List<String>, Long> getDatasetVersions() {
+      return datasetVersions;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("jobId", jobId.getId())
+          .add("size", size)
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.dremio.service.job.proto.JobId;
+import com.dremio.service.job.proto.QueryType;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Tests for {@code QueryResultCache}
+ */
+public class TestQueryResultCache {
+  private static final long TTL = TimeUnit.HOURS.toMillis(1);
+  private static final Map<List<String>, Long> VERSIONS = ImmutableMap.<List<String>, Long>of(
+      ImmutableList.of("space", "ds"), 1L);
+
+  private static final class FakeTicker extends Ticker {
+    private long nanos = 0;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+
+  private static String key(String sql) {
+    return QueryResultCache.getRequestKey(QueryType.REST, "user", ImmutableList.of("space"), sql);
+  }
+
+  @Test
+  public void normalizedSql() {
+    assertEquals("select * from t where a = 'x  y'",
+        QueryResultCache.normalizeSql("  select *\n from   t\twhere a = 'x  y' ; "));
+    assertEquals(key("select 1"), key("select  1;"));
+    assertNotEquals(key("select 'a b'"), key("select 'a  b'"));
+    assertNotEquals(key("select 1"), QueryResultCache.getRequestKey(QueryType.REST, "other", ImmutableList.of("space"), "select 1"));
+    assertNotEquals(key("select 1"), QueryResultCache.getRequestKey(QueryType.REST, "user", ImmutableList.<String>of(), "select 1"));
+  }
+
+  @Test
+  public void getAndExpire() {
+    final FakeTicker ticker = new FakeTicker();
+    final QueryResultCache cache = new QueryResultCache(ticker);
+    final JobId jobId = new JobId("job1");
+
+    assertNull(cache.get(key("select 1"), TTL));
+    cache.put(key("select 1"), "plan", jobId, VERSIONS, 10, 100, TTL);
+    assertEquals(jobId, cache.get(key("select  1"), TTL).getJobId());
+    assertEquals(VERSIONS, cache.get(key("select 1"), TTL).getDatasetVersions());
+
+    ticker.nanos += TimeUnit.MILLISECONDS.toNanos(TTL) + 1;
+    assertNull(cache.get(key("select 1"), TTL));
+    assertEquals(0, cache.getTotalSize());
+  }
+
+  @Test
+  public void samePlan() {
+    final QueryResultCache cache = new QueryResultCache(new FakeTicker());
+    cache.put(key("select 1"), "plan", new JobId("job1"), VERSIONS, 10, 100, TTL);
+    cache.put(key("select 1 + 0"), "plan", new JobId("job2"), VERSIONS, 10, 100, TTL);
+
+    // both requests share the latest results
+    assertEquals(new JobId("job2"), cache.get(key("select 1"), TTL).getJobId());
+    assertEquals(new JobId("job2"), cache.get(key("select 1 + 0"), TTL).getJobId());
+    assertEquals(10, cache.getTotalSize());
+
+    // a new version of the dataset gives new results
+    cache.put(key("select 1"), "plan", new JobId("job3"), ImmutableMap.<List<String>, Long>of(
+        ImmutableList.of("space", "ds"), 2L), 10, 100, TTL);
+    assertEquals(new JobId("job3"), cache.get(key("select 1"), TTL).getJobId());
+    assertEquals(new JobId("job2"), cache.get(key("select 1 + 0"), TTL).getJobId());
+    assertEquals(20, cache.getTotalSize());
+
+    cache.invalidate(cache.get(key("select 1 + 0"), TTL));
+    assertNull(cache.get(key("select 1 + 0"), TTL));
+    assertEquals(10, cache.getTotalSize());
+  }
+
+  @Test
+  public void quota() {
+    final QueryResultCache cache = new QueryResultCache(new FakeTicker());
+    cache.put(key("select 1"), "plan1", new JobId("job1"), VERSIONS, 40, 100, TTL);
+    cache.put(key("select 2"), "plan2", new JobId("job2"), VERSIONS, 40, 100, TTL);
+    // job1 is now the most recently used
+    cache.get(key("select 1"), TTL);
+    cache.put(key("select 3"), "plan3", new JobId("job3"), VERSIONS, 40, 100, TTL);
+
+    assertEquals(new JobId("job1"), cache.get(key("select 1"), TTL).getJobId());
+    assertNull(cache.get(key("select 2"), TTL));
+    assertEquals(new JobId("job3"), cache.get(key("select 3"), TTL).getJobId());
+    assertEquals(80, cache.getTotalSize());
+
+    // larger than the quota
+    cache.put(key("select 4"), "plan4", new JobId("job4"), VERSIONS, 101, 100, TTL);
+    assertNull(cache.get(key("select 4"), TTL));
+    assertEquals(80, cache.getTotalSize());
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.dremio.metrics;
 
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -42,6 +43,8 @@ public final class Metrics {
   public static final String METRICS_JMX_OUTPUT_ENABLED = "dremio.metrics.jmx.enabled";
   public static final String METRICS_LOG_OUTPUT_ENABLED = "dremio.metrics.log.enabled";
   public static final String METRICS_LOG_OUTPUT_INTERVAL = "dremio.metrics.log.interval";
+  public static final String METRICS_PROMETHEUS_OUTPUT_ENABLED = "dremio.metrics.prometheus.enabled";
+  public static final String METRICS_PROMETHEUS_OUTPUT_PORT = "dremio.metrics.prometheus.port";
 
   private static final SabotConfig config = SabotConfig.create();
 
@@ -52,12 +55,14 @@ public final class Metrics {
     public static final MetricRegistry REGISTRY;
     private static final JmxReporter JMX_REPORTER;
     private static final Slf4jReporter LOG_REPORTER;
+    private static final PrometheusReporter PROMETHEUS_REPORTER;
 
     static {
       REGISTRY = new MetricRegistry();
       registerSysStats();
       JMX_REPORTER = getJmxReporter();
       LOG_REPORTER = getLogReporter();
+      PROMETHEUS_REPORTER = getPrometheusReporter();
     }
 
     private static void registerSysStats(){
@@ -89,6 +94,20 @@ public final class Metrics {
         return null;
       }
     }
+
+    private static PrometheusReporter getPrometheusReporter() {
+      if (config.getBoolean(METRICS_PROMETHEUS_OUTPUT_ENABLED)) {
+        try {
+          return PrometheusReporter.start(getInstance(), config.getInt(METRICS_PROMETHEUS_OUTPUT_PORT));
+        } catch (IOException e) {
+          // metrics are not critical, the node can run without the endpoint
+          logger.warn("Unable to start prometheus metrics endpoint.", e);
+          return null;
+        }
+      } else {
+        return null;
+      }
+    }
   }
 
   public static synchronized void registerGauge(String name, Gauge<?> metric) {
@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Exposes a metric registry over http, in the Prometheus text exposition format (version 0.0.4), which OpenMetrics
+ * scrapers also accept.<br>
+ * <br>
+ * Gauges and counters are written as is, meters as counters of their events. Histograms and timers are written as
+ * summaries with the quantiles of their reservoir, timers in seconds. The reservoir doesn't keep the sum of all the
+ * values, so the sum of a summary is estimated from the reservoir mean and the count. Metric names are sanitized, so
+ * {@code kvstore.stores.jobs.get} is exposed as {@code kvstore_stores_jobs_get}.
+ */
+public final class PrometheusReporter implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PrometheusReporter.class);
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  public static final String PATH = "/metrics";
+
+  private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.99};
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final MetricRegistry registry;
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private PrometheusReporter(MetricRegistry registry, HttpServer server, ExecutorService executor) {
+    this.registry = registry;
+    this.server = server;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts serving the metrics of a registry on {@value #PATH}.
+   *
+   * @param registry the registry to expose
+   * @param port the port to listen on, 0 to pick any free port
+   * @return the started reporter
+   * @throws IOException if the server can't listen on the port
+   */
+  public static PrometheusReporter start(final MetricRegistry registry, int port) throws IOException {
+    final HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+    // scrapes are infrequent, a single thread is enough
+    final ExecutorService executor = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setNameFormat("metrics-prometheus-%d").setDaemon(true).build());
+    server.setExecutor(executor);
+    server.createContext(PATH, new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        try {
+          final StringWriter writer = new StringWriter();
+          write(registry, writer);
+          final byte[] body = writer.toString().getBytes(UTF_8);
+          exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+          exchange.sendResponseHeaders(200, body.length);
+          try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+          }
+        } catch (RuntimeException e) {
+          logger.warn("Failure while writing metrics.", e);
+          exchange.sendResponseHeaders(500, -1);
+        } finally {
+          exchange.close();
+        }
+      }
+    });
+    server.start();
+    logger.info("Serving metrics on port {}.", server.getAddress().getPort());
+    return new PrometheusReporter(registry, server, executor);
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  public MetricRegistry getRegistry() {
+    return registry;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Writes all the metrics of a registry in the Prometheus text format.
+   */
+  public static void write(MetricRegistry registry, Writer writer) throws IOException {
+    for (Map.Entry<String, Gauge> entry : registry.getGauges().entrySet()) {
+      final Object value;
+      try {
+        value = entry.getValue().getValue();
+      } catch (RuntimeException e) {
+        // a failing gauge shouldn't fail the whole scrape
+        logger.debug("Failure while reading gauge {}.", entry.getKey(), e);
+        continue;
+      }
+      final double number;
+      if (value instanceof Number) {
+        number = ((Number) value).doubleValue();
+      } else if (value instanceof Boolean) {
+        number = ((Boolean) value) ? 1 : 0;
+      } else {
+        // only numeric values can be exposed
+        continue;
+      }
+      final String name = sanitize(entry.getKey());
+      writeType(writer, name, "gauge");
+      writeSample(writer, name, null, number);
+    }
+
+    for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+      // codahale counters can go down, they are gauges for prometheus
+      final String name = sanitize(entry.getKey());
+      writeType(writer, name, "gauge");
+      writeSample(writer, name, null, entry.getValue().getCount());
+    }
+
+    for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+      final String name = sanitize(entry.getKey()) + "_total";
+      writeType(writer, name, "counter");
+      writeSample(writer, name, null, entry.getValue().getCount());
+    }
+
+    for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()) {
+      final Histogram histogram = entry.getValue();
+      writeSummary(writer, sanitize(entry.getKey()), histogram.getSnapshot(), histogram.getCount(), 1);
+    }
+
+    for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+      final Timer timer = entry.getValue();
+      writeSummary(writer, sanitize(entry.getKey()) + "_seconds", timer.getSnapshot(), timer.getCount(),
+          NANOS_PER_SECOND);
+    }
+    writer.flush();
+  }
+
+  private static void writeSummary(Writer writer, String name, Snapshot snapshot, long count, double unit)
+      throws IOException {
+    writeType(writer, name, "summary");
+    for (double quantile : QUANTILES) {
+      writeSample(writer, name, Double.toString(quantile), snapshot.getValue(quantile) / unit);
+    }
+    writeSample(writer, name + "_sum", null, snapshot.getMean() * count / unit);
+    writeSample(writer, name + "_count", null, count);
+  }
+
+  private static void writeType(Writer writer, String name, String type) throws IOException {
+    writer.write("# TYPE ");
+    writer.write(name);
+    writer.write(' ');
+    writer.write(type);
+    writer.write('\n');
+  }
+
+  private static void writeSample(Writer writer, String name, String quantile, double value) throws IOException {
+    writer.write(name);
+    if (quantile != null) {
+      writer.write("{quantile=\"");
+      writer.write(quantile);
+      writer.write("\"}");
+    }
+    writer.write(' ');
+    writer.write(formatValue(value));
+    writer.write('\n');
+  }
+
+  private static String formatValue(double value) {
+    if (Double.isNaN(value)) {
+      return "NaN";
+    }
+    if (Double.isInfinite(value)) {
+      return value > 0 ? "+Inf" : "-Inf";
+    }
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      return Long.toString((long) value);
+    }
+    return Double.toString(value);
+  }
+
+  /**
+   * Converts a metric name into a valid prometheus name, matching {@code [a-zA-Z_:][a-zA-Z0-9_:]*}.
+   */
+  static String sanitize(String name) {
+    final StringBuilder sb = new StringBuilder(name.length() + 1);
+    for (int i = 0; i < name.length(); i++) {
+      final char c = name.charAt(i);
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':' || (c >= '0' && c <= '9')) {
+        sb.append(c);
+      } else {
+        sb.append('_');
+      }
+    }
+    if (sb.length() == 0 || Character.isDigit(sb.charAt(0))) {
+      sb.insert(0, '_');
+    }
+    return sb.toString();
+  }
+}
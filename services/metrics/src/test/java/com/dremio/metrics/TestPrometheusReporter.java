@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Tests for {@link PrometheusReporter}
+ */
+public class TestPrometheusReporter {
+
+  @Test
+  public void sanitize() {
+    assertEquals("kvstore_stores_jobs_get", PrometheusReporter.sanitize("kvstore.stores.jobs.get"));
+    assertEquals("_1st_metric", PrometheusReporter.sanitize("1st-metric"));
+  }
+
+  @Test
+  public void write() throws Exception {
+    final MetricRegistry registry = new MetricRegistry();
+    registry.register("memory.heap", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return 42L;
+      }
+    });
+    registry.register("status", new Gauge<String>() {
+      @Override
+      public String getValue() {
+        return "not a number";
+      }
+    });
+    registry.counter("jobs.active").inc(3);
+    registry.histogram("spill.bytes").update(100);
+    registry.timer("query.planning").update(2, TimeUnit.SECONDS);
+
+    final StringWriter writer = new StringWriter();
+    PrometheusReporter.write(registry, writer);
+    final String output = writer.toString();
+
+    assertTrue(output, output.contains("# TYPE memory_heap gauge\nmemory_heap 42\n"));
+    assertTrue(output, !output.contains("status"));
+    assertTrue(output, output.contains("jobs_active 3\n"));
+    assertTrue(output, output.contains("# TYPE spill_bytes summary\n"));
+    assertTrue(output, output.contains("spill_bytes{quantile=\"0.99\"} 100\n"));
+    assertTrue(output, output.contains("spill_bytes_sum 100\n"));
+    assertTrue(output, output.contains("spill_bytes_count 1\n"));
+    assertTrue(output, output.contains("query_planning_seconds{quantile=\"0.5\"} 2\n"));
+    assertTrue(output, output.contains("query_planning_seconds_sum 2\n"));
+    assertTrue(output, output.contains("query_planning_seconds_count 1\n"));
+  }
+}
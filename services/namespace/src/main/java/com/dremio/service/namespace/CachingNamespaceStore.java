@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.namespace;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dremio.common.config.SabotConfig;
+import com.dremio.datastore.IndexedStore;
+import com.dremio.datastore.KVAdmin;
+import com.dremio.datastore.RemoteIndexedStore;
+import com.dremio.datastore.SearchTypes.SearchQuery;
+import com.dremio.service.namespace.proto.NameSpaceContainer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Namespace store keeping the entries it reads in a bounded in-memory cache, keyed by namespace key. Planning a query
+ * looks up the same entries many times, and on coordinators other than the master each lookup is a remote call.
+ *
+ * Entries are invalidated when written through this store. Entries written by other nodes are not, so entries also
+ * expire after the configured TTL: a stale entry can only be read for that long, and writing it back fails on its
+ * outdated version, invalidating it. Searches are not cached.
+ *
+ * Only stores of coordinators other than the master are cached, see {@link #wrap}: the master store also receives the
+ * writes of the other coordinators, which don't go through this store, and must stay consistent.
+ */
+class CachingNamespaceStore implements IndexedStore<byte[], NameSpaceContainer> {
+
+  // maximum number of cached entries, 0 to disable the cache
+  static final String CACHE_SIZE_CONFIG = "dremio.namespace.cache.size";
+  static final String CACHE_TTL_CONFIG = "dremio.namespace.cache.ttl_ms";
+
+  private final IndexedStore<byte[], NameSpaceContainer> delegate;
+  private final NameSpaceContainerSerializer serializer = new NameSpaceContainerSerializer();
+  // entries are cached serialized, so that callers modifying the entries they get don't modify the cache
+  private final Cache<ByteBuffer, byte[]> cache;
+  // incremented before and after each write, a lookup racing with a write doesn't cache its result: a lookup seeing
+  // the counter unchanged did not overlap any write, as it would have seen at least the increment done after it
+  private final AtomicLong writes = new AtomicLong();
+
+  /**
+   * Caches a namespace store if the cache is enabled and the store is a remote one.
+   *
+   * @return the cached store, or the store itself
+   */
+  static IndexedStore<byte[], NameSpaceContainer> wrap(IndexedStore<byte[], NameSpaceContainer> delegate,
+      SabotConfig config) {
+    final long size = config.getLong(CACHE_SIZE_CONFIG);
+    if (size <= 0 || !(delegate instanceof RemoteIndexedStore)) {
+      return delegate;
+    }
+    return new CachingNamespaceStore(delegate, size, config.getLong(CACHE_TTL_CONFIG), Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  CachingNamespaceStore(IndexedStore<byte[], NameSpaceContainer> delegate, long size, long ttlMillis, Ticker ticker) {
+    this.delegate = delegate;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(size)
+        .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+        .ticker(ticker)
+        .build();
+  }
+
+  @Override
+  public NameSpaceContainer get(byte[] key) {
+    final byte[] cached = cache.getIfPresent(ByteBuffer.wrap(key));
+    if (cached != null) {
+      return serializer.revert(cached);
+    }
+
+    final long writesBefore = writes.get();
+    final NameSpaceContainer value = delegate.get(key);
+    cacheIfNoWrite(writesBefore, key, value);
+    return value;
+  }
+
+  @Override
+  public List<NameSpaceContainer> get(List<byte[]> keys) {
+    final List<NameSpaceContainer> values = new ArrayList<>(keys.size());
+    final List<byte[]> missingKeys = new ArrayList<>();
+    final List<Integer> missingIndexes = new ArrayList<>();
+    for (byte[] key : keys) {
+      final byte[] cached = cache.getIfPresent(ByteBuffer.wrap(key));
+      if (cached == null) {
+        missingKeys.add(key);
+        missingIndexes.add(values.size());
+      }
+      values.add(cached == null ? null : serializer.revert(cached));
+    }
+
+    if (!missingKeys.isEmpty()) {
+      final long writesBefore = writes.get();
+      final List<NameSpaceContainer> missingValues = delegate.get(missingKeys);
+      for (int i = 0; i < missingKeys.size(); i++) {
+        values.set(missingIndexes.get(i), missingValues.get(i));
+        cacheIfNoWrite(writesBefore, missingKeys.get(i), missingValues.get(i));
+      }
+    }
+    return values;
+  }
+
+  private void cacheIfNoWrite(long writesBefore, byte[] key, NameSpaceContainer value) {
+    // missing entries are not cached, they may be created by another node at any time
+    if (value != null && writes.get() == writesBefore) {
+      cache.put(ByteBuffer.wrap(key), serializer.convert(value));
+      // a write started since the check may have invalidated the key before the entry was cached
+      if (writes.get() != writesBefore) {
+        invalidate(key);
+      }
+    }
+  }
+
+  @Override
+  public boolean contains(byte[] key) {
+    return cache.getIfPresent(ByteBuffer.wrap(key)) != null || delegate.contains(key);
+  }
+
+  @Override
+  public void put(byte[] key, NameSpaceContainer v) {
+    writes.incrementAndGet();
+    try {
+      delegate.put(key, v);
+    } finally {
+      writes.incrementAndGet();
+      invalidate(key);
+    }
+  }
+
+  @Override
+  public boolean checkAndPut(byte[] key, NameSpaceContainer oldValue, NameSpaceContainer newValue) {
+    writes.incrementAndGet();
+    try {
+      return delegate.checkAndPut(key, oldValue, newValue);
+    } finally {
+      writes.incrementAndGet();
+      invalidate(key);
+    }
+  }
+
+  @Override
+  public void put(Map<byte[], NameSpaceContainer> entries) {
+    writes.incrementAndGet();
+    try {
+      delegate.put(entries);
+    } finally {
+      writes.incrementAndGet();
+      for (byte[] key : entries.keySet()) {
+        invalidate(key);
+      }
+    }
+  }
+
+  @Override
+  public void delete(byte[] key) {
+    writes.incrementAndGet();
+    try {
+      delegate.delete(key);
+    } finally {
+      writes.incrementAndGet();
+      invalidate(key);
+    }
+  }
+
+  @Override
+  public void delete(List<byte[]> keys) {
+    writes.incrementAndGet();
+    try {
+      delegate.delete(keys);
+    } finally {
+      writes.incrementAndGet();
+      for (byte[] key : keys) {
+        invalidate(key);
+      }
+    }
+  }
+
+  @Override
+  public boolean checkAndDelete(byte[] key, NameSpaceContainer value) {
+    writes.incrementAndGet();
+    try {
+      return delegate.checkAndDelete(key, value);
+    } finally {
+      writes.incrementAndGet();
+      invalidate(key);
+    }
+  }
+
+  @Override
+  public void delete(byte[] key, long previousVersion) {
+    writes.incrementAndGet();
+    try {
+      delegate.delete(key, previousVersion);
+    } finally {
+      writes.incrementAndGet();
+      invalidate(key);
+    }
+  }
+
+  private void invalidate(byte[] key) {
+    cache.invalidate(ByteBuffer.wrap(key));
+  }
+
+  @VisibleForTesting
+  long getCachedCount() {
+    return cache.size();
+  }
+
+  @Override
+  public Iterable<Entry<byte[], NameSpaceContainer>> find(FindByRange<byte[]> find) {
+    return delegate.find(find);
+  }
+
+  @Override
+  public Iterable<Entry<byte[], NameSpaceContainer>> find() {
+    return delegate.find();
+  }
+
+  @Override
+  public Iterable<Entry<byte[], NameSpaceContainer>> find(FindByCondition find) {
+    return delegate.find(find);
+  }
+
+  @Override
+  public List<Integer> getCounts(SearchQuery... conditions) {
+    return delegate.getCounts(conditions);
+  }
+
+  @Override
+  public KVAdmin getAdmin() {
+    return delegate.getAdmin();
+  }
+}
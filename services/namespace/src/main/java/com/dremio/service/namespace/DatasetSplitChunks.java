@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.namespace;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.dremio.datastore.KVStore;
+import com.dremio.datastore.ProtostuffSerializer;
+import com.dremio.datastore.Serializer;
+import com.dremio.service.namespace.dataset.proto.Affinity;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitColumns;
+import com.dremio.service.namespace.dataset.proto.PartitionValue;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+
+import io.protostuff.ByteString;
+
+/**
+ * Splits of a dataset version, stored in chunks of up to {@link #CHUNK_SIZE} splits. A chunk stores the fields of its
+ * splits column by column, with sizes, row counts and partition values in their own columns, and deflates them.
+ *
+ * Reading the splits of a dataset costs one store lookup per chunk instead of one per split, the split count is read
+ * from the first chunk, and a chunk is only loaded and decoded when the iteration reaches it. The occ version of the
+ * splits is not kept, as the splits are not versioned.
+ */
+public final class DatasetSplitChunks implements Iterable<DatasetSplit> {
+
+  static final int CHUNK_SIZE = 1000;
+
+  private static final Serializer<DatasetSplitColumns> COLUMNS_SERIALIZER =
+      ProtostuffSerializer.of(DatasetSplitColumns.getSchema());
+
+  private final KVStore<String, DatasetSplitChunk> store;
+  private final String datasetId;
+  private final long splitVersion;
+  private final DatasetSplitChunk first;
+
+  DatasetSplitChunks(KVStore<String, DatasetSplitChunk> store, String datasetId, long splitVersion,
+      DatasetSplitChunk first) {
+    this.store = store;
+    this.datasetId = datasetId;
+    this.splitVersion = splitVersion;
+    this.first = first;
+  }
+
+  /**
+   * @return the number of splits of the dataset version
+   */
+  public int getSplitCount() {
+    return first.getTotalSplitCount();
+  }
+
+  @Override
+  public Iterator<DatasetSplit> iterator() {
+    return new AbstractIterator<DatasetSplit>() {
+      private int chunk = 0;
+      private Iterator<DatasetSplit> splits = Collections.emptyIterator();
+
+      @Override
+      protected DatasetSplit computeNext() {
+        while (!splits.hasNext()) {
+          if (chunk == first.getChunkCount()) {
+            return endOfData();
+          }
+
+          final DatasetSplitChunk next = chunk == 0 ? first : store.get(getChunkKey(datasetId, splitVersion, chunk));
+          Preconditions.checkState(next != null, "Missing chunk %s of the splits of dataset %s, version %s",
+              chunk, datasetId, splitVersion);
+          splits = toSplits(next, splitVersion).iterator();
+          chunk++;
+        }
+        return splits.next();
+      }
+    };
+  }
+
+  /**
+   * Key of a chunk. It starts with the same prefix as the ids of the splits of the version, see {@link DatasetSplitId}.
+   */
+  static String getChunkKey(String datasetId, long splitVersion, int chunk) {
+    return String.format("%s_%d_%08d", datasetId, splitVersion, chunk);
+  }
+
+  /**
+   * Splits a list of splits into chunks. There is always at least one chunk, holding the split and chunk counts.
+   */
+  static List<DatasetSplitChunk> toChunks(List<DatasetSplit> splits) {
+    final List<DatasetSplitChunk> chunks = new ArrayList<>();
+    for (int start = 0; start < splits.size() || start == 0; start += CHUNK_SIZE) {
+      final List<DatasetSplit> chunkSplits = splits.subList(start, Math.min(splits.size(), start + CHUNK_SIZE));
+      chunks.add(new DatasetSplitChunk()
+          .setSplitCount(chunkSplits.size())
+          .setColumns(ByteString.copyFrom(deflate(COLUMNS_SERIALIZER.convert(toColumns(chunkSplits))))));
+    }
+
+    chunks.get(0)
+        .setTotalSplitCount(splits.size())
+        .setChunkCount(chunks.size());
+    return chunks;
+  }
+
+  private static DatasetSplitColumns toColumns(List<DatasetSplit> splits) {
+    final List<String> splitKeys = new ArrayList<>(splits.size());
+    final List<Long> sizes = new ArrayList<>(splits.size());
+    final List<Long> rowCounts = new ArrayList<>(splits.size());
+    final List<Integer> affinityCounts = new ArrayList<>(splits.size());
+    final List<Affinity> affinities = new ArrayList<>();
+    final List<Integer> partitionValueCounts = new ArrayList<>(splits.size());
+    final List<PartitionValue> partitionValues = new ArrayList<>();
+    final List<ByteString> extendedProperties = new ArrayList<>(splits.size());
+
+    for (DatasetSplit split : splits) {
+      splitKeys.add(split.getSplitKey());
+      sizes.add(split.getSize() == null ? -1 : split.getSize());
+      rowCounts.add(split.getRowCount() == null ? -1 : split.getRowCount());
+      final List<Affinity> splitAffinities = nullToEmpty(split.getAffinitiesList());
+      affinityCounts.add(splitAffinities.size());
+      affinities.addAll(splitAffinities);
+      final List<PartitionValue> splitPartitionValues = nullToEmpty(split.getPartitionValuesList());
+      partitionValueCounts.add(splitPartitionValues.size());
+      partitionValues.addAll(splitPartitionValues);
+      extendedProperties.add(split.getExtendedProperty() == null ? ByteString.EMPTY : split.getExtendedProperty());
+    }
+
+    return new DatasetSplitColumns()
+        .setSplitKeyList(splitKeys)
+        .setSizeList(sizes)
+        .setRowCountList(rowCounts)
+        .setAffinityCountList(affinityCounts)
+        .setAffinitiesList(affinities)
+        .setPartitionValueCountList(partitionValueCounts)
+        .setPartitionValuesList(partitionValues)
+        .setExtendedPropertyList(extendedProperties);
+  }
+
+  /**
+   * Decodes the splits of a chunk.
+   */
+  static List<DatasetSplit> toSplits(DatasetSplitChunk chunk, long splitVersion) {
+    final int splitCount = chunk.getSplitCount();
+    final DatasetSplitColumns columns = COLUMNS_SERIALIZER.revert(inflate(chunk.getColumns().toByteArray()));
+    final List<Affinity> affinities = nullToEmpty(columns.getAffinitiesList());
+    final List<PartitionValue> partitionValues = nullToEmpty(columns.getPartitionValuesList());
+
+    final List<DatasetSplit> splits = new ArrayList<>(splitCount);
+    int affinityOffset = 0;
+    int partitionValueOffset = 0;
+    for (int i = 0; i < splitCount; i++) {
+      final DatasetSplit split = new DatasetSplit()
+          .setSplitKey(columns.getSplitKeyList().get(i))
+          .setSplitVersion(splitVersion);
+
+      final long size = columns.getSizeList().get(i);
+      if (size != -1) {
+        split.setSize(size);
+      }
+      final long rowCount = columns.getRowCountList().get(i);
+      if (rowCount != -1) {
+        split.setRowCount(rowCount);
+      }
+
+      final int affinityCount = columns.getAffinityCountList().get(i);
+      if (affinityCount > 0) {
+        split.setAffinitiesList(
+            new ArrayList<>(affinities.subList(affinityOffset, affinityOffset + affinityCount)));
+        affinityOffset += affinityCount;
+      }
+      final int partitionValueCount = columns.getPartitionValueCountList().get(i);
+      if (partitionValueCount > 0) {
+        split.setPartitionValuesList(
+            new ArrayList<>(partitionValues.subList(partitionValueOffset, partitionValueOffset + partitionValueCount)));
+        partitionValueOffset += partitionValueCount;
+      }
+
+      final ByteString extendedProperty = columns.getExtendedPropertyList().get(i);
+      if (extendedProperty.size() > 0) {
+        split.setExtendedProperty(extendedProperty);
+      }
+      splits.add(split);
+    }
+    return splits;
+  }
+
+  private static <T> List<T> nullToEmpty(List<T> list) {
+    return list == null ? Collections.<T>emptyList() : list;
+  }
+
+  private static byte[] deflate(byte[] bytes) {
+    final Deflater deflater = new Deflater();
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      final ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 2 + 16);
+      final byte[] buffer = new byte[4096];
+      while (!deflater.finished()) {
+        output.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return output.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] bytes) {
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes);
+      final ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length * 4);
+      final byte[] buffer = new byte[4096];
+      while (!inflater.finished()) {
+        final int length = inflater.inflate(buffer);
+        if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalStateException("Truncated dataset split chunk");
+        }
+        output.write(buffer, 0, length);
+      }
+      return output.toByteArray();
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupted dataset split chunk", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -24,6 +24,7 @@ import com.dremio.datastore.KVStore.FindByRange;
 import com.dremio.datastore.SearchTypes.SearchQuery;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.proto.EntityId;
 import com.dremio.service.namespace.proto.NameSpaceContainer;
 import com.dremio.service.namespace.proto.NameSpaceContainer.Type;
 import com.dremio.service.namespace.source.proto.SourceConfig;
@@ -191,6 +192,14 @@ public interface NamespaceService {
    */
   int getSplitCount(FindByCondition condition);
 
+  /**
+   * Get the splits of a dataset version from their compact chunks, see {@link DatasetSplitChunks}.
+   * @param datasetId id of the dataset
+   * @param splitVersion split version of the dataset
+   * @return the splits, or null if the splits of this version are not stored in chunks
+   */
+  DatasetSplitChunks getSplitChunks(EntityId datasetId, long splitVersion);
+
 
   /**
    * Delete any orphaned splits from the Namespace.
@@ -34,6 +34,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -46,9 +47,11 @@ import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import com.dremio.common.config.SabotConfig;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.datastore.IndexedStore;
 import com.dremio.datastore.IndexedStore.FindByCondition;
+import com.dremio.datastore.KVStore;
 import com.dremio.datastore.KVStore.FindByRange;
 import com.dremio.datastore.KVStoreProvider;
 import com.dremio.datastore.PassThroughSerializer;
@@ -56,11 +59,14 @@ import com.dremio.datastore.SearchQueryUtils;
 import com.dremio.datastore.SearchTypes.SearchQuery;
 import com.dremio.datastore.StoreBuildingFactory;
 import com.dremio.datastore.StoreCreationFunction;
+import com.dremio.datastore.StringSerializer;
 import com.dremio.datastore.indexed.IndexKey;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
 import com.dremio.service.namespace.dataset.proto.DatasetType;
 import com.dremio.service.namespace.dataset.proto.PhysicalDataset;
+import com.dremio.service.namespace.proto.EntityId;
 import com.dremio.service.namespace.proto.NameSpaceContainer;
 import com.dremio.service.namespace.proto.NameSpaceContainer.Type;
 import com.dremio.service.namespace.source.proto.SourceConfig;
@@ -85,9 +91,11 @@ public class NamespaceServiceImpl implements NamespaceService {
 
   public static final String DAC_NAMESPACE = "dac-namespace";
   public static final String DATASET_SPLITS = "metadata-dataset-splits";
+  public static final String DATASET_SPLIT_CHUNKS = "metadata-dataset-split-chunks";
 
   private final IndexedStore<byte[], NameSpaceContainer> namespace;
   private final IndexedStore<DatasetSplitId, DatasetSplit> splitsStore;
+  private final KVStore<String, DatasetSplitChunk> splitChunksStore;
   private final boolean keyNormalization;
 
   /**
@@ -116,22 +124,24 @@ public class NamespaceServiceImpl implements NamespaceService {
   protected NamespaceServiceImpl(final KVStoreProvider kvStoreProvider, boolean keyNormalization) {
     this.namespace = kvStoreProvider.getStore(NamespaceStoreCreator.class);
     this.splitsStore = kvStoreProvider.getStore(DatasetSplitCreator.class);
+    this.splitChunksStore = kvStoreProvider.getStore(DatasetSplitChunkCreator.class);
     this.keyNormalization = keyNormalization;
   }
 
   /**
-   * Creator for name space kvstore.
+   * Creator for name space kvstore. Entries may be cached on coordinators other than the master, see
+   * {@link CachingNamespaceStore}.
    */
   public static class NamespaceStoreCreator implements StoreCreationFunction<IndexedStore<byte[], NameSpaceContainer>> {
 
     @Override
     public IndexedStore<byte[], NameSpaceContainer> build(StoreBuildingFactory factory) {
-      return factory.<byte[], NameSpaceContainer>newStore()
+      return CachingNamespaceStore.wrap(factory.<byte[], NameSpaceContainer>newStore()
         .name(DAC_NAMESPACE)
         .keySerializer(PassThroughSerializer.class)
         .valueSerializer(NameSpaceContainerSerializer.class)
         .versionExtractor(NameSpaceContainerVersionExtractor.class)
-        .buildIndexed(NamespaceConverter.class);
+        .buildIndexed(NamespaceConverter.class), SabotConfig.create());
     }
 
   }
@@ -151,6 +161,22 @@ public class NamespaceServiceImpl implements NamespaceService {
     }
   }
 
+  /**
+   * KVStore creator for split chunks table. Splits are also stored in chunks, as the splits table is needed to search
+   * splits by partition values but is slow to read when a dataset has many splits.
+   */
+  public static class DatasetSplitChunkCreator implements StoreCreationFunction<KVStore<String, DatasetSplitChunk>> {
+
+    @Override
+    public KVStore<String, DatasetSplitChunk> build(StoreBuildingFactory factory) {
+      return factory.<String, DatasetSplitChunk>newStore()
+        .name(DATASET_SPLIT_CHUNKS)
+        .keySerializer(StringSerializer.class)
+        .valueSerializer(DatasetSplitChunkSerializer.class)
+        .build();
+    }
+  }
+
   /**
    * Helper class for finding split orphans.
    */
@@ -173,12 +199,14 @@ public class NamespaceServiceImpl implements NamespaceService {
   @Override
   public int deleteSplitOrphans() {
     final List<SplitRange> ranges = new ArrayList<>();
+    final Map<String, Long> splitVersions = new HashMap<>();
 
     int itemsDeleted = 0;
     for(Map.Entry<byte[], NameSpaceContainer> entry : namespace.find()) {
       NameSpaceContainer container = entry.getValue();
       if(container.getType() == Type.DATASET && container.getDataset().getReadDefinition() != null && container.getDataset().getReadDefinition().getSplitVersion() != null) {
         ranges.add(new SplitRange(DatasetSplitId.getSplitStringRange(container.getDataset())));
+        splitVersions.put(container.getDataset().getId().getId(), container.getDataset().getReadDefinition().getSplitVersion());
       }
     }
 
@@ -197,6 +225,15 @@ public class NamespaceServiceImpl implements NamespaceService {
         itemsDeleted++;
       }
     }
+
+    // chunks of split versions no longer referenced by their dataset
+    for(Map.Entry<String, DatasetSplitChunk> e : splitChunksStore.find()) {
+      final String[] ids = e.getKey().split("_", 3);
+      final Long splitVersion = splitVersions.get(ids[0]);
+      if(splitVersion == null || splitVersion != Long.parseLong(ids[1])) {
+        splitChunksStore.delete(e.getKey());
+      }
+    }
     return itemsDeleted;
   }
 
@@ -378,6 +415,11 @@ public class NamespaceServiceImpl implements NamespaceService {
 
     if (dataset.getReadDefinition() != null && dataset.getReadDefinition().getSplitVersion() != null &&
       !compareSplits(dataset, splits, splitsStore.find(DatasetSplitId.getSplitsRange(dataset)))) {
+      final long splitVersion = dataset.getReadDefinition().getSplitVersion();
+      // splits stored before split chunks existed
+      if (!splitChunksStore.contains(DatasetSplitChunks.getChunkKey(dataset.getId().getId(), splitVersion, 0))) {
+        putSplitChunks(dataset.getId(), splitVersion, splits);
+      }
       addOrUpdateDataset(datasetPath, dataset, attributes);
       return;
     }
@@ -391,6 +433,7 @@ public class NamespaceServiceImpl implements NamespaceService {
       splitsStore.put(splitId, split);
       splitIds.add(splitId);
     }
+    putSplitChunks(dataset.getId(), nextSplitVersion, splits);
     dataset.getReadDefinition().setSplitVersion(nextSplitVersion);
     while (true) {
       try {
@@ -405,6 +448,7 @@ public class NamespaceServiceImpl implements NamespaceService {
           // could end up delete the splits of the existing dataset (see DX-12232)
           existingDatasetConfig.getReadDefinition().getSplitVersion() > nextSplitVersion) {
           deleteSplits(splitIds);
+          deleteSplitChunks(dataset.getId(), nextSplitVersion);
           break;
         }
         // try again if read definition is not set or splits are not up-to-date.
@@ -420,6 +464,24 @@ public class NamespaceServiceImpl implements NamespaceService {
     }
   }
 
+  private void putSplitChunks(EntityId datasetId, long splitVersion, List<DatasetSplit> splits) {
+    final List<DatasetSplitChunk> chunks = DatasetSplitChunks.toChunks(splits);
+    // write the first chunk last, so that readers never see a partially written version
+    for (int i = chunks.size() - 1; i >= 0; i--) {
+      splitChunksStore.put(DatasetSplitChunks.getChunkKey(datasetId.getId(), splitVersion, i), chunks.get(i));
+    }
+  }
+
+  private void deleteSplitChunks(EntityId datasetId, long splitVersion) {
+    final DatasetSplitChunk first = splitChunksStore.get(DatasetSplitChunks.getChunkKey(datasetId.getId(), splitVersion, 0));
+    if (first == null) {
+      return;
+    }
+    for (int i = 0; i < first.getChunkCount(); i++) {
+      splitChunksStore.delete(DatasetSplitChunks.getChunkKey(datasetId.getId(), splitVersion, i));
+    }
+  }
+
   @Override
   public void addOrUpdateFolder(NamespaceKey folderPath, FolderConfig folderConfig,  NamespaceAttribute... attributes) throws NamespaceException {
     createOrUpdateEntity(NamespaceEntity.toEntity(FOLDER, folderPath, folderConfig, keyNormalization), attributes);
@@ -1064,6 +1126,15 @@ public class NamespaceServiceImpl implements NamespaceService {
     return splitsStore.getCounts(condition.getCondition()).get(0);
   }
 
+  @Override
+  public DatasetSplitChunks getSplitChunks(EntityId datasetId, long splitVersion) {
+    final DatasetSplitChunk first = splitChunksStore.get(DatasetSplitChunks.getChunkKey(datasetId.getId(), splitVersion, 0));
+    if (first == null) {
+      return null;
+    }
+    return new DatasetSplitChunks(splitChunksStore, datasetId.getId(), splitVersion, first);
+  }
+
   @Override
   public String dumpSplits() {
     try {
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.namespace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.dremio.common.config.SabotConfig;
+import com.dremio.datastore.IndexedStore;
+import com.dremio.datastore.RemoteIndexedStore;
+import com.dremio.service.namespace.proto.NameSpaceContainer;
+import com.dremio.service.namespace.proto.NameSpaceContainer.Type;
+import com.google.common.base.Ticker;
+import com.typesafe.config.ConfigValueFactory;
+
+/**
+ * Test for the namespace store cache
+ */
+public class TestCachingNamespaceStore {
+  private static final byte[] KEY1 = "a.b".getBytes();
+  private static final byte[] KEY2 = "a.c".getBytes();
+  private static final byte[] MISSING = "a.d".getBytes();
+
+  private final FakeTicker ticker = new FakeTicker();
+  private IndexedStore<byte[], NameSpaceContainer> delegate;
+  private CachingNamespaceStore store;
+
+  /**
+   * Ticker advanced manually
+   */
+  private static final class FakeTicker extends Ticker {
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+
+  private static NameSpaceContainer container(String... path) {
+    return new NameSpaceContainer()
+      .setType(Type.FOLDER)
+      .setFullPathList(Arrays.asList(path));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Before
+  public void setup() {
+    delegate = mock(IndexedStore.class);
+    when(delegate.get(KEY1)).thenReturn(container("a", "b"));
+    when(delegate.get(KEY2)).thenReturn(container("a", "c"));
+    store = new CachingNamespaceStore(delegate, 100, 1000, ticker);
+  }
+
+  @Test
+  public void testCachedGet() {
+    final NameSpaceContainer first = store.get(KEY1);
+    // modifying an entry doesn't modify the cache
+    first.setFullPathList(Arrays.asList("x"));
+
+    final NameSpaceContainer second = store.get(KEY1);
+    assertNotSame(first, second);
+    assertEquals(Arrays.asList("a", "b"), second.getFullPathList());
+    verify(delegate, times(1)).get(KEY1);
+  }
+
+  @Test
+  public void testMissingNotCached() {
+    assertNull(store.get(MISSING));
+    assertNull(store.get(MISSING));
+    verify(delegate, times(2)).get(MISSING);
+    assertEquals(0, store.getCachedCount());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testBatchGet() {
+    store.get(KEY1);
+    when(delegate.get(any(List.class))).thenReturn(Arrays.asList(container("a", "c"), null));
+
+    final List<NameSpaceContainer> values = store.get(Arrays.asList(KEY1, KEY2, MISSING));
+    assertEquals(Arrays.asList("a", "b"), values.get(0).getFullPathList());
+    assertEquals(Arrays.asList("a", "c"), values.get(1).getFullPathList());
+    assertNull(values.get(2));
+    // only the entries not cached are looked up
+    verify(delegate).get(Arrays.asList(KEY2, MISSING));
+    assertEquals(2, store.getCachedCount());
+  }
+
+  @Test
+  public void testWriteInvalidates() {
+    store.get(KEY1);
+    store.put(KEY1, container("a", "b"));
+    store.get(KEY1);
+    verify(delegate, times(2)).get(KEY1);
+
+    store.delete(KEY1, 1L);
+    store.get(KEY1);
+    verify(delegate, times(3)).get(KEY1);
+  }
+
+  @Test
+  public void testReadRacingWithWrite() {
+    // the entry is written while being looked up, the lookup returns the value before the write
+    when(delegate.get(KEY1)).thenAnswer(new Answer<NameSpaceContainer>() {
+      @Override
+      public NameSpaceContainer answer(InvocationOnMock invocation) {
+        store.put(KEY1, container("a", "b", "new"));
+        return container("a", "b");
+      }
+    });
+    assertEquals(Arrays.asList("a", "b"), store.get(KEY1).getFullPathList());
+    assertEquals(0, store.getCachedCount());
+
+    when(delegate.get(KEY1)).thenReturn(container("a", "b", "new"));
+    assertEquals(Arrays.asList("a", "b", "new"), store.get(KEY1).getFullPathList());
+    assertEquals(1, store.getCachedCount());
+  }
+
+  @Test
+  public void testExpiry() {
+    store.get(KEY1);
+    ticker.nanos += TimeUnit.MILLISECONDS.toNanos(999);
+    store.get(KEY1);
+    verify(delegate, times(1)).get(KEY1);
+
+    ticker.nanos += TimeUnit.MILLISECONDS.toNanos(1);
+    store.get(KEY1);
+    verify(delegate, times(2)).get(KEY1);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testWrap() {
+    final IndexedStore<byte[], NameSpaceContainer> remote = mock(RemoteIndexedStore.class);
+    final SabotConfig disabled = SabotConfig.create();
+    assertSame(remote, CachingNamespaceStore.wrap(remote, disabled));
+
+    final SabotConfig enabled = disabled.withValue(CachingNamespaceStore.CACHE_SIZE_CONFIG,
+      ConfigValueFactory.fromAnyRef(100));
+    assertTrue(CachingNamespaceStore.wrap(remote, enabled) instanceof CachingNamespaceStore);
+    // the master store also gets writes from other coordinators, it is never cached
+    assertSame(delegate, CachingNamespaceStore.wrap(delegate, enabled));
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.namespace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dremio.service.namespace.dataset.proto.Affinity;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
+import com.dremio.service.namespace.dataset.proto.PartitionValue;
+import com.dremio.service.namespace.dataset.proto.PartitionValueType;
+import com.google.common.collect.Lists;
+
+import io.protostuff.ByteString;
+
+/**
+ * Test for dataset split chunks
+ */
+public class TestDatasetSplitChunks {
+
+  private static List<DatasetSplit> splits(int count) {
+    final List<DatasetSplit> splits = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final DatasetSplit split = new DatasetSplit()
+        .setSplitKey("split" + i)
+        .setSplitVersion(1L);
+      // leave some fields unset on every other split
+      if (i % 2 == 0) {
+        split
+          .setRowCount((long) i)
+          .setSize(i * 10L)
+          .setAffinitiesList(Lists.newArrayList(new Affinity().setHost("node" + i).setFactor(1.0),
+            new Affinity().setHost("node" + (i + 1)).setFactor(0.5)))
+          .setPartitionValuesList(Lists.newArrayList(
+            new PartitionValue().setColumn("dir0").setStringValue("p" + i).setType(PartitionValueType.IMPLICIT)))
+          .setExtendedProperty(ByteString.copyFromUtf8("xattr" + i));
+      }
+      splits.add(split);
+    }
+    return splits;
+  }
+
+  private static List<DatasetSplit> roundTrip(List<DatasetSplit> splits) {
+    final List<DatasetSplit> decoded = new ArrayList<>();
+    for (DatasetSplitChunk chunk : DatasetSplitChunks.toChunks(splits)) {
+      decoded.addAll(DatasetSplitChunks.toSplits(chunk, 1L));
+    }
+    return decoded;
+  }
+
+  @Test
+  public void testRoundTrip() {
+    final List<DatasetSplit> splits = splits(2 * DatasetSplitChunks.CHUNK_SIZE + 7);
+    final List<DatasetSplitChunk> chunks = DatasetSplitChunks.toChunks(splits);
+
+    assertEquals(3, chunks.size());
+    assertEquals(splits.size(), (int) chunks.get(0).getTotalSplitCount());
+    assertEquals(3, (int) chunks.get(0).getChunkCount());
+    assertNull(chunks.get(1).getTotalSplitCount());
+    assertEquals(7, (int) chunks.get(2).getSplitCount());
+
+    assertEquals(splits, roundTrip(splits));
+  }
+
+  @Test
+  public void testEmpty() {
+    final List<DatasetSplitChunk> chunks = DatasetSplitChunks.toChunks(new ArrayList<DatasetSplit>());
+
+    assertEquals(1, chunks.size());
+    assertEquals(0, (int) chunks.get(0).getTotalSplitCount());
+    assertEquals(0, roundTrip(new ArrayList<DatasetSplit>()).size());
+  }
+
+  @Test
+  public void testChunkKey() {
+    // chunk keys share the prefix of the split ids of the version
+    assertEquals("ds1_12_00000003", DatasetSplitChunks.getChunkKey("ds1", 12L, 3));
+  }
+}
@@ -833,6 +833,18 @@ public class TestNamespaceService {
       assertTrue(newSplitVersion > lastSplitVersion);
       lastSplitVersion = newSplitVersion;
 
+      // splits are also stored in chunks
+      final DatasetSplitChunks splitChunks = ns.getSplitChunks(datasetConfig.getId(), newSplitVersion);
+      assertEquals(10, splitChunks.getSplitCount());
+      int i = 0;
+      for (DatasetSplit split : splitChunks) {
+        assertEquals(String.valueOf(i), split.getSplitKey());
+        assertEquals(newSplitVersion, split.getSplitVersion());
+        assertEquals("column" + i, split.getPartitionValuesList().get(0).getColumn());
+        i++;
+      }
+      assertEquals(10, i);
+
       // insert same splits again and make sure version does't change
       ns.addOrUpdateDataset(new NamespaceKey(datasetConfig.getFullPathList()), datasetConfig, splits);
       assertEquals(10, ns.getSplitCount(new IndexedStore.FindByCondition().setCondition(DatasetSplitId.getSplitsQuery(datasetConfig))));